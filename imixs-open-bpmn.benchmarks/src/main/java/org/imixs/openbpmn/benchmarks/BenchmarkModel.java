@@ -0,0 +1,135 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.imixs.openbpmn.util.ImixsModelGenerator;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The BenchmarkModel is the shared JMH state of all Imixs benchmarks. It
+ * generates a seeded Imixs model of the given size into a temp file with the
+ * {@link ImixsModelGenerator} and loads it with the {@link BPMNModelFactory}.
+ * <p>
+ * Supported sizes are:
+ * <ul>
+ * <li>small - 1 process, 10 tasks, 2 events per task, 3 actors
+ * <li>medium - 4 processes, 100 tasks, 3 events per task, 12 actors
+ * <li>large - 20 processes, 500 tasks, 4 events per task, 48 actors
+ * </ul>
+ * The large model contains about 50.000 BPMN elements including the sequence
+ * flows.
+ *
+ * @author rsoika
+ *
+ */
+@State(Scope.Benchmark)
+public class BenchmarkModel {
+
+    public static final long SEED = 42;
+
+    @Param({ "small", "medium", "large" })
+    public String size;
+
+    public BPMNModel model;
+    public Path modelPath;
+    public BPMNElementNode[] tasks;
+    public BPMNElementNode[] events;
+    public String[] actors;
+
+    private int taskCursor = 0;
+    private int eventCursor = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, BPMNModelException {
+        int processes, tasksPerProcess, eventsPerTask, actorCount;
+        switch (size) {
+        case "medium":
+            processes = 4;
+            tasksPerProcess = 100;
+            eventsPerTask = 3;
+            actorCount = 12;
+            break;
+        case "large":
+            processes = 20;
+            tasksPerProcess = 500;
+            eventsPerTask = 4;
+            actorCount = 48;
+            break;
+        default:
+            processes = 1;
+            tasksPerProcess = 10;
+            eventsPerTask = 2;
+            actorCount = 3;
+        }
+
+        modelPath = Files.createTempFile("imixs-benchmark-" + size + "-", ".bpmn");
+        new ImixsModelGenerator(SEED).processes(processes).tasksPerProcess(tasksPerProcess)
+                .eventsPerTask(eventsPerTask).actors(actorCount).aclItems(2).generate(modelPath);
+        try (InputStream in = Files.newInputStream(modelPath)) {
+            model = BPMNModelFactory.read(in);
+        }
+        tasks = model.findAllActivities().toArray(new BPMNElementNode[0]);
+        events = model.findAllEvents().stream()
+                .filter(e -> e.hasAttribute("imixs:activityid"))
+                .toArray(BPMNElementNode[]::new);
+        actors = new String[actorCount];
+        for (int i = 0; i < actorCount; i++) {
+            actors[i] = ImixsModelGenerator.getActorItem(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(modelPath);
+    }
+
+    /**
+     * Returns the next task element in a round robin manner
+     */
+    public BPMNElementNode nextTask() {
+        taskCursor = (taskCursor + 1) % tasks.length;
+        return tasks[taskCursor];
+    }
+
+    /**
+     * Returns the next Imixs event element in a round robin manner
+     */
+    public BPMNElementNode nextEvent() {
+        eventCursor = (eventCursor + 1) % events.length;
+        return events[eventCursor];
+    }
+
+    /**
+     * Returns the next actor item name in a round robin manner
+     */
+    public String nextActor() {
+        return actors[(taskCursor + eventCursor) % actors.length];
+    }
+}
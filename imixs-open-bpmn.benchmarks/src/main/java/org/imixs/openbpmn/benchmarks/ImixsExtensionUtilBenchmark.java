@@ -0,0 +1,72 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the imixs:item read and write methods of the
+ * {@link ImixsExtensionUtil}.
+ *
+ * @author rsoika
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImixsExtensionUtilBenchmark {
+
+    @Benchmark
+    public String getItemValueString(BenchmarkModel state) {
+        BPMNElementNode task = state.nextTask();
+        return ImixsExtensionUtil.getItemValueString(state.model, task.getElementNode(), "txtworkflowsummary");
+    }
+
+    @Benchmark
+    public List<String> getItemValueList(BenchmarkModel state) {
+        BPMNElementNode event = state.nextEvent();
+        return ImixsExtensionUtil.getItemValueList(state.model, event.getElementNode(), "keyaddreadfields",
+                Arrays.asList(state.actors));
+    }
+
+    @Benchmark
+    public void setItemValue(BenchmarkModel state) {
+        BPMNElementNode task = state.nextTask();
+        ImixsExtensionUtil.setItemValue(state.model, task.getElementNode(), "txtworkflowsummary", "xs:string",
+                "Summary of task " + task.getId());
+    }
+
+    @Benchmark
+    public void setItemValueList(BenchmarkModel state) {
+        BPMNElementNode event = state.nextEvent();
+        ImixsExtensionUtil.setItemValueList(state.model, event.getElementNode(), "keyaddwritefields", "xs:string",
+                Arrays.asList(state.nextActor(), state.actors[0]), Arrays.asList(state.actors));
+    }
+}
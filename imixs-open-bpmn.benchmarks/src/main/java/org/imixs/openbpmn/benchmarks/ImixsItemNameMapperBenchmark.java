@@ -0,0 +1,72 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.openbpmn.extensions.ImixsItemNameMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the construction of the {@link ImixsItemNameMapper} and the label
+ * and value lookups.
+ *
+ * @author rsoika
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImixsItemNameMapperBenchmark {
+
+    @State(Scope.Thread)
+    public static class MapperState {
+        ImixsItemNameMapper mapper;
+
+        @Setup(Level.Trial)
+        public void setup(BenchmarkModel state) {
+            mapper = new ImixsItemNameMapper(state.model, "txtfieldmapping");
+        }
+    }
+
+    @Benchmark
+    public ImixsItemNameMapper construct(BenchmarkModel state) {
+        return new ImixsItemNameMapper(state.model, "txtfieldmapping");
+    }
+
+    @Benchmark
+    public String resolveLabel(BenchmarkModel state, MapperState mapperState) {
+        return mapperState.mapper.resolveLabel(state.nextActor());
+    }
+
+    @Benchmark
+    public String resolveValue(BenchmarkModel state, MapperState mapperState) {
+        String actor = state.nextActor();
+        return mapperState.mapper.resolveValue("Actor " + actor.substring("namactor".length()));
+    }
+}
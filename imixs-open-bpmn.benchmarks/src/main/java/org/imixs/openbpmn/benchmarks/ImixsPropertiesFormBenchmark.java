@@ -0,0 +1,137 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.openbpmn.extensions.ImixsBPMNDefinitionsExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNEventACLExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNEventExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNEventHistoryExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNEventMailExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNEventReportExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNEventRuleExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNEventSchedulerExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNTaskACLExtension;
+import org.imixs.openbpmn.extensions.ImixsBPMNTaskExtension;
+import org.openbpmn.bpmn.elements.core.BPMNElement;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.extensions.BPMNElementExtension;
+import org.openbpmn.glsp.jsonforms.DataBuilder;
+import org.openbpmn.glsp.jsonforms.SchemaBuilder;
+import org.openbpmn.glsp.jsonforms.UISchemaBuilder;
+import org.openbpmn.glsp.jsonforms.UISchemaBuilder.Layout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the method {@code buildPropertiesForm} of each Imixs element
+ * extension. The DataObject extension is not part of the benchmark as it does
+ * not provide properties.
+ *
+ * @author rsoika
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImixsPropertiesFormBenchmark {
+
+    @State(Scope.Thread)
+    public static class ExtensionState {
+
+        @Param({ "definitions", "task", "taskacl", "event", "eventhistory", "eventrule", "eventscheduler",
+                "eventacl", "eventmail", "eventreport" })
+        public String extension;
+
+        BPMNElementExtension bpmnExtension;
+        BPMNElement definitionsElement;
+
+        @Setup(Level.Trial)
+        public void setup(BenchmarkModel state) throws BPMNModelException {
+            switch (extension) {
+            case "definitions":
+                bpmnExtension = new ImixsBPMNDefinitionsExtension();
+                break;
+            case "task":
+                bpmnExtension = new ImixsBPMNTaskExtension();
+                break;
+            case "taskacl":
+                bpmnExtension = new ImixsBPMNTaskACLExtension();
+                break;
+            case "event":
+                bpmnExtension = new ImixsBPMNEventExtension();
+                break;
+            case "eventhistory":
+                bpmnExtension = new ImixsBPMNEventHistoryExtension();
+                break;
+            case "eventrule":
+                bpmnExtension = new ImixsBPMNEventRuleExtension();
+                break;
+            case "eventscheduler":
+                bpmnExtension = new ImixsBPMNEventSchedulerExtension();
+                break;
+            case "eventacl":
+                bpmnExtension = new ImixsBPMNEventACLExtension();
+                break;
+            case "eventmail":
+                bpmnExtension = new ImixsBPMNEventMailExtension();
+                break;
+            case "eventreport":
+                bpmnExtension = new ImixsBPMNEventReportExtension();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported extension '" + extension + "'");
+            }
+            definitionsElement = state.model.openDefaultProcess();
+        }
+
+        BPMNElement nextElement(BenchmarkModel state) {
+            if ("definitions".equals(extension)) {
+                return definitionsElement;
+            }
+            if (extension.startsWith("task")) {
+                return state.nextTask();
+            }
+            return state.nextEvent();
+        }
+    }
+
+    @Benchmark
+    public void buildPropertiesForm(BenchmarkModel state, ExtensionState extensionState, Blackhole blackhole) {
+        DataBuilder dataBuilder = new DataBuilder();
+        SchemaBuilder schemaBuilder = new SchemaBuilder();
+        UISchemaBuilder uiSchemaBuilder = new UISchemaBuilder(Layout.CATEGORIZATION);
+        extensionState.bpmnExtension.buildPropertiesForm(extensionState.nextElement(state), dataBuilder,
+                schemaBuilder, uiSchemaBuilder);
+        blackhole.consume(dataBuilder);
+        blackhole.consume(schemaBuilder);
+        blackhole.consume(uiSchemaBuilder);
+    }
+}
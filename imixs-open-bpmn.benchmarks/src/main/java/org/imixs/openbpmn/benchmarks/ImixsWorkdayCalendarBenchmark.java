@@ -0,0 +1,84 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.openbpmn.scheduler.ImixsWorkdayCalendar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the due date computation of the {@link ImixsWorkdayCalendar} for
+ * random base dates and workday delays.
+ *
+ * @author rsoika
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImixsWorkdayCalendarBenchmark {
+
+    @State(Scope.Thread)
+    public static class CalendarState {
+        ImixsWorkdayCalendar calendar;
+        LocalDateTime[] dates = new LocalDateTime[1024];
+        int[] delays = new int[1024];
+        int cursor = 0;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            calendar = new ImixsWorkdayCalendar();
+            Random random = new Random(BenchmarkModel.SEED);
+            LocalDateTime base = LocalDateTime.of(2026, 1, 1, 8, 0);
+            for (int i = 0; i < dates.length; i++) {
+                dates[i] = base.plusMinutes(random.nextInt(3 * 365 * 24 * 60));
+                delays[i] = random.nextInt(120);
+            }
+        }
+
+        int next() {
+            cursor = (cursor + 1) & (dates.length - 1);
+            return cursor;
+        }
+    }
+
+    @Benchmark
+    public LocalDateTime addWorkdays(CalendarState state) {
+        int i = state.next();
+        return state.calendar.getDueDate(state.dates[i], state.delays[i], ImixsWorkdayCalendar.UNIT_WORKDAYS);
+    }
+
+    @Benchmark
+    public LocalDateTime subtractWorkdays(CalendarState state) {
+        int i = state.next();
+        return state.calendar.getDueDate(state.dates[i], -state.delays[i], ImixsWorkdayCalendar.UNIT_WORKDAYS);
+    }
+}
@@ -15,42 +15,89 @@
  ********************************************************************************/
 package org.imixs.openbpmn;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
+import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.eclipse.glsp.server.di.ServerModule;
 import org.eclipse.glsp.server.launch.DefaultCLIParser;
 import org.eclipse.glsp.server.launch.GLSPServerLauncher;
 import org.eclipse.glsp.server.launch.SocketGLSPServerLauncher;
 import org.eclipse.glsp.server.utils.LaunchUtil;
+import org.imixs.openbpmn.monitoring.ImixsMetricsServer;
+import org.imixs.openbpmn.monitoring.ImixsMonitoringModule;
+import org.imixs.openbpmn.monitoring.ImixsProfilingInterceptor;
 import org.openbpmn.glsp.launch.BPMNServerLauncher;
 
+import com.google.inject.Module;
+
 public final class ImixsBPMNServerLauncher {
     private static Logger logger = Logger.getLogger(BPMNServerLauncher.class.getName());
 
+    public static final String OPTION_METRICS_PORT = "metricsPort";
+    public static final String OPTION_PROFILE_THRESHOLD = "profileThreshold";
+    public static final String OPTION_PROFILE_SAMPLE_RATE = "profileSampleRate";
+
     private ImixsBPMNServerLauncher() {
     }
 
     public static void main(final String[] args) {
         String processName = "ImixsOpenBPMNServer";
+        Options options = getOptions();
         try {
             logger.info("***************************");
             logger.info("* Launch " + processName);
             logger.info("***************************");
 
-            DefaultCLIParser parser = new DefaultCLIParser(args, processName);
+            DefaultCLIParser parser = new DefaultCLIParser(args, options, processName);
             LaunchUtil.configure(parser);
 
             int port = parser.parsePort();
+            int metricsPort = parser.parseIntOption(OPTION_METRICS_PORT, 0);
+            if (metricsPort > 0) {
+                try {
+                    new ImixsMetricsServer(metricsPort).start();
+                } catch (IOException e) {
+                    logger.warning("Failed to start metrics endpoint on port " + metricsPort + ": " + e.getMessage());
+                }
+            }
             ServerModule bpmnServerModule = new ServerModule()
                     .configureDiagramModule(new ImixsBPMNDiagramModule());
 
-            GLSPServerLauncher launcher = new SocketGLSPServerLauncher(bpmnServerModule);
+            // the monitoring module records JFR events and metrics for all extensions
+            List<Module> additionalModules = new ArrayList<>();
+            ImixsProfilingInterceptor profiler = null;
+            int profileThreshold = parser.parseIntOption(OPTION_PROFILE_THRESHOLD, 0);
+            if (profileThreshold > 0) {
+                logger.info("├── Extension profiling enabled - threshold=" + profileThreshold + "ms");
+                profiler = new ImixsProfilingInterceptor(profileThreshold,
+                        parser.parseIntOption(OPTION_PROFILE_SAMPLE_RATE, 10));
+            }
+            additionalModules.add(new ImixsMonitoringModule(profiler));
+            GLSPServerLauncher launcher = new SocketGLSPServerLauncher(bpmnServerModule,
+                    additionalModules.toArray(new Module[0]));
             launcher.start("localhost", port);
         } catch (ParseException ex) {
             ex.printStackTrace();
-            LaunchUtil.printHelp(processName, DefaultCLIParser.getDefaultOptions());
+            LaunchUtil.printHelp(processName, options);
         }
     }
 
+    /**
+     * Returns the default GLSP options extended with the Imixs launch options
+     */
+    private static Options getOptions() {
+        Options options = DefaultCLIParser.getDefaultOptions();
+        options.addOption(null, OPTION_METRICS_PORT, true,
+                "Expose the Imixs metrics on http://localhost:<metricsPort>/metrics (Prometheus format)");
+        options.addOption(null, OPTION_PROFILE_THRESHOLD, true,
+                "Log extension calls taking longer than the given milliseconds");
+        options.addOption(null, OPTION_PROFILE_SAMPLE_RATE, true,
+                "Sample the allocated memory of every n-th extension call (default 10, 0 = off)");
+        return options;
+    }
+
 }
@@ -0,0 +1,420 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.extensions.ImixsItemNameMapper;
+import org.imixs.openbpmn.util.BPMNLinkedFlowIterator;
+import org.imixs.openbpmn.util.ImixsBPMNUtil;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * The ImixsACLMatrix computes the access control lists of all Imixs tasks and
+ * events of a model in one pass.
+ * <p>
+ * Each actor mapping defined by the item 'txtfieldmapping' gets a bit index.
+ * For each element the items 'keyownershipfields', 'keyaddreadfields' and
+ * 'keyaddwritefields' are translated into an owner, read and write BitSet.
+ * Values not part of the actor mapping are ignored.
+ * <p>
+ * The effective ACL of an element is the ACL applied by the Imixs engine after
+ * processing:
+ * <ul>
+ * <li>a task or event with 'keyupdateacl=true' applies its own ACL
+ * <li>an event without an ACL update applies the ACL of its target task if the
+ * task has 'keyupdateacl=true'
+ * <li>otherwise the ACL of the workitem stays unchanged
+ * </ul>
+ * The matrix can be exported as CSV or JSON. The main method exports a model
+ * file without a running server:
+ * 
+ * <pre>{@code java -cp ... org.imixs.openbpmn.analysis.ImixsACLMatrix model.bpmn [csv|json]}</pre>
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsACLMatrix {
+    private static Logger logger = Logger.getLogger(ImixsACLMatrix.class.getName());
+
+    public static final String ITEM_UPDATE_ACL = "keyupdateacl";
+    public static final String ITEM_OWNER = "keyownershipfields";
+    public static final String ITEM_READ = "keyaddreadfields";
+    public static final String ITEM_WRITE = "keyaddwritefields";
+
+    private static final Set<String> ACL_ITEMS = new LinkedHashSet<>(
+            List.of(ITEM_UPDATE_ACL, ITEM_OWNER, ITEM_READ, ITEM_WRITE));
+
+    private final List<String> actors;
+    private final List<String> labels;
+    private final Map<String, Integer> actorIndex = new HashMap<>();
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private ImixsACLMatrix(List<String> actors, List<String> labels) {
+        this.actors = actors;
+        this.labels = labels;
+        for (int i = 0; i < actors.size(); i++) {
+            actorIndex.putIfAbsent(actors.get(i), i);
+        }
+    }
+
+    /**
+     * Computes the ACL matrix of all Imixs tasks and events of the given model.
+     */
+    public static ImixsACLMatrix build(BPMNModel model) {
+        long l = System.currentTimeMillis();
+        ImixsItemNameMapper actorFieldMapper = new ImixsItemNameMapper(model, "txtfieldmapping");
+        ImixsACLMatrix matrix = new ImixsACLMatrix(actorFieldMapper.getValues(), actorFieldMapper.getLabels());
+
+        // first pass: read the ACL items of all tasks and events
+        List<BPMNElementNode> events = new ArrayList<>();
+        for (BPMNElementNode task : model.findAllActivities()) {
+            if (ImixsBPMNUtil.isImixsTaskElement(task)) {
+                matrix.add(model, task, "task", "processid");
+            }
+        }
+        for (BPMNElementNode event : model.findAllEvents()) {
+            if (ImixsBPMNUtil.isImixsEventElement(event)) {
+                matrix.add(model, event, "event", "activityid");
+                events.add(event);
+            }
+        }
+
+        // second step: resolve the effective ACL of all events without an ACL update
+        for (BPMNElementNode event : events) {
+            Entry entry = matrix.entries.get(event.getId());
+            if (!entry.isUpdateACL()) {
+                entry.effective = matrix.findTargetTaskEntry(event);
+            }
+        }
+        logger.fine("├── ACL matrix computed: " + matrix.entries.size() + " elements, " + matrix.actors.size()
+                + " actors in " + (System.currentTimeMillis() - l) + "ms");
+        return matrix;
+    }
+
+    /**
+     * Returns the actor mapping values in the order of their bit index
+     */
+    public List<String> getActors() {
+        return Collections.unmodifiableList(actors);
+    }
+
+    /**
+     * Returns the bit index of an actor mapping value or -1 if the value is not
+     * defined by the model.
+     */
+    public int getActorIndex(String actor) {
+        Integer index = actorIndex.get(actor);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns all entries in the order tasks first, then events
+     */
+    public List<Entry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * Returns the entry of a task or event by its element id or null if no such
+     * Imixs element exists.
+     */
+    public Entry getEntry(String elementId) {
+        return entries.get(elementId);
+    }
+
+    /**
+     * Writes the effective ACLs as a CSV table with one row per element and one
+     * column per actor. Each actor cell contains the letters 'O' (owner), 'R'
+     * (read) and 'W' (write).
+     */
+    public void writeCSV(Writer writer) throws IOException {
+        StringBuilder line = new StringBuilder("id,process,type,imixsid,name,updateacl,source");
+        for (String label : labels) {
+            line.append(',').append(csv(label));
+        }
+        writer.write(line.append('\n').toString());
+        for (Entry entry : entries.values()) {
+            Entry effective = entry.getEffective();
+            line.setLength(0);
+            line.append(csv(entry.elementId)).append(',').append(csv(entry.processId)).append(',')
+                    .append(entry.type).append(',').append(csv(entry.imixsId)).append(',').append(csv(entry.name))
+                    .append(',').append(entry.updateACL).append(',')
+                    .append(effective == null ? "" : csv(effective.elementId));
+            for (int i = 0; i < actors.size(); i++) {
+                line.append(',');
+                if (effective != null) {
+                    line.append(effective.getAccess(i));
+                }
+            }
+            writer.write(line.append('\n').toString());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Returns the effective ACLs as a CSV table
+     */
+    public String toCSV() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeCSV(writer);
+        } catch (IOException e) {
+            // not possible with a StringWriter
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Returns the matrix as a JSON object. The 'actors' array contains the
+     * label and value of each actor mapping in the order of the bit index. The
+     * 'elements' array contains the declared and the effective ACL of each
+     * element as lists of actor values.
+     */
+    public JsonObject toJSON() {
+        JsonArrayBuilder actorArray = Json.createArrayBuilder();
+        for (int i = 0; i < actors.size(); i++) {
+            actorArray.add(Json.createObjectBuilder().add("label", labels.get(i)).add("value", actors.get(i)));
+        }
+        JsonArrayBuilder elementArray = Json.createArrayBuilder();
+        for (Entry entry : entries.values()) {
+            JsonObjectBuilder element = Json.createObjectBuilder() //
+                    .add("id", entry.elementId) //
+                    .add("process", entry.processId) //
+                    .add("type", entry.type) //
+                    .add("imixsid", entry.imixsId) //
+                    .add("name", entry.name) //
+                    .add("updateacl", entry.updateACL) //
+                    .add("owner", toJSON(entry.owner)) //
+                    .add("read", toJSON(entry.read)) //
+                    .add("write", toJSON(entry.write));
+            Entry effective = entry.getEffective();
+            if (effective != null) {
+                element.add("effective", Json.createObjectBuilder() //
+                        .add("source", effective.elementId) //
+                        .add("owner", toJSON(effective.owner)) //
+                        .add("read", toJSON(effective.read)) //
+                        .add("write", toJSON(effective.write)));
+            }
+            elementArray.add(element);
+        }
+        return Json.createObjectBuilder().add("actors", actorArray).add("elements", elementArray).build();
+    }
+
+    /**
+     * Exports the ACL matrix of a model file to stdout.
+     * 
+     * @param args - model file and the optional format 'csv' (default) or 'json'
+     */
+    public static void main(String[] args) throws IOException, BPMNModelException {
+        if (args.length < 1) {
+            System.err.println("Usage: ImixsACLMatrix <model.bpmn> [csv|json]");
+            System.exit(1);
+        }
+        BPMNModel model;
+        try (InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            model = BPMNModelFactory.read(in);
+        }
+        ImixsACLMatrix matrix = build(model);
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        if (args.length > 1 && "json".equalsIgnoreCase(args[1])) {
+            JsonWriter jsonWriter = Json.createWriter(out);
+            jsonWriter.writeObject(matrix.toJSON());
+            out.write('\n');
+        } else {
+            matrix.writeCSV(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the ACL items of an element and adds a new entry
+     */
+    private void add(BPMNModel model, BPMNElementNode element, String type, String idAttribute) {
+        Map<String, List<String>> items = ImixsExtensionUtil.getItemValueMap(model, element.getElementNode(),
+                ACL_ITEMS);
+        List<String> updateACL = items.get(ITEM_UPDATE_ACL);
+        Entry entry = new Entry(element.getId(), element.getProcessId(), type,
+                element.getAttribute(ImixsExtensionUtil.getNamespace() + ":" + idAttribute), element.getName(),
+                !updateACL.isEmpty() && Boolean.parseBoolean(updateACL.get(0)));
+        toBitSet(items.get(ITEM_OWNER), entry.owner);
+        toBitSet(items.get(ITEM_READ), entry.read);
+        toBitSet(items.get(ITEM_WRITE), entry.write);
+        entries.put(entry.elementId, entry);
+    }
+
+    private void toBitSet(List<String> values, BitSet bits) {
+        for (String value : values) {
+            Integer index = actorIndex.get(value);
+            if (index != null) {
+                bits.set(index);
+            }
+        }
+    }
+
+    private JsonArrayBuilder toJSON(BitSet bits) {
+        JsonArrayBuilder result = Json.createArrayBuilder();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(actors.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entry of the first Imixs task following the given event with an
+     * ACL update, or null if the target task does not update the ACL.
+     */
+    private Entry findTargetTaskEntry(BPMNElementNode event) {
+        BPMNLinkedFlowIterator<BPMNElementNode> taskNavigator = new BPMNLinkedFlowIterator<BPMNElementNode>(
+                event, node -> ImixsBPMNUtil.isImixsTaskElement(node));
+        if (taskNavigator.hasNext()) {
+            Entry target = entries.get(taskNavigator.next().getId());
+            if (target != null && target.isUpdateACL()) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    /**
+     * An entry holds the ACL of a single Imixs task or event
+     */
+    public static class Entry {
+        private final String elementId;
+        private final String processId;
+        private final String type;
+        private final String imixsId;
+        private final String name;
+        private final boolean updateACL;
+        private final BitSet owner = new BitSet();
+        private final BitSet read = new BitSet();
+        private final BitSet write = new BitSet();
+        private Entry effective = null;
+
+        Entry(String elementId, String processId, String type, String imixsId, String name, boolean updateACL) {
+            this.elementId = elementId;
+            this.processId = processId;
+            this.type = type;
+            this.imixsId = imixsId == null ? "" : imixsId;
+            this.name = name == null ? "" : name;
+            this.updateACL = updateACL;
+        }
+
+        public String getElementId() {
+            return elementId;
+        }
+
+        public String getProcessId() {
+            return processId;
+        }
+
+        /**
+         * Returns 'task' or 'event'
+         */
+        public String getType() {
+            return type;
+        }
+
+        public String getImixsId() {
+            return imixsId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isUpdateACL() {
+            return updateACL;
+        }
+
+        public BitSet getOwner() {
+            return (BitSet) owner.clone();
+        }
+
+        public BitSet getRead() {
+            return (BitSet) read.clone();
+        }
+
+        public BitSet getWrite() {
+            return (BitSet) write.clone();
+        }
+
+        /**
+         * Returns the entry defining the effective ACL of this element. This is the
+         * element itself if it updates the ACL, for an event the target task with an
+         * ACL update, or null if the ACL stays unchanged.
+         */
+        public Entry getEffective() {
+            return updateACL ? this : effective;
+        }
+
+        /**
+         * Returns the access letters 'O', 'R' and 'W' of the actor with the given
+         * bit index
+         */
+        public String getAccess(int actor) {
+            StringBuilder access = new StringBuilder(3);
+            if (owner.get(actor)) {
+                access.append('O');
+            }
+            if (read.get(actor)) {
+                access.append('R');
+            }
+            if (write.get(actor)) {
+                access.append('W');
+            }
+            return access.toString();
+        }
+    }
+}
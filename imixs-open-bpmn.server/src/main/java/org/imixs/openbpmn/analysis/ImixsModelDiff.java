@@ -0,0 +1,566 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.imixs.openbpmn.extensions.ImixsItemReader;
+import org.openbpmn.bpmn.BPMNModel;
+
+/**
+ * The ImixsModelDiff compares two versions of an Imixs model on a semantic
+ * level. Diagram data (bpmndi) and the XML formatting of the item values are
+ * ignored. The diff reports added and removed BPMN elements, changed
+ * attributes and added, removed and changed imixs:items to a
+ * {@link DiffHandler}. Sequence flows are compared like other elements, so
+ * changed sourceRef and targetRef attributes are reported as attribute changes.
+ * <p>
+ * Elements are matched by their id. Elements without a match are then matched
+ * by their Imixs key: tasks by the imixs:processid, events by the
+ * imixs:activityid and name, and sequence flows by their matched source and
+ * target element. A key is only used if it is unique in both models.
+ * <p>
+ * Both models are read with the {@link ImixsItemReader}, each twice. The first
+ * pass builds a compact index with a hash per item value list, the second pass
+ * reads only the values of the changed items. So two large models can be
+ * compared without holding the item values in memory - only the old values of
+ * the changed items are buffered.
+ * <p>
+ * Within the server the current state of a model can be compared by
+ * {@link #fromModel(BPMNModel)}. The main method prints the diff of two model
+ * files:
+ * 
+ * <pre>{@code java -cp ... org.imixs.openbpmn.analysis.ImixsModelDiff old.bpmn new.bpmn}</pre>
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsModelDiff {
+
+    /**
+     * Provides an input stream of a model version. The stream is opened for each
+     * pass and closed by the diff.
+     */
+    @FunctionalInterface
+    public interface ModelSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Receives the differences. For added and removed elements also the items are
+     * reported as added or removed.
+     */
+    public interface DiffHandler {
+
+        /**
+         * Called for an element only existing in the old model
+         */
+        void elementRemoved(String elementId, String elementType, Map<String, String> attributes);
+
+        /**
+         * Called for an element only existing in the new model
+         */
+        void elementAdded(String elementId, String elementType, Map<String, String> attributes);
+
+        /**
+         * Called for a changed, added (oldValue = null) or removed (newValue = null)
+         * attribute of a matched element. The element id is the id in the new
+         * model.
+         */
+        void attributeChanged(String elementId, String elementType, String name, String oldValue,
+                String newValue);
+
+        /**
+         * Called for a changed, added (oldValues = null) or removed (newValues =
+         * null) imixs:item. The element id is the id in the new model or the old id
+         * for removed elements.
+         */
+        void itemChanged(String elementId, String elementType, String itemName, List<String> oldValues,
+                List<String> newValues);
+    }
+
+    // attributes referring to other elements
+    private static final Set<String> REFERENCE_ATTRIBUTES = Set.of("sourceRef", "targetRef", "attachedToRef",
+            "default", "processRef");
+
+    private final ImixsItemReader itemReader = new ImixsItemReader();
+    // item and attribute names are shared by all element states
+    private final Map<String, String> names = new HashMap<>();
+
+    /**
+     * Returns a ModelSource for a model loaded by the server. The model document
+     * is serialized once, so the diff can compare the current state of a model in
+     * the editor with a model file.
+     */
+    public static ModelSource fromModel(BPMNModel model) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            TransformerFactory.newInstance().newTransformer().transform(new DOMSource(model.getDoc()),
+                    new StreamResult(out));
+        } catch (TransformerException e) {
+            throw new IOException("Failed to serialize model: " + e.getMessage(), e);
+        }
+        byte[] data = out.toByteArray();
+        return () -> new ByteArrayInputStream(data);
+    }
+
+    /**
+     * Compares two model files
+     */
+    public void diff(Path oldModel, Path newModel, DiffHandler handler) throws IOException {
+        diff(() -> Files.newInputStream(oldModel), () -> Files.newInputStream(newModel), handler);
+    }
+
+    /**
+     * Compares two model versions
+     */
+    public void diff(ModelSource oldModel, ModelSource newModel, DiffHandler handler) throws IOException {
+        Map<String, ElementState> oldElements = index(oldModel);
+        Map<String, ElementState> newElements = index(newModel);
+
+        // match the elements by id and key
+        Matches matches = new Matches(oldElements, newElements);
+        matchByKey(oldElements, newElements, matches, false);
+        // flows are matched after all other elements
+        matchByKey(oldElements, newElements, matches, true);
+
+        // report added and removed elements and attribute changes
+        Map<String, Set<String>> oldItems = new HashMap<>();
+        Map<String, Set<String>> newItems = new HashMap<>();
+        for (ElementState oldState : oldElements.values()) {
+            if (matches.getNewId(oldState.id) == null) {
+                handler.elementRemoved(oldState.id, oldState.type, oldState.getAttributes());
+                oldItems.put(oldState.id, new TreeSet<>(Arrays.asList(oldState.itemNames)));
+            }
+        }
+        for (ElementState newState : newElements.values()) {
+            String oldId = matches.getOldId(newState.id);
+            if (oldId == null) {
+                handler.elementAdded(newState.id, newState.type, newState.getAttributes());
+                newItems.put(newState.id, new TreeSet<>(Arrays.asList(newState.itemNames)));
+                continue;
+            }
+            ElementState oldState = oldElements.get(oldId);
+            compareAttributes(oldState, newState, matches, handler);
+            // collect the changed items of both versions
+            for (int i = 0; i < oldState.itemNames.length; i++) {
+                int j = newState.indexOf(oldState.itemNames[i]);
+                if (j < 0 || newState.itemHashes[j] != oldState.itemHashes[i]) {
+                    oldItems.computeIfAbsent(oldId, k -> new TreeSet<>()).add(oldState.itemNames[i]);
+                }
+            }
+            for (int j = 0; j < newState.itemNames.length; j++) {
+                int i = oldState.indexOf(newState.itemNames[j]);
+                if (i < 0 || newState.itemHashes[j] != oldState.itemHashes[i]) {
+                    newItems.computeIfAbsent(newState.id, k -> new TreeSet<>()).add(newState.itemNames[j]);
+                }
+            }
+        }
+        if (oldItems.isEmpty() && newItems.isEmpty()) {
+            return;
+        }
+
+        // second pass: buffer the old values of the changed items...
+        Map<String, List<String>> oldValues = new LinkedHashMap<>();
+        read(oldModel, (elementId, elementType, itemName, values) -> {
+            Set<String> changed = oldItems.get(elementId);
+            if (changed != null && changed.contains(itemName)) {
+                oldValues.putIfAbsent(elementId + '\u0000' + itemName, values);
+            }
+        });
+        // ...and report the changes while reading the new values
+        Set<String> reported = new TreeSet<>();
+        read(newModel, (elementId, elementType, itemName, values) -> {
+            Set<String> changed = newItems.get(elementId);
+            if (changed != null && changed.contains(itemName) && reported.add(elementId + '\u0000' + itemName)) {
+                String oldId = matches.getOldId(elementId);
+                List<String> previous = oldId == null ? null : oldValues.remove(oldId + '\u0000' + itemName);
+                handler.itemChanged(elementId, elementType, itemName, previous, values);
+            }
+        });
+        // all remaining old values are removed items
+        for (Map.Entry<String, List<String>> entry : oldValues.entrySet()) {
+            String[] key = entry.getKey().split("\u0000", 2);
+            String newId = matches.getNewId(key[0]);
+            handler.itemChanged(newId == null ? key[0] : newId, oldElements.get(key[0]).type, key[1],
+                    entry.getValue(), null);
+        }
+    }
+
+    /**
+     * Reads a model version and builds the element index
+     */
+    private Map<String, ElementState> index(ModelSource source) throws IOException {
+        Map<String, ElementState> result = new LinkedHashMap<>();
+        read(source, new ImixsItemReader.ItemHandler() {
+            @Override
+            public void element(String elementId, String elementType, Map<String, String> attributes) {
+                result.putIfAbsent(elementId, new ElementState(elementId, elementType, attributes));
+            }
+
+            @Override
+            public void item(String elementId, String elementType, String itemName, List<String> values) {
+                ElementState state = result.get(elementId);
+                if (state != null) {
+                    state.addItem(intern(itemName), hash(values));
+                }
+            }
+        });
+        return result;
+    }
+
+    private void read(ModelSource source, ImixsItemReader.ItemHandler handler) throws IOException {
+        try (InputStream in = source.open()) {
+            itemReader.read(in, handler);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to read model: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Matches the unmatched elements by their Imixs key. Keys found more than once
+     * in a model are ignored.
+     */
+    private void matchByKey(Map<String, ElementState> oldElements, Map<String, ElementState> newElements,
+            Matches matches, boolean flows) {
+        Map<String, String> oldKeys = new HashMap<>();
+        for (ElementState state : oldElements.values()) {
+            if (matches.getNewId(state.id) == null && isFlow(state) == flows) {
+                addKey(oldKeys, getKey(state, null));
+            }
+        }
+        if (oldKeys.isEmpty()) {
+            return;
+        }
+        Map<String, String> newKeys = new HashMap<>();
+        for (ElementState state : newElements.values()) {
+            if (matches.getOldId(state.id) == null && isFlow(state) == flows) {
+                addKey(newKeys, getKey(state, matches));
+            }
+        }
+        for (Map.Entry<String, String> entry : newKeys.entrySet()) {
+            String oldId = oldKeys.get(entry.getKey());
+            if (oldId != null && entry.getValue() != null) {
+                matches.put(entry.getValue(), oldId);
+            }
+        }
+    }
+
+    private void addKey(Map<String, String> keys, String[] key) {
+        if (key != null) {
+            // a duplicate key is marked with a null value
+            keys.put(key[0], keys.containsKey(key[0]) ? null : key[1]);
+        }
+    }
+
+    /**
+     * Returns the Imixs key and the id of an element or null if the element has no
+     * key. The source and target of new flows are translated into the old ids.
+     */
+    private String[] getKey(ElementState state, Matches matches) {
+        String taskId = state.getAttribute("imixs:processid");
+        if (taskId != null) {
+            return new String[] { "task:" + taskId, state.id };
+        }
+        String eventId = state.getAttribute("imixs:activityid");
+        if (eventId != null) {
+            String name = state.getAttribute("name");
+            return new String[] { "event:" + eventId + ":" + (name == null ? "" : name), state.id };
+        }
+        if (isFlow(state)) {
+            String source = state.getAttribute("sourceRef");
+            String target = state.getAttribute("targetRef");
+            if (matches != null) {
+                source = matches.getOldId(source);
+                target = matches.getOldId(target);
+            }
+            if (source != null && target != null) {
+                return new String[] { "flow:" + source + "->" + target, state.id };
+            }
+        }
+        return null;
+    }
+
+    private static boolean isFlow(ElementState state) {
+        return "sequenceFlow".equals(state.type);
+    }
+
+    /**
+     * Compares the attributes of two matched elements. References to other
+     * elements are compared by the matched ids.
+     */
+    private void compareAttributes(ElementState oldState, ElementState newState, Matches matches,
+            DiffHandler handler) {
+        if (!oldState.type.equals(newState.type)) {
+            handler.attributeChanged(newState.id, newState.type, "type", oldState.type, newState.type);
+        }
+        for (int i = 0; i < oldState.attributes.length; i += 2) {
+            String name = oldState.attributes[i];
+            String oldValue = oldState.attributes[i + 1];
+            String newValue = newState.getAttribute(name);
+            String compareValue = newValue;
+            if (newValue != null && REFERENCE_ATTRIBUTES.contains(name)) {
+                String matchedId = matches.getOldId(newValue);
+                compareValue = matchedId == null ? newValue : matchedId;
+            }
+            if (!oldValue.equals(compareValue)) {
+                handler.attributeChanged(newState.id, newState.type, name, oldValue, newValue);
+            }
+        }
+        for (int i = 0; i < newState.attributes.length; i += 2) {
+            if (oldState.getAttribute(newState.attributes[i]) == null) {
+                handler.attributeChanged(newState.id, newState.type, newState.attributes[i], null,
+                        newState.attributes[i + 1]);
+            }
+        }
+    }
+
+    private String intern(String name) {
+        return names.computeIfAbsent(name, k -> k);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a value list
+     */
+    private static long hash(List<String> values) {
+        long hash = 0xcbf29ce484222325L;
+        for (String value : values) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            // value separator
+            hash = (hash ^ 0xffff) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The matches of the new and old element ids. Elements with the same id are
+     * matched implicitly, only the matches by key are stored.
+     */
+    private static class Matches {
+        private final Map<String, ElementState> oldElements;
+        private final Map<String, ElementState> newElements;
+        // new id -> old id and old id -> new id
+        private final Map<String, String> keyMatches = new HashMap<>();
+        private final Map<String, String> reverseKeyMatches = new HashMap<>();
+
+        Matches(Map<String, ElementState> oldElements, Map<String, ElementState> newElements) {
+            this.oldElements = oldElements;
+            this.newElements = newElements;
+        }
+
+        void put(String newId, String oldId) {
+            keyMatches.put(newId, oldId);
+            reverseKeyMatches.put(oldId, newId);
+        }
+
+        /**
+         * Returns the old id of a new element or null if the element is not matched
+         */
+        String getOldId(String newId) {
+            if (newId == null) {
+                return null;
+            }
+            return oldElements.containsKey(newId) ? newId : keyMatches.get(newId);
+        }
+
+        /**
+         * Returns the new id of an old element or null if the element is not matched
+         */
+        String getNewId(String oldId) {
+            return newElements.containsKey(oldId) ? oldId : reverseKeyMatches.get(oldId);
+        }
+    }
+
+    /**
+     * The compact state of an element: the attributes without the id as name/value
+     * pairs and a hash per item.
+     */
+    private class ElementState {
+        private final String id;
+        private final String type;
+        private final String[] attributes;
+        private String[] itemNames = new String[0];
+        private long[] itemHashes = new long[0];
+
+        ElementState(String id, String type, Map<String, String> attributes) {
+            this.id = id;
+            this.type = intern(type);
+            this.attributes = new String[(attributes.size() - (attributes.containsKey("id") ? 1 : 0)) * 2];
+            int i = 0;
+            for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                if (!"id".equals(entry.getKey())) {
+                    this.attributes[i++] = intern(entry.getKey());
+                    this.attributes[i++] = entry.getValue();
+                }
+            }
+        }
+
+        String getAttribute(String name) {
+            for (int i = 0; i < attributes.length; i += 2) {
+                if (attributes[i].equals(name)) {
+                    return attributes[i + 1];
+                }
+            }
+            return null;
+        }
+
+        void addItem(String itemName, long hash) {
+            if (indexOf(itemName) >= 0) {
+                // like getItemValueList the first item wins
+                return;
+            }
+            itemNames = Arrays.copyOf(itemNames, itemNames.length + 1);
+            itemHashes = Arrays.copyOf(itemHashes, itemHashes.length + 1);
+            itemNames[itemNames.length - 1] = itemName;
+            itemHashes[itemHashes.length - 1] = hash;
+        }
+
+        int indexOf(String itemName) {
+            for (int i = 0; i < itemNames.length; i++) {
+                if (itemNames[i].equals(itemName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Map<String, String> getAttributes() {
+            Map<String, String> result = new HashMap<>();
+            for (int i = 0; i < attributes.length; i += 2) {
+                result.put(attributes[i], attributes[i + 1]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A DiffHandler printing a line per difference
+     */
+    public static class TextDiffHandler implements DiffHandler {
+        private final PrintWriter out;
+        private int count = 0;
+
+        public TextDiffHandler(Writer writer) {
+            this.out = new PrintWriter(writer);
+        }
+
+        /**
+         * Returns the number of reported differences
+         */
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void elementRemoved(String elementId, String elementType, Map<String, String> attributes) {
+            print("- " + describe(elementId, elementType, attributes));
+        }
+
+        @Override
+        public void elementAdded(String elementId, String elementType, Map<String, String> attributes) {
+            print("+ " + describe(elementId, elementType, attributes));
+        }
+
+        @Override
+        public void attributeChanged(String elementId, String elementType, String name, String oldValue,
+                String newValue) {
+            print("~ " + elementType + " " + elementId + " @" + name + ": " + quote(oldValue) + " -> "
+                    + quote(newValue));
+        }
+
+        @Override
+        public void itemChanged(String elementId, String elementType, String itemName, List<String> oldValues,
+                List<String> newValues) {
+            print("~ " + elementType + " " + elementId + " " + itemName + ": "
+                    + (oldValues == null ? "(none)" : oldValues) + " -> "
+                    + (newValues == null ? "(none)" : newValues));
+        }
+
+        /**
+         * Flushes the underlying writer
+         */
+        public void flush() {
+            out.flush();
+        }
+
+        private void print(String line) {
+            count++;
+            out.println(line);
+        }
+
+        private static String describe(String elementId, String elementType, Map<String, String> attributes) {
+            StringBuilder result = new StringBuilder(elementType).append(' ').append(elementId);
+            String imixsId = attributes.getOrDefault("imixs:processid", attributes.get("imixs:activityid"));
+            if (imixsId != null) {
+                result.append(" [").append(imixsId).append(']');
+            }
+            if (attributes.containsKey("sourceRef")) {
+                result.append(' ').append(attributes.get("sourceRef")).append(" -> ")
+                        .append(attributes.get("targetRef"));
+            }
+            if (attributes.containsKey("name")) {
+                result.append(' ').append(quote(attributes.get("name")));
+            }
+            return result.toString();
+        }
+
+        private static String quote(String value) {
+            return value == null ? "(none)" : '"' + value + '"';
+        }
+    }
+
+    /**
+     * Prints the differences of two model files to stdout. The exit code is 1 if
+     * the models differ.
+     * 
+     * @param args - the old and the new model file
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ImixsModelDiff <old.bpmn> <new.bpmn>");
+            System.exit(2);
+        }
+        TextDiffHandler handler = new TextDiffHandler(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        new ImixsModelDiff().diff(Paths.get(args[0]), Paths.get(args[1]), handler);
+        handler.flush();
+        System.exit(handler.getCount() > 0 ? 1 : 0);
+    }
+}
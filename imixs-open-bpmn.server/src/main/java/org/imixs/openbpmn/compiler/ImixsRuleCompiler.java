@@ -0,0 +1,231 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.compiler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import javax.script.Compilable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.imixs.openbpmn.monitoring.ImixsMetrics;
+
+/**
+ * The ImixsRuleCompiler checks the business rules of Imixs events
+ * (txtbusinessrule) by compiling them with a javax.script engine available on
+ * the server. A rule is only compiled and never evaluated.
+ * <p>
+ * Rules are compiled on a background thread. The results are cached by the
+ * engine name and the SHA-256 hash of the rule, so an unchanged rule is never
+ * compiled again. The method {@link #getResult(String, String)} does not block
+ * and returns null until the compilation has finished.
+ * <p>
+ * The compile time of each rule is measured and recorded in the
+ * {@link ImixsMetrics}. Rules taking longer than the threshold defined by the
+ * system property 'imixs.rule.compileThreshold' (in milliseconds, default 200)
+ * are reported as slow.
+ * <p>
+ * If the engine is not available on the server (e.g. GraalJS is only deployed
+ * with the workflow engine) or does not support the compilation of scripts, the
+ * rule is not checked.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsRuleCompiler {
+    private static Logger logger = Logger.getLogger(ImixsRuleCompiler.class.getName());
+
+    public static final String PROPERTY_COMPILE_THRESHOLD = "imixs.rule.compileThreshold";
+    public static final long DEFAULT_COMPILE_THRESHOLD = 200;
+    // the default engine of the Imixs RulePlugin
+    public static final String DEFAULT_ENGINE = "javascript";
+
+    private static final ImixsRuleCompiler INSTANCE = new ImixsRuleCompiler();
+
+    private final Map<String, CompletableFuture<CompileResult>> results = ImixsXSLCompiler.createCache();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "imixs-rule-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // the script engines are only accessed by the compiler thread
+    private final Map<String, ScriptEngine> engines = new HashMap<>();
+    private final Function<String, ScriptEngine> engineProvider;
+    private final long threshold = Long.getLong(PROPERTY_COMPILE_THRESHOLD, DEFAULT_COMPILE_THRESHOLD);
+
+    private ImixsRuleCompiler() {
+        this(new Function<String, ScriptEngine>() {
+            private ScriptEngineManager engineManager = null;
+
+            @Override
+            public ScriptEngine apply(String engineName) {
+                if (engineManager == null) {
+                    engineManager = new ScriptEngineManager();
+                }
+                return engineManager.getEngineByName(engineName);
+            }
+        });
+    }
+
+    /**
+     * @param engineProvider - returns the script engine for an engine name or
+     *                       null if the engine is not available
+     */
+    ImixsRuleCompiler(Function<String, ScriptEngine> engineProvider) {
+        this.engineProvider = engineProvider;
+    }
+
+    public static ImixsRuleCompiler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Compiles a rule on the background thread. The result of an unchanged rule is
+     * taken from the cache.
+     * 
+     * @param engine - the script engine name (txtbusinessruleengine)
+     * @param rule   - the rule (txtbusinessrule)
+     */
+    public CompletableFuture<CompileResult> check(String engine, String rule) {
+        String engineName = engine == null || engine.isBlank() ? DEFAULT_ENGINE : engine.trim();
+        String key = engineName + ":" + ImixsXSLCompiler.hash(rule);
+        synchronized (results) {
+            CompletableFuture<CompileResult> result = results.get(key);
+            if (result == null) {
+                result = CompletableFuture.supplyAsync(() -> compile(engineName, rule), executor);
+                results.put(key, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the compile result of a rule or null if the compilation has not yet
+     * finished. The compilation is started with the first call.
+     */
+    public CompileResult getResult(String engine, String rule) {
+        CompletableFuture<CompileResult> result = check(engine, rule);
+        return result.isDone() ? result.join() : null;
+    }
+
+    private CompileResult compile(String engineName, String rule) {
+        ScriptEngine engine = getEngine(engineName);
+        if (engine == null) {
+            return new CompileResult(Status.UNAVAILABLE, engineName, null, -1, 0);
+        }
+        if (!(engine instanceof Compilable)) {
+            return new CompileResult(Status.UNCHECKED, engineName, null, -1, 0);
+        }
+        long start = System.nanoTime();
+        try {
+            ((Compilable) engine).compile(rule);
+            long time = System.nanoTime() - start;
+            ImixsMetrics.getInstance().record(ImixsRuleCompiler.class.getSimpleName(), "compile", time);
+            if (TimeUnit.NANOSECONDS.toMillis(time) > threshold) {
+                logger.info("├── business rule compiled in " + TimeUnit.NANOSECONDS.toMillis(time) + "ms");
+                return new CompileResult(Status.SLOW, engineName, null, -1, time);
+            }
+            return new CompileResult(Status.VALID, engineName, null, -1, time);
+        } catch (ScriptException | RuntimeException e) {
+            long time = System.nanoTime() - start;
+            ImixsMetrics.getInstance().recordError(ImixsRuleCompiler.class.getSimpleName(), "compile");
+            int line = e instanceof ScriptException ? ((ScriptException) e).getLineNumber() : -1;
+            return new CompileResult(Status.ERROR, engineName, e.getMessage(), line, time);
+        }
+    }
+
+    private ScriptEngine getEngine(String engineName) {
+        return engines.computeIfAbsent(engineName, engineProvider);
+    }
+
+    /**
+     * The status of a compiled rule
+     */
+    public enum Status {
+        VALID, SLOW, ERROR, UNAVAILABLE, UNCHECKED
+    }
+
+    /**
+     * The result of a rule compilation
+     */
+    public static class CompileResult {
+        private final Status status;
+        private final String engine;
+        private final String error;
+        private final int lineNumber;
+        private final long compileTime;
+
+        CompileResult(Status status, String engine, String error, int lineNumber, long compileTime) {
+            this.status = status;
+            this.engine = engine;
+            this.error = error;
+            this.lineNumber = lineNumber;
+            this.compileTime = compileTime;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getEngine() {
+            return engine;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Returns the compile time in nanoseconds
+         */
+        public long getCompileTime() {
+            return compileTime;
+        }
+
+        /**
+         * Returns a short description of the result
+         */
+        public String getMessage() {
+            switch (status) {
+            case ERROR:
+                // the message of a ScriptException already contains the line number
+                return lineNumber > 0 && !String.valueOf(error).contains("line number")
+                        ? error + " (line " + lineNumber + ")"
+                        : error;
+            case UNAVAILABLE:
+                return "The engine '" + engine + "' is not available - the rule is not checked";
+            case UNCHECKED:
+                return "The engine '" + engine + "' does not support a compilation - the rule is not checked";
+            case SLOW:
+                return "The rule is slow to compile (" + TimeUnit.NANOSECONDS.toMillis(compileTime) + "ms)";
+            default:
+                return "OK (compiled in " + TimeUnit.NANOSECONDS.toMillis(compileTime) + "ms)";
+            }
+        }
+    }
+}
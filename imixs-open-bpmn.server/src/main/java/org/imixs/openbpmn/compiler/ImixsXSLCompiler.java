@@ -0,0 +1,349 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.compiler;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.ErrorListener;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.imixs.openbpmn.monitoring.ImixsMetrics;
+import org.xml.sax.SAXParseException;
+
+/**
+ * The ImixsXSLCompiler compiles the XSL templates of an Imixs model (e.g. the
+ * mail body of an event) into {@link Templates} and renders previews against a
+ * sample workitem.
+ * <p>
+ * Compiled templates are cached by the SHA-256 hash of their content, so a
+ * template is only compiled again if its content changes. The validator and
+ * the property forms share the same cache. Previews are rendered on a
+ * background thread. The method {@link #getPreview(String, String)} returns
+ * immediately and provides the result with the next form build.
+ * <p>
+ * The sample workitem is generated from the event. A custom sample workitem in
+ * the Imixs XML document format can be defined with the system property
+ * 'imixs.xsl.sample'.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsXSLCompiler {
+    private static Logger logger = Logger.getLogger(ImixsXSLCompiler.class.getName());
+
+    public static final String PROPERTY_SAMPLE = "imixs.xsl.sample";
+    public static final String XSL_NAMESPACE = "http://www.w3.org/1999/XSL/Transform";
+
+    private static final int CACHE_SIZE = 256;
+    private static final int PREVIEW_LENGTH = 4000;
+    private static final ImixsXSLCompiler INSTANCE = new ImixsXSLCompiler();
+
+    private final Map<String, CompileResult> templates = createCache();
+    private final Map<String, CompletableFuture<String>> previews = createCache();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "imixs-xsl-preview");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private String customSample = null;
+
+    private ImixsXSLCompiler() {
+        String sampleFile = System.getProperty(PROPERTY_SAMPLE);
+        if (sampleFile != null && !sampleFile.isBlank()) {
+            try {
+                customSample = Files.readString(Paths.get(sampleFile), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.warning("Failed to read sample workitem '" + sampleFile + "': " + e.getMessage());
+            }
+        }
+    }
+
+    public static ImixsXSLCompiler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns true if the content is a XSL template. Plain text and HTML
+     * content is not compiled.
+     */
+    public static boolean isXSLTemplate(String content) {
+        return content != null && content.contains(XSL_NAMESPACE)
+                && (content.contains("stylesheet") || content.contains("transform"));
+    }
+
+    /**
+     * Compiles a template. The result is taken from the cache if a template with
+     * the same content was compiled before.
+     */
+    public CompileResult compile(String content) {
+        String hash = hash(content);
+        CompileResult result = templates.get(hash);
+        if (result == null) {
+            long start = System.nanoTime();
+            result = doCompile(hash, content);
+            ImixsMetrics.getInstance().record(ImixsXSLCompiler.class.getSimpleName(), "compile",
+                    System.nanoTime() - start);
+            templates.put(hash, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the preview of a template rendered against the sample workitem or
+     * null if the preview is not yet available. The rendering is started on the
+     * background thread with the first call.
+     */
+    public String getPreview(String content, String sampleWorkitem) {
+        CompletableFuture<String> preview = renderPreview(content, sampleWorkitem);
+        if (!preview.isDone()) {
+            return null;
+        }
+        try {
+            return preview.join();
+        } catch (CompletionException e) {
+            return "Failed to render preview: " + e.getCause().getMessage();
+        }
+    }
+
+    /**
+     * Renders the template against the sample workitem on the background thread.
+     * Rendered previews are cached by the hash of the template and the sample.
+     */
+    public CompletableFuture<String> renderPreview(String content, String sampleWorkitem) {
+        String sample = customSample != null ? customSample : sampleWorkitem;
+        String key = hash(content) + hash(sample);
+        synchronized (previews) {
+            CompletableFuture<String> preview = previews.get(key);
+            if (preview == null) {
+                preview = CompletableFuture.supplyAsync(() -> render(content, sample), executor);
+                previews.put(key, preview);
+            }
+            return preview;
+        }
+    }
+
+    /**
+     * Returns a sample workitem in the Imixs XML document format with the
+     * standard items and the given event.
+     */
+    public static String getSampleWorkitem(String eventId, String eventName, String modelVersion) {
+        String now = LocalDateTime.now().withNano(0).toString();
+        Map<String, String> items = new LinkedHashMap<>();
+        items.put("$uniqueid", "sample-0000-0000");
+        items.put("$modelversion", modelVersion);
+        items.put("$eventid", eventId);
+        items.put("$workflowgroup", "Sample");
+        items.put("$workflowstatus", "Sample");
+        items.put("$workflowsummary", "Sample Workitem");
+        items.put("$lasteventname", eventName);
+        items.put("$creator", "sample-user");
+        items.put("$editor", "sample-user");
+        items.put("$owner", "sample-user");
+        items.put("$created", now);
+        items.put("$modified", now);
+        StringBuilder xml = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<document xmlns:xs=\"http://www.w3.org/2001/XMLSchema\""
+                        + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n");
+        for (Map.Entry<String, String> item : items.entrySet()) {
+            xml.append("  <item name=\"").append(item.getKey()).append("\"><value xsi:type=\"xs:string\">")
+                    .append(escape(item.getValue())).append("</value></item>\n");
+        }
+        return xml.append("</document>\n").toString();
+    }
+
+    private CompileResult doCompile(String hash, String content) {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        FirstErrorListener errorListener = new FirstErrorListener();
+        factory.setErrorListener(errorListener);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        } catch (TransformerConfigurationException | IllegalArgumentException e) {
+            // not supported by the factory
+        }
+        try {
+            Templates result = factory.newTemplates(new StreamSource(new StringReader(content)));
+            return new CompileResult(hash, result, null, -1);
+        } catch (TransformerConfigurationException e) {
+            TransformerException error = errorListener.getError() != null ? errorListener.getError() : e;
+            int line = -1;
+            if (error.getLocator() != null) {
+                line = error.getLocator().getLineNumber();
+            } else if (error.getCause() instanceof SAXParseException) {
+                line = ((SAXParseException) error.getCause()).getLineNumber();
+            }
+            logger.fine("├── XSL template " + hash.substring(0, 8) + " failed to compile: " + error.getMessage());
+            return new CompileResult(hash, null, error.getMessage(), line);
+        }
+    }
+
+    private String render(String content, String sample) {
+        CompileResult compiled = compile(content);
+        if (!compiled.isValid()) {
+            return compiled.getErrorMessage();
+        }
+        long start = System.nanoTime();
+        try {
+            StringWriter writer = new StringWriter();
+            compiled.getTemplates().newTransformer().transform(new StreamSource(new StringReader(sample)),
+                    new StreamResult(writer));
+            String result = writer.toString();
+            return result.length() > PREVIEW_LENGTH ? result.substring(0, PREVIEW_LENGTH) + "..." : result;
+        } catch (TransformerException e) {
+            return "Failed to render preview: " + e.getMessage();
+        } finally {
+            ImixsMetrics.getInstance().record(ImixsXSLCompiler.class.getSimpleName(), "render",
+                    System.nanoTime() - start);
+        }
+    }
+
+    static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((content == null ? "" : content).getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is supported by every JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        return value == null ? ""
+                : value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    static <T> Map<String, T> createCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, T>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+    }
+
+    /**
+     * The result of a template compilation
+     */
+    public static class CompileResult {
+        private final String hash;
+        private final Templates templates;
+        private final String error;
+        private final int lineNumber;
+
+        CompileResult(String hash, Templates templates, String error, int lineNumber) {
+            this.hash = hash;
+            this.templates = templates;
+            this.error = error;
+            this.lineNumber = lineNumber;
+        }
+
+        /**
+         * Returns the SHA-256 hash of the template content
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        public boolean isValid() {
+            return templates != null;
+        }
+
+        /**
+         * Returns the compiled template or null if the compilation failed
+         */
+        public Templates getTemplates() {
+            return templates;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Returns the error with the line number
+         */
+        public String getErrorMessage() {
+            return lineNumber > 0 ? error + " (line " + lineNumber + ")" : error;
+        }
+    }
+
+    /**
+     * Keeps the first fatal error or the first error reported during the
+     * compilation. The exception thrown by the factory and the first error often
+     * only report that the compilation failed.
+     */
+    private static class FirstErrorListener implements ErrorListener {
+        private TransformerException error = null;
+        private TransformerException fatalError = null;
+
+        TransformerException getError() {
+            return fatalError != null ? fatalError : error;
+        }
+
+        @Override
+        public void warning(TransformerException exception) {
+            // ignore
+        }
+
+        @Override
+        public void error(TransformerException exception) {
+            if (error == null) {
+                error = exception;
+            }
+        }
+
+        @Override
+        public void fatalError(TransformerException exception) throws TransformerException {
+            if (fatalError == null) {
+                fatalError = exception;
+            }
+            throw exception;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.imixs.openbpmn.extensions;
 import javax.json.JsonObject;
 
 import org.eclipse.glsp.graph.GModelElement;
+import org.imixs.openbpmn.index.ImixsItemNameIndex;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNTypes;
 import org.openbpmn.bpmn.elements.DataObject;
@@ -119,6 +120,7 @@ public class ImixsBPMNDataObjectExtension extends ImixsBPMNElementExtension {
         if (data.contains("<PromptDefinition")) {
             dataType = IMIXS_DATATYPE_AI;
         }
+        ImixsItemNameIndex.getInstance(bpmnElement.getModel()).updateForm(bpmnElement.getElementNode(), data);
 
         if (!dataType.isEmpty()) {
             bpmnElement.setExtensionAttribute(getNamespace(), IMIXS_DATATYPE, dataType);
@@ -16,10 +16,13 @@
 package org.imixs.openbpmn.extensions;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.logging.Logger;
 
 import javax.json.JsonArray;
@@ -28,6 +31,9 @@ import javax.json.JsonValue;
 
 import org.eclipse.glsp.graph.GModelElement;
 import org.eclipse.glsp.server.actions.ActionDispatcher;
+import org.imixs.openbpmn.index.ImixsItemNameIndex;
+import org.imixs.openbpmn.index.ImixsValueIndex;
+import org.imixs.openbpmn.workspace.ImixsChangeJournal;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNTypes;
 import org.openbpmn.bpmn.elements.BPMNProcess;
@@ -53,6 +59,15 @@ public class ImixsBPMNDefinitionsExtension extends ImixsBPMNElementExtension {
 
     private static Logger logger = Logger.getLogger(ImixsBPMNDefinitionsExtension.class.getName());
 
+    // the maximum number of item names shown in the Items tab
+    private static final int MAX_ITEM_NAMES = 100;
+    // the item name filter of the Items tab per model
+    private static final Map<BPMNModel, String> itemFilters = Collections.synchronizedMap(new WeakHashMap<>());
+    // the maximum number of elements shown in the Search tab
+    static final int MAX_SEARCH_RESULTS = 100;
+    // the search query of the Search tab per model
+    private static final Map<BPMNModel, String> searchQueries = Collections.synchronizedMap(new WeakHashMap<>());
+
     @Inject
     protected ActionDispatcher actionDispatcher;
 
@@ -166,11 +181,108 @@ public class ImixsBPMNDefinitionsExtension extends ImixsBPMNElementExtension {
                 addElement("actors", "Actors", null). //
                 addElement("plugins", "Plugins", null);
 
+        // item names used in the model, listed only for a filter
+        String itemFilter = itemFilters.getOrDefault(model, "");
+        Map<String, String> readonlyOption = new HashMap<>();
+        readonlyOption.put("multi", "true");
+        readonlyOption.put("readonly", "true");
+        dataBuilder.addData("itemfilter", itemFilter);
+        dataBuilder.addData("itemnames", itemFilter.isBlank() ? "" : getItemNameUsages(model, itemFilter.trim()));
+        schemaBuilder.addProperty("itemfilter", "string",
+                "Enter the beginning of an item name to list the matching item names of this model.");
+        schemaBuilder.addProperty("itemnames", "string", "The matching item names with their usages.");
+        uiSchemaBuilder. //
+                addCategory("Items"). //
+                addLayout(Layout.VERTICAL). //
+                addElement("itemfilter", "Filter", null). //
+                addElement("itemnames", "Item Names", readonlyOption);
+
+        // elements using a value, searched only for a query
+        String searchQuery = searchQueries.getOrDefault(model, "");
+        dataBuilder.addData("searchquery", searchQuery);
+        dataBuilder.addData("searchresults", searchQuery.isBlank() ? "" : getValueUsages(model, searchQuery));
+        schemaBuilder.addProperty("searchquery", "string",
+                "Enter the words to find in the item values and attributes of this model. "
+                        + "A word ending with '*' matches all words with this prefix.");
+        schemaBuilder.addProperty("searchresults", "string", "The elements containing all words with their items.");
+        uiSchemaBuilder. //
+                addCategory("Search"). //
+                addLayout(Layout.VERTICAL). //
+                addElement("searchquery", "Find Usages", null). //
+                addElement("searchresults", "Elements", readonlyOption);
+
+        // unsaved changes of a previous session found in the change journal
+        ImixsChangeJournal journal = ImixsChangeJournal.getInstance(model);
+        if (journal != null && journal.getRecoverableChanges() > 0) {
+            String[] recoveryOptions = { "Restore|restore", "Discard|discard" };
+            Map<String, String> selectItemOption = new HashMap<>();
+            selectItemOption.put("format", "selectitem");
+            dataBuilder.addData("journalrecovery", "");
+            schemaBuilder.addProperty("journalrecovery", "string", journal.getRecoverableChanges()
+                    + " unsaved changes of a previous session were found.", recoveryOptions);
+            uiSchemaBuilder. //
+                    addCategory("Recovery"). //
+                    addLayout(Layout.VERTICAL). //
+                    addElement("journalrecovery", "Unsaved Changes", selectItemOption);
+        }
+    }
+
+    /**
+     * Returns the item names starting with the given prefix with the number of
+     * usages and the elements using them, one item per line.
+     */
+    private String getItemNameUsages(BPMNModel model, String prefix) {
+        ImixsItemNameIndex index = ImixsItemNameIndex.getInstance(model);
+        StringBuilder result = new StringBuilder();
+        for (String itemName : index.complete(prefix, MAX_ITEM_NAMES)) {
+            List<ImixsItemNameIndex.Usage> usages = index.findUsages(itemName);
+            result.append(itemName).append(" (").append(usages.size()).append("): ");
+            for (int i = 0; i < usages.size(); i++) {
+                result.append(i > 0 ? ", " : "").append(usages.get(i));
+            }
+            result.append(System.lineSeparator());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the elements containing all words of the query with the matching
+     * items, one element per line.
+     */
+    static String getValueUsages(BPMNModel model, String query) {
+        Map<String, Set<String>> usages = ImixsValueIndex.getInstance(model).search(query);
+        StringBuilder result = new StringBuilder();
+        int count = 0;
+        for (Map.Entry<String, Set<String>> entry : usages.entrySet()) {
+            if (count++ == MAX_SEARCH_RESULTS) {
+                result.append("... ").append(usages.size() - MAX_SEARCH_RESULTS).append(" more elements")
+                        .append(System.lineSeparator());
+                break;
+            }
+            result.append(entry.getKey()).append(": ").append(String.join(", ", entry.getValue()))
+                    .append(System.lineSeparator());
+        }
+        return result.toString();
     }
 
     @Override
     public boolean updatePropertiesData(final JsonObject json, final String category, final BPMNElement bpmnElement,
             final GModelElement gNodeElement) {
+        if ("Recovery".equals(category)) {
+            return updateRecovery(json, bpmnElement.getModel());
+        }
+        if ("Items".equals(category)) {
+            // a new filter updates the list of item names
+            String itemFilter = json.getString("itemfilter", "");
+            String oldFilter = itemFilters.put(bpmnElement.getModel(), itemFilter);
+            return !itemFilter.equals(oldFilter == null ? "" : oldFilter);
+        }
+        if ("Search".equals(category)) {
+            // a new query updates the search result
+            String searchQuery = json.getString("searchquery", "");
+            String oldQuery = searchQueries.put(bpmnElement.getModel(), searchQuery);
+            return !searchQuery.equals(oldQuery == null ? "" : oldQuery);
+        }
         // we are only interested in category Workflow
         if (!"Workflow".equals(category)) {
             return false;
@@ -296,4 +408,27 @@ public class ImixsBPMNDefinitionsExtension extends ImixsBPMNElementExtension {
         return false;
     }
 
+    /**
+     * Restores or discards the unsaved changes of a previous session. The method
+     * returns true if the model was changed.
+     */
+    private boolean updateRecovery(final JsonObject json, final BPMNModel model) {
+        ImixsChangeJournal journal = ImixsChangeJournal.getInstance(model);
+        if (journal == null) {
+            return false;
+        }
+        String action = json.getString("journalrecovery", "");
+        if ("restore".equals(action)) {
+            int changes = journal.restore(model);
+            logger.info("├── " + changes + " unsaved changes restored");
+            model.setDirty(true);
+            return true;
+        }
+        if ("discard".equals(action)) {
+            journal.discard();
+            return true;
+        }
+        return false;
+    }
+
 }
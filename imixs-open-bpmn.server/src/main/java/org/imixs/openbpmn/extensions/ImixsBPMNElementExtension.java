@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import org.imixs.openbpmn.compiler.ImixsXSLCompiler;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.elements.core.BPMNElement;
 import org.openbpmn.extensions.BPMNElementExtension;
@@ -135,4 +136,27 @@ public abstract class ImixsBPMNElementExtension implements BPMNElementExtension
         fileEditor.put("format", "textFileEditor");
         return fileEditor;
     }
+
+    /**
+     * Helper method that returns the preview of a XSL template rendered against a
+     * sample workitem of the given event. The preview is rendered in the
+     * background and is shown with the next form build.
+     * 
+     * @see ImixsXSLCompiler
+     */
+    String getTemplatePreview(final BPMNElement bpmnElement, final String template) {
+        ImixsXSLCompiler compiler = ImixsXSLCompiler.getInstance();
+        ImixsXSLCompiler.CompileResult compiled = compiler.compile(template);
+        if (!compiled.isValid()) {
+            return "Invalid XSL template: " + compiled.getErrorMessage();
+        }
+        BPMNModel model = bpmnElement.getModel();
+        String modelVersion = model.getDefinitions() != null
+                ? ImixsExtensionUtil.getItemValueString(model, model.getDefinitions(), "txtworkflowmodelversion")
+                : "";
+        String preview = compiler.getPreview(template,
+                ImixsXSLCompiler.getSampleWorkitem(bpmnElement.getAttribute(getNamespace() + ":activityid"),
+                        bpmnElement.getName(), modelVersion));
+        return preview != null ? preview : "rendering preview...";
+    }
 }
@@ -28,6 +28,8 @@ import javax.json.JsonString;
 import javax.json.JsonValue;
 
 import org.eclipse.glsp.graph.GModelElement;
+import org.imixs.openbpmn.index.ImixsResultIndex;
+import org.imixs.openbpmn.util.ImixsIdAllocator;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNTypes;
 import org.openbpmn.bpmn.elements.Event;
@@ -86,12 +88,16 @@ public class ImixsBPMNEventExtension extends ImixsBPMNElementExtension {
     }
 
     /**
-     * This method adds a unique identifier to the corresponding BPMNElement
+     * This method adds a unique identifier to the corresponding BPMNElement. The
+     * next free event id of the connected tasks is computed by the
+     * ImixsIdAllocator. A new event which is not yet connected gets the default
+     * id. Its final id is allocated when the event is connected to a task.
      */
     @Override
     public void addExtension(final BPMNElement bpmnElement) {
         if (bpmnElement instanceof Event) {
-            bpmnElement.setExtensionAttribute(getNamespace(), "activityid", "10");
+            int eventId = ImixsIdAllocator.getInstance(bpmnElement.getModel()).nextEventId((Event) bpmnElement);
+            bpmnElement.setExtensionAttribute(getNamespace(), "activityid", "" + eventId);
         }
     }
 
@@ -107,6 +113,11 @@ public class ImixsBPMNEventExtension extends ImixsBPMNElementExtension {
         BPMNModel model = bpmnElement.getModel();
         Element elementNode = bpmnElement.getElementNode();
         ImixsItemNameMapper actorFieldMapper = new ImixsItemNameMapper(model, "txtfieldmapping");
+        // an event connected after its creation gets its final id with the next update
+        Integer proposedEventId = null;
+        if (bpmnElement instanceof Event) {
+            proposedEventId = ImixsIdAllocator.getInstance(model).getProposedEventId((Event) bpmnElement);
+        }
 
         /***********
          * Data
@@ -137,7 +148,8 @@ public class ImixsBPMNEventExtension extends ImixsBPMNElementExtension {
         String[] actorItemDefsArray = actorItemDefs.toArray(String[]::new);
         String[] publicEventOptions = { "Yes|1", "No|0" };
         schemaBuilder //
-                .addProperty("activityid", "string", null) //
+                .addProperty("activityid", "string", proposedEventId == null ? null
+                        : "The event ID " + proposedEventId + " is assigned with the next update.") //
                 .addProperty("txtactivityresult", "string",
                         "Optional Execution Result. Additional item values can be defined here. ") //
                 .addProperty("keypublicresult", "string",
@@ -182,6 +194,7 @@ public class ImixsBPMNEventExtension extends ImixsBPMNElementExtension {
     public boolean updatePropertiesData(final JsonObject json, final String category, final BPMNElement bpmnElement,
             final GModelElement gNodeElement) {
 
+        boolean reload = false;
         // we are only interested in category Workflow and History
         if ("Workflow".equals(category)) {
 
@@ -189,10 +202,21 @@ public class ImixsBPMNEventExtension extends ImixsBPMNElementExtension {
             Element elementNode = bpmnElement.getElementNode();
             ImixsItemNameMapper actorFieldMapper = new ImixsItemNameMapper(model, "txtfieldmapping");
 
-            bpmnElement.setExtensionAttribute(getNamespace(), "activityid",
-                    json.getString("activityid", "0"));
+            String oldEventId = bpmnElement.getExtensionAttribute(getNamespace(), "activityid");
+            String newEventId = json.getString("activityid", "0");
+            ImixsExtensionUtil.setExtensionAttribute(bpmnElement, "activityid", newEventId);
+            if (bpmnElement instanceof Event) {
+                if (!newEventId.equals(oldEventId)) {
+                    ImixsIdAllocator.getInstance(model).updateEventId((Event) bpmnElement, newEventId);
+                } else {
+                    // an event connected after its creation gets its final id now
+                    reload = ImixsIdAllocator.getInstance(model).confirmEventId((Event) bpmnElement) != null;
+                }
+            }
             ImixsExtensionUtil.setItemValue(model, elementNode, "txtactivityresult", "xs:string",
                     json.getString("txtactivityresult", ""));
+            ImixsResultIndex.getInstance(model).update(bpmnElement.getId(),
+                    json.getString("txtactivityresult", ""));
             ImixsExtensionUtil.setItemValue(model, elementNode, "keypublicresult", "xs:string",
                     json.getString("keypublicresult", "1"));
 
@@ -220,7 +244,8 @@ public class ImixsBPMNEventExtension extends ImixsBPMNElementExtension {
             }
         }
 
-        return false;
+        // reload the form if the final event id was assigned
+        return reload;
 
     }
 
@@ -28,6 +28,7 @@ import javax.json.JsonString;
 import javax.json.JsonValue;
 
 import org.eclipse.glsp.graph.GModelElement;
+import org.imixs.openbpmn.compiler.ImixsXSLCompiler;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNTypes;
 import org.openbpmn.bpmn.elements.Event;
@@ -165,6 +166,17 @@ public class ImixsBPMNEventMailExtension extends ImixsBPMNElementExtension {
                                 .addElement("txtmailsubject", "Subject", null) //
                                 .addElement("rtfmailbody", "Body", this.getFileEditorOption());
 
+                // preview of a XSL template
+                String mailBody = ImixsExtensionUtil.getItemValueString(model, elementNode, "rtfmailbody");
+                if (ImixsXSLCompiler.isXSLTemplate(mailBody)) {
+                        Map<String, String> previewOption = getMultilineOption();
+                        previewOption.put("readonly", "true");
+                        dataBuilder.addData("rtfmailbodypreview", getTemplatePreview(bpmnElement, mailBody));
+                        schemaBuilder.addProperty("rtfmailbodypreview", "string",
+                                        "The body rendered against a sample workitem.");
+                        uiSchemaBuilder.addElement("rtfmailbodypreview", "Preview", previewOption);
+                }
+
                 if (actorFieldMapper.getItemDefinitions() != null && actorFieldMapper.getItemDefinitions().size() > 0) {
                         uiSchemaBuilder //
                                         .addLayout(Layout.HORIZONTAL) //
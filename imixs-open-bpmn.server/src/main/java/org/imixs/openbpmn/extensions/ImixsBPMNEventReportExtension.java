@@ -22,6 +22,7 @@ import java.util.logging.Logger;
 import javax.json.JsonObject;
 
 import org.eclipse.glsp.graph.GModelElement;
+import org.imixs.openbpmn.compiler.ImixsXSLCompiler;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNTypes;
 import org.openbpmn.bpmn.elements.Event;
@@ -146,6 +147,17 @@ public class ImixsBPMNEventReportExtension extends ImixsBPMNElementExtension {
                                 .addElement("txtreporttarget", "Target", selectItemOption) //
                                 .addElement("txtreportoptions", "Options", multilineOption);
 
+                // preview of an inline XSL report definition
+                String reportDefinition = ImixsExtensionUtil.getItemValueString(model, elementNode, "txtreportname");
+                if (ImixsXSLCompiler.isXSLTemplate(reportDefinition)) {
+                        Map<String, String> previewOption = getMultilineOption();
+                        previewOption.put("readonly", "true");
+                        dataBuilder.addData("txtreportpreview", getTemplatePreview(bpmnElement, reportDefinition));
+                        schemaBuilder.addProperty("txtreportpreview", "string",
+                                        "The report rendered against a sample workitem.");
+                        uiSchemaBuilder.addElement("txtreportpreview", "Preview", previewOption);
+                }
+
         }
 
         /**
@@ -22,6 +22,7 @@ import java.util.logging.Logger;
 import javax.json.JsonObject;
 
 import org.eclipse.glsp.graph.GModelElement;
+import org.imixs.openbpmn.compiler.ImixsRuleCompiler;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNTypes;
 import org.openbpmn.bpmn.elements.Event;
@@ -97,7 +98,8 @@ public class ImixsBPMNEventRuleExtension extends ImixsBPMNElementExtension {
                 .addData("txtbusinessruleengine",
                         ImixsExtensionUtil.getItemValueString(model, elementNode, "txtbusinessruleengine")) //
                 .addData("txtbusinessrule",
-                        ImixsExtensionUtil.getItemValueString(model, elementNode, "txtbusinessrule"));
+                        ImixsExtensionUtil.getItemValueString(model, elementNode, "txtbusinessrule")) //
+                .addData("txtbusinessrulecheck", getRuleCheck(model, elementNode));
 
         /***********
          * Schema
@@ -106,20 +108,40 @@ public class ImixsBPMNEventRuleExtension extends ImixsBPMNElementExtension {
                 .addProperty("txtbusinessruleengine", "string", "") //
                 .addProperty("txtbusinessrule", "string",
                         "A business rule can also provide an optional result object with new or updated item values. " +
-                                "The item values stored in the result object will be applied to the current process instance.");
+                                "The item values stored in the result object will be applied to the current process instance.") //
+                .addProperty("txtbusinessrulecheck", "string", "");
 
         /***********
          * UISchema
          */
         Map<String, String> multilineOption = new HashMap<>();
         multilineOption.put("multi", "true");
+        Map<String, String> readonlyOption = new HashMap<>();
+        readonlyOption.put("readonly", "true");
         uiSchemaBuilder //
                 .addCategory("Business Rule") //
                 .addElement("txtbusinessruleengine", "Engine", null) //
-                .addElement("txtbusinessrule", "Rule", this.getFileEditorOption());
+                .addElement("txtbusinessrule", "Rule", this.getFileEditorOption()) //
+                .addElement("txtbusinessrulecheck", "Check", readonlyOption);
 
     }
 
+    /**
+     * Returns the result of the compile check of the rule. The rule is compiled in
+     * the background, an unchanged rule is not compiled again.
+     * 
+     * @see ImixsRuleCompiler
+     */
+    private String getRuleCheck(BPMNModel model, Element elementNode) {
+        String rule = ImixsExtensionUtil.getItemValueString(model, elementNode, "txtbusinessrule");
+        if (rule.isBlank()) {
+            return "-";
+        }
+        ImixsRuleCompiler.CompileResult result = ImixsRuleCompiler.getInstance().getResult(
+                ImixsExtensionUtil.getItemValueString(model, elementNode, "txtbusinessruleengine"), rule);
+        return result != null ? result.getMessage() : "checking...";
+    }
+
     /**
      * This method updates the BPMN properties and also the imixs processid.
      * The processID is also updated for the frontend.
@@ -138,6 +160,11 @@ public class ImixsBPMNEventRuleExtension extends ImixsBPMNElementExtension {
                     json.getString("txtbusinessruleengine", ""));
             ImixsExtensionUtil.setItemValue(model, elementNode, "txtbusinessrule", "xs:string",
                     json.getString("txtbusinessrule", ""));
+            // compile the changed rule before the next validation run
+            if (!json.getString("txtbusinessrule", "").isBlank()) {
+                ImixsRuleCompiler.getInstance().check(json.getString("txtbusinessruleengine", ""),
+                        json.getString("txtbusinessrule", ""));
+            }
         }
         return false;
     }
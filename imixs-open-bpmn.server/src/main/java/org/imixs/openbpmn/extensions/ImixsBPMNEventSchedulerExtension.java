@@ -15,13 +15,19 @@
  ********************************************************************************/
 package org.imixs.openbpmn.extensions;
 
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.json.JsonObject;
 
 import org.eclipse.glsp.graph.GModelElement;
+import org.imixs.openbpmn.scheduler.ImixsSelectorQuery;
+import org.imixs.openbpmn.scheduler.ImixsWorkdayCalendar;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNTypes;
 import org.openbpmn.bpmn.elements.Event;
@@ -42,6 +48,9 @@ public class ImixsBPMNEventSchedulerExtension extends ImixsBPMNElementExtension
 
 	private static Logger logger = Logger.getLogger(ImixsBPMNEventSchedulerExtension.class.getName());
 
+	private static final DateTimeFormatter NEXT_DUE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm (EEE)",
+			Locale.ENGLISH);
+
 	public ImixsBPMNEventSchedulerExtension() {
 		super();
 	}
@@ -115,7 +124,9 @@ public class ImixsBPMNEventSchedulerExtension extends ImixsBPMNElementExtension
 								"keytimecomparefield")) //
 				.addData("txtscheduledview",
 						ImixsExtensionUtil.getItemValueString(model, elementNode,
-								"txtscheduledview")); //
+								"txtscheduledview")) //
+				.addData("selectorcheck", getSelectorCheck(model, elementNode)) //
+				.addData("nextdue", getNextDuePreview(model, elementNode)); //
 
 		ImixsItemNameMapper timeFieldMapper = new ImixsItemNameMapper(model, "txttimefieldmapping");
 
@@ -134,7 +145,9 @@ public class ImixsBPMNEventSchedulerExtension extends ImixsBPMNElementExtension
 				.addProperty("keyactivitydelayunit", "string", "", keyUnits) //
 				.addProperty("keyscheduledbaseobject", "string", "", refOption) //
 				.addProperty("keytimecomparefield", "string", "", timeFields) //
-				.addProperty("txtscheduledview", "string", ""); //
+				.addProperty("txtscheduledview", "string", "") //
+				.addProperty("selectorcheck", "string", "") //
+				.addProperty("nextdue", "string", ""); //
 
 		/***********
 		 * UISchema
@@ -148,6 +161,9 @@ public class ImixsBPMNEventSchedulerExtension extends ImixsBPMNElementExtension
 		Map<String, String> selectCombo = new HashMap<>();
 		selectCombo.put("format", "selectitemcombo");
 
+		Map<String, String> readonlyOption = new HashMap<>();
+		readonlyOption.put("readonly", "true");
+
 		// Map<String, String> comboOption = new HashMap<>();
 		// comboOption.put("format", "combo");
 		uiSchemaBuilder //
@@ -160,7 +176,51 @@ public class ImixsBPMNEventSchedulerExtension extends ImixsBPMNElementExtension
 				.addElement("keyscheduledbaseobject", "A Time Base Object", selectVertical) //
 				.addElement("keytimecomparefield", "Item Reference", selectCombo) //
 				.addLayout(Layout.HORIZONTAL) //
-				.addElement("txtscheduledview", "Selection", null);
+				.addElement("txtscheduledview", "Selection", null) //
+				.addElement("selectorcheck", "Selection Check", readonlyOption) //
+				.addLayout(Layout.HORIZONTAL) //
+				.addElement("nextdue", "Next Due (from now)", readonlyOption);
+	}
+
+	/**
+	 * Returns the result of the syntax check of the selector query. The parsed
+	 * queries are cached, so the check is cheap on each form build.
+	 */
+	private String getSelectorCheck(BPMNModel model, Element elementNode) {
+		String selector = ImixsExtensionUtil.getItemValueString(model, elementNode, "txtscheduledview");
+		if (selector.isBlank()) {
+			return "default ($taskid and $modelversion)";
+		}
+		ImixsSelectorQuery query = ImixsSelectorQuery.parse(selector);
+		if (!query.isValid()) {
+			return "Error: " + query.getError();
+		}
+		if (!query.getWarnings().isEmpty()) {
+			return "Warning: " + String.join("; ", query.getWarnings());
+		}
+		return "OK";
+	}
+
+	/**
+	 * Returns a preview of the next due date of the timer starting from now,
+	 * computed by the default {@link ImixsWorkdayCalendar}. The time base object
+	 * of a workitem is not known at design time.
+	 */
+	private String getNextDuePreview(BPMNModel model, Element elementNode) {
+		if (!"1".equals(ImixsExtensionUtil.getItemValueString(model, elementNode, "keyscheduledactivity", "0"))) {
+			return "-";
+		}
+		try {
+			long delay = Long.parseLong(
+					ImixsExtensionUtil.getItemValueString(model, elementNode, "numactivitydelay", "0").trim());
+			int unit = Integer.parseInt(
+					ImixsExtensionUtil.getItemValueString(model, elementNode, "keyactivitydelayunit", "1").trim());
+			LocalDateTime dueDate = ImixsWorkdayCalendar.getDefault().getDueDate(LocalDateTime.now(), delay, unit);
+			return dueDate.format(NEXT_DUE_FORMAT);
+		} catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+			// includes NumberFormatException and a due date out of range
+			return "invalid delay";
+		}
 	}
 
 	/**
@@ -21,6 +21,8 @@ import java.util.Map;
 import javax.json.JsonObject;
 
 import org.eclipse.glsp.graph.GModelElement;
+import org.imixs.openbpmn.util.ImixsIdAllocator;
+import org.imixs.openbpmn.util.ImixsIdRegistry;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNTypes;
 import org.openbpmn.bpmn.elements.Activity;
@@ -85,12 +87,17 @@ public class ImixsBPMNTaskExtension extends ImixsBPMNElementExtension {
         }
 
         /**
-         * This method adds a unique identifier to the corresponding BPMNElement
+         * This method adds a unique identifier to the corresponding BPMNElement. The
+         * next free task id of the process is computed by the ImixsIdAllocator.
          */
         @Override
         public void addExtension(final BPMNElement bpmnElement) {
                 if (bpmnElement instanceof Activity) {
-                        bpmnElement.setExtensionAttribute(getNamespace(), "processid", "100");
+                        int taskId = ImixsIdAllocator.getInstance(bpmnElement.getModel())
+                                        .nextTaskId((Activity) bpmnElement);
+                        bpmnElement.setExtensionAttribute(getNamespace(), "processid", "" + taskId);
+                        ImixsIdRegistry.getInstance(bpmnElement.getModel()).updateTaskId((Activity) bpmnElement,
+                                        "" + taskId);
                 }
         }
 
@@ -193,8 +200,11 @@ public class ImixsBPMNTaskExtension extends ImixsBPMNElementExtension {
                         String oldTaskId = bpmnElement.getExtensionAttribute(getNamespace(), "processid");
                         String newTaskId = json.getString("processid", "0");
                         if (gNodeElement instanceof BPMNGNode && !newTaskId.equals(oldTaskId)) {
-                                bpmnElement.setExtensionAttribute(getNamespace(), "processid",
-                                                json.getString("processid", "0"));
+                                ImixsExtensionUtil.setExtensionAttribute(bpmnElement, "processid", newTaskId);
+                                if (bpmnElement instanceof Activity) {
+                                        ImixsIdAllocator.getInstance(model).updateTaskId((Activity) bpmnElement,
+                                                        newTaskId);
+                                }
                                 // update gNode info attribute...
                                 gNodeElement.getArgs().put("bpmnExtensionInfo", "Id: " + newTaskId);
                         }
@@ -1,12 +1,17 @@
 package org.imixs.openbpmn.extensions;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNNS;
+import org.openbpmn.bpmn.elements.core.BPMNElement;
 import org.w3c.dom.CDATASection;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -28,6 +33,8 @@ import org.w3c.dom.NodeList;
  */
 public class ImixsExtensionUtil {
 
+    private static final List<ImixsItemChangeListener> itemChangeListeners = new CopyOnWriteArrayList<>();
+
     public static String getNamespace() {
         return "imixs";
     }
@@ -36,6 +43,61 @@ public class ImixsExtensionUtil {
         return "http://www.imixs.org/bpmn2";
     }
 
+    /**
+     * Registers a listener notified on each item write
+     */
+    public static void addItemChangeListener(ImixsItemChangeListener listener) {
+        if (!itemChangeListeners.contains(listener)) {
+            itemChangeListeners.add(listener);
+        }
+    }
+
+    public static void removeItemChangeListener(ImixsItemChangeListener listener) {
+        itemChangeListeners.remove(listener);
+    }
+
+    static void fireItemChanged(final BPMNModel model, final Element elementNode, final String itemName,
+            final String type, final List<String> values) {
+        for (ImixsItemChangeListener listener : itemChangeListeners) {
+            listener.itemChanged(model, elementNode, itemName, type, values);
+        }
+    }
+
+    static void fireAttributeChanged(final BPMNModel model, final Element elementNode, final String name,
+            final String value) {
+        for (ImixsItemChangeListener listener : itemChangeListeners) {
+            listener.attributeChanged(model, elementNode, name, value);
+        }
+    }
+
+    /**
+     * Sets an imixs extension attribute (e.g. the processid of a task) and notifies
+     * the item change listeners.
+     * 
+     * @param bpmnElement
+     * @param name        - attribute name without namespace prefix
+     * @param value
+     */
+    public static void setExtensionAttribute(final BPMNElement bpmnElement, final String name, final String value) {
+        bpmnElement.setExtensionAttribute(getNamespace(), name, value);
+        fireAttributeChanged(bpmnElement.getModel(), bpmnElement.getElementNode(), name, value);
+    }
+
+    /**
+     * Sets an imixs extension attribute of an element node and notifies the item
+     * change listeners.
+     * 
+     * @param model
+     * @param elementNode
+     * @param name        - attribute name without namespace prefix
+     * @param value
+     */
+    public static void setExtensionAttribute(final BPMNModel model, final Element elementNode, final String name,
+            final String value) {
+        elementNode.setAttribute(getNamespace() + ":" + name, value);
+        fireAttributeChanged(model, elementNode, name, value);
+    }
+
     /**
      * This method returns a Imixs ItemValue List from the Model Definition.
      * Such a list can contains label|value pairs.
@@ -149,6 +211,10 @@ public class ImixsExtensionUtil {
 
             elementNode.insertBefore(extensionElement, elementNode.getFirstChild());
         }
+        if (!itemChangeListeners.isEmpty()) {
+            fireItemChanged(model, elementNode, itemName, type,
+                    value == null || value.isEmpty() ? Collections.emptyList() : Collections.singletonList(value));
+        }
     }
 
     /**
@@ -205,6 +271,9 @@ public class ImixsExtensionUtil {
             }
         }
 
+        // the values written, collected only for the item change listeners
+        List<String> writtenValues = itemChangeListeners.isEmpty() ? null : new ArrayList<>();
+
         // update the item...
         if (item != null) {
             item.setAttribute("name", itemName);
@@ -227,6 +296,9 @@ public class ImixsExtensionUtil {
                 valueElement.appendChild(cdataSection);
                 // valueElement.setTextContent(value);
                 item.appendChild(valueElement);
+                if (writtenValues != null) {
+                    writtenValues.add(value);
+                }
             }
         }
 
@@ -236,6 +308,9 @@ public class ImixsExtensionUtil {
 
             elementNode.insertBefore(extensionElement, elementNode.getFirstChild());
         }
+        if (writtenValues != null) {
+            fireItemChanged(model, elementNode, itemName, type, writtenValues);
+        }
     }
 
     /**
@@ -264,6 +339,7 @@ public class ImixsExtensionUtil {
         if (item != null) {
             // remove the item node
             extensionElement.removeChild(item);
+            fireItemChanged(model, elementNode, itemName, null, Collections.emptyList());
         }
     }
 
@@ -301,59 +377,113 @@ public class ImixsExtensionUtil {
     public static List<String> getItemValueList(final BPMNModel model, final Element elementNode, String itemName,
             List<String> referenceList) {
         Element extensionElement = model.findChildNodeByName(elementNode, BPMNNS.BPMN2, "extensionElements");
-        List<String> uniqueValueList = new ArrayList<>();
-
-        List<String> result = new ArrayList<>();
         if (extensionElement != null) {
             // first find the matching imixs:item
             Element imixsItemElement = findItemByName(extensionElement, itemName);
             if (imixsItemElement != null) {
-                // now iterate over all item:values and add each value into the list
-                // <imixs:value><![CDATA[form_basic]]></imixs:value>
-                Set<Element> imixsValueElements = findAllImixsElements(imixsItemElement, "value");
-                if (imixsValueElements != null) {
-                    for (Element imixsItemValue : imixsValueElements) {
-                        String value = null;
-                        // we expect a CDATA, bu we can not be sure
-                        Node cdata = findCDATA(imixsItemValue);
-                        if (cdata != null) {
-                            String cdValue = cdata.getNodeValue();
-                            if (cdValue != null) {
-                                value = cdValue;
-                            }
-                        } else {
-                            // normal text node
-                            value = imixsItemValue.getTextContent();
-                        }
-
-                        // avoid duplicates
-                        if (value.contains("|")) {
-                            String valuePart = value.substring(value.indexOf("|") + 1).trim();
-                            if (uniqueValueList.contains(valuePart)) {
-                                continue;
-                            }
-                            uniqueValueList.add(valuePart);
-                        } else {
-                            if (uniqueValueList.contains(value)) {
-                                continue;
-                            }
-                            uniqueValueList.add(value);
-                        }
-
-                        // add value - it is now unique!
-                        if (referenceList == null || referenceList.contains(value)) {
-                            result.add(value);
-                        }
-                    }
+                return readItemValues(imixsItemElement, referenceList);
+            }
+        }
+        // no item found with this item name - return an empty list
+        return new ArrayList<>();
+    }
+
+    /**
+     * This helper method returns the value lists of a set of imixs:items in one
+     * pass over the extensionElements of the given element. The values are
+     * decoded in the same way as by {@link #getItemValueList}.
+     * <p>
+     * The result contains an entry for each requested item name. If no item with
+     * the name exists, the entry holds an empty list.
+     * 
+     * @param itemNames - names of the items to read
+     * @return map of item names and their value lists
+     */
+    public static Map<String, List<String>> getItemValueMap(final BPMNModel model, final Element elementNode,
+            Set<String> itemNames) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        Element extensionElement = model.findChildNodeByName(elementNode, BPMNNS.BPMN2, "extensionElements");
+        if (extensionElement != null) {
+            for (Element item : findAllImixsElements(extensionElement, "item")) {
+                String name = item.getAttribute("name");
+                // the first item with a name wins - like in findItemByName
+                if (itemNames.contains(name) && !result.containsKey(name)) {
+                    result.put(name, readItemValues(item, null));
+                }
+            }
+        }
+        for (String name : itemNames) {
+            result.putIfAbsent(name, new ArrayList<>());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values of an imixs:item element. The values are decoded like
+     * by the method getItemValueList.
+     * 
+     * @param imixsItemElement
+     * @return the itemValue list.
+     */
+    public static List<String> getItemValues(Element imixsItemElement) {
+        return readItemValues(imixsItemElement, null);
+    }
 
+    /**
+     * Helper method that reads all imixs:value elements of an imixs:item. The
+     * method expects CDATA values but also accepts plain text nodes. Duplicates
+     * are removed based on the value part of label|value pairs.
+     * 
+     * @param imixsItemElement
+     * @param referenceList    - optional list of allowed values
+     * @return the itemValue list.
+     */
+    private static List<String> readItemValues(Element imixsItemElement, List<String> referenceList) {
+        List<String> uniqueValueList = new ArrayList<>();
+        List<String> result = new ArrayList<>();
+        // now iterate over all item:values and add each value into the list
+        // <imixs:value><![CDATA[form_basic]]></imixs:value>
+        Set<Element> imixsValueElements = findAllImixsElements(imixsItemElement, "value");
+        for (Element imixsItemValue : imixsValueElements) {
+            String value = null;
+            // we expect a CDATA, bu we can not be sure
+            Node cdata = findCDATA(imixsItemValue);
+            if (cdata != null) {
+                String cdValue = cdata.getNodeValue();
+                if (cdValue != null) {
+                    value = cdValue;
                 }
+            } else {
+                // normal text node
+                value = imixsItemValue.getTextContent();
+            }
+
+            // avoid duplicates
+            String valuePart = getValuePart(value);
+            if (uniqueValueList.contains(valuePart)) {
+                continue;
+            }
+            uniqueValueList.add(valuePart);
 
+            // add value - it is now unique!
+            if (referenceList == null || referenceList.contains(value)) {
+                result.add(value);
             }
         }
-        // no item found with this item name - return an empty list
         return result;
     }
 
+    /**
+     * Returns the value part of a label|value pair. Values are de-duplicated by
+     * this part. If the value contains no '|' the value is returned unchanged.
+     */
+    public static String getValuePart(String value) {
+        if (value.contains("|")) {
+            return value.substring(value.indexOf("|") + 1).trim();
+        }
+        return value;
+    }
+
     /**
      * This helper method returns the first imixs:value within a imixs:item as a
      * String. If no item with the given name exists, or the item has no values, the
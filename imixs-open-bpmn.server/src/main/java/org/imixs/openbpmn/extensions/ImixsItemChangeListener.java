@@ -0,0 +1,58 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.extensions;
+
+import java.util.List;
+
+import org.openbpmn.bpmn.BPMNModel;
+import org.w3c.dom.Element;
+
+/**
+ * An ImixsItemChangeListener is notified by the {@link ImixsExtensionUtil} each
+ * time an imixs:item or an imixs attribute of an element is written or removed.
+ * Listeners are used to keep model indexes and the change journal up to date
+ * without rescanning the model.
+ * <p>
+ * Listeners are called synchronously on the thread writing the item and must
+ * return quickly.
+ * 
+ * @author rsoika
+ *
+ */
+public interface ImixsItemChangeListener {
+
+    /**
+     * Called after an item was written or removed.
+     * 
+     * @param model       - the model
+     * @param elementNode - the element containing the item
+     * @param itemName    - the item name
+     * @param type        - the item type, null if the item was removed
+     * @param values      - the new values, empty if the item was removed
+     */
+    void itemChanged(BPMNModel model, Element elementNode, String itemName, String type, List<String> values);
+
+    /**
+     * Called after an imixs attribute like the processid of a task was written.
+     * 
+     * @param model       - the model
+     * @param elementNode - the element
+     * @param name        - the attribute name without the namespace prefix
+     * @param value       - the new value
+     */
+    default void attributeChanged(BPMNModel model, Element elementNode, String name, String value) {
+    }
+}
@@ -0,0 +1,247 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.extensions;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The ImixsItemReader is a streaming read-only reader for the imixs:item
+ * elements of a BPMN model file. The reader does not build a DOM. It reports
+ * each imixs:item together with the id and the type (local name) of the BPMN
+ * element owning the bpmn2:extensionElements to an {@link ItemHandler}. Only
+ * the values of the current item are held in memory, so also very large models
+ * can be read in constant memory.
+ * <p>
+ * The values are decoded like {@link ImixsExtensionUtil#getItemValueList}: a
+ * CDATA section is preferred over the text content and duplicates are removed
+ * based on the value part of label|value pairs.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * new ImixsItemReader().read(file, (elementId, elementType, itemName, values) -> {
+ *     System.out.println(elementId + " " + itemName + "=" + values);
+ * });
+ * }</pre>
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsItemReader {
+
+    public static final String BPMN2_NS = "http://www.omg.org/spec/BPMN/20100524/MODEL";
+
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+    private static final XMLInputFactory xmlInputFactory;
+    static {
+        xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        // the JDK parser reports CDATA sections as characters by default
+        if (xmlInputFactory.isPropertySupported(REPORT_CDATA)) {
+            xmlInputFactory.setProperty(REPORT_CDATA, true);
+        }
+    }
+
+    private Set<String> itemNames = null;
+
+    /**
+     * Callback for the items and elements of a model
+     */
+    @FunctionalInterface
+    public interface ItemHandler {
+
+        /**
+         * Called for each imixs:item.
+         * 
+         * @param elementId   - id of the BPMN element owning the item
+         * @param elementType - local name of the BPMN element, e.g. 'definitions',
+         *                    'task' or 'intermediateCatchEvent'
+         * @param itemName    - name of the item
+         * @param values      - decoded and de-duplicated item values
+         */
+        void item(String elementId, String elementType, String itemName, List<String> values);
+
+        /**
+         * Called for each BPMN element (bpmn2 namespace) with an id when the
+         * element starts - before its items are reported. The attributes are given
+         * by their local name. Attributes of other namespaces are prefixed, imixs
+         * attributes always with 'imixs:', e.g. 'imixs:processid'.
+         */
+        default void element(String elementId, String elementType, Map<String, String> attributes) {
+        }
+    }
+
+    /**
+     * Restricts the reported items to the given item names. Values of other items
+     * are skipped without being decoded. Elements are always reported.
+     */
+    public ImixsItemReader itemNames(Set<String> itemNames) {
+        this.itemNames = itemNames == null ? null : new HashSet<>(itemNames);
+        return this;
+    }
+
+    /**
+     * Reads the given model file
+     */
+    public void read(Path file, ItemHandler handler) throws IOException, XMLStreamException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            read(in, handler);
+        }
+    }
+
+    /**
+     * Reads a model from the given input stream. The stream is not closed.
+     */
+    public void read(InputStream in, ItemHandler handler) throws XMLStreamException {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+        String imixsNS = ImixsExtensionUtil.getNamespaceURI();
+        // id and type of the open elements
+        Deque<String[]> elements = new ArrayDeque<>();
+        String[] owner = null;
+        int ownerDepth = -1;
+        String itemName = null;
+        List<String> values = null;
+        StringBuilder cdata = null;
+        StringBuilder text = null;
+        boolean cdataComplete = false;
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String namespace = reader.getNamespaceURI();
+                    String localName = reader.getLocalName();
+                    if (owner == null && BPMN2_NS.equals(namespace) && "extensionElements".equals(localName)
+                            && !elements.isEmpty()) {
+                        // the extension elements belong to the parent element
+                        owner = elements.peek();
+                        ownerDepth = elements.size();
+                    } else if (owner != null && imixsNS.equals(namespace)) {
+                        if (itemName == null && "item".equals(localName) && elements.size() == ownerDepth + 1) {
+                            String name = reader.getAttributeValue(null, "name");
+                            if (name != null && (itemNames == null || itemNames.contains(name))) {
+                                itemName = name;
+                                values = new ArrayList<>();
+                            }
+                        } else if (itemName != null && "value".equals(localName)) {
+                            cdata = new StringBuilder();
+                            text = new StringBuilder();
+                            cdataComplete = false;
+                        }
+                    } else if (owner == null && BPMN2_NS.equals(namespace)) {
+                        String id = reader.getAttributeValue(null, "id");
+                        if (id != null) {
+                            handler.element(id, localName, getAttributes(reader, imixsNS));
+                        }
+                    }
+                    elements.push(new String[] { reader.getAttributeValue(null, "id"), localName });
+                    break;
+                case XMLStreamConstants.CDATA:
+                    if (cdata != null && !cdataComplete) {
+                        cdata.append(reader.getText());
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    if (text != null) {
+                        text.append(reader.getText());
+                        // like findCDATA only the first CDATA section is used
+                        cdataComplete = cdata.length() > 0;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    elements.pop();
+                    if (cdata != null) {
+                        values.add(cdata.length() > 0 ? cdata.toString() : text.toString());
+                        cdata = null;
+                        text = null;
+                    } else if (itemName != null) {
+                        handler.item(owner[0], owner[1], itemName, unique(values));
+                        itemName = null;
+                        values = null;
+                    } else if (owner != null && elements.size() == ownerDepth) {
+                        owner = null;
+                        ownerDepth = -1;
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the items of all elements into a map of element ids and their items.
+     * This method holds the complete result in memory and is intended for small
+     * models or a restricted set of item names.
+     */
+    public Map<String, Map<String, List<String>>> readAll(InputStream in) throws XMLStreamException {
+        Map<String, Map<String, List<String>>> result = new HashMap<>();
+        read(in, (elementId, elementType, itemName, values) -> result
+                .computeIfAbsent(elementId, k -> new HashMap<>()).putIfAbsent(itemName, values));
+        return result;
+    }
+
+    private static Map<String, String> getAttributes(XMLStreamReader reader, String imixsNS) {
+        Map<String, String> result = new HashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespace = reader.getAttributeNamespace(i);
+            String name = reader.getAttributeLocalName(i);
+            if (imixsNS.equals(namespace)) {
+                name = ImixsExtensionUtil.getNamespace() + ":" + name;
+            } else if (namespace != null && !namespace.isEmpty()) {
+                name = reader.getAttributePrefix(i) + ":" + name;
+            }
+            result.put(name, reader.getAttributeValue(i));
+        }
+        return result;
+    }
+
+    /**
+     * Removes duplicates based on the value part of label|value pairs
+     */
+    private static List<String> unique(List<String> values) {
+        Set<String> valueParts = new HashSet<>();
+        List<String> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (valueParts.add(ImixsExtensionUtil.getValuePart(value))) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,275 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.extensions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.openbpmn.bpmn.BPMNModel;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * The ImixsModelCompactor removes redundant Imixs extension data from a model
+ * before it is saved. In one pass over all bpmn2:extensionElements the
+ * compactor
+ * <ul>
+ * <li>removes duplicate imixs:value entries of an item (same decoded value)
+ * <li>removes open-bpmn:file-link attributes not holding a file:// link
+ * <li>removes items with only empty values (and no file link)
+ * <li>removes whitespace between items and values
+ * <li>removes empty bpmn2:extensionElements
+ * </ul>
+ * The values read by the engine do not change. The compaction is enabled by
+ * the system property 'imixs.model.compact=true'.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsModelCompactor {
+    private static Logger logger = Logger.getLogger(ImixsModelCompactor.class.getName());
+
+    public static final String FILE_LINK = "open-bpmn:file-link";
+
+    private int extensionElements = 0;
+    private int items = 0;
+    private int values = 0;
+    private int fileLinks = 0;
+    private long bytesSaved = 0;
+
+    /**
+     * Returns true if the save time compaction is enabled
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("imixs.model.compact");
+    }
+
+    /**
+     * Compacts the Imixs extension data of a model. Changed items are reported to
+     * the item change listeners.
+     */
+    public static ImixsModelCompactor compact(BPMNModel model) {
+        ImixsModelCompactor compactor = new ImixsModelCompactor();
+        if (model.getDoc() != null) {
+            compactor.compact(model, model.getDoc());
+        }
+        return compactor;
+    }
+
+    /**
+     * Compacts the Imixs extension data of a BPMN document
+     */
+    public static ImixsModelCompactor compact(Document doc) {
+        ImixsModelCompactor compactor = new ImixsModelCompactor();
+        compactor.compact(null, doc);
+        return compactor;
+    }
+
+    private void compact(BPMNModel model, Document doc) {
+        NodeList nodeList = doc.getElementsByTagNameNS(ImixsItemReader.BPMN2_NS, "extensionElements");
+        // copy the live list before removing nodes
+        List<Element> extensionList = new ArrayList<>(nodeList.getLength());
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            extensionList.add((Element) nodeList.item(i));
+        }
+        for (Element extensionElement : extensionList) {
+            Node child = extensionElement.getFirstChild();
+            while (child != null) {
+                Node next = child.getNextSibling();
+                if (isImixsElement(child, "item")) {
+                    compactItem(model, extensionElement, (Element) child);
+                }
+                child = next;
+            }
+            if (removeWhitespace(extensionElement)) {
+                // drop the indentation of the removed element
+                Node previous = extensionElement.getPreviousSibling();
+                if (previous != null && previous.getNodeType() == Node.TEXT_NODE
+                        && previous.getNodeValue().isBlank()) {
+                    removeNode(previous);
+                }
+                removeNode(extensionElement);
+                extensionElements++;
+            }
+        }
+        if (bytesSaved > 0) {
+            logger.info("├── compacted model: " + items + " empty items, " + values + " duplicate values, "
+                    + fileLinks + " file links, " + extensionElements + " extension elements removed ("
+                    + bytesSaved + " bytes saved)");
+        }
+    }
+
+    /**
+     * Removes the duplicate values and stale file links of an item. If no value
+     * is left, the item is removed.
+     */
+    private void compactItem(BPMNModel model, Element extensionElement, Element item) {
+        Set<String> uniqueValues = new HashSet<>();
+        List<String> itemValues = new ArrayList<>();
+        boolean empty = true;
+        boolean changed = false;
+        Node child = item.getFirstChild();
+        while (child != null) {
+            Node next = child.getNextSibling();
+            if (isImixsElement(child, "value")) {
+                Element valueElement = (Element) child;
+                String fileLink = valueElement.getAttribute(FILE_LINK);
+                if (!fileLink.isEmpty() && !fileLink.startsWith("file://")) {
+                    bytesSaved += FILE_LINK.length() + fileLink.length() + 4;
+                    valueElement.removeAttribute(FILE_LINK);
+                    fileLinks++;
+                    fileLink = "";
+                }
+                String value = readValue(valueElement);
+                // a linked file is not stored in the value
+                String key = fileLink.isEmpty() ? value : fileLink;
+                if (!uniqueValues.add(key)) {
+                    removeNode(valueElement);
+                    values++;
+                    changed = true;
+                } else {
+                    itemValues.add(value);
+                    if (!value.isEmpty() || !fileLink.isEmpty()) {
+                        empty = false;
+                    }
+                }
+            }
+            child = next;
+        }
+        if (empty) {
+            removeNode(item);
+            items++;
+            itemValues.clear();
+            changed = true;
+        } else {
+            removeWhitespace(item);
+        }
+        if (changed && model != null) {
+            ImixsExtensionUtil.fireItemChanged(model, (Element) extensionElement.getParentNode(),
+                    item.getAttribute("name"), empty ? null : item.getAttribute("type"), itemValues);
+        }
+    }
+
+    /**
+     * Removes all whitespace text nodes of an element containing no other text.
+     * Returns true if the element is empty afterwards.
+     */
+    private boolean removeWhitespace(Element parent) {
+        List<Node> whitespace = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.TEXT_NODE) {
+                if (!child.getNodeValue().isBlank()) {
+                    return false;
+                }
+                whitespace.add(child);
+            } else if (child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                return false;
+            }
+        }
+        boolean hasElements = parent.getChildNodes().getLength() > whitespace.size();
+        for (Node node : whitespace) {
+            removeNode(node);
+        }
+        return !hasElements;
+    }
+
+    private void removeNode(Node node) {
+        bytesSaved += size(node);
+        node.getParentNode().removeChild(node);
+    }
+
+    /**
+     * Decodes a value in the same way as the {@link ImixsExtensionUtil} - the
+     * CDATA section if present, otherwise the text content.
+     */
+    private static String readValue(Element valueElement) {
+        for (Node child = valueElement.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                return child.getNodeValue() == null ? "" : child.getNodeValue();
+            }
+        }
+        return valueElement.getTextContent();
+    }
+
+    private static boolean isImixsElement(Node node, String localName) {
+        return node.getNodeType() == Node.ELEMENT_NODE && localName.equals(node.getLocalName())
+                && ImixsExtensionUtil.getNamespaceURI().equals(node.getNamespaceURI());
+    }
+
+    /**
+     * Returns the serialized size of a node in bytes (UTF-8, without escaping)
+     */
+    private static long size(Node node) {
+        switch (node.getNodeType()) {
+        case Node.TEXT_NODE:
+            return node.getNodeValue().getBytes(StandardCharsets.UTF_8).length;
+        case Node.CDATA_SECTION_NODE:
+            return node.getNodeValue().getBytes(StandardCharsets.UTF_8).length + 12;
+        case Node.ELEMENT_NODE:
+            long size = 2L * node.getNodeName().length() + 5;
+            NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attribute = (Attr) attributes.item(i);
+                size += attribute.getName().length() + attribute.getValue().getBytes(StandardCharsets.UTF_8).length
+                        + 4;
+            }
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                size += size(child);
+            }
+            return size;
+        default:
+            return 0;
+        }
+    }
+
+    public int getExtensionElements() {
+        return extensionElements;
+    }
+
+    public int getItems() {
+        return items;
+    }
+
+    public int getValues() {
+        return values;
+    }
+
+    public int getFileLinks() {
+        return fileLinks;
+    }
+
+    /**
+     * Returns the number of bytes removed from the serialized model
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * Returns true if the model was changed
+     */
+    public boolean isModified() {
+        return bytesSaved > 0;
+    }
+}
@@ -22,6 +22,10 @@ import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 
+import org.imixs.openbpmn.monitoring.ImixsModelEvent;
+import org.imixs.openbpmn.util.ImixsIdAllocator;
+import org.imixs.openbpmn.util.ImixsIdRegistry;
+import org.imixs.openbpmn.workspace.ImixsChangeJournal;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.BPMNNS;
 import org.openbpmn.bpmn.ModelNotification;
@@ -57,12 +61,32 @@ public class ImixsModelValidatorExtension implements BPMNModelExtension {
 
     /**
      * This method verifies all Task and Event elements for valid ACL Actor field
-     * mappings.
+     * mappings. If enabled, redundant extension data is removed by the
+     * {@link ImixsModelCompactor}.
      * 
      */
     @Override
     public void onSave(BPMNModel model, final Path path) {
-        validateACL(model);
+        // the ID index is rebuilt on next access
+        ImixsIdAllocator.getInstance(model).invalidate();
+        ImixsIdRegistry.getInstance(model).reconcile();
+        ImixsModelEvent event = beginModelEvent("onSave", "validateACL", path);
+        commitModelEvent(event, !validateACL(model, event));
+
+        if (ImixsModelCompactor.isEnabled()) {
+            event = beginModelEvent("onSave", "compactModel", path);
+            commitModelEvent(event, ImixsModelCompactor.compact(model).isModified());
+        }
+
+        // the journaled changes are part of the saved model now
+        ImixsChangeJournal journal = ImixsChangeJournal.getInstance(model);
+        if (journal != null) {
+            try {
+                journal.checkpoint();
+            } catch (IOException e) {
+                logger.warning("├── failed to checkpoint change journal: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -75,15 +99,41 @@ public class ImixsModelValidatorExtension implements BPMNModelExtension {
 
     @Override
     public void onLoad(BPMNModel model, Path path) {
+        ImixsIdAllocator.getInstance(model).invalidate();
+        ImixsIdRegistry.getInstance(model).reconcile();
 
-        if (!validateACL(model)) {
+        ImixsModelEvent event;
+        if (path != null && ImixsChangeJournal.isEnabled()) {
+            // unsaved changes of a previous session are restored on request only
+            event = beginModelEvent("onLoad", "openJournal", path);
+            int changes = 0;
+            try {
+                changes = ImixsChangeJournal.open(model, path).getRecoverableChanges();
+            } catch (IOException e) {
+                logger.warning("├── failed to open change journal: " + e.getMessage());
+            }
+            commitModelEvent(event, false);
+            if (changes > 0) {
+                model.getNotifications().add(new ModelNotification(ModelNotification.Severity.WARNING,
+                        "Unsaved changes found!", changes + " unsaved changes of a previous session found."
+                                + " Restore or discard them in the Recovery tab of the model properties."));
+            }
+        }
+
+        event = beginModelEvent("onLoad", "validateACL", path);
+        boolean validACL = validateACL(model, event);
+        commitModelEvent(event, !validACL);
+        if (!validACL) {
             // mark model as dirty
             model.setDirty(true);
             model.getNotifications().add(new ModelNotification(ModelNotification.Severity.WARNING,
                     "ACL Settings updated!", "Invalid ACL Settings found - fixed automatically!"));
         }
 
-        if (!validateDataObjects(model, path)) {
+        event = beginModelEvent("onLoad", "validateDataObjects", path);
+        boolean validDataObjects = validateDataObjects(model, path, event);
+        commitModelEvent(event, !validDataObjects);
+        if (!validDataObjects) {
             // mark model as dirty
             model.setDirty(true);
             model.getNotifications().add(new ModelNotification(ModelNotification.Severity.WARNING,
@@ -99,9 +149,10 @@ public class ImixsModelValidatorExtension implements BPMNModelExtension {
      * The method returns false if values were updated
      * 
      * @param model
+     * @param event - optional JFR event to record the number of verified elements
      * @return
      */
-    private boolean validateACL(BPMNModel model) {
+    private boolean validateACL(BPMNModel model, ImixsModelEvent event) {
         boolean result = true;
         ImixsItemNameMapper actorFieldMapper = new ImixsItemNameMapper(model, "txtfieldmapping");
         String[] keyProperties = { "keyownershipfields", "keyaddreadfields", "keyaddwritefields",
@@ -111,6 +162,9 @@ public class ImixsModelValidatorExtension implements BPMNModelExtension {
         LinkedHashSet<BPMNElementNode> allACLElements = new LinkedHashSet<BPMNElementNode>();
         allACLElements.addAll(model.findAllEvents());
         allACLElements.addAll(model.findAllActivities());
+        if (event != null) {
+            event.itemCount = allACLElements.size();
+        }
 
         for (BPMNElementNode aclElement : allACLElements) {
 
@@ -148,9 +202,10 @@ public class ImixsModelValidatorExtension implements BPMNModelExtension {
      * Note: The method only validates DataObjects with a file link!
      * 
      * @param model
+     * @param event - optional JFR event to record the number of verified elements
      * @return
      */
-    private boolean validateDataObjects(BPMNModel model, Path path) {
+    private boolean validateDataObjects(BPMNModel model, Path path, ImixsModelEvent event) {
 
         boolean valid = true;
         // test only if the imixs-extension was applied to the model!
@@ -162,6 +217,9 @@ public class ImixsModelValidatorExtension implements BPMNModelExtension {
             try {
                 process.init();
                 Set<DataObject> objects = process.getDataObjects();
+                if (event != null) {
+                    event.itemCount += objects.size();
+                }
                 for (DataObject dataObject : objects) {
                     if (dataObject.hasExtensionAttribute(ImixsExtensionUtil.getNamespace(),
                             ImixsBPMNDataObjectExtension.IMIXS_DATATYPE)) {
@@ -213,4 +271,32 @@ public class ImixsModelValidatorExtension implements BPMNModelExtension {
         }
         return valid;
     }
+
+    /**
+     * Starts a JFR model event. The method returns null if the event is not
+     * enabled in the current recording.
+     */
+    private ImixsModelEvent beginModelEvent(String operation, String phase, Path path) {
+        ImixsModelEvent event = new ImixsModelEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.extension = ImixsModelValidatorExtension.class.getSimpleName();
+        event.operation = operation;
+        event.phase = phase;
+        event.path = path != null ? path.toString() : null;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits a JFR model event started by beginModelEvent
+     */
+    private void commitModelEvent(ImixsModelEvent event, boolean modified) {
+        if (event != null) {
+            event.end();
+            event.modified = modified;
+            event.commit();
+        }
+    }
 }
@@ -0,0 +1,371 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.index;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.extensions.ImixsItemChangeListener;
+import org.imixs.openbpmn.util.ImixsBPMNUtil;
+import org.openbpmn.bpmn.BPMNModel;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * The ImixsItemNameIndex is a model wide index of all workitem item names used
+ * in the model. It is used for the completion of item names and to find the
+ * usages of an item.
+ * <p>
+ * Item names are collected from
+ * <ul>
+ * <li>the item definitions of the workflow result (txtactivityresult)</li>
+ * <li>the actor and time field mappings of the model definitions</li>
+ * <li>the item references of the ACL, mail receiver and scheduler
+ * properties</li>
+ * <li>the item references of business rules (e.g. workitem.txtname)</li>
+ * <li>{@code <itemvalue>} placeholders in all item values (e.g. the mail
+ * body)</li>
+ * <li>the form items ({@code <imixs-form-item name="...">}) of form
+ * definitions in data objects</li>
+ * </ul>
+ * The index is built with one pass over the model on first access. Afterwards
+ * it is updated incrementally by the {@link ImixsItemChangeListener} of the
+ * {@link ImixsExtensionUtil} write methods. The names are held in an
+ * {@link ImixsItemNameTrie}, so a completion is answered in microseconds also
+ * for models with thousands of item names. The names of deleted elements are
+ * removed before each query.
+ * <p>
+ * There is one index per model instance. The index holds the model only by a
+ * weak reference, so it is released together with the model.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsItemNameIndex {
+    private static Logger logger = Logger.getLogger(ImixsItemNameIndex.class.getName());
+
+    public static final String SOURCE_FORM = "form";
+
+    // properties holding item names as values
+    private static final Set<String> ITEM_REFERENCES = Set.of("keyownershipfields", "keyaddreadfields",
+            "keyaddwritefields", "keymailreceiverfields", "keymailreceiverfieldscc", "keymailreceiverfieldsbcc",
+            "keyrestrictedvisibility", "keytimecomparefield");
+    // properties holding label|item mappings
+    private static final Set<String> ITEM_MAPPINGS = Set.of("txtfieldmapping", "txttimefieldmapping");
+
+    private static final Pattern ITEMVALUE_PATTERN = Pattern.compile("<itemvalue[^>]*>\\s*([^<\\s]+)\\s*</itemvalue>");
+    private static final Pattern FORM_ITEM_PATTERN = Pattern
+            .compile("<imixs-form-item\\b[^>]*?\\bname\\s*=\\s*[\"']([^\"']+)[\"']");
+    private static final Pattern RULE_PATTERN = Pattern.compile(
+            "workitem\\s*\\.\\s*([A-Za-z_$][\\w$]*+)(?!\\s*\\()|workitem\\s*\\[\\s*[\"']([^\"']+)[\"']\\s*\\]"
+                    + "|(?:getItemValue\\w*|hasItem|isItemValue\\w*)\\s*\\(\\s*[\"']([^\"']+)[\"']");
+
+    private static final Map<BPMNModel, ImixsItemNameIndex> indexes = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private static final ImixsItemChangeListener LISTENER = (model, elementNode, itemName, type, values) -> {
+        ImixsItemNameIndex index = indexes.get(model);
+        if (index != null) {
+            index.itemChanged(elementNode, itemName, values);
+        }
+    };
+
+    static {
+        ImixsExtensionUtil.addItemChangeListener(LISTENER);
+    }
+
+    private final WeakReference<BPMNModel> modelRef;
+    private final ImixsItemNameTrie trie = new ImixsItemNameTrie();
+    // element id -> source -> item names
+    private final Map<String, Map<String, Set<String>>> namesByElement = new HashMap<>();
+    // item name -> usages
+    private final Map<String, Set<Usage>> usages = new HashMap<>();
+    // element id -> element node
+    private final Map<String, Element> nodes = new HashMap<>();
+    private boolean initialized = false;
+
+    private ImixsItemNameIndex(BPMNModel model) {
+        this.modelRef = new WeakReference<>(model);
+    }
+
+    /**
+     * Returns the index for the given model
+     */
+    public static ImixsItemNameIndex getInstance(BPMNModel model) {
+        return indexes.computeIfAbsent(model, ImixsItemNameIndex::new);
+    }
+
+    /**
+     * Returns up to 'limit' item names starting with the given prefix
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        init();
+        return trie.complete(prefix == null ? "" : prefix, limit);
+    }
+
+    /**
+     * Returns the usages of an item name
+     */
+    public synchronized List<Usage> findUsages(String itemName) {
+        init();
+        Set<Usage> result = usages.get(itemName);
+        return result == null ? Collections.emptyList() : new ArrayList<>(result);
+    }
+
+    /**
+     * Returns the number of usages of an item name
+     */
+    public synchronized int countUsages(String itemName) {
+        init();
+        return trie.count(itemName);
+    }
+
+    /**
+     * Returns the number of distinct item names
+     */
+    public synchronized int size() {
+        init();
+        return trie.size();
+    }
+
+    private synchronized void itemChanged(Element elementNode, String itemName, List<String> values) {
+        // before the first access the index is built by a full pass
+        if (initialized) {
+            update(elementNode, itemName, extractItemNames(itemName, values));
+        }
+    }
+
+    /**
+     * Updates the form items of a data object from its documentation
+     */
+    public synchronized void updateForm(Element dataObjectNode, String documentation) {
+        if (initialized) {
+            update(dataObjectNode, SOURCE_FORM, extractFormItems(documentation));
+        }
+    }
+
+    /**
+     * Rebuilds the index with one pass over all imixs:item elements and data
+     * objects of the model
+     */
+    public synchronized void rebuild() {
+        long l = System.currentTimeMillis();
+        for (String elementId : new ArrayList<>(namesByElement.keySet())) {
+            remove(elementId);
+        }
+        initialized = true;
+        BPMNModel model = modelRef.get();
+        if (model == null) {
+            return;
+        }
+        NodeList items = model.getDoc().getElementsByTagNameNS(ImixsExtensionUtil.getNamespaceURI(), "item");
+        for (int i = 0; i < items.getLength(); i++) {
+            Element item = (Element) items.item(i);
+            Node owner = item.getParentNode() != null ? item.getParentNode().getParentNode() : null;
+            if (!(owner instanceof Element)) {
+                continue;
+            }
+            String itemName = item.getAttribute("name");
+            update((Element) owner, itemName, extractItemNames(itemName, ImixsExtensionUtil.getItemValues(item)));
+        }
+        NodeList dataObjects = model.getDoc().getElementsByTagNameNS("*", "dataObject");
+        for (int i = 0; i < dataObjects.getLength(); i++) {
+            Element dataObject = (Element) dataObjects.item(i);
+            update(dataObject, SOURCE_FORM, extractFormItems(dataObject.getTextContent()));
+        }
+        logger.fine("├── item name index built in " + (System.currentTimeMillis() - l) + "ms - " + trie.size()
+                + " item names");
+    }
+
+    /**
+     * Builds the index on first access and removes the item names of deleted
+     * elements
+     */
+    private void init() {
+        if (!initialized) {
+            rebuild();
+            return;
+        }
+        for (Map.Entry<String, Element> entry : new ArrayList<>(nodes.entrySet())) {
+            if (ImixsBPMNUtil.isRemoved(entry.getValue())) {
+                remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Removes all item names of an element
+     */
+    private void remove(String elementId) {
+        Map<String, Set<String>> sources = namesByElement.get(elementId);
+        if (sources != null) {
+            for (String source : new ArrayList<>(sources.keySet())) {
+                update(elementId, null, source, Collections.emptySet());
+            }
+        }
+    }
+
+    private void update(Element elementNode, String source, Set<String> names) {
+        update(getElementId(elementNode), elementNode, source, names);
+    }
+
+    private void update(String elementId, Element elementNode, String source, Set<String> names) {
+        Map<String, Set<String>> sources = namesByElement.computeIfAbsent(elementId, k -> new HashMap<>());
+        Set<String> oldNames = sources.getOrDefault(source, Collections.emptySet());
+        if (oldNames.equals(names)) {
+            return;
+        }
+        for (String name : oldNames) {
+            if (!names.contains(name)) {
+                trie.remove(name);
+                Set<Usage> nameUsages = usages.get(name);
+                if (nameUsages != null) {
+                    nameUsages.remove(new Usage(elementId, source));
+                    if (nameUsages.isEmpty()) {
+                        usages.remove(name);
+                    }
+                }
+            }
+        }
+        for (String name : names) {
+            if (!oldNames.contains(name)) {
+                trie.add(name);
+                usages.computeIfAbsent(name, k -> new LinkedHashSet<>()).add(new Usage(elementId, source));
+            }
+        }
+        if (names.isEmpty()) {
+            sources.remove(source);
+            if (sources.isEmpty()) {
+                namesByElement.remove(elementId);
+                nodes.remove(elementId);
+            }
+        } else {
+            sources.put(source, names);
+            nodes.put(elementId, elementNode);
+        }
+    }
+
+    /**
+     * Returns the item names referenced by the values of an item
+     */
+    static Set<String> extractItemNames(String itemName, Collection<String> values) {
+        Set<String> result = new HashSet<>();
+        for (String value : values) {
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (ITEM_REFERENCES.contains(itemName)) {
+                result.add(value.trim());
+            } else if (ITEM_MAPPINGS.contains(itemName)) {
+                result.add(ImixsExtensionUtil.getValuePart(value).trim());
+            } else if (ImixsResultIndex.ITEM_NAME.equals(itemName)) {
+                for (ImixsResultIndex.ItemDefinition item : ImixsResultIndex.parse(value).getItems()) {
+                    result.add(item.getName());
+                }
+            } else if ("txtbusinessrule".equals(itemName)) {
+                Matcher matcher = RULE_PATTERN.matcher(value);
+                while (matcher.find()) {
+                    for (int group = 1; group <= 3; group++) {
+                        if (matcher.group(group) != null) {
+                            result.add(matcher.group(group));
+                        }
+                    }
+                }
+            }
+            if (value.contains("<itemvalue")) {
+                Matcher matcher = ITEMVALUE_PATTERN.matcher(value);
+                while (matcher.find()) {
+                    result.add(matcher.group(1));
+                }
+            }
+        }
+        result.remove("");
+        return result;
+    }
+
+    static Set<String> extractFormItems(String documentation) {
+        Set<String> result = new HashSet<>();
+        if (documentation != null && documentation.contains("<imixs-form")) {
+            Matcher matcher = FORM_ITEM_PATTERN.matcher(documentation);
+            while (matcher.find()) {
+                result.add(matcher.group(1));
+            }
+        }
+        return result;
+    }
+
+    private static String getElementId(Element elementNode) {
+        String id = elementNode.getAttribute("id");
+        return id.isEmpty() ? elementNode.getLocalName() : id;
+    }
+
+    /**
+     * An usage of an item name by a property (source) of an element
+     */
+    public static class Usage {
+        private final String elementId;
+        private final String source;
+
+        Usage(String elementId, String source) {
+            this.elementId = elementId;
+            this.source = source;
+        }
+
+        public String getElementId() {
+            return elementId;
+        }
+
+        /**
+         * Returns the property using the item name, e.g. 'txtactivityresult'
+         */
+        public String getSource() {
+            return source;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Usage)) {
+                return false;
+            }
+            Usage other = (Usage) obj;
+            return elementId.equals(other.elementId) && source.equals(other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return elementId.hashCode() * 31 + source.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return elementId + ":" + source;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ImixsItemNameTrie is a compact prefix trie of item names with a usage
+ * counter per name.
+ * <p>
+ * The nodes are stored in parallel arrays (character, first child, next
+ * sibling, count) instead of node objects. The children of a node are kept in
+ * a sorted sibling list, so a completion returns the names in lexicographical
+ * order without sorting. A completion only visits the nodes below the prefix
+ * and stops after the limit, which keeps the response time independent of the
+ * total number of names.
+ * <p>
+ * Nodes of removed names are not released. They are reused if the name is
+ * added again. The class is not thread safe.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsItemNameTrie {
+
+    private static final int ROOT = 0;
+
+    private char[] chars = new char[256];
+    private int[] firstChild = new int[256];
+    private int[] nextSibling = new int[256];
+    private int[] counts = new int[256];
+    private int nodes = 1;
+    private int size = 0;
+
+    /**
+     * Adds a usage of a name
+     */
+    public void add(String name) {
+        int node = ROOT;
+        for (int i = 0; i < name.length(); i++) {
+            node = findOrCreateChild(node, name.charAt(i));
+        }
+        if (counts[node] == 0) {
+            size++;
+        }
+        counts[node]++;
+    }
+
+    /**
+     * Removes a usage of a name. The name is removed from the completion if it has
+     * no more usages.
+     */
+    public void remove(String name) {
+        int node = findNode(name);
+        if (node > 0 && counts[node] > 0) {
+            counts[node]--;
+            if (counts[node] == 0) {
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of usages of a name
+     */
+    public int count(String name) {
+        int node = findNode(name);
+        return node > 0 ? counts[node] : 0;
+    }
+
+    /**
+     * Returns the number of distinct names
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns up to 'limit' names starting with the given prefix in
+     * lexicographical order
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        int node = prefix.isEmpty() ? ROOT : findNode(prefix);
+        if (node < 0 || limit <= 0) {
+            return result;
+        }
+        StringBuilder name = new StringBuilder(prefix);
+        if (node != ROOT && counts[node] > 0) {
+            result.add(prefix);
+        }
+        collect(firstChild[node], name, result, limit);
+        return result;
+    }
+
+    private void collect(int node, StringBuilder name, List<String> result, int limit) {
+        for (int child = node; child > 0 && result.size() < limit; child = nextSibling[child]) {
+            name.append(chars[child]);
+            if (counts[child] > 0) {
+                result.add(name.toString());
+            }
+            collect(firstChild[child], name, result, limit);
+            name.setLength(name.length() - 1);
+        }
+    }
+
+    /**
+     * Returns the node of a name or -1
+     */
+    private int findNode(String name) {
+        int node = ROOT;
+        for (int i = 0; i < name.length() && node >= 0; i++) {
+            char c = name.charAt(i);
+            int child = firstChild[node];
+            while (child > 0 && chars[child] < c) {
+                child = nextSibling[child];
+            }
+            node = child > 0 && chars[child] == c ? child : -1;
+        }
+        return node;
+    }
+
+    private int findOrCreateChild(int node, char c) {
+        int previous = 0;
+        int child = firstChild[node];
+        while (child > 0 && chars[child] < c) {
+            previous = child;
+            child = nextSibling[child];
+        }
+        if (child > 0 && chars[child] == c) {
+            return child;
+        }
+        // insert a new node sorted into the sibling list
+        if (nodes == chars.length) {
+            int capacity = chars.length * 2;
+            chars = Arrays.copyOf(chars, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int newNode = nodes++;
+        chars[newNode] = c;
+        nextSibling[newNode] = child;
+        if (previous == 0) {
+            firstChild[node] = newNode;
+        } else {
+            nextSibling[previous] = newNode;
+        }
+        return newNode;
+    }
+}
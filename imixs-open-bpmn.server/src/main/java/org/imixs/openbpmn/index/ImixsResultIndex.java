@@ -0,0 +1,446 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.index;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.util.ImixsBPMNUtil;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+
+/**
+ * The ImixsResultIndex is a model wide index of the item definitions in the
+ * workflow result (txtactivityresult) of all Imixs events.
+ * <p>
+ * A workflow result contains fragments like
+ * {@code <item name="comment" type="string">some text</item>} which are
+ * evaluated by the engine on each processing step. The index parses these
+ * fragments with a tolerant parser. Malformed fragments are reported as
+ * problems and the parser continues with the next fragment. Other tags of a
+ * workflow result (e.g. {@code <validation>}) are ignored.
+ * <p>
+ * The parsed result is cached per event and only parsed again if the text of
+ * the result changes. The event extension updates the index on each property
+ * update. Events changed by other operations are reconciled by the method
+ * {@link #reconcile()}. The index answers the query which events set a given
+ * item.
+ * <p>
+ * There is one index per model instance. The index holds the model only by a
+ * weak reference, so it is released together with the model.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsResultIndex {
+
+    public static final String ITEM_NAME = "txtactivityresult";
+    // the item types supported by the Imixs ResultPlugin
+    public static final Set<String> TYPES = Set.of("string", "boolean", "integer", "long", "double", "float",
+            "date", "xs:string", "xs:boolean", "xs:int", "xs:long", "xs:double", "xs:float", "xs:dateTime");
+
+    private static final Map<BPMNModel, ImixsResultIndex> indexes = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private final WeakReference<BPMNModel> modelRef;
+    // element id -> parsed result
+    private final Map<String, ResultDefinition> results = new HashMap<>();
+    // item name -> element ids
+    private final Map<String, Set<String>> eventsByItem = new HashMap<>();
+    private boolean initialized = false;
+
+    private ImixsResultIndex(BPMNModel model) {
+        this.modelRef = new WeakReference<>(model);
+    }
+
+    /**
+     * Returns the index for the given model
+     */
+    public static ImixsResultIndex getInstance(BPMNModel model) {
+        return indexes.computeIfAbsent(model, ImixsResultIndex::new);
+    }
+
+    /**
+     * Updates the workflow result of an event. The text is only parsed if it has
+     * changed.
+     */
+    public synchronized ResultDefinition update(String elementId, String text) {
+        String result = text == null ? "" : text;
+        ResultDefinition definition = results.get(elementId);
+        if (definition != null && definition.getText().equals(result)) {
+            return definition;
+        }
+        remove(elementId);
+        definition = parse(result);
+        results.put(elementId, definition);
+        for (ItemDefinition item : definition.getItems()) {
+            eventsByItem.computeIfAbsent(item.getName(), k -> new LinkedHashSet<>()).add(elementId);
+        }
+        return definition;
+    }
+
+    /**
+     * Returns the parsed workflow result of an event
+     */
+    public ResultDefinition get(BPMNElementNode event) {
+        return update(event.getId(),
+                ImixsExtensionUtil.getItemValueString(event.getModel(), event.getElementNode(), ITEM_NAME));
+    }
+
+    /**
+     * Synchronizes the index with the current events of the model. Deleted events
+     * are removed.
+     */
+    public synchronized void reconcile() {
+        BPMNModel model = modelRef.get();
+        if (model == null) {
+            return;
+        }
+        Set<String> liveElements = new HashSet<>();
+        for (BPMNElementNode event : model.findAllEvents()) {
+            if (ImixsBPMNUtil.isImixsEventElement(event)) {
+                liveElements.add(event.getId());
+                get(event);
+            }
+        }
+        for (String elementId : new ArrayList<>(results.keySet())) {
+            if (!liveElements.contains(elementId)) {
+                remove(elementId);
+            }
+        }
+        initialized = true;
+    }
+
+    /**
+     * Returns the ids of all events setting the given item in their workflow
+     * result
+     */
+    public synchronized Set<String> findEventsSettingItem(String itemName) {
+        if (!initialized) {
+            reconcile();
+        }
+        Set<String> result = eventsByItem.get(itemName);
+        return result == null ? Collections.emptySet() : new LinkedHashSet<>(result);
+    }
+
+    /**
+     * Returns the names of all items set by a workflow result
+     */
+    public synchronized Set<String> getItemNames() {
+        if (!initialized) {
+            reconcile();
+        }
+        return new HashSet<>(eventsByItem.keySet());
+    }
+
+    private void remove(String elementId) {
+        ResultDefinition old = results.remove(elementId);
+        if (old != null) {
+            for (ItemDefinition item : old.getItems()) {
+                Set<String> events = eventsByItem.get(item.getName());
+                if (events != null) {
+                    events.remove(elementId);
+                    if (events.isEmpty()) {
+                        eventsByItem.remove(item.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the item definitions of a workflow result. The parser never fails.
+     * Malformed fragments are reported as problems.
+     */
+    public static ResultDefinition parse(String text) {
+        List<ItemDefinition> items = new ArrayList<>();
+        List<Problem> problems = new ArrayList<>();
+        int pos = 0;
+        int length = text.length();
+        while ((pos = findItemTag(text, pos)) >= 0) {
+            int tagStart = pos;
+            pos += 5;
+            Map<String, String> attributes = new HashMap<>();
+            boolean closed = false;
+            boolean selfClosing = false;
+            // attributes
+            while (pos < length) {
+                char c = text.charAt(pos);
+                if (Character.isWhitespace(c)) {
+                    pos++;
+                } else if (c == '>') {
+                    pos++;
+                    closed = true;
+                    break;
+                } else if (c == '/' && pos + 1 < length && text.charAt(pos + 1) == '>') {
+                    pos += 2;
+                    closed = true;
+                    selfClosing = true;
+                    break;
+                } else if (c == '<') {
+                    break;
+                } else {
+                    int nameStart = pos;
+                    while (pos < length && isNameChar(text.charAt(pos))) {
+                        pos++;
+                    }
+                    if (pos == nameStart) {
+                        problems.add(new Problem(text, pos, true, "Invalid character '" + c + "' in <item> tag"));
+                        pos++;
+                        continue;
+                    }
+                    String attribute = text.substring(nameStart, pos);
+                    // whitespace is allowed around the '='
+                    int equals = skipWhitespace(text, pos);
+                    if (equals >= length || text.charAt(equals) != '=') {
+                        problems.add(new Problem(text, nameStart, true,
+                                "Missing value of attribute '" + attribute + "'"));
+                        continue;
+                    }
+                    pos = skipWhitespace(text, equals + 1);
+                    if (pos < length && (text.charAt(pos) == '"' || text.charAt(pos) == '\'')) {
+                        char quote = text.charAt(pos);
+                        int end = text.indexOf(quote, pos + 1);
+                        int tagEnd = text.indexOf('>', pos + 1);
+                        if (end < 0 || (tagEnd >= 0 && tagEnd < end)) {
+                            problems.add(new Problem(text, pos, true,
+                                    "Unterminated value of attribute '" + attribute + "'"));
+                            pos = tagEnd >= 0 ? tagEnd : length;
+                            continue;
+                        }
+                        attributes.put(attribute, text.substring(pos + 1, end));
+                        pos = end + 1;
+                    } else {
+                        // tolerate unquoted values
+                        int valueStart = pos;
+                        while (pos < length && !Character.isWhitespace(text.charAt(pos))
+                                && text.charAt(pos) != '>' && text.charAt(pos) != '/') {
+                            pos++;
+                        }
+                        problems.add(new Problem(text, valueStart, true,
+                                "Unquoted value of attribute '" + attribute + "'"));
+                        attributes.put(attribute, text.substring(valueStart, pos));
+                    }
+                }
+            }
+            if (!closed) {
+                problems.add(new Problem(text, tagStart, true, "Unterminated <item> tag"));
+                continue;
+            }
+            // value
+            String value = "";
+            if (!selfClosing) {
+                int end = text.indexOf("</item>", pos);
+                int next = findItemTag(text, pos);
+                if (end < 0 || (next >= 0 && next < end)) {
+                    problems.add(new Problem(text, tagStart, true, "Missing </item>"));
+                    end = next >= 0 ? next : length;
+                    value = text.substring(pos, end);
+                    pos = end;
+                } else {
+                    value = text.substring(pos, end);
+                    pos = end + 7;
+                }
+            }
+            String name = attributes.get("name");
+            if (name == null || name.isBlank()) {
+                problems.add(new Problem(text, tagStart, true, "Missing item name"));
+                continue;
+            }
+            String type = attributes.getOrDefault("type", "");
+            if (!type.isEmpty() && !TYPES.contains(type)) {
+                problems.add(new Problem(text, tagStart, false,
+                        "Unknown type '" + type + "' of item '" + name + "'"));
+            } else if (!isValidValue(type, value.trim())) {
+                problems.add(new Problem(text, tagStart, false,
+                        "Invalid " + type + " value '" + value.trim() + "' of item '" + name + "'"));
+            }
+            items.add(new ItemDefinition(name.trim(), type, value, "true".equals(attributes.get("ignore"))));
+        }
+        return new ResultDefinition(text, items, problems);
+    }
+
+    /**
+     * Returns the position of the next {@code <item} tag or -1. Tags like
+     * {@code <itemvalue>} are skipped.
+     */
+    private static int findItemTag(String text, int from) {
+        int pos = from;
+        while ((pos = text.indexOf("<item", pos)) >= 0) {
+            int end = pos + 5;
+            if (end >= text.length() || Character.isWhitespace(text.charAt(end)) || text.charAt(end) == '>'
+                    || text.charAt(end) == '/') {
+                return pos;
+            }
+            pos = end;
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(String text, int from) {
+        int pos = from;
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':' || c == '$';
+    }
+
+    /**
+     * Checks the value of a numeric or boolean item. Values with placeholders
+     * (e.g. {@code <itemvalue>}) are resolved at runtime and not checked.
+     */
+    private static boolean isValidValue(String type, String value) {
+        if (value.isEmpty() || value.contains("<")) {
+            return true;
+        }
+        try {
+            switch (type) {
+            case "integer":
+            case "xs:int":
+                Integer.parseInt(value);
+                break;
+            case "long":
+            case "xs:long":
+                Long.parseLong(value);
+                break;
+            case "double":
+            case "float":
+            case "xs:double":
+            case "xs:float":
+                Double.parseDouble(value);
+                break;
+            case "boolean":
+            case "xs:boolean":
+                return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value);
+            default:
+                break;
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The parsed workflow result of an event
+     */
+    public static class ResultDefinition {
+        private final String text;
+        private final List<ItemDefinition> items;
+        private final List<Problem> problems;
+
+        ResultDefinition(String text, List<ItemDefinition> items, List<Problem> problems) {
+            this.text = text;
+            this.items = Collections.unmodifiableList(items);
+            this.problems = Collections.unmodifiableList(problems);
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public List<ItemDefinition> getItems() {
+            return items;
+        }
+
+        public List<Problem> getProblems() {
+            return problems;
+        }
+    }
+
+    /**
+     * An item defined by a workflow result
+     */
+    public static class ItemDefinition {
+        private final String name;
+        private final String type;
+        private final String value;
+        private final boolean ignore;
+
+        ItemDefinition(String name, String type, String value, boolean ignore) {
+            this.name = name;
+            this.type = type;
+            this.value = value;
+            this.ignore = ignore;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Returns true if the item is not stored in the workitem (ignore="true")
+         */
+        public boolean isIgnore() {
+            return ignore;
+        }
+    }
+
+    /**
+     * A malformed fragment of a workflow result. Errors are fragments the engine
+     * can not parse, other problems are values the engine can not convert.
+     */
+    public static class Problem {
+        private final int line;
+        private final boolean error;
+        private final String message;
+
+        Problem(String text, int offset, boolean error, String message) {
+            int line = 1;
+            for (int i = 0; i < offset && i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    line++;
+                }
+            }
+            this.line = line;
+            this.error = error;
+            this.message = message;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+
+        public String getMessage() {
+            return message + " (line " + line + ")";
+        }
+    }
+}
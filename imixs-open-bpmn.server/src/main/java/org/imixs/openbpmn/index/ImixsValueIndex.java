@@ -0,0 +1,373 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.extensions.ImixsItemChangeListener;
+import org.imixs.openbpmn.util.ImixsBPMNUtil;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * The ImixsValueIndex is an inverted full text index over all imixs:item values
+ * and imixs attributes of a model. It is used to find the usages of a value
+ * like an actor, a plugin, a report name or a group.
+ * <p>
+ * Values are split into lower case tokens. Letters, digits and the characters
+ * '$', '.', '_', '-' and '@' are part of a token, so item names, class names
+ * and mail addresses are kept as one token. Each token maps to the elements
+ * and items (sources) containing it. Attributes are indexed with the source
+ * '@imixs:name'.
+ * <p>
+ * The index is built with one pass over the DOM on the first search.
+ * Afterwards it is updated by the {@link ImixsItemChangeListener} of the
+ * {@link ImixsExtensionUtil} write methods. The imixs attributes of an element
+ * are updated on each attribute change and refreshed with each item change of
+ * the element. The postings of deleted elements are removed before each
+ * search.
+ * <p>
+ * There is one index per model instance. The index holds the model only by a
+ * weak reference, so it is released together with the model.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsValueIndex {
+    private static Logger logger = Logger.getLogger(ImixsValueIndex.class.getName());
+
+    public static final String ATTRIBUTE_PREFIX = "@" + ImixsExtensionUtil.getNamespace() + ":";
+
+    private static final Map<BPMNModel, ImixsValueIndex> indexes = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private static final ImixsItemChangeListener LISTENER = new ImixsItemChangeListener() {
+        @Override
+        public void itemChanged(BPMNModel model, Element elementNode, String itemName, String type,
+                List<String> values) {
+            ImixsValueIndex index = indexes.get(model);
+            if (index != null) {
+                index.itemChanged(elementNode, itemName, values);
+            }
+        }
+
+        @Override
+        public void attributeChanged(BPMNModel model, Element elementNode, String name, String value) {
+            ImixsValueIndex index = indexes.get(model);
+            if (index != null) {
+                index.attributeChanged(elementNode);
+            }
+        }
+    };
+
+    static {
+        ImixsExtensionUtil.addItemChangeListener(LISTENER);
+    }
+
+    private final WeakReference<BPMNModel> modelRef;
+    // token -> element id -> sources
+    private final NavigableMap<String, Map<String, Set<String>>> postings = new TreeMap<>();
+    // element id -> source -> tokens
+    private final Map<String, Map<String, Set<String>>> tokensByElement = new HashMap<>();
+    // element id -> element node
+    private final Map<String, Element> nodes = new HashMap<>();
+    private boolean initialized = false;
+
+    private ImixsValueIndex(BPMNModel model) {
+        this.modelRef = new WeakReference<>(model);
+    }
+
+    /**
+     * Returns the index for the given model
+     */
+    public static ImixsValueIndex getInstance(BPMNModel model) {
+        return indexes.computeIfAbsent(model, ImixsValueIndex::new);
+    }
+
+    /**
+     * Searches the elements containing all tokens of the query. A token ending
+     * with '*' matches all tokens with this prefix.
+     * 
+     * @return the matching element ids with the items containing the tokens
+     */
+    public synchronized Map<String, Set<String>> search(String query) {
+        init();
+        Map<String, Set<String>> result = null;
+        for (String token : tokenize(query == null ? "" : query, true)) {
+            Map<String, Set<String>> matches = new HashMap<>();
+            Map<String, Map<String, Set<String>>> tokenPostings;
+            if (token.endsWith("*")) {
+                String prefix = token.substring(0, token.length() - 1);
+                tokenPostings = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            } else {
+                Map<String, Set<String>> posting = postings.get(token);
+                tokenPostings = posting == null ? Collections.emptyMap() : Map.of(token, posting);
+            }
+            for (Map<String, Set<String>> posting : tokenPostings.values()) {
+                for (Map.Entry<String, Set<String>> entry : posting.entrySet()) {
+                    matches.computeIfAbsent(entry.getKey(), k -> new TreeSet<>()).addAll(entry.getValue());
+                }
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                // all tokens must match
+                result.keySet().retainAll(matches.keySet());
+                for (Map.Entry<String, Set<String>> entry : result.entrySet()) {
+                    entry.getValue().addAll(matches.get(entry.getKey()));
+                }
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? Collections.emptyMap() : new TreeMap<>(result);
+    }
+
+    /**
+     * Returns the number of distinct tokens
+     */
+    public synchronized int size() {
+        init();
+        return postings.size();
+    }
+
+    /**
+     * Builds the index on first access and removes the postings of deleted
+     * elements
+     */
+    private void init() {
+        if (!initialized) {
+            rebuild();
+            return;
+        }
+        for (Map.Entry<String, Element> entry : new ArrayList<>(nodes.entrySet())) {
+            if (ImixsBPMNUtil.isRemoved(entry.getValue())) {
+                Map<String, Set<String>> sources = tokensByElement.get(entry.getKey());
+                if (sources != null) {
+                    for (String source : new ArrayList<>(sources.keySet())) {
+                        update(entry.getKey(), null, source, Collections.emptyList());
+                    }
+                }
+                nodes.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index with one pass over all elements of the model
+     */
+    public synchronized void rebuild() {
+        long l = System.currentTimeMillis();
+        postings.clear();
+        tokensByElement.clear();
+        nodes.clear();
+        initialized = true;
+        BPMNModel model = modelRef.get();
+        if (model == null) {
+            return;
+        }
+        NodeList elements = model.getDoc().getElementsByTagNameNS("*", "*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            Element element = (Element) elements.item(i);
+            if (ImixsExtensionUtil.getNamespaceURI().equals(element.getNamespaceURI())) {
+                if ("item".equals(element.getLocalName())) {
+                    Node owner = element.getParentNode() != null ? element.getParentNode().getParentNode() : null;
+                    if (owner instanceof Element) {
+                        update((Element) owner, element.getAttribute("name"),
+                                ImixsExtensionUtil.getItemValues(element));
+                    }
+                }
+            } else if (element.hasAttribute("id")) {
+                updateAttributes(element);
+            }
+        }
+        logger.fine("├── value index built in " + (System.currentTimeMillis() - l) + "ms - " + postings.size()
+                + " tokens");
+    }
+
+    private synchronized void itemChanged(Element elementNode, String itemName, List<String> values) {
+        if (initialized) {
+            update(elementNode, itemName, values);
+            updateAttributes(elementNode);
+        }
+    }
+
+    private synchronized void attributeChanged(Element elementNode) {
+        if (initialized) {
+            updateAttributes(elementNode);
+        }
+    }
+
+    /**
+     * Indexes the imixs attributes of an element
+     */
+    private void updateAttributes(Element element) {
+        String elementId = getElementId(element);
+        Set<String> oldAttributes = new HashSet<>();
+        Map<String, Set<String>> sources = tokensByElement.get(elementId);
+        if (sources != null) {
+            for (String source : sources.keySet()) {
+                if (source.startsWith(ATTRIBUTE_PREFIX)) {
+                    oldAttributes.add(source);
+                }
+            }
+        }
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (ImixsExtensionUtil.getNamespaceURI().equals(attribute.getNamespaceURI())) {
+                String source = ATTRIBUTE_PREFIX + attribute.getLocalName();
+                oldAttributes.remove(source);
+                update(elementId, element, source, List.of(attribute.getValue()));
+            }
+        }
+        for (String source : oldAttributes) {
+            update(elementId, element, source, Collections.emptyList());
+        }
+    }
+
+    private void update(Element elementNode, String source, List<String> values) {
+        update(getElementId(elementNode), elementNode, source, values);
+    }
+
+    private void update(String elementId, Element elementNode, String source, List<String> values) {
+        Set<String> tokens = new HashSet<>();
+        for (String value : values) {
+            tokens.addAll(tokenize(value, false));
+        }
+        Map<String, Set<String>> sources = tokensByElement.computeIfAbsent(elementId, k -> new HashMap<>());
+        Set<String> oldTokens = sources.getOrDefault(source, Collections.emptySet());
+        if (oldTokens.equals(tokens)) {
+            return;
+        }
+        for (String token : oldTokens) {
+            if (!tokens.contains(token)) {
+                Map<String, Set<String>> posting = postings.get(token);
+                Set<String> elementSources = posting != null ? posting.get(elementId) : null;
+                if (elementSources != null) {
+                    elementSources.remove(source);
+                    if (elementSources.isEmpty()) {
+                        posting.remove(elementId);
+                        if (posting.isEmpty()) {
+                            postings.remove(token);
+                        }
+                    }
+                }
+            }
+        }
+        for (String token : tokens) {
+            if (!oldTokens.contains(token)) {
+                postings.computeIfAbsent(token, k -> new HashMap<>()).computeIfAbsent(elementId, k -> new HashSet<>(2))
+                        .add(source);
+            }
+        }
+        if (tokens.isEmpty()) {
+            sources.remove(source);
+            if (sources.isEmpty()) {
+                tokensByElement.remove(elementId);
+            }
+        } else {
+            sources.put(source, tokens);
+            nodes.put(elementId, elementNode);
+        }
+    }
+
+    /**
+     * Splits a text into lower case tokens. In a query the wildcard '*' is kept
+     * at the end of a token.
+     */
+    static List<String> tokenize(String text, boolean query) {
+        List<String> result = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            boolean tokenChar = Character.isLetterOrDigit(c) || c == '$' || c == '.' || c == '_' || c == '-'
+                    || c == '@' || (query && c == '*');
+            if (tokenChar) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                int end = i;
+                // strip trailing punctuation like the end of a sentence
+                while (end > start && (text.charAt(end - 1) == '.' || text.charAt(end - 1) == '-')) {
+                    end--;
+                }
+                if (end > start) {
+                    result.add(text.substring(start, end).toLowerCase());
+                }
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static String getElementId(Element elementNode) {
+        String id = elementNode.getAttribute("id");
+        return id.isEmpty() ? elementNode.getLocalName() : id;
+    }
+
+    /**
+     * Prints the elements and items of a model matching a query
+     * 
+     * <pre>{@code ImixsValueIndex <model.bpmn> <query>}</pre>
+     */
+    public static void main(String[] args) throws IOException, BPMNModelException {
+        if (args.length < 2) {
+            System.err.println("Usage: ImixsValueIndex <model.bpmn> <query>");
+            System.exit(1);
+        }
+        BPMNModel model;
+        try (InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            model = BPMNModelFactory.read(in);
+        }
+        ImixsValueIndex index = getInstance(model);
+        // build the index before the search is measured
+        index.size();
+        long start = System.nanoTime();
+        Map<String, Set<String>> result = index.search(String.join(" ", List.of(args).subList(1, args.length)));
+        long time = (System.nanoTime() - start) / 1000;
+        for (Map.Entry<String, Set<String>> entry : result.entrySet()) {
+            System.out.println(entry.getKey() + ": " + String.join(", ", entry.getValue()));
+        }
+        System.out.println(result.size() + " elements found in " + time + "µs");
+    }
+}
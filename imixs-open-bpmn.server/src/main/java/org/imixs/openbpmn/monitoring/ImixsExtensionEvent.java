@@ -0,0 +1,62 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event emitted for each call of
+ * {@code buildPropertiesForm} and {@code updatePropertiesData} of a
+ * BPMNElementExtension.
+ * <p>
+ * The event is recorded by the {@link ImixsExtensionEventInterceptor}. The
+ * duration of the event is the time spent in the extension method.
+ * 
+ * @author rsoika
+ *
+ */
+@Name("org.imixs.openbpmn.Extension")
+@Label("Imixs Extension")
+@Description("Form build or property update of a BPMN element extension")
+@Category({ "Imixs", "Open-BPMN" })
+@StackTrace(false)
+public class ImixsExtensionEvent extends Event {
+
+    @Label("Extension")
+    public String extension;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Element ID")
+    public String elementId;
+
+    @Label("Element Type")
+    public String elementType;
+
+    @Label("Category")
+    public String category;
+
+    @Label("Item Count")
+    @Description("Number of Imixs items of the element or number of updated properties")
+    public int itemCount;
+
+}
@@ -0,0 +1,88 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.monitoring;
+
+import javax.json.JsonObject;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.openbpmn.bpmn.elements.core.BPMNElement;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * The ImixsExtensionEventInterceptor records a {@link ImixsExtensionEvent} for
+ * the methods {@code buildPropertiesForm} and {@code updatePropertiesData} of
+ * a BPMNElementExtension.
+ * <p>
+ * If the event is not enabled in the current JFR recording, the interceptor
+ * just proceeds the invocation without any further computation.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsExtensionEventInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ImixsExtensionEvent event = new ImixsExtensionEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        try {
+            return invocation.proceed();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                String operation = invocation.getMethod().getName();
+                // the intercepted instance is a subclass generated by Guice
+                event.extension = invocation.getThis().getClass().getSuperclass().getSimpleName();
+                event.operation = operation;
+                Object[] arguments = invocation.getArguments();
+                if ("updatePropertiesData".equals(operation)) {
+                    JsonObject json = (JsonObject) arguments[0];
+                    event.category = (String) arguments[1];
+                    event.itemCount = json != null ? json.size() : 0;
+                    setElement(event, (BPMNElement) arguments[2], false);
+                } else {
+                    setElement(event, (BPMNElement) arguments[0], true);
+                }
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Sets the element id and type. Optional the number of Imixs items of the
+     * element is counted.
+     */
+    private void setElement(ImixsExtensionEvent event, BPMNElement bpmnElement, boolean countItems) {
+        if (bpmnElement == null) {
+            return;
+        }
+        event.elementId = bpmnElement.getId();
+        Element elementNode = bpmnElement.getElementNode();
+        if (elementNode != null) {
+            event.elementType = elementNode.getLocalName();
+            if (countItems) {
+                NodeList items = elementNode.getElementsByTagNameNS(ImixsExtensionUtil.getNamespaceURI(), "item");
+                event.itemCount = items.getLength();
+            }
+        }
+    }
+}
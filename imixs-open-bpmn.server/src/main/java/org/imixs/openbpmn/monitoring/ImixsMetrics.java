@@ -0,0 +1,150 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.monitoring;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ImixsMetrics is a lightweight registry for the latencies of the Imixs
+ * server operations. Each operation (e.g. 'buildPropertiesForm', 'onLoad' or
+ * 'validate_batch') is recorded per component (the extension or validator
+ * class) into a {@link LatencyHistogram}.
+ * <p>
+ * The registry is lock-free. Recording a value for an existing operation does
+ * not allocate memory. The method {@link #scrape()} returns all metrics in
+ * the Prometheus text format.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsMetrics {
+
+    public static final String DURATION_METRIC = "imixs_operation_duration_seconds";
+    public static final String ERROR_METRIC = "imixs_operation_errors_total";
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final ImixsMetrics INSTANCE = new ImixsMetrics();
+
+    // component -> operation -> metric
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationMetric>> registry = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the global metrics registry
+     */
+    public static ImixsMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records the duration of an operation in nanoseconds
+     */
+    public void record(String component, String operation, long nanos) {
+        getMetric(component, operation).latency.record(nanos);
+    }
+
+    /**
+     * Counts a failed operation
+     */
+    public void recordError(String component, String operation) {
+        getMetric(component, operation).errors.increment();
+    }
+
+    /**
+     * Returns the histogram of an operation or null if nothing was recorded yet.
+     */
+    public LatencyHistogram getHistogram(String component, String operation) {
+        Map<String, OperationMetric> operations = registry.get(component);
+        if (operations == null) {
+            return null;
+        }
+        OperationMetric metric = operations.get(operation);
+        return metric != null ? metric.latency : null;
+    }
+
+    /**
+     * Removes all recorded metrics
+     */
+    public void reset() {
+        registry.clear();
+    }
+
+    /**
+     * Returns all metrics in the Prometheus text exposition format. The latencies
+     * are exported as a summary with the quantiles 0.5, 0.9, 0.99 and 0.999.
+     */
+    public String scrape() {
+        StringBuilder durations = new StringBuilder();
+        StringBuilder errors = new StringBuilder();
+        durations.append("# HELP ").append(DURATION_METRIC).append(" Latency of Imixs server operations\n");
+        durations.append("# TYPE ").append(DURATION_METRIC).append(" summary\n");
+        errors.append("# HELP ").append(ERROR_METRIC).append(" Failed Imixs server operations\n");
+        errors.append("# TYPE ").append(ERROR_METRIC).append(" counter\n");
+
+        // sort the output for stable scrapes
+        for (Map.Entry<String, ConcurrentMap<String, OperationMetric>> component : new TreeMap<>(registry)
+                .entrySet()) {
+            for (Map.Entry<String, OperationMetric> operation : new TreeMap<>(component.getValue()).entrySet()) {
+                String labels = "component=\"" + escape(component.getKey()) + "\",operation=\""
+                        + escape(operation.getKey()) + "\"";
+                LatencyHistogram histogram = operation.getValue().latency;
+                long[] values = histogram.getQuantiles(QUANTILES);
+                for (int i = 0; i < QUANTILES.length; i++) {
+                    durations.append(DURATION_METRIC).append('{').append(labels).append(",quantile=\"")
+                            .append(QUANTILES[i]).append("\"} ").append(toSeconds(values[i])).append('\n');
+                }
+                durations.append(DURATION_METRIC).append("_sum{").append(labels).append("} ")
+                        .append(toSeconds(histogram.getSum())).append('\n');
+                durations.append(DURATION_METRIC).append("_count{").append(labels).append("} ")
+                        .append(histogram.getCount()).append('\n');
+                errors.append(ERROR_METRIC).append('{').append(labels).append("} ")
+                        .append(operation.getValue().errors.sum()).append('\n');
+            }
+        }
+        return durations.append(errors).toString();
+    }
+
+    private OperationMetric getMetric(String component, String operation) {
+        ConcurrentMap<String, OperationMetric> operations = registry.get(component);
+        if (operations == null) {
+            operations = registry.computeIfAbsent(component, k -> new ConcurrentHashMap<>());
+        }
+        OperationMetric metric = operations.get(operation);
+        if (metric == null) {
+            metric = operations.computeIfAbsent(operation, k -> new OperationMetric());
+        }
+        return metric;
+    }
+
+    private static String toSeconds(long nanos) {
+        return Double.toString(nanos / 1_000_000_000.0);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Latency and error count of a single operation
+     */
+    private static class OperationMetric {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+    }
+}
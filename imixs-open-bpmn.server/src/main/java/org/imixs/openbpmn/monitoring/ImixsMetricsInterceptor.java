@@ -0,0 +1,70 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * The ImixsMetricsInterceptor records the duration of the intercepted
+ * extension methods into the {@link ImixsMetrics} registry. The component is
+ * the simple class name of the extension, the operation is the method name.
+ * <p>
+ * If profiling is enabled, the measured duration is passed to the
+ * {@link ImixsProfilingInterceptor}, so the call is not timed twice.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsMetricsInterceptor implements MethodInterceptor {
+
+    private final ImixsProfilingInterceptor profiler;
+
+    public ImixsMetricsInterceptor() {
+        this(null);
+    }
+
+    /**
+     * @param profiler - optional profiling interceptor or null
+     */
+    public ImixsMetricsInterceptor(ImixsProfilingInterceptor profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long allocatedBefore = profiler != null ? profiler.begin() : -1;
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            // the intercepted instance is a subclass generated by Guice
+            String component = invocation.getThis().getClass().getSuperclass().getSimpleName();
+            String operation = invocation.getMethod().getName();
+            long duration = System.nanoTime() - start;
+            ImixsMetrics.getInstance().record(component, operation, duration);
+            if (failed) {
+                ImixsMetrics.getInstance().recordError(component, operation);
+            }
+            if (profiler != null) {
+                profiler.end(invocation, duration, allocatedBefore);
+            }
+        }
+    }
+}
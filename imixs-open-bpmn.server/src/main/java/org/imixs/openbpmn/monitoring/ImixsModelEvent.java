@@ -0,0 +1,62 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event emitted for the load and save operations of a
+ * BPMNModelExtension, e.g. the ACL and DataObject repairs of the
+ * ImixsModelValidatorExtension.
+ * 
+ * @author rsoika
+ *
+ */
+@Name("org.imixs.openbpmn.Model")
+@Label("Imixs Model Lifecycle")
+@Description("Load or save operation of a BPMN model extension")
+@Category({ "Imixs", "Open-BPMN" })
+@StackTrace(false)
+public class ImixsModelEvent extends Event {
+
+    @Label("Extension")
+    public String extension;
+
+    @Label("Operation")
+    @Description("onLoad or onSave")
+    public String operation;
+
+    @Label("Phase")
+    @Description("The step of the operation, e.g. validateACL")
+    public String phase;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Item Count")
+    @Description("Number of verified elements")
+    public int itemCount;
+
+    @Label("Modified")
+    @Description("True if the model was updated by this step")
+    public boolean modified;
+
+}
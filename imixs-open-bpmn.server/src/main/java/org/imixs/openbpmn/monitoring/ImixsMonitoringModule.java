@@ -0,0 +1,134 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.monitoring;
+
+import java.lang.reflect.Method;
+
+import org.openbpmn.extensions.BPMNElementExtension;
+import org.openbpmn.extensions.BPMNExtension;
+import org.openbpmn.extensions.BPMNModelExtension;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.matcher.Matcher;
+import com.google.inject.matcher.Matchers;
+
+/**
+ * The ImixsMonitoringModule binds the {@link ImixsExtensionEventInterceptor}
+ * and the {@link ImixsMetricsInterceptor} to all BPMNElementExtension
+ * implementations. The load and save methods of all BPMNModelExtension
+ * implementations are bound to the ImixsMetricsInterceptor.
+ * <p>
+ * If profiling is enabled (see ImixsBPMNServerLauncher option
+ * '--profileThreshold'), the {@link ImixsProfilingInterceptor} is bound to all
+ * other methods of all BPMNElementExtension and BPMNModelExtension
+ * implementations. As the interceptor is bound by type, also custom extensions
+ * are profiled without any changes. The methods already bound to the
+ * ImixsMetricsInterceptor are profiled by the metrics interceptor, so each call
+ * is timed only once.
+ * <p>
+ * The module must be installed into the server injector (see
+ * ImixsBPMNServerLauncher) so that the interceptor also applies to the
+ * extension instances created by the diagram session injectors.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsMonitoringModule extends AbstractModule {
+
+    private final ImixsProfilingInterceptor profiler;
+
+    public ImixsMonitoringModule() {
+        this(null);
+    }
+
+    /**
+     * @param profiler - optional profiling interceptor or null to disable the
+     *                 profiling
+     */
+    public ImixsMonitoringModule(ImixsProfilingInterceptor profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void configure() {
+        ImixsMetricsInterceptor metricsInterceptor = new ImixsMetricsInterceptor(profiler);
+        Matcher<Method> extensionMethods = new ExtensionMethodMatcher();
+        Matcher<Method> modelExtensionMethods = new ModelExtensionMethodMatcher();
+        bindInterceptor(Matchers.subclassesOf(BPMNElementExtension.class), extensionMethods,
+                new ImixsExtensionEventInterceptor(), metricsInterceptor);
+        bindInterceptor(Matchers.subclassesOf(BPMNModelExtension.class), modelExtensionMethods,
+                metricsInterceptor);
+        if (profiler != null) {
+            Matcher<Method> interfaceMethods = new ExtensionInterfaceMatcher();
+            bindInterceptor(Matchers.subclassesOf(BPMNElementExtension.class),
+                    interfaceMethods.and(Matchers.not(extensionMethods)), profiler);
+            bindInterceptor(Matchers.subclassesOf(BPMNModelExtension.class),
+                    interfaceMethods.and(Matchers.not(modelExtensionMethods)), profiler);
+        }
+    }
+
+    /**
+     * Matches the form build and update methods of a BPMNElementExtension
+     */
+    static class ExtensionMethodMatcher extends AbstractMatcher<Method> {
+        @Override
+        public boolean matches(Method method) {
+            if (method.isSynthetic()) {
+                return false;
+            }
+            return "buildPropertiesForm".equals(method.getName())
+                    || "updatePropertiesData".equals(method.getName());
+        }
+    }
+
+    /**
+     * Matches the load and save methods of a BPMNModelExtension
+     */
+    static class ModelExtensionMethodMatcher extends AbstractMatcher<Method> {
+        @Override
+        public boolean matches(Method method) {
+            if (method.isSynthetic()) {
+                return false;
+            }
+            return "onLoad".equals(method.getName()) || "onSave".equals(method.getName());
+        }
+    }
+
+    /**
+     * Matches all methods declared by the extension interfaces
+     */
+    static class ExtensionInterfaceMatcher extends AbstractMatcher<Method> {
+        private static final Class<?>[] INTERFACES = { BPMNElementExtension.class, BPMNModelExtension.class,
+                BPMNExtension.class };
+
+        @Override
+        public boolean matches(Method method) {
+            if (method.isSynthetic()) {
+                return false;
+            }
+            for (Class<?> extensionInterface : INTERFACES) {
+                try {
+                    extensionInterface.getMethod(method.getName(), method.getParameterTypes());
+                    return true;
+                } catch (NoSuchMethodException e) {
+                    // continue
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openbpmn.bpmn.elements.core.BPMNElement;
+
+/**
+ * The ImixsProfilingInterceptor measures the duration of each call of a
+ * BPMNElementExtension or BPMNModelExtension method. A call exceeding the
+ * threshold is logged with the extension, the method and the id of the
+ * processed element (or the model path).
+ * <p>
+ * In addition the interceptor samples the memory allocated by the current
+ * thread during a call. Only every n-th call (sample rate) is sampled, because
+ * reading the allocated bytes of a thread is not for free.
+ * <p>
+ * The methods already timed by the {@link ImixsMetricsInterceptor} are not
+ * intercepted again. The metrics interceptor passes its measurement to the
+ * profiling interceptor, so each call is timed only once (see
+ * {@link ImixsMonitoringModule}).
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsProfilingInterceptor implements MethodInterceptor {
+    private static Logger logger = Logger.getLogger(ImixsProfilingInterceptor.class.getName());
+
+    private final long thresholdNanos;
+    private final int sampleRate;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final AtomicLong calls = new AtomicLong();
+
+    /**
+     * @param thresholdMillis - calls taking longer are logged
+     * @param sampleRate      - the allocation is sampled for every n-th call. 0
+     *                        disables the allocation sampling.
+     */
+    public ImixsProfilingInterceptor(long thresholdMillis, int sampleRate) {
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+        com.sun.management.ThreadMXBean bean = null;
+        if (sampleRate > 0 && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+                logger.warning("Thread allocation sampling is not supported by this JVM");
+                bean = null;
+            }
+        }
+        this.threadMXBean = bean;
+        this.sampleRate = bean != null ? sampleRate : 0;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long allocatedBefore = begin();
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            end(invocation, System.nanoTime() - start, allocatedBefore);
+        }
+    }
+
+    /**
+     * Starts the profiling of a call.
+     * 
+     * @return the bytes allocated by the current thread if the call is sampled,
+     *         otherwise -1
+     */
+    long begin() {
+        return isSampled() ? threadMXBean.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Ends the profiling of a call and logs the call if the duration exceeds the
+     * threshold.
+     * 
+     * @param duration        - the duration of the call in nanoseconds
+     * @param allocatedBefore - the value returned by {@link #begin()}
+     */
+    void end(MethodInvocation invocation, long duration, long allocatedBefore) {
+        if (duration >= thresholdNanos) {
+            long allocated = allocatedBefore >= 0 ? threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore
+                    : -1;
+            logSlowCall(invocation, duration, allocated);
+        }
+    }
+
+    /**
+     * Returns true for every n-th call
+     */
+    boolean isSampled() {
+        return sampleRate > 0 && calls.incrementAndGet() % sampleRate == 0;
+    }
+
+    private void logSlowCall(MethodInvocation invocation, long duration, long allocated) {
+        Method method = invocation.getMethod();
+        // the intercepted instance is a subclass generated by Guice
+        StringBuilder message = new StringBuilder("├── slow extension call ")
+                .append(invocation.getThis().getClass().getSuperclass().getSimpleName()).append('.')
+                .append(method.getName());
+        String target = getTarget(invocation.getArguments());
+        if (target != null) {
+            message.append(" [").append(target).append(']');
+        }
+        message.append(" took ").append(duration / 1_000_000).append("ms");
+        if (allocated >= 0) {
+            message.append(", allocated ").append(allocated / 1024).append("KB");
+        }
+        logger.warning(message.toString());
+    }
+
+    /**
+     * Returns the id of the first BPMNElement argument or the model path
+     */
+    private String getTarget(Object[] arguments) {
+        for (Object argument : arguments) {
+            if (argument instanceof BPMNElement) {
+                return ((BPMNElement) argument).getId();
+            }
+            if (argument instanceof Path) {
+                return argument.toString();
+            }
+        }
+        return null;
+    }
+}
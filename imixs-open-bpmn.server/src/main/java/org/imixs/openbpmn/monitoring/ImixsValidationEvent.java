@@ -0,0 +1,52 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event emitted for each validation run of the
+ * ImixsBPMNValidator.
+ * 
+ * @author rsoika
+ *
+ */
+@Name("org.imixs.openbpmn.Validation")
+@Label("Imixs Validation")
+@Description("Validation of a model by the ImixsBPMNValidator")
+@Category({ "Imixs", "Open-BPMN" })
+@StackTrace(false)
+public class ImixsValidationEvent extends Event {
+
+    @Label("Reason")
+    @Description("Validation reason - batch or live")
+    public String reason;
+
+    @Label("Elements")
+    public int elements;
+
+    @Label("Processes")
+    public int processes;
+
+    @Label("Markers")
+    public int markers;
+
+}
@@ -0,0 +1,583 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.scheduler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.imixs.openbpmn.extensions.ImixsItemReader;
+
+/**
+ * The ImixsSchedulerForecast projects the number of timer firings of all
+ * scheduled events of a model (keyscheduledactivity=1) for a population of
+ * workitems. This allows to detect schedules where many workitems become due
+ * in the same scheduler run.
+ * <p>
+ * For each scheduled event the delay (numactivitydelay), the unit
+ * (keyactivitydelayunit), the time base object (keyscheduledbaseobject) and the
+ * reference item (keytimecomparefield) are read from the model together with
+ * the Imixs tasks the event is attached to. A workitem in a task fires the
+ * scheduled event with the earliest due date. Due dates before the start of
+ * the forecast fire in the first bucket, due dates after the end are counted
+ * as 'later'.
+ * <p>
+ * The population is a stream of workitems - read from a CSV file or generated
+ * synthetically - and is processed in parallel without holding the workitems in
+ * memory.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsSchedulerForecast {
+    private static Logger logger = Logger.getLogger(ImixsSchedulerForecast.class.getName());
+
+    // the base objects of keyscheduledbaseobject
+    public static final int BASE_LAST_EVENT = 1;
+    public static final int BASE_LAST_MODIFIED = 2;
+    public static final int BASE_CREATED = 3;
+    public static final int BASE_REFERENCE = 4;
+
+    public static final String ITEM_TASKID = "$taskid";
+    public static final String ITEM_LASTEVENTDATE = "$lasteventdate";
+    public static final String ITEM_MODIFIED = "$modified";
+    public static final String ITEM_CREATED = "$created";
+
+    private static final Set<String> SCHEDULER_ITEMS = Set.of("keyscheduledactivity", "numactivitydelay",
+            "keyactivitydelayunit", "keyscheduledbaseobject", "keytimecomparefield");
+
+    private final List<ScheduledEvent> events;
+    // task id -> scheduled events
+    private final Map<String, List<ScheduledEvent>> eventsByTask = new HashMap<>();
+    private final ImixsWorkdayCalendar calendar;
+
+    public ImixsSchedulerForecast(List<ScheduledEvent> events, ImixsWorkdayCalendar calendar) {
+        this.events = events;
+        this.calendar = calendar;
+        for (ScheduledEvent event : events) {
+            for (String taskId : event.taskIds) {
+                eventsByTask.computeIfAbsent(taskId, k -> new ArrayList<>()).add(event);
+            }
+        }
+    }
+
+    /**
+     * Reads the scheduled events of a model
+     */
+    public static ImixsSchedulerForecast read(InputStream model, ImixsWorkdayCalendar calendar)
+            throws IOException {
+        return new ImixsSchedulerForecast(readScheduledEvents(model), calendar);
+    }
+
+    public List<ScheduledEvent> getScheduledEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Returns the task IDs with at least one scheduled event
+     */
+    public Set<String> getScheduledTaskIds() {
+        return Collections.unmodifiableSet(eventsByTask.keySet());
+    }
+
+    /**
+     * Projects the timer firings of the given population into a histogram.
+     * 
+     * @param population - stream of workitems, processed in parallel
+     * @param from       - start of the forecast
+     * @param bucketUnit - ChronoUnit.HOURS or ChronoUnit.DAYS
+     * @param buckets    - number of buckets
+     * @return the histogram
+     */
+    public Histogram forecast(Stream<Workitem> population, LocalDateTime from, ChronoUnit bucketUnit,
+            int buckets) {
+        long l = System.currentTimeMillis();
+        LocalDateTime start = from.truncatedTo(bucketUnit);
+        Histogram histogram = new Histogram(start, bucketUnit, buckets, events);
+        Map<ScheduledEvent, Integer> eventIndex = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            eventIndex.put(events.get(i), i);
+        }
+        population.parallel().forEach(workitem -> {
+            List<ScheduledEvent> taskEvents = eventsByTask.get(workitem.getTaskId());
+            if (taskEvents == null) {
+                return;
+            }
+            // the event with the earliest due date fires
+            LocalDateTime firstDue = null;
+            ScheduledEvent firstEvent = null;
+            for (ScheduledEvent event : taskEvents) {
+                LocalDateTime due = getDueDate(event, workitem);
+                if (due != null && (firstDue == null || due.isBefore(firstDue))) {
+                    firstDue = due;
+                    firstEvent = event;
+                }
+            }
+            if (firstDue == null) {
+                histogram.unscheduled.incrementAndGet(0);
+                return;
+            }
+            long bucket = Math.max(0, bucketUnit.between(start, firstDue));
+            histogram.add(bucket, eventIndex.get(firstEvent));
+        });
+        logger.fine("├── scheduler forecast computed in " + (System.currentTimeMillis() - l) + "ms");
+        return histogram;
+    }
+
+    /**
+     * Returns the due date of a scheduled event for a workitem or null if the time
+     * base is not set
+     */
+    public LocalDateTime getDueDate(ScheduledEvent event, Workitem workitem) {
+        LocalDateTime base;
+        switch (event.baseObject) {
+        case BASE_LAST_MODIFIED:
+            base = workitem.getDate(ITEM_MODIFIED);
+            break;
+        case BASE_CREATED:
+            base = workitem.getDate(ITEM_CREATED);
+            break;
+        case BASE_REFERENCE:
+            base = workitem.getDate(event.timeCompareField);
+            break;
+        default:
+            base = workitem.getDate(ITEM_LASTEVENTDATE);
+        }
+        if (base == null) {
+            return null;
+        }
+        return calendar.getDueDate(base, event.delay, event.unit);
+    }
+
+    /**
+     * Reads a population of workitems from a CSV file. The first line defines the
+     * item names. The column '$taskid' is required, all other columns are parsed
+     * as ISO date times (e.g. 2026-10-19T08:30). Empty or invalid values are
+     * ignored. The lines are read lazily and the stream must be closed.
+     */
+    public static Stream<Workitem> readPopulation(Path csvFile) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+        String header = reader.readLine();
+        if (header == null) {
+            reader.close();
+            return Stream.empty();
+        }
+        String[] columns = header.split(",");
+        int taskColumn = -1;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].trim();
+            if (ITEM_TASKID.equals(columns[i])) {
+                taskColumn = i;
+            }
+        }
+        if (taskColumn < 0) {
+            reader.close();
+            throw new IOException("Missing column '" + ITEM_TASKID + "' in " + csvFile);
+        }
+        int taskIndex = taskColumn;
+        return reader.lines().filter(line -> !line.isBlank()).map(line -> {
+            String[] values = line.split(",", -1);
+            Map<String, LocalDateTime> dates = new HashMap<>();
+            for (int i = 0; i < values.length && i < columns.length; i++) {
+                String value = values[i].trim();
+                if (i != taskIndex && !value.isEmpty()) {
+                    try {
+                        dates.put(columns[i], LocalDateTime.parse(value));
+                    } catch (DateTimeParseException e) {
+                        // ignore invalid dates
+                    }
+                }
+            }
+            return new Workitem(taskIndex < values.length ? values[taskIndex].trim() : "", dates);
+        }).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Generates a synthetic population. The workitems are distributed uniformly
+     * over the given task IDs. The last event date is random within the window
+     * before 'from'. The modified date equals the last event date, the creation
+     * date lies up to 30 days before. Reference items are random within the
+     * window around 'from'.
+     */
+    public Stream<Workitem> syntheticPopulation(long count, List<String> taskIds, LocalDateTime from,
+            Duration window, long seed) {
+        Set<String> referenceItems = new LinkedHashSet<>();
+        for (ScheduledEvent event : events) {
+            if (event.baseObject == BASE_REFERENCE && !event.timeCompareField.isEmpty()) {
+                referenceItems.add(event.timeCompareField);
+            }
+        }
+        long windowMinutes = Math.max(1, window.toMinutes());
+        return LongStream.range(0, count).mapToObj(i -> {
+            // one random generator per workitem keeps the population independent of
+            // the parallel processing order
+            SplittableRandom random = new SplittableRandom(seed + i * 0x9E3779B97F4A7C15L);
+            Map<String, LocalDateTime> dates = new HashMap<>();
+            LocalDateTime lastEvent = from.minusMinutes(random.nextLong(windowMinutes));
+            dates.put(ITEM_LASTEVENTDATE, lastEvent);
+            dates.put(ITEM_MODIFIED, lastEvent);
+            dates.put(ITEM_CREATED, lastEvent.minusMinutes(random.nextLong(30 * 24 * 60)));
+            for (String item : referenceItems) {
+                dates.put(item, from.plusMinutes(random.nextLong(-windowMinutes, windowMinutes)));
+            }
+            return new Workitem(taskIds.get(random.nextInt(taskIds.size())), dates);
+        });
+    }
+
+    /**
+     * Reads the scheduled events of a model with the {@link ImixsItemReader}. The
+     * tasks of an event are found by following the incoming sequence flows
+     * backwards across other events and gateways.
+     */
+    public static List<ScheduledEvent> readScheduledEvents(InputStream model) throws IOException {
+        Map<String, String> taskIds = new HashMap<>();
+        Map<String, String[]> eventInfos = new LinkedHashMap<>();
+        Map<String, List<String>> incoming = new HashMap<>();
+        Map<String, Map<String, String>> eventItems = new HashMap<>();
+        try {
+            new ImixsItemReader().itemNames(SCHEDULER_ITEMS).read(model, new ImixsItemReader.ItemHandler() {
+                @Override
+                public void element(String elementId, String elementType, Map<String, String> attributes) {
+                    if (attributes.containsKey("imixs:processid")) {
+                        taskIds.put(elementId, attributes.get("imixs:processid"));
+                    } else if (attributes.containsKey("imixs:activityid")) {
+                        eventInfos.put(elementId,
+                                new String[] { attributes.get("imixs:activityid"), attributes.get("name") });
+                    } else if ("sequenceFlow".equals(elementType)) {
+                        incoming.computeIfAbsent(attributes.get("targetRef"), k -> new ArrayList<>())
+                                .add(attributes.get("sourceRef"));
+                    }
+                }
+
+                @Override
+                public void item(String elementId, String elementType, String itemName, List<String> values) {
+                    if (!values.isEmpty()) {
+                        eventItems.computeIfAbsent(elementId, k -> new HashMap<>()).putIfAbsent(itemName,
+                                values.get(0));
+                    }
+                }
+            });
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to read model: " + e.getMessage(), e);
+        }
+
+        List<ScheduledEvent> result = new ArrayList<>();
+        for (Map.Entry<String, String[]> entry : eventInfos.entrySet()) {
+            Map<String, String> items = eventItems.getOrDefault(entry.getKey(), Collections.emptyMap());
+            if (!"1".equals(items.get("keyscheduledactivity"))) {
+                continue;
+            }
+            try {
+                ScheduledEvent event = new ScheduledEvent(entry.getKey(), entry.getValue()[0], entry.getValue()[1],
+                        Long.parseLong(items.getOrDefault("numactivitydelay", "0").trim()),
+                        Integer.parseInt(items.getOrDefault("keyactivitydelayunit", "1").trim()),
+                        Integer.parseInt(items.getOrDefault("keyscheduledbaseobject", "1").trim()),
+                        items.getOrDefault("keytimecomparefield", ""),
+                        findSourceTasks(entry.getKey(), incoming, taskIds));
+                result.add(event);
+            } catch (NumberFormatException e) {
+                logger.warning("Scheduled event '" + entry.getKey() + "' has an invalid delay - event ignored");
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> findSourceTasks(String eventId, Map<String, List<String>> incoming,
+            Map<String, String> taskIds) {
+        Set<String> result = new LinkedHashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(eventId);
+        while (!queue.isEmpty()) {
+            for (String source : incoming.getOrDefault(queue.poll(), Collections.emptyList())) {
+                if (!visited.add(source)) {
+                    continue;
+                }
+                String taskId = taskIds.get(source);
+                if (taskId != null) {
+                    result.add(taskId);
+                } else {
+                    queue.add(source);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A scheduled event of the model
+     */
+    public static class ScheduledEvent {
+        private final String elementId;
+        private final String activityId;
+        private final String name;
+        private final long delay;
+        private final int unit;
+        private final int baseObject;
+        private final String timeCompareField;
+        private final Set<String> taskIds;
+
+        public ScheduledEvent(String elementId, String activityId, String name, long delay, int unit,
+                int baseObject, String timeCompareField, Set<String> taskIds) {
+            this.elementId = elementId;
+            this.activityId = activityId;
+            this.name = name == null ? "" : name;
+            this.delay = delay;
+            this.unit = unit;
+            this.baseObject = baseObject;
+            this.timeCompareField = timeCompareField;
+            this.taskIds = taskIds;
+        }
+
+        public String getElementId() {
+            return elementId;
+        }
+
+        public String getActivityId() {
+            return activityId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDelay() {
+            return delay;
+        }
+
+        public int getUnit() {
+            return unit;
+        }
+
+        public int getBaseObject() {
+            return baseObject;
+        }
+
+        public String getTimeCompareField() {
+            return timeCompareField;
+        }
+
+        /**
+         * Returns the Imixs task IDs the event is attached to
+         */
+        public Set<String> getTaskIds() {
+            return Collections.unmodifiableSet(taskIds);
+        }
+
+        @Override
+        public String toString() {
+            return elementId + " [" + activityId + "] " + name;
+        }
+    }
+
+    /**
+     * A workitem of the population with its task ID and date items
+     */
+    public static class Workitem {
+        private final String taskId;
+        private final Map<String, LocalDateTime> dates;
+
+        public Workitem(String taskId, Map<String, LocalDateTime> dates) {
+            this.taskId = taskId;
+            this.dates = dates;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public LocalDateTime getDate(String itemName) {
+            return dates.get(itemName);
+        }
+    }
+
+    /**
+     * The projected firings per time bucket. The counters are thread safe.
+     */
+    public static class Histogram {
+        private final LocalDateTime start;
+        private final ChronoUnit bucketUnit;
+        private final AtomicLongArray counts;
+        private final AtomicLongArray eventCounts;
+        private final AtomicLongArray later = new AtomicLongArray(1);
+        private final AtomicLongArray unscheduled = new AtomicLongArray(1);
+        private final List<ScheduledEvent> events;
+
+        Histogram(LocalDateTime start, ChronoUnit bucketUnit, int buckets, List<ScheduledEvent> events) {
+            this.start = start;
+            this.bucketUnit = bucketUnit;
+            this.counts = new AtomicLongArray(buckets);
+            this.eventCounts = new AtomicLongArray(events.size());
+            this.events = events;
+        }
+
+        void add(long bucket, int event) {
+            if (bucket < counts.length()) {
+                counts.incrementAndGet((int) bucket);
+            } else {
+                later.incrementAndGet(0);
+            }
+            eventCounts.incrementAndGet(event);
+        }
+
+        public int getBuckets() {
+            return counts.length();
+        }
+
+        public LocalDateTime getBucketStart(int bucket) {
+            return start.plus(bucket, bucketUnit);
+        }
+
+        public long getCount(int bucket) {
+            return counts.get(bucket);
+        }
+
+        /**
+         * Returns the number of firings after the last bucket
+         */
+        public long getLater() {
+            return later.get(0);
+        }
+
+        /**
+         * Returns the number of workitems without a time base for their scheduled
+         * events
+         */
+        public long getUnscheduled() {
+            return unscheduled.get(0);
+        }
+
+        /**
+         * Returns the number of firings of a scheduled event in the whole forecast
+         */
+        public long getEventCount(ScheduledEvent event) {
+            int index = events.indexOf(event);
+            return index < 0 ? 0 : eventCounts.get(index);
+        }
+
+        /**
+         * Returns the index of the bucket with the most firings
+         */
+        public int getPeakBucket() {
+            int peak = 0;
+            for (int i = 1; i < counts.length(); i++) {
+                if (counts.get(i) > counts.get(peak)) {
+                    peak = i;
+                }
+            }
+            return peak;
+        }
+
+        /**
+         * Returns the histogram as text with a bar per bucket
+         */
+        public String toText() {
+            StringBuilder result = new StringBuilder();
+            long max = Math.max(1, counts.length() == 0 ? 0 : counts.get(getPeakBucket()));
+            for (int i = 0; i < counts.length(); i++) {
+                long count = counts.get(i);
+                result.append(getBucketStart(i)).append(String.format(" %8d ", count))
+                        .append("#".repeat((int) (count * 50 / max))).append('\n');
+            }
+            result.append("later            ").append(String.format("%8d", getLater())).append('\n');
+            for (int i = 0; i < events.size(); i++) {
+                result.append("event ").append(events.get(i)).append(": ").append(eventCounts.get(i))
+                        .append('\n');
+            }
+            return result.toString();
+        }
+
+        /**
+         * Returns the histogram as CSV with the columns bucket and firings
+         */
+        public String toCSV() {
+            StringBuilder result = new StringBuilder("bucket,firings\n");
+            for (int i = 0; i < counts.length(); i++) {
+                result.append(getBucketStart(i)).append(',').append(counts.get(i)).append('\n');
+            }
+            return result.toString();
+        }
+    }
+
+    /**
+     * Prints the forecast of a model.
+     * 
+     * <pre>{@code ImixsSchedulerForecast <model.bpmn> <population.csv|synthetic:count> [hours|days] [buckets]}</pre>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(
+                    "Usage: ImixsSchedulerForecast <model.bpmn> <population.csv|synthetic:count> [hours|days] [buckets]");
+            System.exit(1);
+        }
+        ImixsSchedulerForecast forecast;
+        try (InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            forecast = read(in, ImixsWorkdayCalendar.getDefault());
+        }
+        ChronoUnit bucketUnit = args.length > 2 && "days".equals(args[2]) ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+        int buckets = args.length > 3 ? Integer.parseInt(args[3]) : (bucketUnit == ChronoUnit.DAYS ? 30 : 48);
+        LocalDateTime from = LocalDateTime.now();
+        Histogram histogram;
+        if (args[1].startsWith("synthetic:")) {
+            long count = Long.parseLong(args[1].substring("synthetic:".length()));
+            List<String> taskIds = new ArrayList<>(forecast.getScheduledTaskIds());
+            if (taskIds.isEmpty()) {
+                System.out.println("No scheduled events found.");
+                return;
+            }
+            histogram = forecast.forecast(forecast.syntheticPopulation(count, taskIds, from, Duration.ofDays(30), 42),
+                    from, bucketUnit, buckets);
+        } else {
+            try (Stream<Workitem> population = readPopulation(Paths.get(args[1]))) {
+                histogram = forecast.forecast(population, from, bucketUnit, buckets);
+            }
+        }
+        System.out.print(histogram.toText());
+    }
+}
@@ -0,0 +1,438 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The ImixsSelectorQuery is the parsed form of a scheduler selector
+ * (txtscheduledview). The selector is a Lucene query executed by the
+ * Imixs-Workflow scheduler to find the workitems of a scheduled event.
+ * <p>
+ * The parser checks the syntax of the query (terms, phrases, ranges, groups,
+ * boolean operators, boosts and escapes) and reports patterns known to be
+ * expensive or wrong at runtime as warnings:
+ * <ul>
+ * <li>leading wildcards and match all queries, which force a full index
+ * scan</li>
+ * <li>queries only excluding workitems, which match nothing in Lucene</li>
+ * <li>missing $taskid or $modelversion constraints - a custom selector is used
+ * as is, so the scheduler may select workitems of other tasks or model
+ * versions</li>
+ * </ul>
+ * A constraint only counts if it is required by the query, e.g. in
+ * '$taskid:1000 OR type:workitem' the $taskid does not constrain the result.
+ * <p>
+ * Parsed queries are immutable and cached by their text, so the validator can
+ * check all scheduled events of a model on each run.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsSelectorQuery {
+
+    public static final String FIELD_TASKID = "$taskid";
+    public static final String FIELD_MODELVERSION = "$modelversion";
+    // deprecated alias of $taskid still supported by the engine
+    public static final String FIELD_PROCESSID = "$processid";
+
+    private static final int CACHE_SIZE = 512;
+    private static final Map<String, ImixsSelectorQuery> cache = Collections
+            .synchronizedMap(new LinkedHashMap<String, ImixsSelectorQuery>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ImixsSelectorQuery> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final String text;
+    private final String error;
+    private final int errorPosition;
+    private final List<String> warnings;
+    private final Set<String> fields;
+    private final Set<String> requiredFields;
+
+    private ImixsSelectorQuery(String text, String error, int errorPosition, List<String> warnings,
+            Set<String> fields, Set<String> requiredFields) {
+        this.text = text;
+        this.error = error;
+        this.errorPosition = errorPosition;
+        this.warnings = Collections.unmodifiableList(warnings);
+        this.fields = Collections.unmodifiableSet(fields);
+        this.requiredFields = Collections.unmodifiableSet(requiredFields);
+    }
+
+    /**
+     * Returns the parsed query for the given selector text. The result is taken
+     * from the cache if the text was parsed before.
+     */
+    public static ImixsSelectorQuery parse(String text) {
+        String query = text == null ? "" : text;
+        ImixsSelectorQuery result = cache.get(query);
+        if (result == null) {
+            result = new Parser(query).parse();
+            cache.put(query, result);
+        }
+        return result;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns true if the query has no syntax error
+     */
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * Returns the syntax error or null if the query is valid
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Returns the position of the syntax error in the text or -1
+     */
+    public int getErrorPosition() {
+        return errorPosition;
+    }
+
+    /**
+     * Returns the warnings for expensive or unselective query patterns
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * Returns all field names used in the query
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the field names required by every match of the query
+     */
+    public Set<String> getRequiredFields() {
+        return requiredFields;
+    }
+
+    /**
+     * A recursive descent parser for the Lucene query syntax. The parse methods
+     * return the set of required fields of each sub query.
+     */
+    private static class Parser {
+        private final String text;
+        private int pos = 0;
+        private final Set<String> fields = new LinkedHashSet<>();
+        private final List<String> warnings = new ArrayList<>();
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        ImixsSelectorQuery parse() {
+            try {
+                skipWhitespace();
+                if (pos >= text.length()) {
+                    return new ImixsSelectorQuery(text, "The selector is empty", 0, warnings, fields,
+                            Collections.emptySet());
+                }
+                Set<String> required = parseOr(false);
+                if (pos < text.length()) {
+                    throw new SyntaxException("Unexpected '" + text.charAt(pos) + "'", pos);
+                }
+                if (!required.contains(FIELD_TASKID) && !required.contains(FIELD_PROCESSID)) {
+                    warnings.add("The selector does not constrain the " + FIELD_TASKID
+                            + " - workitems of other tasks may be processed");
+                }
+                if (!required.contains(FIELD_MODELVERSION)) {
+                    warnings.add("The selector does not constrain the " + FIELD_MODELVERSION
+                            + " - workitems of other model versions may be processed");
+                }
+                return new ImixsSelectorQuery(text, null, -1, warnings, fields, required);
+            } catch (SyntaxException e) {
+                return new ImixsSelectorQuery(text, e.getMessage() + " at position " + e.position, e.position,
+                        warnings, fields, Collections.emptySet());
+            }
+        }
+
+        /**
+         * or := and (('OR' | '||') and)*
+         */
+        private Set<String> parseOr(boolean group) {
+            Set<String> required = parseAnd(group);
+            while (matchOperator("OR") || matchOperator("||")) {
+                // only fields required by all alternatives are required
+                required.retainAll(parseAnd(group));
+            }
+            return required;
+        }
+
+        /**
+         * and := clause (('AND' | '&&')? clause)*
+         * <p>
+         * The Imixs search service uses AND as the default operator.
+         */
+        private Set<String> parseAnd(boolean group) {
+            Set<String> required = new HashSet<>();
+            boolean positive = false;
+            int start = pos;
+            do {
+                skipWhitespace();
+                if (pos >= text.length() || peek(')') || isOperatorAhead("OR") || isOperatorAhead("||")) {
+                    throw new SyntaxException("Missing term", pos);
+                }
+                boolean negated = false;
+                if (matchOperator("NOT") || matchOperator("!") || match('-')) {
+                    negated = true;
+                } else {
+                    match('+');
+                }
+                Set<String> clause = parseClause();
+                if (!negated) {
+                    positive = true;
+                    required.addAll(clause);
+                }
+                skipWhitespace();
+                if (matchOperator("AND") || matchOperator("&&")) {
+                    continue;
+                }
+                if (pos >= text.length() || peek(')') || isOperatorAhead("OR") || isOperatorAhead("||")) {
+                    break;
+                }
+            } while (true);
+            if (!positive) {
+                warnings.add("The clause '" + text.substring(start, pos).trim()
+                        + "' only excludes workitems and matches nothing");
+            }
+            return required;
+        }
+
+        /**
+         * clause := '(' or ')' | [field ':'] (term | phrase | range | '(' or ')')
+         */
+        private Set<String> parseClause() {
+            skipWhitespace();
+            if (match('(')) {
+                Set<String> required = parseOr(true);
+                expect(')');
+                parseModifiers();
+                return required;
+            }
+            int start = pos;
+            String field = null;
+            String value;
+            if (peek('"') || peek('[') || peek('{')) {
+                value = parseValue();
+            } else {
+                value = readTerm();
+                if (match(':')) {
+                    field = value;
+                    if (field.isEmpty()) {
+                        throw new SyntaxException("Missing field name", start);
+                    }
+                    fields.add(field);
+                    if (peek('(')) {
+                        pos++;
+                        parseOr(true);
+                        expect(')');
+                        parseModifiers();
+                        // the field is required by every alternative of the group
+                        return new HashSet<>(Set.of(field));
+                    }
+                    value = parseValue();
+                } else if (value.isEmpty()) {
+                    throw new SyntaxException("Unexpected '" + text.charAt(pos) + "'", pos);
+                }
+            }
+            parseModifiers();
+            if ("*".equals(field) && "*".equals(value)) {
+                warnings.add("The query '*:*' matches all documents of the index");
+                return new HashSet<>();
+            }
+            if (value.startsWith("*") || value.startsWith("?")) {
+                warnings.add("The leading wildcard in '" + text.substring(start, pos).trim()
+                        + "' forces a full scan of the index");
+            }
+            Set<String> required = new HashSet<>();
+            if (field != null && !"*".equals(value)) {
+                required.add(field);
+            }
+            return required;
+        }
+
+        /**
+         * value := phrase | range | term
+         */
+        private String parseValue() {
+            if (match('"')) {
+                int start = pos - 1;
+                StringBuilder value = new StringBuilder();
+                while (pos < text.length() && text.charAt(pos) != '"') {
+                    if (text.charAt(pos) == '\\') {
+                        pos++;
+                    }
+                    if (pos < text.length()) {
+                        value.append(text.charAt(pos++));
+                    }
+                }
+                if (pos >= text.length()) {
+                    throw new SyntaxException("Unterminated phrase", start);
+                }
+                pos++;
+                return value.toString();
+            }
+            if (peek('[') || peek('{')) {
+                int start = pos++;
+                skipWhitespace();
+                String lower = peek('"') ? parseValue() : readTerm();
+                skipWhitespace();
+                if (!text.startsWith("TO", pos)) {
+                    throw new SyntaxException("Missing 'TO' in range", pos);
+                }
+                pos += 2;
+                skipWhitespace();
+                String upper = peek('"') ? parseValue() : readTerm();
+                skipWhitespace();
+                if (lower.isEmpty() || upper.isEmpty()) {
+                    throw new SyntaxException("Missing range bound", start);
+                }
+                if (!match(']') && !match('}')) {
+                    throw new SyntaxException("Unterminated range", start);
+                }
+                return lower + " TO " + upper;
+            }
+            String value = readTerm();
+            if (value.isEmpty()) {
+                throw new SyntaxException("Missing value", pos);
+            }
+            return value;
+        }
+
+        /**
+         * Parses the optional fuzzy (~n) and boost (^n) modifiers
+         */
+        private void parseModifiers() {
+            while (peek('~') || peek('^')) {
+                char modifier = text.charAt(pos++);
+                int start = pos;
+                while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                    pos++;
+                }
+                if (modifier == '^' && start == pos) {
+                    throw new SyntaxException("Missing boost value", start);
+                }
+            }
+        }
+
+        /**
+         * Reads a term up to the next whitespace or special character. Escaped
+         * characters are part of the term.
+         */
+        private String readTerm() {
+            StringBuilder term = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '\\') {
+                    if (pos + 1 >= text.length()) {
+                        throw new SyntaxException("Incomplete escape sequence", pos);
+                    }
+                    term.append(text.charAt(pos + 1));
+                    pos += 2;
+                    continue;
+                }
+                if (Character.isWhitespace(c) || "()[]{}\":^~".indexOf(c) >= 0) {
+                    break;
+                }
+                term.append(c);
+                pos++;
+            }
+            return term.toString();
+        }
+
+        private void expect(char c) {
+            skipWhitespace();
+            if (!match(c)) {
+                throw new SyntaxException("Missing '" + c + "'", pos);
+            }
+        }
+
+        private boolean peek(char c) {
+            return pos < text.length() && text.charAt(pos) == c;
+        }
+
+        private boolean match(char c) {
+            if (peek(c)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Returns true if the operator follows at the current position as a whole
+         * word
+         */
+        private boolean isOperatorAhead(String operator) {
+            if (!text.startsWith(operator, pos)) {
+                return false;
+            }
+            int end = pos + operator.length();
+            return !Character.isLetter(operator.charAt(0)) || end >= text.length()
+                    || Character.isWhitespace(text.charAt(end)) || text.charAt(end) == '(';
+        }
+
+        private boolean matchOperator(String operator) {
+            skipWhitespace();
+            if (isOperatorAhead(operator)) {
+                pos += operator.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+
+    private static class SyntaxException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int position;
+
+        SyntaxException(String message, int position) {
+            super(message);
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.scheduler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * The ImixsWorkdayCalendar computes due dates of scheduled Imixs events. The
+ * calendar knows the weekend days and a set of holidays. For each year a
+ * BitSet of the working days, the number of working days before each day and
+ * the index of all working days are precomputed on first access. Only the
+ * years around the current year are cached.
+ * <p>
+ * Adding or subtracting workdays counts the working days of each year crossed
+ * in constant time without building the year. The Gregorian calendar repeats
+ * every 400 years, so spans of 400 years without holidays are skipped in one
+ * step. Also a delay of millions of workdays is computed in microseconds. A
+ * date beyond the supported range of LocalDate throws a DateTimeException.
+ * <p>
+ * The delay units correspond to the item 'keyactivitydelayunit' of an Imixs
+ * event: 1 = minutes, 2 = hours, 3 = days, 4 = workdays. Like the Imixs
+ * scheduler, a workday delay starting on a non working day starts from the
+ * next working day. The time of day is kept.
+ * <p>
+ * Holidays can be loaded from a local file with one ISO date (yyyy-MM-dd) per
+ * line, followed by an optional name. Lines starting with '#' are ignored. The
+ * default calendar loads the file defined by the system property
+ * 'imixs.calendar.holidays'.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsWorkdayCalendar {
+    private static Logger logger = Logger.getLogger(ImixsWorkdayCalendar.class.getName());
+
+    public static final String PROPERTY_HOLIDAYS = "imixs.calendar.holidays";
+
+    public static final int UNIT_MINUTES = 1;
+    public static final int UNIT_HOURS = 2;
+    public static final int UNIT_DAYS = 3;
+    public static final int UNIT_WORKDAYS = 4;
+
+    // number of years searched for the next working day
+    private static final int MAX_YEAR_SCAN = 10;
+    // years before and after the current year cached
+    private static final int CACHED_YEARS = 100;
+    // the Gregorian calendar repeats every 400 years (20871 weeks)
+    private static final int CYCLE_YEARS = 400;
+    private static final long CYCLE_WEEKS = 20871;
+
+    private static volatile ImixsWorkdayCalendar defaultCalendar = null;
+
+    private final Set<DayOfWeek> weekend;
+    private final Set<LocalDate> holidays;
+    // year -> number of holidays on working days
+    private final NavigableMap<Integer, Integer> holidaysByYear = new TreeMap<>();
+    private final int workdaysPerWeek;
+    private final int currentYear = LocalDate.now().getYear();
+    private final Map<Integer, YearIndex> years = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a calendar with Saturday and Sunday as weekend and no holidays
+     */
+    public ImixsWorkdayCalendar() {
+        this(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY), new HashSet<>());
+    }
+
+    /**
+     * Creates a calendar with the given weekend days and holidays
+     */
+    public ImixsWorkdayCalendar(Set<DayOfWeek> weekend, Collection<LocalDate> holidays) {
+        if (weekend.size() >= 7) {
+            throw new IllegalArgumentException("A calendar needs at least one working day per week");
+        }
+        this.weekend = EnumSet.noneOf(DayOfWeek.class);
+        this.weekend.addAll(weekend);
+        this.holidays = new HashSet<>(holidays);
+        this.workdaysPerWeek = 7 - this.weekend.size();
+        for (LocalDate holiday : this.holidays) {
+            if (!this.weekend.contains(holiday.getDayOfWeek())) {
+                holidaysByYear.merge(holiday.getYear(), 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Creates a calendar with Saturday and Sunday as weekend and the holidays
+     * defined in the given file
+     */
+    public static ImixsWorkdayCalendar load(Path holidayFile) throws IOException {
+        return new ImixsWorkdayCalendar(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY),
+                readHolidays(holidayFile));
+    }
+
+    /**
+     * Returns the default calendar. If the system property
+     * 'imixs.calendar.holidays' is set, the holidays are loaded from this file.
+     */
+    public static ImixsWorkdayCalendar getDefault() {
+        if (defaultCalendar == null) {
+            synchronized (ImixsWorkdayCalendar.class) {
+                if (defaultCalendar == null) {
+                    ImixsWorkdayCalendar calendar = new ImixsWorkdayCalendar();
+                    String holidayFile = System.getProperty(PROPERTY_HOLIDAYS);
+                    if (holidayFile != null && !holidayFile.isEmpty()) {
+                        try {
+                            calendar = load(Paths.get(holidayFile));
+                            logger.info("├── workday calendar loaded " + calendar.holidays.size()
+                                    + " holidays from " + holidayFile);
+                        } catch (IOException e) {
+                            logger.warning("Failed to load holidays from '" + holidayFile + "': " + e.getMessage());
+                        }
+                    }
+                    defaultCalendar = calendar;
+                }
+            }
+        }
+        return defaultCalendar;
+    }
+
+    /**
+     * Reads a holiday file. Invalid lines are logged and skipped.
+     */
+    public static Set<LocalDate> readHolidays(Path holidayFile) throws IOException {
+        Set<LocalDate> result = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(holidayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String date = line.split("\\s+", 2)[0];
+                try {
+                    result.add(LocalDate.parse(date));
+                } catch (DateTimeParseException e) {
+                    logger.warning("Invalid holiday '" + line + "' in " + holidayFile);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the given date is neither a weekend day nor a holiday
+     */
+    public boolean isWorkday(LocalDate date) {
+        return getYear(date.getYear()).workdays.get(date.getDayOfYear() - 1);
+    }
+
+    /**
+     * Returns the given date if it is a working day, otherwise the next working
+     * day
+     */
+    public LocalDate nextWorkday(LocalDate date) {
+        YearIndex year = getYear(date.getYear());
+        int day = year.workdays.nextSetBit(date.getDayOfYear() - 1);
+        for (int i = 0; day < 0 || day >= year.days; i++) {
+            if (i == MAX_YEAR_SCAN) {
+                throw new IllegalStateException("No working day found after " + date);
+            }
+            year = getYear(year.year + 1);
+            day = year.workdays.nextSetBit(0);
+        }
+        return LocalDate.ofYearDay(year.year, day + 1);
+    }
+
+    /**
+     * Returns the given date if it is a working day, otherwise the previous
+     * working day
+     */
+    public LocalDate previousWorkday(LocalDate date) {
+        YearIndex year = getYear(date.getYear());
+        int day = year.workdays.previousSetBit(date.getDayOfYear() - 1);
+        for (int i = 0; day < 0; i++) {
+            if (i == MAX_YEAR_SCAN) {
+                throw new IllegalStateException("No working day found before " + date);
+            }
+            year = getYear(year.year - 1);
+            day = year.workdays.previousSetBit(year.days - 1);
+        }
+        return LocalDate.ofYearDay(year.year, day + 1);
+    }
+
+    /**
+     * Adds the given number of workdays to a date. A negative number subtracts
+     * workdays. If the date is not a working day, the computation starts from the
+     * next (or for a negative number the previous) working day.
+     */
+    public LocalDate addWorkdays(LocalDate date, long workdays) {
+        LocalDate start = workdays >= 0 ? nextWorkday(date) : previousWorkday(date);
+        int startYear = start.getYear();
+        // rank of the target working day within the year
+        long rank = Math.addExact(getYear(startYear).prefix[start.getDayOfYear() - 1], workdays);
+        long year = startYear;
+        long total;
+        while (rank >= (total = countWorkdays(year))) {
+            rank -= total;
+            year++;
+            long cycles = Math.min(rank / getCycleWorkdays(), getFreeCycles(year, true));
+            rank -= cycles * getCycleWorkdays();
+            year += cycles * CYCLE_YEARS;
+        }
+        while (rank < 0) {
+            long cycles = Math.min(-rank / getCycleWorkdays(), getFreeCycles(year - 1, false));
+            rank += cycles * getCycleWorkdays();
+            year -= cycles * CYCLE_YEARS;
+            if (rank < 0) {
+                year--;
+                rank += countWorkdays(year);
+            }
+        }
+        YearIndex target = getYear(checkYear(year));
+        return LocalDate.ofYearDay(target.year, target.index[(int) rank] + 1);
+    }
+
+    /**
+     * Adds the given number of workdays to a date and time. The time of day is
+     * kept.
+     */
+    public LocalDateTime addWorkdays(LocalDateTime dateTime, long workdays) {
+        return addWorkdays(dateTime.toLocalDate(), workdays).atTime(dateTime.toLocalTime());
+    }
+
+    /**
+     * Returns the number of working days in the range [from, to)
+     */
+    public long countWorkdays(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return -countWorkdays(to, from);
+        }
+        long count = 0;
+        long year = from.getYear();
+        while (year < to.getYear()) {
+            long cycles = Math.min((to.getYear() - year) / CYCLE_YEARS, getFreeCycles(year, true));
+            if (cycles > 0) {
+                count += cycles * getCycleWorkdays();
+                year += cycles * CYCLE_YEARS;
+            } else {
+                count += countWorkdays(year);
+                year++;
+            }
+        }
+        return count + getYear(to.getYear()).prefix[to.getDayOfYear() - 1]
+                - getYear(from.getYear()).prefix[from.getDayOfYear() - 1];
+    }
+
+    /**
+     * Computes the due date of a scheduled event.
+     * 
+     * @param base  - the time base, e.g. the last event date
+     * @param delay - the delay (numactivitydelay), may be negative
+     * @param unit  - the Imixs delay unit (keyactivitydelayunit)
+     * @return the due date
+     */
+    public LocalDateTime getDueDate(LocalDateTime base, long delay, int unit) {
+        switch (unit) {
+        case UNIT_MINUTES:
+            return base.plusMinutes(delay);
+        case UNIT_HOURS:
+            return base.plusHours(delay);
+        case UNIT_DAYS:
+            return base.plusDays(delay);
+        case UNIT_WORKDAYS:
+            return addWorkdays(base, delay);
+        default:
+            throw new IllegalArgumentException("Unknown delay unit: " + unit);
+        }
+    }
+
+    /**
+     * Returns the number of working days of a year without building the year
+     */
+    private long countWorkdays(long year) {
+        YearIndex cached = years.get((int) year);
+        if (cached != null && cached.year == year) {
+            return cached.total;
+        }
+        LocalDate first = LocalDate.of(checkYear(year), 1, 1);
+        int days = first.lengthOfYear();
+        long count = (days / 7) * workdaysPerWeek;
+        for (int i = 0; i < days % 7; i++) {
+            if (!weekend.contains(first.getDayOfWeek().plus(i))) {
+                count++;
+            }
+        }
+        return count - holidaysByYear.getOrDefault((int) year, 0);
+    }
+
+    /**
+     * Returns the number of working days of 400 years without holidays
+     */
+    private long getCycleWorkdays() {
+        return CYCLE_WEEKS * workdaysPerWeek;
+    }
+
+    /**
+     * Returns the number of 400 year cycles without holidays starting at the
+     * given year, forward or backward
+     */
+    private long getFreeCycles(long year, boolean forward) {
+        Integer holidayYear = forward ? holidaysByYear.ceilingKey(checkYear(year))
+                : holidaysByYear.floorKey(checkYear(year));
+        if (holidayYear == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.abs(holidayYear - year) / CYCLE_YEARS;
+    }
+
+    private static int checkYear(long year) {
+        if (year < Year.MIN_VALUE || year > Year.MAX_VALUE) {
+            throw new DateTimeException("Year out of range: " + year);
+        }
+        return (int) year;
+    }
+
+    private YearIndex getYear(int year) {
+        if (Math.abs((long) year - currentYear) > CACHED_YEARS) {
+            // far years are not cached
+            return buildYear(year);
+        }
+        return years.computeIfAbsent(year, this::buildYear);
+    }
+
+    private YearIndex buildYear(int year) {
+        LocalDate date = LocalDate.of(year, 1, 1);
+        int days = date.lengthOfYear();
+        BitSet workdays = new BitSet(days);
+        for (int i = 0; i < days; i++, date = date.plusDays(1)) {
+            if (!weekend.contains(date.getDayOfWeek()) && !holidays.contains(date)) {
+                workdays.set(i);
+            }
+        }
+        return new YearIndex(year, days, workdays);
+    }
+
+    /**
+     * The precomputed working days of a year
+     */
+    private static class YearIndex {
+        private final int year;
+        private final int days;
+        private final BitSet workdays;
+        // number of working days before each day of the year
+        private final int[] prefix;
+        // day of year (0-based) of each working day
+        private final int[] index;
+        private final int total;
+
+        YearIndex(int year, int days, BitSet workdays) {
+            this.year = year;
+            this.days = days;
+            this.workdays = workdays;
+            this.total = workdays.cardinality();
+            this.prefix = new int[days + 1];
+            this.index = new int[total];
+            int count = 0;
+            for (int i = 0; i < days; i++) {
+                prefix[i] = count;
+                if (workdays.get(i)) {
+                    index[count++] = i;
+                }
+            }
+            prefix[days] = count;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.openbpmn.bpmn.elements.Event;
 import org.openbpmn.bpmn.elements.SequenceFlow;
 import org.openbpmn.bpmn.elements.core.BPMNElementNode;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 public class ImixsBPMNUtil {
 
@@ -112,4 +113,18 @@ public class ImixsBPMNUtil {
         }
         return collector;
     }
+
+    /**
+     * Returns true if the given element node is no longer part of its document,
+     * e.g. because the element was deleted from the model.
+     * 
+     * @param elementNode
+     */
+    public static boolean isRemoved(Element elementNode) {
+        Node node = elementNode;
+        while (node.getParentNode() != null) {
+            node = node.getParentNode();
+        }
+        return node.getNodeType() != Node.DOCUMENT_NODE;
+    }
 }
@@ -0,0 +1,405 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.SequenceFlow;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+import org.w3c.dom.Element;
+
+/**
+ * The ImixsIdAllocator computes unique Imixs task and event IDs for new BPMN
+ * elements.
+ * <p>
+ * The allocator holds a sorted index of all task IDs per process and a sorted
+ * index of all event IDs per task. The next free ID is the highest ID of the
+ * index plus the step size (100 for tasks and 10 for events). The indexes are
+ * built lazily on first access and must be updated by the extensions on each ID
+ * change. IDs of deleted elements are removed lazily: only if the highest ID of
+ * an index belongs to a deleted element it is removed before a new ID is
+ * allocated. So an allocation never scans the whole index.
+ * <p>
+ * An event belongs to all Imixs tasks connected by its incoming sequence flows,
+ * also across preceding events. A new event is usually created before it is
+ * connected to a task. In this case the event gets the default event ID. The
+ * final ID is allocated by {@link #confirmEventId(BPMNElementNode)} with the
+ * next property update of the connected event, so the change is part of a GLSP
+ * operation. The validator and the property forms never change an ID.
+ * <p>
+ * There is one allocator per model instance. The allocator holds the model
+ * only by a weak reference, so it is released together with the model. The
+ * allocator can be invalidated after structural changes (e.g. on load or save)
+ * and is rebuilt on next access.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsIdAllocator {
+    private static Logger logger = Logger.getLogger(ImixsIdAllocator.class.getName());
+
+    public static final int DEFAULT_TASK_ID = 100;
+    public static final int TASK_ID_STEP = 100;
+    public static final int DEFAULT_EVENT_ID = 10;
+    public static final int EVENT_ID_STEP = 10;
+
+    private static final Map<BPMNModel, ImixsIdAllocator> allocators = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private final WeakReference<BPMNModel> modelRef;
+    // processId -> taskId -> element ids of the tasks with this id
+    private Map<String, TreeMap<Integer, Set<String>>> taskIndex = null;
+    // task element id -> eventId -> element ids of the events with this id
+    private Map<String, TreeMap<Integer, Set<String>>> eventIndex = null;
+    // element id -> indexed id value
+    private final Map<String, Entry> indexedIds = new HashMap<>();
+    // events with a default id, created before they were connected to a task
+    private final Map<String, Element> unconnectedEvents = new HashMap<>();
+
+    private ImixsIdAllocator(BPMNModel model) {
+        this.modelRef = new WeakReference<>(model);
+    }
+
+    /**
+     * Returns the allocator for the given model
+     */
+    public static ImixsIdAllocator getInstance(BPMNModel model) {
+        return allocators.computeIfAbsent(model, ImixsIdAllocator::new);
+    }
+
+    /**
+     * Removes the indexes. The indexes are rebuilt on next access.
+     */
+    public synchronized void invalidate() {
+        taskIndex = null;
+        eventIndex = null;
+        indexedIds.clear();
+        unconnectedEvents.values().removeIf(ImixsBPMNUtil::isRemoved);
+    }
+
+    /**
+     * Returns the next free task ID within the process of the given task element.
+     * The ID is added to the index.
+     */
+    public synchronized int nextTaskId(BPMNElementNode task) {
+        buildIndex();
+        remove(indexedIds.remove(task.getId()));
+        Integer lastId = getLastId(taskIndex.get(task.getProcessId()));
+        int id = lastId == null ? DEFAULT_TASK_ID : lastId + TASK_ID_STEP;
+        add(task, id, taskIndex, Collections.singletonList(task.getProcessId()));
+        return id;
+    }
+
+    /**
+     * Returns the next free event ID for all tasks connected with the given event
+     * element. If the event is not yet connected to a task, the default event ID
+     * is returned and the event is remembered until it is confirmed. Otherwise the
+     * ID is added to the index.
+     */
+    public synchronized int nextEventId(BPMNElementNode event) {
+        buildIndex();
+        remove(indexedIds.remove(event.getId()));
+        Set<BPMNElementNode> tasks = findSourceTasks(event);
+        if (tasks.isEmpty()) {
+            unconnectedEvents.put(event.getId(), event.getElementNode());
+            return DEFAULT_EVENT_ID;
+        }
+        unconnectedEvents.remove(event.getId());
+        int id = getNextEventId(tasks);
+        List<String> taskIds = new ArrayList<>();
+        for (BPMNElementNode task : tasks) {
+            taskIds.add(task.getId());
+        }
+        add(event, id, eventIndex, taskIds);
+        return id;
+    }
+
+    /**
+     * Returns the event ID which will be allocated by
+     * {@link #confirmEventId(BPMNElementNode)} for an event connected after its
+     * creation, or null if the event has a final ID or is not yet connected. The
+     * ID is not added to the index.
+     */
+    public synchronized Integer getProposedEventId(BPMNElementNode event) {
+        if (!unconnectedEvents.containsKey(event.getId())) {
+            return null;
+        }
+        Set<BPMNElementNode> tasks = findSourceTasks(event);
+        if (tasks.isEmpty()) {
+            return null;
+        }
+        buildIndex();
+        return getNextEventId(tasks);
+    }
+
+    /**
+     * Allocates the final event ID for an event which got the default event ID
+     * because it was not connected to a task when it was created. If the event is
+     * now connected, the new ID is set as the 'activityid' of the event and
+     * returned. Otherwise the method returns null.
+     * <p>
+     * The method changes the model. It is called by the event extension on a
+     * property update, which is executed as a GLSP operation.
+     */
+    public Integer confirmEventId(BPMNElementNode event) {
+        int id;
+        synchronized (this) {
+            if (!unconnectedEvents.containsKey(event.getId()) || findSourceTasks(event).isEmpty()) {
+                return null;
+            }
+            id = nextEventId(event);
+        }
+        // notify the listeners outside of the lock
+        ImixsExtensionUtil.setExtensionAttribute(event, "activityid", "" + id);
+        return id;
+    }
+
+    /**
+     * Updates the index after the ID of a task element was changed
+     */
+    public synchronized void updateTaskId(BPMNElementNode task, String newId) {
+        if (taskIndex == null) {
+            // not yet built
+            return;
+        }
+        remove(indexedIds.remove(task.getId()));
+        Integer id = parseId(newId);
+        if (id != null) {
+            add(task, id, taskIndex, Collections.singletonList(task.getProcessId()));
+        }
+    }
+
+    /**
+     * Updates the index after the ID of an event element was changed
+     */
+    public synchronized void updateEventId(BPMNElementNode event, String newId) {
+        // an ID set by the user is final
+        unconnectedEvents.remove(event.getId());
+        if (eventIndex == null) {
+            // not yet built
+            return;
+        }
+        remove(indexedIds.remove(event.getId()));
+        Integer id = parseId(newId);
+        if (id != null) {
+            List<String> taskIds = new ArrayList<>();
+            for (BPMNElementNode task : findSourceTasks(event)) {
+                taskIds.add(task.getId());
+            }
+            add(event, id, eventIndex, taskIds);
+        }
+    }
+
+    /**
+     * Builds the task and event indexes if not yet done
+     */
+    private void buildIndex() {
+        if (taskIndex != null) {
+            return;
+        }
+        long l = System.currentTimeMillis();
+        taskIndex = new HashMap<>();
+        eventIndex = new HashMap<>();
+        BPMNModel model = modelRef.get();
+        if (model == null) {
+            return;
+        }
+        for (BPMNElementNode task : model.findAllActivities()) {
+            if (ImixsBPMNUtil.isImixsTaskElement(task)) {
+                Integer id = parseId(task.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "processid"));
+                if (id != null) {
+                    add(task, id, taskIndex, Collections.singletonList(task.getProcessId()));
+                }
+            }
+        }
+        for (BPMNElementNode event : model.findAllEvents()) {
+            if (ImixsBPMNUtil.isImixsEventElement(event)) {
+                Integer id = parseId(event.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "activityid"));
+                if (id != null) {
+                    List<String> taskIds = new ArrayList<>();
+                    for (BPMNElementNode task : findSourceTasks(event)) {
+                        taskIds.add(task.getId());
+                    }
+                    add(event, id, eventIndex, taskIds);
+                }
+            }
+        }
+        logger.fine("├── ID index built in " + (System.currentTimeMillis() - l) + "ms");
+    }
+
+    /**
+     * Returns the highest event ID of the given tasks plus the step size
+     */
+    private int getNextEventId(Set<BPMNElementNode> tasks) {
+        int id = DEFAULT_EVENT_ID;
+        for (BPMNElementNode task : tasks) {
+            Integer lastId = getLastId(eventIndex.get(task.getId()));
+            if (lastId != null) {
+                id = Math.max(id, lastId + EVENT_ID_STEP);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the highest ID of an index or null if the index is empty. If the
+     * highest ID only belongs to deleted elements, these elements are removed
+     * and the next lower ID is checked.
+     */
+    private Integer getLastId(TreeMap<Integer, Set<String>> ids) {
+        while (ids != null && !ids.isEmpty()) {
+            Map.Entry<Integer, Set<String>> last = ids.lastEntry();
+            for (String elementId : new ArrayList<>(last.getValue())) {
+                Entry entry = indexedIds.get(elementId);
+                if (entry == null || ImixsBPMNUtil.isRemoved(entry.elementNode)) {
+                    removeDeletedElement(elementId, entry);
+                    last.getValue().remove(elementId);
+                }
+            }
+            if (!last.getValue().isEmpty()) {
+                return last.getKey();
+            }
+            ids.remove(last.getKey());
+        }
+        return null;
+    }
+
+    /**
+     * Removes the ID of a deleted element from the indexes
+     */
+    private void removeDeletedElement(String elementId, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        indexedIds.remove(elementId);
+        remove(entry);
+        if (entry.index == taskIndex) {
+            // the events of a deleted task
+            eventIndex.remove(elementId);
+        }
+    }
+
+    /**
+     * Returns all Imixs tasks connected with the given event by incoming sequence
+     * flows. Preceding Imixs events are followed.
+     */
+    static Set<BPMNElementNode> findSourceTasks(BPMNElementNode event) {
+        Set<BPMNElementNode> result = new LinkedHashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<BPMNElementNode> stack = new ArrayDeque<>();
+        stack.push(event);
+        while (!stack.isEmpty()) {
+            BPMNElementNode node = stack.pop();
+            if (!visited.add(node.getId())) {
+                continue;
+            }
+            Set<SequenceFlow> flows = node.getIngoingSequenceFlows();
+            if (flows == null) {
+                continue;
+            }
+            for (SequenceFlow flow : flows) {
+                BPMNElementNode source = flow.getSourceElement();
+                if (source == null) {
+                    continue;
+                }
+                if (ImixsBPMNUtil.isImixsTaskElement(source)) {
+                    result.add(source);
+                } else if (ImixsBPMNUtil.isImixsEventElement(source)) {
+                    stack.push(source);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the ID of an element to the given index for each key (process or task
+     * id)
+     */
+    private void add(BPMNElementNode element, Integer id, Map<String, TreeMap<Integer, Set<String>>> index,
+            Collection<String> keys) {
+        for (String key : keys) {
+            index.computeIfAbsent(key, k -> new TreeMap<>()).computeIfAbsent(id, k -> new HashSet<>())
+                    .add(element.getId());
+        }
+        indexedIds.put(element.getId(), new Entry(element.getId(), element.getElementNode(), id, index, keys));
+    }
+
+    /**
+     * Removes an indexed ID with the keys it was added with
+     */
+    private static void remove(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        for (String key : entry.keys) {
+            TreeMap<Integer, Set<String>> ids = entry.index.get(key);
+            if (ids != null) {
+                ids.computeIfPresent(entry.id, (k, elementIds) -> {
+                    elementIds.remove(entry.elementId);
+                    return elementIds.isEmpty() ? null : elementIds;
+                });
+            }
+        }
+    }
+
+    private static Integer parseId(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * An indexed ID of an element
+     */
+    private static class Entry {
+        private final String elementId;
+        private final Element elementNode;
+        private final Integer id;
+        private final Map<String, TreeMap<Integer, Set<String>>> index;
+        private final Collection<String> keys;
+
+        Entry(String elementId, Element elementNode, Integer id, Map<String, TreeMap<Integer, Set<String>>> index,
+                Collection<String> keys) {
+            this.elementId = elementId;
+            this.elementNode = elementNode;
+            this.id = id;
+            this.index = index;
+            this.keys = keys;
+        }
+    }
+}
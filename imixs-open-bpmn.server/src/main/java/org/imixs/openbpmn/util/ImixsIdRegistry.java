@@ -0,0 +1,225 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.extensions.ImixsItemChangeListener;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * The ImixsIdRegistry is a model wide registry of all Imixs task IDs. The
+ * Imixs-Workflow engine resolves a task ID across all processes (pools) of a
+ * model version, so a task ID must be unique within the whole model.
+ * <p>
+ * The registry maps each task ID to the elements using this ID and each
+ * element to its process. Collisions can be checked in O(1) for each task. The
+ * registry is built with one pass over the model on load and save (see
+ * {@link #reconcile()}). In between it is updated incrementally by the
+ * {@link ImixsItemChangeListener} on each processid change and by the task
+ * extension for new tasks. Deleted elements are removed on the next collision
+ * check.
+ * <p>
+ * There is one registry per model instance. The registry holds the model only
+ * by a weak reference, so it is released together with the model.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsIdRegistry {
+
+    private static final Map<BPMNModel, ImixsIdRegistry> registries = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private static final ImixsItemChangeListener LISTENER = new ImixsItemChangeListener() {
+        @Override
+        public void itemChanged(BPMNModel model, Element elementNode, String itemName, String type,
+                List<String> values) {
+            // task ids are attributes
+        }
+
+        @Override
+        public void attributeChanged(BPMNModel model, Element elementNode, String name, String value) {
+            ImixsIdRegistry registry = registries.get(model);
+            if (registry != null && "processid".equals(name)) {
+                registry.attributeChanged(elementNode, value);
+            }
+        }
+    };
+
+    static {
+        ImixsExtensionUtil.addItemChangeListener(LISTENER);
+    }
+
+    private final WeakReference<BPMNModel> modelRef;
+    // task id -> element ids
+    private final Map<String, Set<String>> elementsByTaskId = new HashMap<>();
+    // element id -> task id
+    private final Map<String, String> taskIdByElement = new HashMap<>();
+    // element id -> process id
+    private final Map<String, String> processByElement = new HashMap<>();
+    // element id -> element node
+    private final Map<String, Element> nodeByElement = new HashMap<>();
+    private boolean initialized = false;
+
+    private ImixsIdRegistry(BPMNModel model) {
+        this.modelRef = new WeakReference<>(model);
+    }
+
+    /**
+     * Returns the registry for the given model
+     */
+    public static ImixsIdRegistry getInstance(BPMNModel model) {
+        return registries.computeIfAbsent(model, ImixsIdRegistry::new);
+    }
+
+    /**
+     * Registers the task ID of a task element. A previous ID of the element is
+     * removed.
+     */
+    public synchronized void updateTaskId(BPMNElementNode task, String taskId) {
+        if (!initialized) {
+            // the registry is built on first access
+            return;
+        }
+        if (!Objects.equals(taskId, taskIdByElement.get(task.getId()))) {
+            register(task.getElementNode(), task.getProcessId(), taskId);
+        }
+    }
+
+    private synchronized void attributeChanged(Element elementNode, String taskId) {
+        if (initialized && !Objects.equals(taskId, taskIdByElement.get(elementNode.getAttribute("id")))) {
+            register(elementNode, getProcessId(elementNode), taskId);
+        }
+    }
+
+    /**
+     * Synchronizes the registry with the current task elements of the model. New
+     * and changed tasks are registered, deleted tasks are removed. The method is
+     * called on load and save.
+     */
+    public synchronized void reconcile() {
+        BPMNModel model = modelRef.get();
+        if (model == null) {
+            return;
+        }
+        Set<String> liveElements = new HashSet<>();
+        for (BPMNElementNode task : model.findAllActivities()) {
+            if (ImixsBPMNUtil.isImixsTaskElement(task)) {
+                String taskId = task.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "processid");
+                liveElements.add(task.getId());
+                if (!initialized || !Objects.equals(taskId, taskIdByElement.get(task.getId()))
+                        || !Objects.equals(task.getProcessId(), processByElement.get(task.getId()))) {
+                    register(task.getElementNode(), task.getProcessId(), taskId);
+                }
+            }
+        }
+        for (String elementId : new HashSet<>(taskIdByElement.keySet())) {
+            if (!liveElements.contains(elementId)) {
+                unregister(elementId);
+            }
+        }
+        initialized = true;
+    }
+
+    /**
+     * Returns the ids of all processes other than the given process containing a
+     * task with the given task ID.
+     */
+    public synchronized Set<String> findOtherProcesses(String taskId, String processId) {
+        if (!initialized) {
+            reconcile();
+        }
+        Set<String> elements = elementsByTaskId.get(taskId);
+        if (elements == null || elements.size() < 2) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        Iterator<String> iterator = elements.iterator();
+        while (iterator.hasNext()) {
+            String elementId = iterator.next();
+            if (ImixsBPMNUtil.isRemoved(nodeByElement.get(elementId))) {
+                // the task was deleted
+                iterator.remove();
+                taskIdByElement.remove(elementId);
+                processByElement.remove(elementId);
+                nodeByElement.remove(elementId);
+                continue;
+            }
+            String elementProcess = processByElement.get(elementId);
+            if (elementProcess != null && !elementProcess.equals(processId)) {
+                result.add(elementProcess);
+            }
+        }
+        if (elements.isEmpty()) {
+            elementsByTaskId.remove(taskId);
+        }
+        return result;
+    }
+
+    private void register(Element elementNode, String processId, String taskId) {
+        String elementId = elementNode.getAttribute("id");
+        unregister(elementId);
+        if (taskId == null) {
+            return;
+        }
+        elementsByTaskId.computeIfAbsent(taskId, k -> new HashSet<>()).add(elementId);
+        taskIdByElement.put(elementId, taskId);
+        processByElement.put(elementId, processId);
+        nodeByElement.put(elementId, elementNode);
+    }
+
+    private void unregister(String elementId) {
+        String oldTaskId = taskIdByElement.remove(elementId);
+        processByElement.remove(elementId);
+        nodeByElement.remove(elementId);
+        if (oldTaskId != null) {
+            Set<String> elements = elementsByTaskId.get(oldTaskId);
+            if (elements != null) {
+                elements.remove(elementId);
+                if (elements.isEmpty()) {
+                    elementsByTaskId.remove(oldTaskId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the process containing the given element node
+     */
+    private static String getProcessId(Element elementNode) {
+        for (Node node = elementNode.getParentNode(); node != null; node = node.getParentNode()) {
+            if ("process".equals(node.getLocalName())) {
+                return ((Element) node).getAttribute("id");
+            }
+        }
+        return null;
+    }
+}
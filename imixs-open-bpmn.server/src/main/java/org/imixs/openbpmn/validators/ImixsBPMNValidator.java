@@ -16,28 +16,52 @@
 package org.imixs.openbpmn.validators;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 
 import org.eclipse.glsp.graph.GModelElement;
+import org.eclipse.glsp.server.actions.Action;
+import org.eclipse.glsp.server.actions.ActionDispatcher;
 import org.eclipse.glsp.server.features.validation.Marker;
 import org.eclipse.glsp.server.features.validation.MarkersReason;
-import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
-import org.imixs.openbpmn.util.BPMNLinkedFlowIterator;
-import org.imixs.openbpmn.util.ImixsBPMNUtil;
-import org.openbpmn.bpmn.BPMNModel;
-import org.openbpmn.bpmn.elements.Activity;
+import org.eclipse.glsp.server.features.validation.RequestMarkersAction;
+import org.imixs.openbpmn.compiler.ImixsRuleCompiler;
+import org.imixs.openbpmn.compiler.ImixsXSLCompiler;
+import org.imixs.openbpmn.index.ImixsResultIndex;
+import org.imixs.openbpmn.monitoring.ImixsMetrics;
+import org.imixs.openbpmn.monitoring.ImixsValidationEvent;
+import org.imixs.openbpmn.scheduler.ImixsSelectorQuery;
 import org.openbpmn.bpmn.elements.BPMNProcess;
-import org.openbpmn.bpmn.elements.Event;
-import org.openbpmn.bpmn.elements.core.BPMNElementNode;
 import org.openbpmn.bpmn.exceptions.BPMNModelException;
 import org.openbpmn.bpmn.validation.BPMNValidationMarker;
 import org.openbpmn.glsp.validators.BPMNGLSPValidator;
 
+import com.google.inject.Inject;
+
 /**
  * The ImixsBPMNValidator extends the BPMNGLSPValidator to validate the
  * imixs workflow element ids of task and event elements.
+ * <p>
+ * The DOM of the model is not thread-safe. In BATCH mode the validator reads
+ * an {@link ImixsValidationSnapshot} of the Imixs data on the calling GLSP
+ * thread and returns immediately the default BPMN markers. The Imixs checks
+ * (ids, XSL templates, selectors, business rules and workflow results) run on
+ * the snapshot on a background executor controlled by the
+ * {@link ImixsValidationScheduler}, so a burst of requests results in only one
+ * validation of the latest snapshot. The {@link ImixsMarkerPublisher}
+ * validates the processes one by one, reports the progress by the GLSP
+ * progress actions and is cancelled between two processes as soon as a newer
+ * batch validation is requested. The background validation can be disabled
+ * with the system property 'imixs.validation.async=false'.
+ * <p>
+ * To avoid sending the complete marker list on each run, the Imixs markers are
+ * published per process with the reason 'batch:[PROCESS_ID]'. The client
+ * replaces markers per reason, so only the marker sets of processes with added
+ * or removed markers are sent. With the system property
+ * 'imixs.validation.markers=full' the validator falls back to publishing the
+ * complete marker list with the reason 'batch' once at the end of a run.
  *
  * @See BPMNGLSPValidator
  * @see: https://www.eclipse.org/glsp/documentation/validation/
@@ -47,6 +71,22 @@ import org.openbpmn.glsp.validators.BPMNGLSPValidator;
 public class ImixsBPMNValidator extends BPMNGLSPValidator {
     private static Logger logger = Logger.getLogger(ImixsBPMNValidator.class.getName());
 
+    public static final String PROPERTY_ASYNC = "imixs.validation.async";
+    public static final String PROPERTY_MARKERS = "imixs.validation.markers";
+    public static final String PROCESS_REASON_PREFIX = ImixsMarkerPublisher.PROCESS_REASON_PREFIX;
+    // the event items that may contain a XSL template
+    private static final String[] TEMPLATE_ITEMS = { "rtfmailbody", "txtreportname" };
+
+    @Inject
+    protected ActionDispatcher actionDispatcher;
+
+    // coalesces bursts of batch requests
+    private final ImixsValidationScheduler scheduler = new ImixsValidationScheduler();
+    // coalesces the revalidation requests of finished rule compilations
+    private final ImixsValidationScheduler revalidation = new ImixsValidationScheduler();
+    // validates the snapshots and publishes the Imixs markers of the batch runs
+    private final ImixsMarkerPublisher publisher = new ImixsMarkerPublisher(this::dispatch, isDeltaMode());
+
     /**
      * The method validates a model in BATCH mode to find duplicate event or task
      * ids
@@ -54,71 +94,113 @@ public class ImixsBPMNValidator extends BPMNGLSPValidator {
     @Override
     public List<Marker> validate(final List<GModelElement> elements, final String reason) {
         long l = System.currentTimeMillis();
-        List<BPMNValidationMarker> result = new ArrayList<>();
+        long start = System.nanoTime();
+        ImixsValidationEvent event = new ImixsValidationEvent();
+        event.begin();
         List<Marker> markers = super.validate(elements, reason);
 
         if (MarkersReason.BATCH.equals(reason)) {
             logger.fine("├── Imixs Validator doBatch ....");
             try {
-                BPMNModel model = modelState.getBpmnModel();
-                logger.fine("│   ├── validate " + model.getBpmnProcessList().size() + " processes...");
-
-                List<BPMNProcess> processes = model.getBpmnProcessList();
-                for (BPMNProcess _process : processes) {
-                    result.addAll(validateProcess(_process, true));
+                // the model is read on this thread only
+                ImixsValidationSnapshot snapshot = ImixsValidationSnapshot.read(modelState.getBpmnModel());
+                event.processes = snapshot.getProcesses().size();
+                if (isAsync()) {
+                    logger.fine("│   ├── schedule validation of " + event.processes + " processes...");
+                    requestBatchValidation(snapshot, markers);
+                } else {
+                    logger.fine("│   ├── validate " + event.processes + " processes...");
+                    for (ImixsValidationSnapshot.ProcessData _process : snapshot.getProcesses().values()) {
+                        markers.addAll(this.convertBPMNValidationMarkers(validateProcess(_process)));
+                    }
                 }
             } catch (BPMNModelException e) {
                 logger.warning("Failed to validate : " + e.getMessage());
             }
-            markers.addAll(this.convertBPMNValidationMarkers(result));
             logger.info("├── Finished Imixs batch validation in " + (System.currentTimeMillis() - l) + "ms...");
         }
 
+        ImixsMetrics.getInstance().record(ImixsBPMNValidator.class.getSimpleName(), "validate_" + reason,
+                System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.reason = reason;
+            event.elements = elements != null ? elements.size() : 0;
+            event.markers = markers.size();
+            event.commit();
+        }
         return markers;
     }
 
+    /**
+     * Schedules the background validation of a snapshot. A pending request is
+     * replaced and a running validation is cancelled, so only the latest snapshot
+     * is validated.
+     */
+    void requestBatchValidation(ImixsValidationSnapshot snapshot, List<Marker> defaultMarkers) {
+        long runId = publisher.nextRun();
+        List<Marker> markers = new ArrayList<>(defaultMarkers);
+        List<String> processIds = new ArrayList<>(snapshot.getProcesses().keySet());
+        scheduler.schedule(() -> publisher.publish(runId, processIds,
+                processId -> this.convertBPMNValidationMarkers(validateProcess(snapshot.getProcesses().get(processId))),
+                markers));
+    }
+
+    /**
+     * Dispatches an action to the client
+     */
+    protected void dispatch(Action action) {
+        actionDispatcher.dispatch(action);
+    }
+
+    private static boolean isDeltaMode() {
+        return !"full".equalsIgnoreCase(System.getProperty(PROPERTY_MARKERS, "delta"));
+    }
+
+    private boolean isAsync() {
+        return actionDispatcher != null && Boolean.parseBoolean(System.getProperty(PROPERTY_ASYNC, "true"));
+    }
+
     /**
      * This method validates the elements of a single BPMNProcess and returns a list
-     * ob BPMNValidationMarkers.
-     * 
-     *
+     * ob BPMNValidationMarkers. The process is read and validated on the calling
+     * thread.
      * 
      * @return
      * @throws BPMNModelException
      */
-    public List<BPMNValidationMarker> validateProcess(BPMNProcess process, boolean forceValidation)
-            throws BPMNModelException {
-        List<BPMNValidationMarker> result = new ArrayList<>();
-        // make sure that the process is initialized
-        process.init();
-
-        // first we collect all Tasks
-        Set<Activity> tasks = process.getActivities();
-        List<String> uniqueTaskIds = new ArrayList<String>();
-        for (Activity task : tasks) {
-
-            task.resetValidation();
-            if (!forceValidation && task.isValidated()) {
-                // skip
-                continue;
-            }
+    public List<BPMNValidationMarker> validateProcess(BPMNProcess process) throws BPMNModelException {
+        return validateProcess(ImixsValidationSnapshot.readProcess(process));
+    }
 
-            String taskID = task.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "processid");
+    /**
+     * This method validates the snapshot of a single process. The method does not
+     * access the model and can be called on any thread.
+     */
+    protected List<BPMNValidationMarker> validateProcess(ImixsValidationSnapshot.ProcessData process) {
+        List<BPMNValidationMarker> result = new ArrayList<>();
+        Set<String> uniqueTaskIds = new HashSet<String>();
+        for (ImixsValidationSnapshot.TaskData task : process.getTasks()) {
+            String taskID = task.getTaskId();
             if (uniqueTaskIds.contains(taskID)) {
                 // create Marker!
-                task.addValidationMarker(new BPMNValidationMarker("Task",
+                result.add(new BPMNValidationMarker("Task",
                         "The Task ID " + taskID + " is already used within this process.",
-                        task.getId(),
+                        task.getElementId(),
+                        BPMNValidationMarker.ErrorType.ERROR));
+            }
+            // the Imixs engine resolves a task id across all processes
+            if (!task.getOtherProcesses().isEmpty()) {
+                result.add(new BPMNValidationMarker("Task",
+                        "The Task ID " + taskID + " is already used in another process: "
+                                + String.join(", ", task.getOtherProcesses()),
+                        task.getElementId(),
                         BPMNValidationMarker.ErrorType.ERROR));
             }
-            task.setValidated(true);
-            result.addAll(task.getValidationMarkers());
             uniqueTaskIds.add(taskID);
 
             // No validate the events
-            List<BPMNValidationMarker> eventMarkers = validateEventsByTask(task);
-            result.addAll(eventMarkers);
-
+            result.addAll(validateEventsByTask(task, process.getResultIndex()));
         }
 
         // finally return the list of all Validation marker of this process
@@ -129,40 +211,138 @@ public class ImixsBPMNValidator extends BPMNGLSPValidator {
      * Validates if all events for a task have a unique event id
      *
      * @param task
+     * @param resultIndex - the workflow result index of the model
      */
-    public List<BPMNValidationMarker> validateEventsByTask(Activity task) {
+    private List<BPMNValidationMarker> validateEventsByTask(ImixsValidationSnapshot.TaskData task,
+            ImixsResultIndex resultIndex) {
         List<BPMNValidationMarker> result = new ArrayList<>();
-        List<String> uniqueEventIds = new ArrayList<>();
-        String taskID = task.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "processid");
-
-        // Collect all events: directly associated events + incoming init events
-        List<Event> allEvents = new ArrayList<>();
-        // find associated events
-        BPMNLinkedFlowIterator<Event> eventNavigator = new BPMNLinkedFlowIterator<>(task,
-                node -> ImixsBPMNUtil.isImixsEventElement(node));
-        while (eventNavigator.hasNext()) {
-            allEvents.add((Event) eventNavigator.next());
-        }
-        // find init events
-        for (BPMNElementNode initEvent : ImixsBPMNUtil.findInitEventNodes(task)) {
-            allEvents.add((Event) initEvent);
-        }
-
-        // Validate unique event IDs across all collected events
-        for (Event event : allEvents) {
-            event.resetValidation();
-            String eventID = event.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "activityid");
+        Set<String> uniqueEventIds = new HashSet<>();
+        for (ImixsValidationSnapshot.EventData event : task.getEvents()) {
+            String eventID = event.getEventId();
             if (uniqueEventIds.contains(eventID)) {
-                event.addValidationMarker(new BPMNValidationMarker("Task",
-                        "The Event ID " + eventID + " is already associated with the Task " + taskID + ".",
-                        event.getId(),
+                result.add(new BPMNValidationMarker("Task",
+                        "The Event ID " + eventID + " is already associated with the Task " + task.getTaskId()
+                                + ".",
+                        event.getElementId(),
                         BPMNValidationMarker.ErrorType.ERROR));
             }
-            event.setValidated(true);
-            result.addAll(event.getValidationMarkers());
+            validateScheduledEvent(event, result);
+            validateTemplates(event, result);
+            validateBusinessRule(event, result);
+            validateActivityResult(event, resultIndex, result);
             uniqueEventIds.add(eventID);
         }
-
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Validates the XSL templates of the mail body and an inline report definition
+     * of an event. Compiled templates are cached, so a template is only compiled
+     * again after a change.
+     * 
+     * @see ImixsXSLCompiler
+     */
+    private void validateTemplates(ImixsValidationSnapshot.EventData event, List<BPMNValidationMarker> result) {
+        for (String itemName : TEMPLATE_ITEMS) {
+            String template = event.getItem(itemName);
+            if (!ImixsXSLCompiler.isXSLTemplate(template)) {
+                continue;
+            }
+            ImixsXSLCompiler.CompileResult compiled = ImixsXSLCompiler.getInstance().compile(template);
+            if (!compiled.isValid()) {
+                result.add(new BPMNValidationMarker("Template",
+                        "Invalid XSL template in " + itemName + ": " + compiled.getErrorMessage(),
+                        event.getElementId(), BPMNValidationMarker.ErrorType.ERROR));
+            }
+        }
+    }
+
+    /**
+     * Validates the item definitions of the workflow result of an event. The
+     * result is parsed by the {@link ImixsResultIndex} only if it has changed
+     * since the last run.
+     */
+    private void validateActivityResult(ImixsValidationSnapshot.EventData event,
+            ImixsResultIndex resultIndex, List<BPMNValidationMarker> result) {
+        ImixsResultIndex.ResultDefinition definition = resultIndex.update(event.getElementId(),
+                event.getItem(ImixsResultIndex.ITEM_NAME));
+        for (ImixsResultIndex.Problem problem : definition.getProblems()) {
+            result.add(new BPMNValidationMarker("Workflow Result",
+                    "Workflow result: " + problem.getMessage(), event.getElementId(),
+                    problem.isError() ? BPMNValidationMarker.ErrorType.ERROR
+                            : BPMNValidationMarker.ErrorType.WARNING));
+        }
+    }
+
+    /**
+     * Validates the business rule of an event. The rule is compiled in the
+     * background by the {@link ImixsRuleCompiler}. The validation does not wait
+     * for the compilation - a rule is usually compiled already by the property
+     * update. Otherwise a new batch validation is requested as soon as the
+     * compilation has finished, so the marker is shown without a further change
+     * of the model.
+     */
+    private void validateBusinessRule(ImixsValidationSnapshot.EventData event, List<BPMNValidationMarker> result) {
+        String rule = event.getItem("txtbusinessrule");
+        if (rule.isBlank()) {
+            return;
+        }
+        String engine = event.getItem("txtbusinessruleengine");
+        ImixsRuleCompiler.CompileResult compiled = ImixsRuleCompiler.getInstance().getResult(engine, rule);
+        if (compiled == null) {
+            ImixsRuleCompiler.getInstance().check(engine, rule).thenRun(this::requestRevalidation);
+            return;
+        }
+        if (compiled.getStatus() == ImixsRuleCompiler.Status.ERROR) {
+            result.add(new BPMNValidationMarker("Business Rule",
+                    "Invalid business rule: " + compiled.getMessage(), event.getElementId(),
+                    BPMNValidationMarker.ErrorType.ERROR));
+        } else if (compiled.getStatus() == ImixsRuleCompiler.Status.SLOW) {
+            result.add(new BPMNValidationMarker("Business Rule", compiled.getMessage(),
+                    event.getElementId(), BPMNValidationMarker.ErrorType.WARNING));
+        }
+    }
+
+    /**
+     * Requests a new batch validation of the model. Compilations finishing
+     * within the debounce window result in only one request.
+     */
+    private void requestRevalidation() {
+        if (actionDispatcher == null) {
+            return;
+        }
+        revalidation.schedule(() -> {
+            logger.fine("├── Imixs Validator request revalidation of compiled business rules....");
+            dispatch(new RequestMarkersAction(new ArrayList<>(), MarkersReason.BATCH));
+        });
+    }
+
+    /**
+     * Validates the selector query (txtscheduledview) of a scheduled event.
+     * Syntax errors are reported as errors, expensive or unselective queries as
+     * warnings. An empty selector is valid - the engine selects the workitems by
+     * the task ID and model version.
+     * 
+     * @see ImixsSelectorQuery
+     */
+    private void validateScheduledEvent(ImixsValidationSnapshot.EventData event, List<BPMNValidationMarker> result) {
+        if (!"1".equals(event.getItem("keyscheduledactivity"))) {
+            return;
+        }
+        String selector = event.getItem("txtscheduledview");
+        if (selector.isBlank()) {
+            return;
+        }
+        ImixsSelectorQuery query = ImixsSelectorQuery.parse(selector);
+        if (!query.isValid()) {
+            result.add(new BPMNValidationMarker("Scheduler",
+                    "Invalid selector: " + query.getError(), event.getElementId(),
+                    BPMNValidationMarker.ErrorType.ERROR));
+            return;
+        }
+        for (String warning : query.getWarnings()) {
+            result.add(new BPMNValidationMarker("Scheduler", warning, event.getElementId(),
+                    BPMNValidationMarker.ErrorType.WARNING));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.validators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.glsp.server.actions.Action;
+import org.eclipse.glsp.server.actions.EndProgressAction;
+import org.eclipse.glsp.server.actions.StartProgressAction;
+import org.eclipse.glsp.server.actions.UpdateProgressAction;
+import org.eclipse.glsp.server.features.validation.Marker;
+import org.eclipse.glsp.server.features.validation.MarkersReason;
+import org.eclipse.glsp.server.features.validation.SetMarkersAction;
+import org.imixs.openbpmn.monitoring.ImixsMetrics;
+
+/**
+ * The ImixsMarkerPublisher runs the Imixs checks of a batch validation process
+ * by process and publishes the markers to the client. The checks are provided
+ * by the {@link ImixsBPMNValidator} and work on an
+ * {@link ImixsValidationSnapshot} only, so a run never touches the model and
+ * can run on a background thread.
+ * <p>
+ * The publisher keeps the markers last published per process. In delta mode a
+ * SetMarkersAction with the reason 'batch:[PROCESS_ID]' is dispatched for each
+ * process with added or removed markers as soon as the process is validated.
+ * In full mode one SetMarkersAction with the complete marker list and the
+ * reason 'batch' is dispatched at the end of each run. The progress is reported
+ * by the GLSP progress actions. A run is cancelled between two processes as
+ * soon as a newer run was started.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsMarkerPublisher {
+    private static Logger logger = Logger.getLogger(ImixsMarkerPublisher.class.getName());
+
+    public static final String PROCESS_REASON_PREFIX = MarkersReason.BATCH + ":";
+
+    private final Consumer<Action> dispatcher;
+    private final boolean deltaMode;
+    // the id of the latest run - older runs are cancelled
+    private final AtomicLong currentRun = new AtomicLong();
+    // the Imixs markers last published per process
+    private final Map<String, List<Marker>> markersByProcess = Collections.synchronizedMap(new LinkedHashMap<>());
+    // the keys of the markers last published per process
+    private final Map<String, Set<String>> publishedByProcess = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * @param dispatcher - dispatches the actions to the client
+     * @param deltaMode  - true to publish the markers per process, false to
+     *                   publish the complete marker list
+     */
+    public ImixsMarkerPublisher(Consumer<Action> dispatcher, boolean deltaMode) {
+        this.dispatcher = dispatcher;
+        this.deltaMode = deltaMode;
+    }
+
+    /**
+     * Starts a new run. A run in progress is cancelled.
+     * 
+     * @return the id of the new run
+     */
+    public long nextRun() {
+        return currentRun.incrementAndGet();
+    }
+
+    /**
+     * Returns true if a newer run was started
+     */
+    public boolean isOutdated(long runId) {
+        return currentRun.get() != runId;
+    }
+
+    /**
+     * Validates the processes of a run and publishes the markers. Markers of
+     * processes not contained in the given list are removed.
+     * 
+     * @param runId          - the id of the run returned by nextRun
+     * @param processIds     - the ids of the processes to validate
+     * @param validation     - computes the Imixs markers of a process
+     * @param defaultMarkers - the default BPMN markers of the run
+     * @return false if the run was cancelled
+     */
+    public boolean publish(long runId, List<String> processIds, Function<String, List<Marker>> validation,
+            List<Marker> defaultMarkers) {
+        if (isOutdated(runId)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        String progressId = "imixs-validation-" + runId;
+        int count = processIds.size();
+        int done = 0;
+        boolean cancelled = false;
+        dispatcher.accept(new StartProgressAction(progressId, "Imixs Validation",
+                "validate " + count + " processes...", 0));
+        try {
+            // remove markers of deleted processes
+            for (String processId : new ArrayList<>(publishedByProcess.keySet())) {
+                if (!processIds.contains(processId)) {
+                    markersByProcess.remove(processId);
+                    publishMarkers(processId, new ArrayList<>());
+                    publishedByProcess.remove(processId);
+                }
+            }
+            for (String processId : processIds) {
+                if (isOutdated(runId)) {
+                    cancelled = true;
+                    break;
+                }
+                List<Marker> processMarkers = validation.apply(processId);
+                markersByProcess.put(processId, processMarkers);
+                publishMarkers(processId, processMarkers);
+                done++;
+                dispatcher.accept(new UpdateProgressAction(progressId,
+                        done + " of " + count + " processes validated", done * 100 / count));
+            }
+            if (!cancelled && !deltaMode) {
+                // the validation result only contains the default markers
+                List<Marker> markers = new ArrayList<>(defaultMarkers);
+                markers.addAll(getMarkers());
+                dispatcher.accept(new SetMarkersAction(markers, MarkersReason.BATCH));
+            }
+        } finally {
+            dispatcher.accept(new EndProgressAction(progressId, cancelled ? "cancelled" : "finished"));
+        }
+        if (cancelled) {
+            logger.fine("├── Imixs validation cancelled after " + done + " of " + count + " processes");
+            return false;
+        }
+        ImixsMetrics.getInstance().record(ImixsMarkerPublisher.class.getSimpleName(), "publish",
+                System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * Returns the Imixs markers last published for all processes
+     */
+    public List<Marker> getMarkers() {
+        List<Marker> result = new ArrayList<>();
+        synchronized (markersByProcess) {
+            for (List<Marker> processMarkers : markersByProcess.values()) {
+                result.addAll(processMarkers);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Publishes the markers of a process in delta mode if the markers have
+     * changed since the last publication.
+     */
+    private void publishMarkers(String processId, List<Marker> processMarkers) {
+        Set<String> keys = new HashSet<>();
+        for (Marker marker : processMarkers) {
+            keys.add(marker.getKind() + "|" + marker.getElementId() + "|" + marker.getLabel() + "|"
+                    + marker.getDescription());
+        }
+        Set<String> published = publishedByProcess.getOrDefault(processId, Collections.emptySet());
+        if (keys.equals(published)) {
+            // no change
+            return;
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            Set<String> added = new HashSet<>(keys);
+            added.removeAll(published);
+            Set<String> removed = new HashSet<>(published);
+            removed.removeAll(keys);
+            logger.fine("│   ├── process " + processId + ": " + added.size() + " markers added, " + removed.size()
+                    + " markers removed");
+        }
+        publishedByProcess.put(processId, keys);
+        if (deltaMode) {
+            dispatcher.accept(new SetMarkersAction(processMarkers, PROCESS_REASON_PREFIX + processId));
+        }
+    }
+}
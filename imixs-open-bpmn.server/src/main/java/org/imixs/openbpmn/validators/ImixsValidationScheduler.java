@@ -0,0 +1,128 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.validators;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The ImixsValidationScheduler coalesces bursts of validation requests for a
+ * single model.
+ * <p>
+ * A validation task is executed only after the debounce window has passed
+ * without a new request. Each new request replaces the pending task and
+ * restarts the window, so only the latest request is executed. At most one
+ * task is running at a time. A request arriving during a running task is
+ * executed after the running task has finished.
+ * <p>
+ * The debounce window can be configured with the system property
+ * 'imixs.validation.debounce' in milliseconds (default 300).
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsValidationScheduler {
+    private static Logger logger = Logger.getLogger(ImixsValidationScheduler.class.getName());
+
+    public static final String PROPERTY_DEBOUNCE = "imixs.validation.debounce";
+    public static final long DEFAULT_DEBOUNCE = 300;
+
+    private static final ScheduledExecutorService executor = Executors.newScheduledThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                Thread thread = new Thread(runnable, "imixs-validation");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final long window;
+    private Runnable pendingTask = null;
+    private ScheduledFuture<?> timer = null;
+    private boolean running = false;
+    private long coalesced = 0;
+
+    public ImixsValidationScheduler() {
+        this(Long.getLong(PROPERTY_DEBOUNCE, DEFAULT_DEBOUNCE));
+    }
+
+    /**
+     * @param window - debounce window in milliseconds
+     */
+    public ImixsValidationScheduler(long window) {
+        this.window = Math.max(0, window);
+    }
+
+    /**
+     * Schedules a validation task. A pending task not yet started is replaced by
+     * the new task.
+     */
+    public synchronized void schedule(Runnable task) {
+        if (pendingTask != null) {
+            coalesced++;
+        }
+        pendingTask = task;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        timer = executor.schedule(this::execute, window, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Discards the pending task. A running task is not affected.
+     */
+    public synchronized void cancel() {
+        pendingTask = null;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+    }
+
+    /**
+     * Returns the number of requests replaced by a newer request
+     */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    private void execute() {
+        Runnable task;
+        synchronized (this) {
+            timer = null;
+            if (running || pendingTask == null) {
+                // the pending task is executed after the running task
+                return;
+            }
+            task = pendingTask;
+            pendingTask = null;
+            running = true;
+        }
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.warning("Validation failed: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                running = false;
+                if (pendingTask != null && timer == null) {
+                    timer = executor.schedule(this::execute, window, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+}
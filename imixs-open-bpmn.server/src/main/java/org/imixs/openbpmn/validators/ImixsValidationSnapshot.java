@@ -0,0 +1,223 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.validators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.index.ImixsResultIndex;
+import org.imixs.openbpmn.util.BPMNLinkedFlowIterator;
+import org.imixs.openbpmn.util.ImixsBPMNUtil;
+import org.imixs.openbpmn.util.ImixsIdRegistry;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.Activity;
+import org.openbpmn.bpmn.elements.BPMNProcess;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+
+/**
+ * The ImixsValidationSnapshot is an immutable copy of the Imixs data of a model
+ * validated by the {@link ImixsBPMNValidator}: the task and event ids, the
+ * events of each task and the event items checked by the validator.
+ * <p>
+ * The DOM of a model is not thread-safe. A snapshot is read on the GLSP thread
+ * with one pass over the model. The checks then run on the snapshot only, so
+ * they can run on a background thread while the model is edited. Reading a
+ * snapshot also registers new and changed task ids in the
+ * {@link ImixsIdRegistry} and copies the collisions with other processes.
+ *
+ * @author rsoika
+ *
+ */
+public class ImixsValidationSnapshot {
+
+    // the event items read by the validator
+    static final String[] EVENT_ITEMS = { "rtfmailbody", "txtreportname", "txtbusinessrule",
+            "txtbusinessruleengine", "keyscheduledactivity", "txtscheduledview", "txtactivityresult" };
+
+    private final Map<String, ProcessData> processes;
+
+    private ImixsValidationSnapshot(Map<String, ProcessData> processes) {
+        this.processes = processes;
+    }
+
+    /**
+     * Reads the snapshot of all processes of a model
+     */
+    public static ImixsValidationSnapshot read(BPMNModel model) throws BPMNModelException {
+        Map<String, ProcessData> processes = new LinkedHashMap<>();
+        for (BPMNProcess process : model.getBpmnProcessList()) {
+            processes.put(process.getId(), readProcess(process));
+        }
+        return new ImixsValidationSnapshot(Collections.unmodifiableMap(processes));
+    }
+
+    /**
+     * Reads the snapshot of a single process
+     */
+    public static ProcessData readProcess(BPMNProcess process) throws BPMNModelException {
+        // make sure that the process is initialized
+        process.init();
+        ImixsIdRegistry idRegistry = ImixsIdRegistry.getInstance(process.getModel());
+        List<TaskData> tasks = new ArrayList<>();
+        for (Activity task : process.getActivities()) {
+            String taskId = task.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "processid");
+            // registers tasks added by other operations (e.g. copy and paste)
+            idRegistry.updateTaskId(task, taskId);
+            tasks.add(new TaskData(task.getId(), taskId, idRegistry.findOtherProcesses(taskId, process.getId()),
+                    readEvents(task)));
+        }
+        return new ProcessData(process.getId(), Collections.unmodifiableList(tasks),
+                ImixsResultIndex.getInstance(process.getModel()));
+    }
+
+    /**
+     * Reads the events of a task: the directly associated events and the
+     * incoming init events
+     */
+    private static List<EventData> readEvents(Activity task) {
+        List<BPMNElementNode> events = new ArrayList<>();
+        BPMNLinkedFlowIterator<BPMNElementNode> eventNavigator = new BPMNLinkedFlowIterator<>(task,
+                node -> ImixsBPMNUtil.isImixsEventElement(node));
+        while (eventNavigator.hasNext()) {
+            events.add(eventNavigator.next());
+        }
+        events.addAll(ImixsBPMNUtil.findInitEventNodes(task));
+
+        List<EventData> result = new ArrayList<>();
+        for (BPMNElementNode event : events) {
+            Map<String, String> items = new HashMap<>();
+            for (String itemName : EVENT_ITEMS) {
+                items.put(itemName,
+                        ImixsExtensionUtil.getItemValueString(event.getModel(), event.getElementNode(), itemName));
+            }
+            result.add(new EventData(event.getId(),
+                    event.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "activityid"),
+                    Collections.unmodifiableMap(items)));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the processes of the snapshot by their id
+     */
+    public Map<String, ProcessData> getProcesses() {
+        return processes;
+    }
+
+    /**
+     * The Imixs data of a process
+     */
+    public static class ProcessData {
+        private final String id;
+        private final List<TaskData> tasks;
+        private final ImixsResultIndex resultIndex;
+
+        ProcessData(String id, List<TaskData> tasks, ImixsResultIndex resultIndex) {
+            this.id = id;
+            this.tasks = tasks;
+            this.resultIndex = resultIndex;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public List<TaskData> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Returns the workflow result index of the model. The index is thread-safe
+         * and is updated with the workflow results of the snapshot.
+         */
+        public ImixsResultIndex getResultIndex() {
+            return resultIndex;
+        }
+    }
+
+    /**
+     * The Imixs data of a task and its events
+     */
+    public static class TaskData {
+        private final String elementId;
+        private final String taskId;
+        private final Set<String> otherProcesses;
+        private final List<EventData> events;
+
+        TaskData(String elementId, String taskId, Set<String> otherProcesses, List<EventData> events) {
+            this.elementId = elementId;
+            this.taskId = taskId;
+            this.otherProcesses = otherProcesses;
+            this.events = events;
+        }
+
+        public String getElementId() {
+            return elementId;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        /**
+         * Returns the ids of the other processes using the same task id
+         */
+        public Set<String> getOtherProcesses() {
+            return otherProcesses;
+        }
+
+        public List<EventData> getEvents() {
+            return events;
+        }
+    }
+
+    /**
+     * The Imixs data of an event
+     */
+    public static class EventData {
+        private final String elementId;
+        private final String eventId;
+        private final Map<String, String> items;
+
+        EventData(String elementId, String eventId, Map<String, String> items) {
+            this.elementId = elementId;
+            this.eventId = eventId;
+            this.items = items;
+        }
+
+        public String getElementId() {
+            return elementId;
+        }
+
+        public String getEventId() {
+            return eventId;
+        }
+
+        /**
+         * Returns the value of an item or an empty string if the item is not set
+         */
+        public String getItem(String itemName) {
+            return items.getOrDefault(itemName, "");
+        }
+    }
+}
@@ -0,0 +1,469 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.workspace;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.extensions.ImixsItemReader;
+
+/**
+ * The ImixsActorRefactoring renames or removes an actor field mapping in all
+ * Imixs models of a directory tree. The mapping value is changed in the
+ * 'txtfieldmapping' of the model definitions and in all ACL, mail receiver and
+ * 'keyrestrictedvisibility' items of tasks and events. The label of a mapping
+ * is kept.
+ * <p>
+ * The files are processed in parallel. Each file is first read by the
+ * {@link ImixsItemReader} into a reverse index of the actor item values. Files
+ * not containing the value are skipped and never written. In all other files
+ * only the matching imixs:value elements are replaced in the text of the file.
+ * The formatting of the file and the order and multiplicity of the values are
+ * kept. The updated text is written into a temp file which then replaces the
+ * model file in an atomic move.
+ * <p>
+ * Models opened in an editor are not updated and should be reloaded.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsActorRefactoring {
+    private static Logger logger = Logger.getLogger(ImixsActorRefactoring.class.getName());
+
+    public static final String FIELD_MAPPING = "txtfieldmapping";
+    public static final Set<String> ACTOR_ITEMS = Set.of("keyownershipfields", "keyaddreadfields",
+            "keyaddwritefields", "keymailreceiverfields", "keymailreceiverfieldscc", "keymailreceiverfieldsbcc",
+            "keyrestrictedvisibility");
+    // the tag name followed by the attributes of a start tag
+    private static final Pattern ATTRIBUTE = Pattern
+            .compile("([^\\s<>/=]+)(\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'))?");
+    private static final Map<String, String> ENTITIES = Map.of("lt", "<", "gt", ">", "amp", "&", "quot", "\"",
+            "apos", "'");
+
+    private final String oldValue;
+    private final String newValue;
+
+    /**
+     * Creates a refactoring renaming the mapping value oldValue into newValue. If
+     * newValue is null or empty, the mapping is removed.
+     */
+    public ImixsActorRefactoring(String oldValue, String newValue) {
+        this.oldValue = oldValue;
+        this.newValue = (newValue == null || newValue.isEmpty()) ? null : newValue;
+    }
+
+    /**
+     * The result of a refactoring run
+     */
+    public static class Result {
+        private final AtomicInteger filesScanned = new AtomicInteger();
+        private final AtomicInteger elementsUpdated = new AtomicInteger();
+        private final List<Path> filesUpdated = new ArrayList<>();
+        private final List<Path> filesFailed = new ArrayList<>();
+
+        public int getFilesScanned() {
+            return filesScanned.get();
+        }
+
+        public int getElementsUpdated() {
+            return elementsUpdated.get();
+        }
+
+        public synchronized List<Path> getFilesUpdated() {
+            return new ArrayList<>(filesUpdated);
+        }
+
+        public synchronized List<Path> getFilesFailed() {
+            return new ArrayList<>(filesFailed);
+        }
+
+        private synchronized void updated(Path file) {
+            filesUpdated.add(file);
+        }
+
+        private synchronized void failed(Path file) {
+            filesFailed.add(file);
+        }
+    }
+
+    /**
+     * Refactors all model files (*.bpmn) within the given directory tree
+     */
+    public Result refactor(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(f -> f.toString().endsWith(".bpmn") && Files.isRegularFile(f))
+                    .collect(Collectors.toList());
+        }
+        return refactor(files);
+    }
+
+    /**
+     * Refactors the given model files in parallel
+     */
+    public Result refactor(List<Path> files) {
+        long l = System.currentTimeMillis();
+        Result result = new Result();
+        files.parallelStream().forEach(file -> {
+            try {
+                int count = refactorFile(file);
+                result.filesScanned.incrementAndGet();
+                if (count > 0) {
+                    result.elementsUpdated.addAndGet(count);
+                    result.updated(file);
+                }
+            } catch (IOException e) {
+                logger.warning("Failed to refactor model file '" + file + "': " + e.getMessage());
+                result.failed(file);
+            }
+        });
+        logger.info("├── actor mapping '" + oldValue + "' " + (newValue == null ? "removed" : "renamed to '"
+                + newValue + "'") + " in " + result.getFilesUpdated().size() + " of " + files.size()
+                + " files (" + result.getElementsUpdated() + " elements) in " + (System.currentTimeMillis() - l)
+                + "ms");
+        return result;
+    }
+
+    /**
+     * Refactors a single model file and returns the number of updated elements.
+     * Returns 0 if the file does not contain the mapping value. In this case the
+     * file is not written.
+     */
+    int refactorFile(Path file) throws IOException {
+        Map<String, Set<String>> reverseIndex = buildReverseIndex(file);
+        Set<String> elementIds = reverseIndex.get(oldValue);
+        if (elementIds == null || elementIds.isEmpty()) {
+            return 0;
+        }
+        String text = Files.readString(file, StandardCharsets.UTF_8);
+        Set<String> updatedElements = new HashSet<>();
+        String updatedText = updateText(text, updatedElements);
+        if (!updatedElements.isEmpty()) {
+            save(updatedText, file);
+        }
+        return updatedElements.size();
+    }
+
+    /**
+     * Reads the actor items and the field mapping of a file into a reverse index
+     * of the mapping values and the ids of the elements using them.
+     */
+    private Map<String, Set<String>> buildReverseIndex(Path file) throws IOException {
+        Set<String> itemNames = new LinkedHashSet<>(ACTOR_ITEMS);
+        itemNames.add(FIELD_MAPPING);
+        Map<String, Set<String>> result = new HashMap<>();
+        try {
+            new ImixsItemReader().itemNames(itemNames).read(file, (elementId, elementType, itemName, values) -> {
+                boolean mapping = FIELD_MAPPING.equals(itemName);
+                if (mapping && !"definitions".equals(elementType)) {
+                    return;
+                }
+                for (String value : values) {
+                    // the field mapping holds label|value pairs
+                    String key = mapping ? ImixsExtensionUtil.getValuePart(value) : value;
+                    result.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(elementId);
+                }
+            });
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to read model: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Renames or removes the matching imixs:value elements of the actor items and
+     * the field mapping in the text of a model. The text is scanned tag by tag
+     * like the {@link ImixsItemReader} reads the items. All other parts of the
+     * text are copied unchanged, so the formatting of the file as well as the
+     * order and multiplicity of the item values are kept.
+     * 
+     * @param text            - the model text
+     * @param updatedElements - collects the ids of the updated elements
+     * @return the updated text
+     */
+    String updateText(String text, Set<String> updatedElements) {
+        StringBuilder result = new StringBuilder(text.length());
+        int copied = 0;
+        String imixsPrefix = null;
+        // id and type of the open elements
+        Deque<String[]> elements = new ArrayDeque<>();
+        String[] owner = null;
+        int ownerDepth = -1;
+        String itemName = null;
+        int valueStart = -1;
+        int contentStart = -1;
+        int pos = 0;
+        while ((pos = text.indexOf('<', pos)) >= 0) {
+            if (text.startsWith("<!--", pos)) {
+                pos = skip(text, pos, "-->");
+            } else if (text.startsWith("<![CDATA[", pos)) {
+                pos = skip(text, pos, "]]>");
+            } else if (text.startsWith("<?", pos) || text.startsWith("<!", pos)) {
+                pos = skip(text, pos, ">");
+            } else if (text.startsWith("</", pos)) {
+                int tagEnd = skip(text, pos, ">");
+                elements.poll();
+                if (valueStart >= 0) {
+                    String[] change = getChange(text.substring(contentStart, pos), itemName);
+                    if (change != null) {
+                        // a removed value is cut out with its line, a renamed value only changes its content
+                        int[] range = change[0] == null ? removeLine(text, valueStart, tagEnd)
+                                : new int[] { contentStart, pos };
+                        result.append(text, copied, range[0]);
+                        if (change[0] != null) {
+                            result.append(change[0]);
+                        }
+                        copied = range[1];
+                        updatedElements.add(owner[0]);
+                    }
+                    valueStart = -1;
+                } else if (itemName != null) {
+                    itemName = null;
+                } else if (owner != null && elements.size() == ownerDepth) {
+                    owner = null;
+                    ownerDepth = -1;
+                }
+                pos = tagEnd;
+            } else {
+                int tagEnd = skipTag(text, pos);
+                boolean empty = text.charAt(tagEnd - 2) == '/';
+                Map<String, String> attributes = new HashMap<>();
+                Matcher matcher = ATTRIBUTE.matcher(text.substring(pos, tagEnd));
+                String qName = matcher.find() ? matcher.group(1) : "";
+                while (matcher.find()) {
+                    attributes.put(matcher.group(1), matcher.group(3) != null ? matcher.group(3) : matcher.group(4));
+                }
+                int colon = qName.indexOf(':');
+                String prefix = colon >= 0 ? qName.substring(0, colon) : "";
+                String localName = qName.substring(colon + 1);
+                if (imixsPrefix == null) {
+                    imixsPrefix = getPrefix(attributes, ImixsExtensionUtil.getNamespaceURI());
+                }
+                if (owner == null && "extensionElements".equals(localName) && !elements.isEmpty()) {
+                    // the extension elements belong to the parent element
+                    owner = elements.peek();
+                    ownerDepth = elements.size();
+                } else if (owner != null && prefix.equals(imixsPrefix)) {
+                    String name = attributes.get("name");
+                    if (itemName == null && "item".equals(localName) && elements.size() == ownerDepth + 1
+                            && (ACTOR_ITEMS.contains(name)
+                                    || (FIELD_MAPPING.equals(name) && "definitions".equals(owner[1])))) {
+                        itemName = name;
+                    } else if (itemName != null && "value".equals(localName) && !empty) {
+                        valueStart = pos;
+                        contentStart = tagEnd;
+                    }
+                }
+                if (!empty) {
+                    elements.push(new String[] { attributes.get("id"), localName });
+                } else if (itemName != null && "item".equals(localName) && valueStart < 0) {
+                    itemName = null;
+                }
+                pos = tagEnd;
+            }
+        }
+        result.append(text, copied, text.length());
+        return result.toString();
+    }
+
+    /**
+     * Returns the new content of an imixs:value element matching the old value,
+     * or an array with a null element if the value is removed. Returns null if
+     * the value does not match.
+     */
+    private String[] getChange(String content, String itemName) {
+        // like the ImixsItemReader a CDATA section is preferred over the text
+        int cdata = content.indexOf("<![CDATA[");
+        String value = cdata >= 0 ? content.substring(cdata + 9, content.indexOf("]]>", cdata))
+                : unescape(content);
+        boolean mapping = FIELD_MAPPING.equals(itemName);
+        // the field mapping holds label|value pairs
+        if (!oldValue.equals(mapping ? ImixsExtensionUtil.getValuePart(value) : value)) {
+            return null;
+        }
+        if (newValue == null) {
+            return new String[] { null };
+        }
+        int separator = value.indexOf('|');
+        String updatedValue = mapping && separator >= 0 ? value.substring(0, separator + 1) + newValue : newValue;
+        return new String[] { cdata >= 0 ? "<![CDATA[" + updatedValue.replace("]]>", "]]]]><![CDATA[>") + "]]>"
+                : updatedValue.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;") };
+    }
+
+    /**
+     * Returns the range of a removed element. If the element is the only content
+     * of its line, the whole line is removed.
+     */
+    private static int[] removeLine(String text, int from, int to) {
+        int lineStart = from;
+        while (lineStart > 0 && (text.charAt(lineStart - 1) == ' ' || text.charAt(lineStart - 1) == '\t')) {
+            lineStart--;
+        }
+        int lineEnd = to;
+        while (lineEnd < text.length() && (text.charAt(lineEnd) == ' ' || text.charAt(lineEnd) == '\t')) {
+            lineEnd++;
+        }
+        if ((lineStart == 0 || text.charAt(lineStart - 1) == '\n')
+                && (lineEnd == text.length() || text.charAt(lineEnd) == '\r' || text.charAt(lineEnd) == '\n')) {
+            if (text.startsWith("\r\n", lineEnd)) {
+                lineEnd += 2;
+            } else if (lineEnd < text.length()) {
+                lineEnd++;
+            }
+            return new int[] { lineStart, lineEnd };
+        }
+        return new int[] { from, to };
+    }
+
+    /**
+     * Returns the position after the next occurrence of the given terminator
+     */
+    private static int skip(String text, int pos, String terminator) {
+        int end = text.indexOf(terminator, pos);
+        return end < 0 ? text.length() : end + terminator.length();
+    }
+
+    /**
+     * Returns the position after the end of a start tag. A '>' within an
+     * attribute value does not end the tag.
+     */
+    private static int skipTag(String text, int pos) {
+        char quote = 0;
+        for (int i = pos + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * Returns the prefix declared for a namespace uri by the given attributes or
+     * null if not declared
+     */
+    private static String getPrefix(Map<String, String> attributes, String namespaceURI) {
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            if (attribute.getKey().startsWith("xmlns:") && namespaceURI.equals(attribute.getValue())) {
+                return attribute.getKey().substring(6);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the predefined and the numeric character references of a text
+     */
+    private static String unescape(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        int pos = 0;
+        int amp;
+        while ((amp = text.indexOf('&', pos)) >= 0) {
+            int semicolon = text.indexOf(';', amp);
+            if (semicolon < 0) {
+                break;
+            }
+            result.append(text, pos, amp);
+            String entity = text.substring(amp + 1, semicolon);
+            if (entity.startsWith("#x")) {
+                result.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+            } else if (entity.startsWith("#")) {
+                result.appendCodePoint(Integer.parseInt(entity.substring(1)));
+            } else {
+                result.append(ENTITIES.getOrDefault(entity, "&" + entity + ";"));
+            }
+            pos = semicolon + 1;
+        }
+        result.append(text, pos, text.length());
+        return result.toString();
+    }
+
+    /**
+     * Writes the model text into a temp file in the same directory and replaces
+     * the model file in an atomic move.
+     */
+    private void save(String text, Path file) throws IOException {
+        Path tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), ".imixs-", ".bpmn.tmp");
+        try {
+            Files.writeString(tempFile, text, StandardCharsets.UTF_8);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Renames or removes an actor mapping in all models of a directory.
+     * 
+     * @param args - directory, 'rename' with the old and new value or 'remove'
+     *             with the value
+     */
+    public static void main(String[] args) throws IOException {
+        ImixsActorRefactoring refactoring = null;
+        if (args.length == 4 && "rename".equals(args[1])) {
+            refactoring = new ImixsActorRefactoring(args[2], args[3]);
+        } else if (args.length == 3 && "remove".equals(args[1])) {
+            refactoring = new ImixsActorRefactoring(args[2], null);
+        } else {
+            System.err.println("Usage: ImixsActorRefactoring <directory> rename <old> <new> | remove <value>");
+            System.exit(1);
+        }
+        Result result = refactoring.refactor(Paths.get(args[0]));
+        for (Path file : result.getFilesUpdated()) {
+            System.out.println("updated " + file);
+        }
+        for (Path file : result.getFilesFailed()) {
+            System.out.println("failed  " + file);
+        }
+        System.exit(result.getFilesFailed().isEmpty() ? 0 : 1);
+    }
+}
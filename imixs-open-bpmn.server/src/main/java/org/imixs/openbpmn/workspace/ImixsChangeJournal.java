@@ -0,0 +1,653 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.workspace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.extensions.ImixsItemChangeListener;
+import org.imixs.openbpmn.monitoring.ImixsMetrics;
+import org.imixs.openbpmn.util.ImixsIdAllocator;
+import org.openbpmn.bpmn.BPMNModel;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * The ImixsChangeJournal is an append-only journal of all Imixs item and
+ * attribute changes of a model since the last save. The journal is stored next
+ * to the model file (e.g. '.my-model.bpmn.imixs-journal') so that unsaved
+ * property changes survive a crash of the server. The journal is disabled by
+ * default and can be enabled with the system property 'imixs.journal=true'.
+ * <p>
+ * Changes are collected by the {@link ImixsItemChangeListener} and appended to
+ * an in-memory buffer. The buffer is written to a {@link FileChannel} and
+ * forced to disk on a schedule (system property 'imixs.journal.syncInterval',
+ * default 1000ms). Each record is protected by a CRC32 checksum, so a record
+ * torn by a crash is detected and dropped. The journal file is created with the
+ * first change.
+ * <p>
+ * The header of a journal holds the SHA-256 hash of the model file the changes
+ * are based on. When a model is opened, the changes of a journal matching the
+ * model file are kept as recoverable changes - the user decides to restore or
+ * to discard them. A journal not matching the model file (e.g. the file was
+ * changed by another editor) is stale and deleted.
+ * <p>
+ * A save starts a new journal. As the model file is written after the save
+ * hook, the old journal is kept as previous journal until the next change or
+ * until the journal is closed. If the model file has not changed by then, the
+ * save has failed and the old journal is continued.
+ * <p>
+ * The journal only holds a weak reference to its model and is closed when the
+ * model was disposed. The journal only records Imixs properties. Elements
+ * added or removed in the diagram are not covered - changes of elements not
+ * existing in the model file are skipped on restore.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsChangeJournal {
+    private static Logger logger = Logger.getLogger(ImixsChangeJournal.class.getName());
+
+    public static final String PROPERTY_JOURNAL = "imixs.journal";
+    public static final String FILE_SUFFIX = ".imixs-journal";
+    public static final String PREVIOUS_SUFFIX = ".prev";
+    public static final String RECOVERY_SUFFIX = ".recovery";
+
+    private static final int JOURNAL_MAGIC = 0x494d4a32; // IMJ2
+    private static final int HASH_SIZE = 32;
+    private static final int HEADER_SIZE = 4 + HASH_SIZE;
+    private static final byte RECORD_ITEM = 1;
+    private static final byte RECORD_ATTRIBUTE = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long SYNC_INTERVAL = Long.getLong("imixs.journal.syncInterval", 1000);
+
+    private static final Map<BPMNModel, ImixsChangeJournal> journals = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "imixs-journal-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ImixsItemChangeListener LISTENER = new ImixsItemChangeListener() {
+        @Override
+        public void itemChanged(BPMNModel model, Element elementNode, String itemName, String type,
+                List<String> values) {
+            ImixsChangeJournal journal = journals.get(model);
+            if (journal != null) {
+                journal.append(encode(RECORD_ITEM, elementNode, itemName, type == null ? "" : type, values));
+            }
+        }
+
+        @Override
+        public void attributeChanged(BPMNModel model, Element elementNode, String name, String value) {
+            ImixsChangeJournal journal = journals.get(model);
+            if (journal != null) {
+                journal.append(encode(RECORD_ATTRIBUTE, elementNode, name, "",
+                        Collections.singletonList(value == null ? "" : value)));
+            }
+        }
+    };
+
+    static {
+        ImixsExtensionUtil.addItemChangeListener(LISTENER);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (ImixsChangeJournal journal : getJournals()) {
+                journal.close();
+            }
+        }, "imixs-journal-shutdown"));
+    }
+
+    private final WeakReference<BPMNModel> modelRef;
+    private final Path modelFile;
+    private final Path file;
+    private final Path previousFile;
+    private final Path recoveryFile;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // the hash of the model file the current journal is based on, null after a
+    // save until the next change
+    private byte[] baseHash;
+    private FileChannel channel;
+    private boolean unsynced = false;
+    private int recoverableChanges = 0;
+    private ScheduledFuture<?> syncTask;
+
+    private ImixsChangeJournal(BPMNModel model, Path modelFile) {
+        this.modelRef = new WeakReference<>(model);
+        this.modelFile = modelFile.toAbsolutePath().normalize();
+        this.file = getJournalFile(this.modelFile);
+        this.previousFile = file.resolveSibling(file.getFileName() + PREVIOUS_SUFFIX);
+        this.recoveryFile = file.resolveSibling(file.getFileName() + RECOVERY_SUFFIX);
+    }
+
+    /**
+     * Returns true if the change journal is enabled
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PROPERTY_JOURNAL);
+    }
+
+    /**
+     * Returns the journal file of a model file
+     */
+    public static Path getJournalFile(Path modelFile) {
+        return modelFile.resolveSibling("." + modelFile.getFileName() + FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the open journal of a model or null if no journal is open.
+     */
+    public static ImixsChangeJournal getInstance(BPMNModel model) {
+        return journals.get(model);
+    }
+
+    /**
+     * Opens the journal of a model file. The changes of an existing journal
+     * matching the model file are kept as recoverable changes, a stale journal is
+     * deleted. A journal already open for the model or the model file is closed.
+     */
+    public static ImixsChangeJournal open(BPMNModel model, Path modelFile) throws IOException {
+        ImixsChangeJournal journal = new ImixsChangeJournal(model, modelFile);
+        for (ImixsChangeJournal existing : getJournals()) {
+            if (existing.file.equals(journal.file) || existing.modelRef.get() == model) {
+                existing.close();
+            }
+        }
+        journal.init();
+        journal.syncTask = scheduler.scheduleWithFixedDelay(journal::scheduledSync, SYNC_INTERVAL, SYNC_INTERVAL,
+                TimeUnit.MILLISECONDS);
+        journals.put(model, journal);
+        return journal;
+    }
+
+    private static List<ImixsChangeJournal> getJournals() {
+        synchronized (journals) {
+            return new ArrayList<>(journals.values());
+        }
+    }
+
+    /**
+     * Returns the number of changes of a previous session which can be restored
+     */
+    public synchronized int getRecoverableChanges() {
+        return recoverableChanges;
+    }
+
+    /**
+     * Applies the recoverable changes of a previous session to the model. The
+     * restored changes are recorded in the current journal.
+     * 
+     * @return the number of changes applied
+     */
+    public synchronized int restore(BPMNModel model) {
+        if (recoverableChanges == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Map<String, Record> records = new LinkedHashMap<>();
+        readRecords(recoveryFile, records, hash(modelFile));
+        discard();
+        if (records.isEmpty() || model.getDoc() == null) {
+            return 0;
+        }
+        Map<String, Element> elements = new HashMap<>();
+        NodeList nodes = model.getDoc().getElementsByTagNameNS("*", "*");
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Element element = (Element) nodes.item(i);
+            if (element.hasAttribute("id")) {
+                elements.put(element.getAttribute("id"), element);
+            }
+        }
+        int count = 0;
+        for (Record record : records.values()) {
+            Element elementNode = record.elementId.isEmpty() ? model.getDefinitions()
+                    : elements.get(record.elementId);
+            if (elementNode == null) {
+                logger.warning("├── skip journal entry '" + record.name + "' - element '" + record.elementId
+                        + "' not found");
+                continue;
+            }
+            if (record.kind == RECORD_ATTRIBUTE) {
+                ImixsExtensionUtil.setExtensionAttribute(model, elementNode, record.name, record.values.get(0));
+            } else if (record.values.isEmpty()) {
+                ImixsExtensionUtil.removeItemValue(model, elementNode, record.name);
+            } else {
+                ImixsExtensionUtil.setItemValueList(model, elementNode, record.name, record.type, record.values,
+                        null);
+            }
+            count++;
+        }
+        // restored task and event ids are not known by the allocator
+        ImixsIdAllocator.getInstance(model).invalidate();
+        ImixsMetrics.getInstance().record(ImixsChangeJournal.class.getSimpleName(), "restore",
+                System.nanoTime() - start);
+        logger.info("├── restored " + count + " changes from " + recoveryFile.getFileName());
+        return count;
+    }
+
+    /**
+     * Discards the recoverable changes of a previous session
+     */
+    public synchronized void discard() {
+        recoverableChanges = 0;
+        try {
+            Files.deleteIfExists(recoveryFile);
+        } catch (IOException e) {
+            logger.warning("├── failed to delete " + recoveryFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a new journal. This method is called before the model file is
+     * written. The current journal is kept as previous journal until the save is
+     * confirmed by a changed model file. Recoverable changes not restored until
+     * now are discarded, as they do not match the saved model.
+     */
+    public synchronized void checkpoint() throws IOException {
+        long start = System.nanoTime();
+        if (recoverableChanges > 0) {
+            logger.info("├── " + recoverableChanges + " recoverable changes discarded by save");
+            discard();
+        }
+        if (channel != null) {
+            sync();
+            channel.close();
+            channel = null;
+            move(file, previousFile);
+        }
+        baseHash = null;
+        ImixsMetrics.getInstance().record(ImixsChangeJournal.class.getSimpleName(), "checkpoint",
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Writes the buffered entries to the journal file and forces them to disk.
+     */
+    public synchronized void sync() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        flushBuffer();
+        if (unsynced) {
+            channel.force(false);
+            unsynced = false;
+        }
+    }
+
+    /**
+     * Syncs and closes the journal. A journal without changes is deleted.
+     */
+    public synchronized void close() {
+        if (syncTask != null) {
+            syncTask.cancel(false);
+        }
+        try {
+            if (channel != null) {
+                sync();
+                boolean empty = channel.size() <= HEADER_SIZE;
+                channel.close();
+                channel = null;
+                if (empty) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            confirmCheckpoint();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "├── failed to close journal " + file + ": " + e.getMessage(), e);
+        }
+        BPMNModel model = modelRef.get();
+        if (model != null) {
+            journals.remove(model, this);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Reads an existing journal and a previous journal not confirmed by a save.
+     * The changes matching the model file are moved into the recovery file.
+     */
+    private void init() throws IOException {
+        baseHash = hash(modelFile);
+        Map<String, Record> records = new LinkedHashMap<>();
+        readRecords(recoveryFile, records, baseHash);
+        readRecords(previousFile, records, baseHash);
+        readRecords(file, records, baseHash);
+        Files.deleteIfExists(previousFile);
+        Files.deleteIfExists(file);
+        if (records.isEmpty()) {
+            Files.deleteIfExists(recoveryFile);
+            return;
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = createFile(tempFile, baseHash)) {
+            for (Record record : records.values()) {
+                write(out, frame(record.body));
+            }
+            out.force(false);
+        }
+        move(tempFile, recoveryFile);
+        recoverableChanges = records.size();
+        logger.info("├── " + recoverableChanges + " recoverable changes found in " + file.getFileName());
+    }
+
+    /**
+     * Appends an encoded record to the buffer. The buffer is written to the
+     * channel if full.
+     */
+    private synchronized void append(byte[] body) {
+        try {
+            if (channel == null) {
+                startJournal();
+            }
+            ByteBuffer record = frame(body);
+            if (buffer.remaining() < record.remaining()) {
+                flushBuffer();
+            }
+            if (record.remaining() > buffer.capacity()) {
+                write(channel, record);
+                unsynced = true;
+            } else {
+                buffer.put(record);
+            }
+        } catch (IOException e) {
+            ImixsMetrics.getInstance().recordError(ImixsChangeJournal.class.getSimpleName(), "append");
+            logger.log(Level.WARNING, "├── failed to write journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates the journal file with the first change. After a save the previous
+     * journal is continued if the model file was not written.
+     */
+    private void startJournal() throws IOException {
+        if (baseHash == null) {
+            byte[] hash = hash(modelFile);
+            if (Arrays.equals(hash, readBaseHash(previousFile))) {
+                // the save has failed - continue the previous journal
+                move(previousFile, file);
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            } else {
+                Files.deleteIfExists(previousFile);
+            }
+            baseHash = hash;
+        }
+        if (channel == null) {
+            channel = createFile(file, baseHash);
+        }
+    }
+
+    /**
+     * Deletes the previous journal if the model file has changed since the save
+     */
+    private void confirmCheckpoint() throws IOException {
+        if (Files.exists(previousFile) && !Arrays.equals(hash(modelFile), readBaseHash(previousFile))) {
+            Files.deleteIfExists(previousFile);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        write(channel, buffer);
+        buffer.clear();
+        unsynced = true;
+    }
+
+    private synchronized void scheduledSync() {
+        if (modelRef.get() == null) {
+            // the model was disposed
+            close();
+            return;
+        }
+        try {
+            sync();
+        } catch (IOException e) {
+            ImixsMetrics.getInstance().recordError(ImixsChangeJournal.class.getSimpleName(), "sync");
+            logger.log(Level.WARNING, "├── failed to sync journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the SHA-256 hash of a file. The hash of a missing file is the hash
+     * of an empty file.
+     */
+    static byte[] hash(Path path) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (Files.isRegularFile(path)) {
+                try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE);
+                    while (in.read(data) > 0) {
+                        data.flip();
+                        digest.update(data);
+                        data.clear();
+                    }
+                }
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            logger.warning("├── failed to hash " + path + ": " + e.getMessage());
+            return new byte[HASH_SIZE];
+        }
+    }
+
+    /**
+     * Returns the base hash stored in the header of a journal file or null if
+     * the file does not exist or is invalid.
+     */
+    private static byte[] readBaseHash(Path journalFile) throws IOException {
+        if (!Files.isRegularFile(journalFile)) {
+            return null;
+        }
+        try (FileChannel in = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && in.read(header) > 0) {
+                // read the complete header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != JOURNAL_MAGIC) {
+                return null;
+            }
+            byte[] hash = new byte[HASH_SIZE];
+            header.get(hash);
+            return hash;
+        }
+    }
+
+    /**
+     * Reads the valid records of a journal file into the given map, which holds
+     * the last change per element and item in the order of the changes. A
+     * journal not based on the given model hash is ignored.
+     */
+    static void readRecords(Path journalFile, Map<String, Record> records, byte[] modelHash) {
+        if (!Files.isRegularFile(journalFile)) {
+            return;
+        }
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+            if (data.remaining() < HEADER_SIZE || data.getInt() != JOURNAL_MAGIC) {
+                logger.warning("├── invalid journal file " + journalFile + " - ignored");
+                return;
+            }
+            byte[] hash = new byte[HASH_SIZE];
+            data.get(hash);
+            if (!Arrays.equals(hash, modelHash)) {
+                logger.warning("├── stale journal file " + journalFile.getFileName()
+                        + " - the model file has changed - ignored");
+                return;
+            }
+            while (data.remaining() >= 8) {
+                int length = data.getInt();
+                int checksum = data.getInt();
+                if (length < 0 || length > data.remaining()) {
+                    logger.warning("├── incomplete journal entry in " + journalFile.getFileName() + " dropped");
+                    break;
+                }
+                byte[] body = new byte[length];
+                data.get(body);
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    logger.warning("├── corrupt journal entry in " + journalFile.getFileName() + " dropped");
+                    break;
+                }
+                Record record = decode(body);
+                String key = record.kind + ":" + record.elementId + ":" + record.name;
+                // keep the order of the last change
+                records.remove(key);
+                records.put(key, record);
+            }
+        } catch (IOException | BufferUnderflowException e) {
+            logger.log(Level.WARNING, "├── failed to read journal " + journalFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encodes a change record: kind, timestamp, element id, name, type and values
+     */
+    private static byte[] encode(byte kind, Element elementNode, String name, String type, List<String> values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(kind);
+            out.writeLong(System.currentTimeMillis());
+            writeString(out, elementNode.getAttribute("id"));
+            writeString(out, name);
+            writeString(out, type);
+            out.writeInt(values.size());
+            for (String value : values) {
+                writeString(out, value);
+            }
+        } catch (IOException e) {
+            // not thrown by a ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Record decode(byte[] body) {
+        ByteBuffer data = ByteBuffer.wrap(body);
+        Record record = new Record();
+        record.body = body;
+        record.kind = data.get();
+        data.getLong();
+        record.elementId = readString(data);
+        record.name = readString(data);
+        record.type = readString(data);
+        int count = data.getInt();
+        record.values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            record.values.add(readString(data));
+        }
+        return record;
+    }
+
+    /**
+     * Returns a record framed by its length and CRC32 checksum
+     */
+    private static ByteBuffer frame(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer record = ByteBuffer.allocate(body.length + 8);
+        record.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+        return record;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer data) {
+        int length = data.getInt();
+        if (length < 0 || length > data.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(data.array(), data.position(), length, StandardCharsets.UTF_8);
+        data.position(data.position() + length);
+        return value;
+    }
+
+    private static void write(FileChannel out, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+
+    private static FileChannel createFile(Path path, byte[] modelHash) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(JOURNAL_MAGIC).put(modelHash).flip();
+        write(channel, header);
+        return channel;
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * A decoded journal record
+     */
+    static class Record {
+        byte kind;
+        String elementId;
+        String name;
+        String type;
+        List<String> values;
+        byte[] body;
+    }
+}
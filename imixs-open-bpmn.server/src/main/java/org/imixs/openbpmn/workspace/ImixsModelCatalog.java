@@ -0,0 +1,383 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.workspace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.imixs.openbpmn.extensions.ImixsItemReader;
+
+/**
+ * The ImixsModelCatalog is an index of all Imixs model files (*.bpmn) within a
+ * directory tree. For each model the catalog holds the items of the
+ * bpmn2:definitions element (e.g. 'txtworkflowmodelversion' or 'txtplugins')
+ * and the IDs and names of all tasks and events. This allows to find the
+ * models using a plugin, a model version or a task ID without loading each
+ * model.
+ * <p>
+ * The files are read in parallel by the {@link ImixsItemReader} - no DOM is
+ * built. The catalog is stored in a compact binary index file (default
+ * '.imixs-catalog' in the root directory). A refresh only reads files with a
+ * changed modification time or size and removes deleted files from the index.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * ImixsModelCatalog catalog = new ImixsModelCatalog(Paths.get("models"));
+ * catalog.refresh();
+ * List<ImixsModelInfo> result = catalog.findByPlugin("org.imixs.workflow.engine.plugins.MailPlugin");
+ * }</pre>
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsModelCatalog {
+    private static Logger logger = Logger.getLogger(ImixsModelCatalog.class.getName());
+
+    public static final String DEFAULT_INDEX_FILE = ".imixs-catalog";
+
+    private static final int INDEX_MAGIC = 0x494d4358; // IMCX
+    private static final int INDEX_VERSION = 1;
+
+    private final Path root;
+    private final Path indexFile;
+    private final Map<String, ImixsModelInfo> models = new ConcurrentHashMap<>();
+    private final ImixsItemReader itemReader = new ImixsItemReader();
+
+    /**
+     * Creates a catalog for the given root directory with the default index file
+     */
+    public ImixsModelCatalog(Path root) {
+        this(root, root.resolve(DEFAULT_INDEX_FILE));
+    }
+
+    /**
+     * Creates a catalog for the given root directory and index file. An existing
+     * index file is loaded.
+     */
+    public ImixsModelCatalog(Path root, Path indexFile) {
+        this.root = root.toAbsolutePath().normalize();
+        this.indexFile = indexFile;
+        loadIndex();
+    }
+
+    /**
+     * Scans the directory tree and reads all new or changed model files in
+     * parallel. Deleted files are removed from the catalog. If the catalog has
+     * changed, the index file is written.
+     * 
+     * @return the number of files read
+     * @throws IOException if the directory tree can not be read
+     */
+    public synchronized int refresh() throws IOException {
+        long l = System.currentTimeMillis();
+        List<Path> changedFiles = new ArrayList<>();
+        Set<String> existingPaths = new HashSet<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".bpmn"))::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                String path = getRelativePath(file);
+                existingPaths.add(path);
+                ImixsModelInfo info = models.get(path);
+                if (info == null || info.getLastModified() != attributes.lastModifiedTime().toMillis()
+                        || info.getSize() != attributes.size()) {
+                    changedFiles.add(file);
+                }
+            }
+        }
+        boolean removed = models.keySet().retainAll(existingPaths);
+
+        List<ImixsModelInfo> result = changedFiles.parallelStream() //
+                .map(this::read) //
+                .filter(Objects::nonNull) //
+                .collect(Collectors.toList());
+        for (ImixsModelInfo info : result) {
+            models.put(info.getPath(), info);
+        }
+        if (removed || !changedFiles.isEmpty()) {
+            writeIndex();
+        }
+        logger.info("├── model catalog refreshed: " + changedFiles.size() + " of " + existingPaths.size()
+                + " files read in " + (System.currentTimeMillis() - l) + "ms");
+        return changedFiles.size();
+    }
+
+    /**
+     * Returns all models sorted by their path
+     */
+    public List<ImixsModelInfo> getModels() {
+        return find(info -> true);
+    }
+
+    /**
+     * Returns the model with the given path relative to the root directory or null
+     */
+    public ImixsModelInfo getModel(String path) {
+        return models.get(path);
+    }
+
+    /**
+     * Returns all models with a definitions item containing the given value
+     */
+    public List<ImixsModelInfo> findByDefinitionItem(String itemName, String value) {
+        return find(info -> info.getDefinitionItem(itemName).contains(value));
+    }
+
+    /**
+     * Returns all models using the given plugin class in 'txtplugins'
+     */
+    public List<ImixsModelInfo> findByPlugin(String plugin) {
+        return findByDefinitionItem("txtplugins", plugin);
+    }
+
+    /**
+     * Returns all models with the given 'txtworkflowmodelversion'
+     */
+    public List<ImixsModelInfo> findByModelVersion(String version) {
+        return findByDefinitionItem("txtworkflowmodelversion", version);
+    }
+
+    /**
+     * Returns all models containing a task with the given Imixs task ID
+     */
+    public List<ImixsModelInfo> findByTaskId(String taskId) {
+        return find(info -> info.getTasks().stream().anyMatch(task -> taskId.equals(task.getImixsId())));
+    }
+
+    /**
+     * Returns all models matching the given filter sorted by their path
+     */
+    public List<ImixsModelInfo> find(Predicate<ImixsModelInfo> filter) {
+        return models.values().stream() //
+                .filter(filter) //
+                .sorted(Comparator.comparing(ImixsModelInfo::getPath)) //
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the catalog data of a single model file. If the file can not be
+     * parsed, the method logs a warning and returns null.
+     */
+    private ImixsModelInfo read(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            ImixsModelInfo info = new ImixsModelInfo(getRelativePath(file),
+                    attributes.lastModifiedTime().toMillis(), attributes.size());
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                parse(in, info);
+            }
+            return info;
+        } catch (IOException | XMLStreamException e) {
+            logger.warning("Failed to read model file '" + file + "': " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parses a model file with the {@link ImixsItemReader}. Only the items of the
+     * bpmn2:definitions element are collected. All elements with an
+     * imixs:processid are tasks, all elements with an imixs:activityid are events.
+     */
+    private void parse(InputStream in, ImixsModelInfo info) throws XMLStreamException {
+        itemReader.read(in, new ImixsItemReader.ItemHandler() {
+            @Override
+            public void item(String elementId, String elementType, String itemName, List<String> values) {
+                if ("definitions".equals(elementType)) {
+                    info.putDefinitionItem(itemName, values);
+                }
+            }
+
+            @Override
+            public void element(String elementId, String elementType, Map<String, String> attributes) {
+                String taskId = attributes.get("imixs:processid");
+                if (taskId != null) {
+                    info.addTask(new ImixsModelInfo.ElementInfo(elementId, taskId, attributes.get("name")));
+                }
+                String eventId = attributes.get("imixs:activityid");
+                if (eventId != null) {
+                    info.addEvent(new ImixsModelInfo.ElementInfo(elementId, eventId, attributes.get("name")));
+                }
+            }
+        });
+    }
+
+    private String getRelativePath(Path file) {
+        return root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    /**
+     * Loads the index file. If the file does not exist or has an unknown format,
+     * the catalog starts empty.
+     */
+    private void loadIndex() {
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                logger.warning("Unknown model catalog index format '" + indexFile + "' - index will be rebuilt");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                ImixsModelInfo info = new ImixsModelInfo(readString(in), in.readLong(), in.readLong());
+                int itemCount = in.readInt();
+                for (int j = 0; j < itemCount; j++) {
+                    String itemName = readString(in);
+                    int valueCount = in.readInt();
+                    List<String> values = new ArrayList<>(valueCount);
+                    for (int k = 0; k < valueCount; k++) {
+                        values.add(readString(in));
+                    }
+                    info.putDefinitionItem(itemName, values);
+                }
+                int taskCount = in.readInt();
+                for (int j = 0; j < taskCount; j++) {
+                    info.addTask(new ImixsModelInfo.ElementInfo(readString(in), readString(in), readString(in)));
+                }
+                int eventCount = in.readInt();
+                for (int j = 0; j < eventCount; j++) {
+                    info.addEvent(new ImixsModelInfo.ElementInfo(readString(in), readString(in), readString(in)));
+                }
+                models.put(info.getPath(), info);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to load model catalog index '" + indexFile + "'", e);
+            models.clear();
+        }
+    }
+
+    /**
+     * Writes the index file. The data is written into a temp file first which is
+     * then moved to the index file.
+     */
+    private void writeIndex() throws IOException {
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            Collection<ImixsModelInfo> infos = getModels();
+            out.writeInt(infos.size());
+            for (ImixsModelInfo info : infos) {
+                writeString(out, info.getPath());
+                out.writeLong(info.getLastModified());
+                out.writeLong(info.getSize());
+                out.writeInt(info.getDefinitionItems().size());
+                for (Map.Entry<String, List<String>> item : info.getDefinitionItems().entrySet()) {
+                    writeString(out, item.getKey());
+                    out.writeInt(item.getValue().size());
+                    for (String value : item.getValue()) {
+                        writeString(out, value);
+                    }
+                }
+                writeElements(out, info.getTasks());
+                writeElements(out, info.getEvents());
+            }
+        }
+        try {
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeElements(DataOutputStream out, List<ImixsModelInfo.ElementInfo> elements)
+            throws IOException {
+        out.writeInt(elements.size());
+        for (ImixsModelInfo.ElementInfo element : elements) {
+            writeString(out, element.getId());
+            writeString(out, element.getImixsId());
+            writeString(out, element.getName());
+        }
+    }
+
+    // strings are written with an int length as item values can exceed 64k
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Refreshes the catalog of a directory and prints all models or the models
+     * matching a query.
+     * 
+     * @param args - directory and an optional query 'plugin', 'version' or 'task'
+     *             followed by the value
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.err.println("Usage: ImixsModelCatalog <directory> [plugin|version|task <value>]");
+            System.exit(1);
+        }
+        ImixsModelCatalog catalog = new ImixsModelCatalog(Paths.get(args[0]));
+        catalog.refresh();
+        List<ImixsModelInfo> result;
+        if (args.length == 1) {
+            result = catalog.getModels();
+        } else if ("plugin".equals(args[1])) {
+            result = catalog.findByPlugin(args[2]);
+        } else if ("version".equals(args[1])) {
+            result = catalog.findByModelVersion(args[2]);
+        } else if ("task".equals(args[1])) {
+            result = catalog.findByTaskId(args[2]);
+        } else {
+            System.err.println("Unknown query '" + args[1] + "'");
+            System.exit(1);
+            return;
+        }
+        for (ImixsModelInfo info : result) {
+            System.out.println(info);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/********************************************************************************
+ * Copyright (c) 2022 Imixs Software Solutions GmbH and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ********************************************************************************/
+package org.imixs.openbpmn.workspace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ImixsModelInfo holds the catalog data of a single Imixs model file. This
+ * is the relative file path, the modification time and size of the file, the
+ * items of the bpmn2:definitions element and the id, Imixs ID and name of all
+ * tasks and events.
+ * 
+ * @author rsoika
+ *
+ */
+public class ImixsModelInfo {
+
+    private final String path;
+    private final long lastModified;
+    private final long size;
+    private final Map<String, List<String>> definitionItems = new LinkedHashMap<>();
+    private final List<ElementInfo> tasks = new ArrayList<>();
+    private final List<ElementInfo> events = new ArrayList<>();
+
+    public ImixsModelInfo(String path, long lastModified, long size) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    /**
+     * Returns the file path relative to the catalog root
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the items of the bpmn2:definitions element like
+     * 'txtworkflowmodelversion' or 'txtplugins'
+     */
+    public Map<String, List<String>> getDefinitionItems() {
+        return Collections.unmodifiableMap(definitionItems);
+    }
+
+    /**
+     * Returns the values of a definitions item or an empty list
+     */
+    public List<String> getDefinitionItem(String itemName) {
+        List<String> values = definitionItems.get(itemName);
+        return values == null ? Collections.emptyList() : values;
+    }
+
+    public List<ElementInfo> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    public List<ElementInfo> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Returns the model version defined by the item 'txtworkflowmodelversion'
+     */
+    public String getModelVersion() {
+        List<String> values = getDefinitionItem("txtworkflowmodelversion");
+        return values.isEmpty() ? "" : values.get(0);
+    }
+
+    void putDefinitionItem(String itemName, List<String> values) {
+        definitionItems.put(itemName, values);
+    }
+
+    void addTask(ElementInfo task) {
+        tasks.add(task);
+    }
+
+    void addEvent(ElementInfo event) {
+        events.add(event);
+    }
+
+    @Override
+    public String toString() {
+        return path + " (" + getModelVersion() + ", " + tasks.size() + " tasks, " + events.size() + " events)";
+    }
+
+    /**
+     * Id, Imixs ID (processid or activityid) and name of a task or event
+     */
+    public static class ElementInfo {
+        private final String id;
+        private final String imixsId;
+        private final String name;
+
+        public ElementInfo(String id, String imixsId, String name) {
+            this.id = id;
+            this.imixsId = imixsId == null ? "" : imixsId;
+            this.name = name == null ? "" : name;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getImixsId() {
+            return imixsId;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
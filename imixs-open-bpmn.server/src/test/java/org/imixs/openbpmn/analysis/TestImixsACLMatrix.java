@@ -0,0 +1,124 @@
+package org.imixs.openbpmn.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Test the ImixsACLMatrix
+ *
+ */
+public class TestImixsACLMatrix {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:extensionElements>\n"
+            + "    <imixs:item name=\"txtfieldmapping\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[Team|namteam]]></imixs:value>"
+            + "<imixs:value><![CDATA[Manager|nammanager]]></imixs:value>"
+            + "<imixs:value><![CDATA[Creator|namcreator]]></imixs:value></imixs:item>\n"
+            + "  </bpmn2:extensionElements>\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"100\" name=\"Open\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyupdateacl\" type=\"xs:boolean\">"
+            + "<imixs:value>true</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyownershipfields\" type=\"xs:string\">"
+            + "<imixs:value>namteam</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyaddreadfields\" type=\"xs:string\">"
+            + "<imixs:value>nammanager</imixs:value><imixs:value>namunknown</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyaddwritefields\" type=\"xs:string\">"
+            + "<imixs:value>namcreator</imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:task>\n"
+            + "    <bpmn2:task id=\"Task_2\" imixs:processid=\"200\" name=\"Closed\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\" name=\"reopen\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_2\" imixs:activityid=\"20\" name=\"close\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyupdateacl\" type=\"xs:boolean\">"
+            + "<imixs:value>true</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyownershipfields\" type=\"xs:string\">"
+            + "<imixs:value>nammanager</imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_3\" imixs:activityid=\"30\" name=\"archive\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_1\" sourceRef=\"Task_2\" targetRef=\"Event_1\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_2\" sourceRef=\"Event_1\" targetRef=\"Task_1\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_3\" sourceRef=\"Task_1\" targetRef=\"Event_2\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_4\" sourceRef=\"Event_2\" targetRef=\"Task_2\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_5\" sourceRef=\"Task_1\" targetRef=\"Event_3\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_6\" sourceRef=\"Event_3\" targetRef=\"Task_2\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * The ACL items are translated into bit sets. Values not part of the actor
+     * mapping are ignored.
+     */
+    @Test
+    public void testBitSets() throws Exception {
+        ImixsACLMatrix matrix = ImixsACLMatrix.build(readModel());
+        assertEquals(List.of("namteam", "nammanager", "namcreator"), matrix.getActors());
+        assertEquals(1, matrix.getActorIndex("nammanager"));
+        assertEquals(-1, matrix.getActorIndex("namunknown"));
+        assertEquals(5, matrix.getEntries().size());
+
+        ImixsACLMatrix.Entry task = matrix.getEntry("Task_1");
+        assertTrue(task.isUpdateACL());
+        assertEquals(bits(0), task.getOwner());
+        assertEquals(bits(1), task.getRead());
+        assertEquals(bits(2), task.getWrite());
+        assertEquals("O", task.getAccess(0));
+        assertFalse(matrix.getEntry("Task_2").isUpdateACL());
+        assertNull(matrix.getEntry("Flow_1"));
+    }
+
+    /**
+     * An event without an ACL update applies the ACL of its target task if the
+     * task updates the ACL
+     */
+    @Test
+    public void testEffectiveACL() throws Exception {
+        ImixsACLMatrix matrix = ImixsACLMatrix.build(readModel());
+        assertSame(matrix.getEntry("Task_1"), matrix.getEntry("Event_1").getEffective());
+        assertSame(matrix.getEntry("Event_2"), matrix.getEntry("Event_2").getEffective());
+        // the target task does not update the ACL
+        assertNull(matrix.getEntry("Event_3").getEffective());
+        assertNull(matrix.getEntry("Task_2").getEffective());
+    }
+
+    /**
+     * The CSV export contains the effective access of each actor
+     */
+    @Test
+    public void testExport() throws Exception {
+        ImixsACLMatrix matrix = ImixsACLMatrix.build(readModel());
+        String[] lines = matrix.toCSV().split("\n");
+        assertEquals("id,process,type,imixsid,name,updateacl,source,Team,Manager,Creator", lines[0]);
+        assertEquals(6, lines.length);
+        assertTrue(List.of(lines).contains("Event_1,process_1,event,10,reopen,false,Task_1,O,R,W"));
+        assertTrue(List.of(lines).contains("Event_3,process_1,event,30,archive,false,,,,"));
+    }
+
+    private static BitSet bits(int index) {
+        BitSet result = new BitSet();
+        result.set(index);
+        return result;
+    }
+
+    private BPMNModel readModel() throws Exception {
+        return BPMNModelFactory.read(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,160 @@
+package org.imixs.openbpmn.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.imixs.openbpmn.util.ImixsModelGenerator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the semantic ImixsModelDiff
+ * 
+ */
+public class TestImixsModelDiff {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\""
+            + " xmlns:dc=\"http://www.omg.org/spec/DD/20100524/DC\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n";
+
+    private static final String OLD_MODEL = HEADER
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"1000\" name=\"Create\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"txtworkflowsummary\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[Summary]]></imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"txteditorid\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[form_a]]></imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:task>\n"
+            + "    <bpmn2:task id=\"Task_2\" imixs:processid=\"1100\" name=\"Approve\"/>\n"
+            + "    <bpmn2:task id=\"Task_3\" imixs:processid=\"1200\" name=\"Archive\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\" name=\"submit\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyupdateacl\" type=\"xs:boolean\">"
+            + "<imixs:value><![CDATA[true]]></imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_1\" sourceRef=\"Task_1\" targetRef=\"Event_1\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_2\" sourceRef=\"Event_1\" targetRef=\"Task_2\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "  <bpmndi:BPMNDiagram id=\"Diagram_1\"><bpmndi:BPMNPlane id=\"Plane_1\">"
+            + "<bpmndi:BPMNShape id=\"Shape_1\" bpmnElement=\"Task_1\"><dc:Bounds x=\"10\" y=\"10\"/>"
+            + "</bpmndi:BPMNShape></bpmndi:BPMNPlane></bpmndi:BPMNDiagram>\n"
+            + "</bpmn2:definitions>\n";
+
+    // Task_1: renamed, plain text instead of CDATA, changed and added item
+    // Task_2: recreated with a new id - matched by the processid
+    // Task_3: removed, Task_4: added
+    // Event_1: item removed, Flow_2: recreated with a new id
+    // the diagram coordinates have changed
+    private static final String NEW_MODEL = HEADER
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"1000\" name=\"Create Order\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"txtworkflowsummary\" type=\"xs:string\">"
+            + "<imixs:value>Summary</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"txteditorid\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[form_b]]></imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"txtimageurl\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[order]]></imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:task>\n"
+            + "    <bpmn2:task id=\"Task_9\" imixs:processid=\"1100\" name=\"Approve\"/>\n"
+            + "    <bpmn2:task id=\"Task_4\" imixs:processid=\"1300\" name=\"Review\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\" name=\"submit\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_1\" sourceRef=\"Task_1\" targetRef=\"Event_1\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_7\" sourceRef=\"Event_1\" targetRef=\"Task_9\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "  <bpmndi:BPMNDiagram id=\"Diagram_1\"><bpmndi:BPMNPlane id=\"Plane_1\">"
+            + "<bpmndi:BPMNShape id=\"Shape_1\" bpmnElement=\"Task_1\"><dc:Bounds x=\"99\" y=\"99\"/>"
+            + "</bpmndi:BPMNShape></bpmndi:BPMNPlane></bpmndi:BPMNDiagram>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * Verifies all kinds of differences
+     */
+    @Test
+    public void testDiff() throws IOException {
+        List<String> result = diff(OLD_MODEL, NEW_MODEL);
+        assertEquals(List.of("- task Task_3", "~ task Task_1 @name: Create -> Create Order", "+ task Task_4",
+                "~ task Task_1 txteditorid: [form_a] -> [form_b]", "~ task Task_1 txtimageurl: null -> [order]",
+                "~ intermediateCatchEvent Event_1 keyupdateacl: [true] -> null"), result);
+    }
+
+    /**
+     * Identical models must not report differences
+     */
+    @Test
+    public void testNoDiff() throws IOException {
+        assertTrue(diff(OLD_MODEL, OLD_MODEL).isEmpty());
+        ImixsModelGenerator generator = new ImixsModelGenerator(5).processes(2).tasksPerProcess(20)
+                .eventsPerTask(3).actors(4).aclItems(2);
+        String model = generate(generator);
+        assertTrue(diff(model, model).isEmpty());
+    }
+
+    /**
+     * Models generated with different seeds differ only in item values and
+     * attributes but not in the element structure
+     */
+    @Test
+    public void testGeneratedModels() throws IOException {
+        String oldModel = generate(new ImixsModelGenerator(1).tasksPerProcess(20).eventsPerTask(2).actors(4));
+        String newModel = generate(new ImixsModelGenerator(2).tasksPerProcess(20).eventsPerTask(2).actors(4));
+        List<String> result = diff(oldModel, newModel);
+        assertTrue(result.size() > 0);
+        assertTrue(result.stream().noneMatch(line -> line.startsWith("+") || line.startsWith("-")));
+        assertTrue(result.contains("~ definitions definitions_1 txtworkflowmodelversion: "
+                + "[generated-1-1.0] -> [generated-2-1.0]"));
+    }
+
+    private List<String> diff(String oldModel, String newModel) throws IOException {
+        List<String> result = new ArrayList<>();
+        new ImixsModelDiff().diff(() -> stream(oldModel), () -> stream(newModel),
+                new ImixsModelDiff.DiffHandler() {
+                    @Override
+                    public void elementRemoved(String elementId, String elementType, Map<String, String> attributes) {
+                        result.add("- " + elementType + " " + elementId);
+                    }
+
+                    @Override
+                    public void elementAdded(String elementId, String elementType, Map<String, String> attributes) {
+                        result.add("+ " + elementType + " " + elementId);
+                    }
+
+                    @Override
+                    public void attributeChanged(String elementId, String elementType, String name, String oldValue,
+                            String newValue) {
+                        result.add("~ " + elementType + " " + elementId + " @" + name + ": " + oldValue + " -> "
+                                + newValue);
+                    }
+
+                    @Override
+                    public void itemChanged(String elementId, String elementType, String itemName,
+                            List<String> oldValues, List<String> newValues) {
+                        result.add("~ " + elementType + " " + elementId + " " + itemName + ": " + oldValues + " -> "
+                                + newValues);
+                    }
+                });
+        return result;
+    }
+
+    private static String generate(ImixsModelGenerator generator) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.generate(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ByteArrayInputStream stream(String model) {
+        return new ByteArrayInputStream(model.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,128 @@
+package org.imixs.openbpmn.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.Reader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the ImixsRuleCompiler
+ *
+ */
+public class TestImixsRuleCompiler {
+
+    private final AtomicInteger compilations = new AtomicInteger();
+
+    private final ImixsRuleCompiler compiler = new ImixsRuleCompiler(name -> {
+        switch (name) {
+        case "test":
+            return new TestEngine();
+        case "interpreter":
+            return new TestInterpreter();
+        default:
+            return null;
+        }
+    });
+
+    /**
+     * An unchanged rule is compiled only once per engine
+     */
+    @Test
+    public void testCache() {
+        assertEquals(ImixsRuleCompiler.Status.VALID, compiler.check("test", "a = 1;").join().getStatus());
+        assertSame(compiler.check("test", "a = 1;"), compiler.check(" test ", "a = 1;"));
+        assertEquals(1, compilations.get());
+        // a changed rule or another engine is compiled again
+        assertNotSame(compiler.check("test", "a = 1;"), compiler.check("test", "a = 2;"));
+        assertNotSame(compiler.check("test", "a = 1;"), compiler.check("interpreter", "a = 1;"));
+        compiler.check("test", "a = 2;").join();
+        assertEquals(2, compilations.get());
+    }
+
+    /**
+     * A syntax error is reported with the line number
+     */
+    @Test
+    public void testError() {
+        ImixsRuleCompiler.CompileResult result = compiler.check("test", "a = 1;\nerror").join();
+        assertEquals(ImixsRuleCompiler.Status.ERROR, result.getStatus());
+        assertEquals(2, result.getLineNumber());
+        assertEquals("Unexpected token in <eval> at line number 2", result.getMessage());
+        // the line number is added if the message does not contain it
+        assertEquals("Unexpected token (line 3)",
+                new ImixsRuleCompiler.CompileResult(ImixsRuleCompiler.Status.ERROR, "test", "Unexpected token", 3,
+                        0).getMessage());
+    }
+
+    /**
+     * A rule is not checked if the engine is not available or does not support a
+     * compilation
+     */
+    @Test
+    public void testUnchecked() {
+        assertEquals(ImixsRuleCompiler.Status.UNAVAILABLE, compiler.check("unknown", "a = 1;").join().getStatus());
+        assertEquals(ImixsRuleCompiler.Status.UNCHECKED,
+                compiler.check("interpreter", "a = 1;").join().getStatus());
+        assertEquals(0, compilations.get());
+    }
+
+    /**
+     * A minimal script engine not supporting a compilation
+     */
+    private static class TestInterpreter extends AbstractScriptEngine {
+        @Override
+        public Object eval(String script, ScriptContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object eval(Reader reader, ScriptContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Bindings createBindings() {
+            return new SimpleBindings();
+        }
+
+        @Override
+        public ScriptEngineFactory getFactory() {
+            return null;
+        }
+    }
+
+    /**
+     * A minimal compilable script engine. The statement 'error' is a syntax error.
+     */
+    private class TestEngine extends TestInterpreter implements Compilable {
+        @Override
+        public CompiledScript compile(String script) throws ScriptException {
+            compilations.incrementAndGet();
+            String[] lines = script.split("\n");
+            for (int i = 0; i < lines.length; i++) {
+                if (lines[i].trim().equals("error")) {
+                    throw new ScriptException("Unexpected token", "<eval>", i + 1);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public CompiledScript compile(Reader script) throws ScriptException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.imixs.openbpmn.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.openbpmn.compiler.ImixsXSLCompiler.CompileResult;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the ImixsXSLCompiler
+ *
+ */
+public class TestImixsXSLCompiler {
+
+    private static final String TEMPLATE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n"
+            + "  <xsl:output method=\"text\"/>\n"
+            + "  <xsl:template match=\"/\">Event: <xsl:value-of "
+            + "select=\"/document/item[@name='$lasteventname']/value\"/></xsl:template>\n"
+            + "</xsl:stylesheet>\n";
+
+    private static final String INVALID_TEMPLATE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n"
+            + "  <xsl:template match=\"/\">\n"
+            + "    <xsl:value-of select=\"/document\">\n"
+            + "  </xsl:template>\n"
+            + "</xsl:stylesheet>\n";
+
+    /**
+     * Only content in the XSL namespace is a template
+     */
+    @Test
+    public void testIsXSLTemplate() {
+        assertTrue(ImixsXSLCompiler.isXSLTemplate(TEMPLATE));
+        assertFalse(ImixsXSLCompiler.isXSLTemplate("<p>Hello <itemvalue>namcreator</itemvalue></p>"));
+        assertFalse(ImixsXSLCompiler.isXSLTemplate(null));
+    }
+
+    /**
+     * A template is compiled once. The same content returns the cached result.
+     */
+    @Test
+    public void testCompile() {
+        ImixsXSLCompiler compiler = ImixsXSLCompiler.getInstance();
+        CompileResult result = compiler.compile(TEMPLATE);
+        assertTrue(result.isValid());
+        assertEquals(ImixsXSLCompiler.hash(TEMPLATE), result.getHash());
+        assertSame(result, compiler.compile(new String(TEMPLATE)));
+        assertNotSame(result, compiler.compile(TEMPLATE + "\n"));
+    }
+
+    /**
+     * A template which is not well-formed provides the error with the line number
+     */
+    @Test
+    public void testError() {
+        CompileResult result = ImixsXSLCompiler.getInstance().compile(INVALID_TEMPLATE);
+        assertFalse(result.isValid());
+        assertTrue(result.getError() != null && !result.getError().isEmpty());
+        assertTrue(result.getLineNumber() > 0, result.getErrorMessage());
+        assertTrue(result.getErrorMessage().endsWith("(line " + result.getLineNumber() + ")"));
+    }
+
+    /**
+     * The preview is rendered against the sample workitem on the background
+     * thread and cached by the template and the sample
+     */
+    @Test
+    public void testPreview() throws Exception {
+        ImixsXSLCompiler compiler = ImixsXSLCompiler.getInstance();
+        String sample = ImixsXSLCompiler.getSampleWorkitem("10", "submit", "1.0.0");
+        CompletableFuture<String> preview = compiler.renderPreview(TEMPLATE, sample);
+        assertEquals("Event: submit", preview.get(5, TimeUnit.SECONDS));
+        assertSame(preview, compiler.renderPreview(TEMPLATE, sample));
+        assertEquals("Event: submit", compiler.getPreview(TEMPLATE, sample));
+
+        String otherSample = ImixsXSLCompiler.getSampleWorkitem("20", "approve", "1.0.0");
+        assertEquals("Event: approve", compiler.renderPreview(TEMPLATE, otherSample).get(5, TimeUnit.SECONDS));
+
+        // an invalid template renders the compile error
+        CompletableFuture<String> error = compiler.renderPreview(INVALID_TEMPLATE, sample);
+        assertEquals(compiler.compile(INVALID_TEMPLATE).getErrorMessage(), error.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * The cache evicts the least recently used entry
+     */
+    @Test
+    public void testCache() {
+        Map<String, Integer> cache = ImixsXSLCompiler.createCache();
+        for (int i = 0; i < 256; i++) {
+            cache.put("key-" + i, i);
+        }
+        // access the first entry so the second one is evicted
+        assertEquals(0, cache.get("key-0"));
+        cache.put("key-256", 256);
+        assertEquals(256, cache.size());
+        assertTrue(cache.containsKey("key-0"));
+        assertFalse(cache.containsKey("key-1"));
+        assertTrue(cache.containsKey("key-256"));
+    }
+}
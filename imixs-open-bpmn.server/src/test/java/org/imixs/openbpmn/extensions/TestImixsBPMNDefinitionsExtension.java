@@ -0,0 +1,71 @@
+package org.imixs.openbpmn.extensions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Test the Search tab of the ImixsBPMNDefinitionsExtension
+ *
+ */
+public class TestImixsBPMNDefinitionsExtension {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"100\" name=\"Task 1\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyownershipfields\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[namTeam]]></imixs:value><imixs:value>namManager</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyaddreadfields\" type=\"xs:string\">"
+            + "<imixs:value>namTeam</imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * The search lists each element with the matching items
+     */
+    @Test
+    public void testValueUsages() throws Exception {
+        BPMNModel model = readModel(MODEL);
+        assertEquals("Event_1: keyaddreadfields, keyownershipfields" + System.lineSeparator(),
+                ImixsBPMNDefinitionsExtension.getValueUsages(model, "namteam"));
+        assertEquals("Task_1: @imixs:processid" + System.lineSeparator(),
+                ImixsBPMNDefinitionsExtension.getValueUsages(model, "100"));
+        assertEquals("", ImixsBPMNDefinitionsExtension.getValueUsages(model, "unknown"));
+    }
+
+    /**
+     * The search result is limited
+     */
+    @Test
+    public void testMaxResults() throws Exception {
+        StringBuilder model = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+                + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+                + "  <bpmn2:process id=\"process_1\">\n");
+        int tasks = ImixsBPMNDefinitionsExtension.MAX_SEARCH_RESULTS + 5;
+        for (int i = 0; i < tasks; i++) {
+            model.append("    <bpmn2:task id=\"Task_" + i + "\" imixs:processid=\"100\"/>\n");
+        }
+        model.append("  </bpmn2:process>\n</bpmn2:definitions>\n");
+        List<String> lines = ImixsBPMNDefinitionsExtension.getValueUsages(readModel(model.toString()), "100")
+                .lines().toList();
+        assertEquals(ImixsBPMNDefinitionsExtension.MAX_SEARCH_RESULTS + 1, lines.size());
+        assertEquals("... 5 more elements", lines.get(lines.size() - 1));
+    }
+
+    private BPMNModel readModel(String xml) throws Exception {
+        return BPMNModelFactory.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,116 @@
+package org.imixs.openbpmn.extensions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the streaming ImixsItemReader
+ * 
+ */
+public class TestImixsItemReader {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:extensionElements>\n"
+            + "    <imixs:item name=\"txtworkflowmodelversion\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[1.0.0]]></imixs:value></imixs:item>\n"
+            + "    <imixs:item name=\"txtfieldmapping\" type=\"xs:string\">\n"
+            + "      <imixs:value><![CDATA[Owner|namowner]]></imixs:value>\n"
+            + "      <imixs:value><![CDATA[Team|namteam]]></imixs:value>\n"
+            + "      <imixs:value><![CDATA[Owner (old)|namowner]]></imixs:value>\n"
+            + "    </imixs:item>\n"
+            + "  </bpmn2:extensionElements>\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"1000\" name=\"Task 1\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"txtworkflowsummary\" type=\"xs:string\">"
+            + "<imixs:value>plain &amp; text</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyownershipfields\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[namowner]]></imixs:value>"
+            + "<imixs:value><![CDATA[namowner]]></imixs:value>"
+            + "<imixs:value>  <![CDATA[namteam]]>  </imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:task>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\" name=\"submit\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"rtfresultlog\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[<b>submitted</b>]]></imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * Verifies the element ids and types and the decoding of the item values
+     */
+    @Test
+    public void testReadItems() throws XMLStreamException {
+        List<String> types = new ArrayList<>();
+        Map<String, Map<String, List<String>>> items = new HashMap<>();
+        new ImixsItemReader().read(stream(), (elementId, elementType, itemName, values) -> {
+            types.add(elementId + ":" + elementType);
+            items.computeIfAbsent(elementId, k -> new HashMap<>()).put(itemName, values);
+        });
+
+        assertEquals(List.of("definitions_1:definitions", "definitions_1:definitions", "Task_1:task",
+                "Task_1:task", "Event_1:intermediateCatchEvent"), types);
+        assertEquals(List.of("1.0.0"), items.get("definitions_1").get("txtworkflowmodelversion"));
+        // label|value duplicates are removed
+        assertEquals(List.of("Owner|namowner", "Team|namteam"), items.get("definitions_1").get("txtfieldmapping"));
+        // plain text with an entity
+        assertEquals(List.of("plain & text"), items.get("Task_1").get("txtworkflowsummary"));
+        // duplicates are removed, the CDATA section is preferred over the text
+        assertEquals(List.of("namowner", "namteam"), items.get("Task_1").get("keyownershipfields"));
+        assertEquals(List.of("<b>submitted</b>"), items.get("Event_1").get("rtfresultlog"));
+    }
+
+    /**
+     * Verifies the element callback and the item name filter
+     */
+    @Test
+    public void testElementsAndFilter() throws XMLStreamException {
+        Map<String, Map<String, String>> elements = new HashMap<>();
+        Map<String, Map<String, List<String>>> items = new HashMap<>();
+        new ImixsItemReader().itemNames(Set.of("keyownershipfields")).read(stream(),
+                new ImixsItemReader.ItemHandler() {
+                    @Override
+                    public void item(String elementId, String elementType, String itemName,
+                            List<String> values) {
+                        items.computeIfAbsent(elementId, k -> new HashMap<>()).put(itemName, values);
+                    }
+
+                    @Override
+                    public void element(String elementId, String elementType, Map<String, String> attributes) {
+                        elements.put(elementId, attributes);
+                    }
+                });
+
+        assertEquals(4, elements.size());
+        assertEquals("1000", elements.get("Task_1").get("imixs:processid"));
+        assertEquals("Task 1", elements.get("Task_1").get("name"));
+        assertEquals("10", elements.get("Event_1").get("imixs:activityid"));
+        assertFalse(elements.get("process_1").containsKey("imixs:processid"));
+
+        assertEquals(1, items.size());
+        assertEquals(List.of("namowner", "namteam"), items.get("Task_1").get("keyownershipfields"));
+        assertNull(items.get("definitions_1"));
+    }
+
+    private ByteArrayInputStream stream() {
+        return new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8));
+    }
+}
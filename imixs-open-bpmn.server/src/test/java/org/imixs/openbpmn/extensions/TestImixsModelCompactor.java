@@ -0,0 +1,99 @@
+package org.imixs.openbpmn.extensions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Test the ImixsModelCompactor
+ * 
+ */
+public class TestImixsModelCompactor {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" xmlns:open-bpmn=\"http://open-bpmn.org/XMLSchema\""
+            + " id=\"definitions_1\">\n"
+            + "  <bpmn2:extensionElements>\n"
+            + "    <imixs:item name=\"txtworkflowmodelversion\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[1.0.0]]></imixs:value></imixs:item>\n"
+            + "  </bpmn2:extensionElements>\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"1000\" name=\"Task 1\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"txtworkflowsummary\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[]]></imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyownershipfields\" type=\"xs:string\">\n"
+            + "          <imixs:value><![CDATA[namowner]]></imixs:value>\n"
+            + "          <imixs:value><![CDATA[namteam]]></imixs:value>\n"
+            + "          <imixs:value><![CDATA[namowner]]></imixs:value>\n"
+            + "        </imixs:item>\n"
+            + "        <imixs:item name=\"txtform\" type=\"xs:string\">"
+            + "<imixs:value open-bpmn:file-link=\"file://form.xml\"></imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"txtimage\" type=\"xs:string\">"
+            + "<imixs:value open-bpmn:file-link=\"none\"><![CDATA[logo]]></imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:task>\n"
+            + "    <bpmn2:task id=\"Task_2\" name=\"Task 2\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyaddwritefields\" type=\"xs:string\"><imixs:value/></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:task>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * Removes empty items and extensions, duplicate values and stale file links
+     * without changing the values read by the ImixsItemReader
+     */
+    @Test
+    public void testCompact() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document doc = factory.newDocumentBuilder()
+                .parse(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+
+        ImixsModelCompactor compactor = ImixsModelCompactor.compact(doc);
+        assertEquals(2, compactor.getItems());
+        assertEquals(1, compactor.getValues());
+        assertEquals(1, compactor.getFileLinks());
+        assertEquals(1, compactor.getExtensionElements());
+
+        String xml = serialize(doc);
+        assertTrue(compactor.getBytesSaved() > 0);
+        assertEquals(MODEL.length() - compactor.getBytesSaved(), xml.length(), 40);
+        assertFalse(xml.contains("txtworkflowsummary"));
+        assertFalse(xml.contains("keyaddwritefields"));
+        assertFalse(xml.contains("\"none\""));
+        assertTrue(xml.contains("file://form.xml"));
+
+        Map<String, Map<String, List<String>>> elements = new ImixsItemReader()
+                .readAll(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(List.of("namowner", "namteam"), elements.get("Task_1").get("keyownershipfields"));
+        assertEquals(List.of("logo"), elements.get("Task_1").get("txtimage"));
+        assertEquals(List.of("1.0.0"), elements.get("definitions_1").get("txtworkflowmodelversion"));
+
+        // a second run changes nothing
+        assertFalse(ImixsModelCompactor.compact(doc).isModified());
+    }
+
+    private static String serialize(Document doc) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(writer));
+        return writer.toString();
+    }
+}
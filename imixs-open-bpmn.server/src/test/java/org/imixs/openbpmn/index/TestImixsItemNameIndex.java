@@ -0,0 +1,88 @@
+package org.imixs.openbpmn.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Test the ImixsItemNameIndex
+ *
+ */
+public class TestImixsItemNameIndex {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"100\" name=\"Task 1\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyownershipfields\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[namteam]]></imixs:value><imixs:value>nammanager</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"txtactivityresult\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[<item name=\"comment\">x</item>]]></imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_2\" imixs:activityid=\"20\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyaddwritefields\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[namteam]]></imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * The index is built with one pass over the model
+     */
+    @Test
+    public void testUsages() throws Exception {
+        BPMNModel model = readModel();
+        ImixsItemNameIndex index = ImixsItemNameIndex.getInstance(model);
+        assertEquals(List.of("comment", "nammanager", "namteam"), index.complete("", 10));
+        assertEquals(List.of("nammanager", "namteam"), index.complete("nam", 10));
+        assertEquals("[Event_1:keyownershipfields, Event_2:keyaddwritefields]",
+                index.findUsages("namteam").toString());
+        assertEquals("[Event_1:txtactivityresult]", index.findUsages("comment").toString());
+    }
+
+    /**
+     * The index is updated by the item change listener
+     */
+    @Test
+    public void testItemChanged() throws Exception {
+        BPMNModel model = readModel();
+        ImixsItemNameIndex index = ImixsItemNameIndex.getInstance(model);
+        assertEquals(3, index.size());
+        ImixsExtensionUtil.setItemValueList(model, model.findElementNodeById("Event_1").getElementNode(),
+                "keyownershipfields", "xs:string", List.of("namowner"), null);
+        assertEquals(List.of("namowner", "namteam"), index.complete("nam", 10));
+        assertEquals("[Event_2:keyaddwritefields]", index.findUsages("namteam").toString());
+    }
+
+    /**
+     * The item names of a deleted element are removed
+     */
+    @Test
+    public void testDeletedElement() throws Exception {
+        BPMNModel model = readModel();
+        ImixsItemNameIndex index = ImixsItemNameIndex.getInstance(model);
+        assertEquals(3, index.size());
+        model.openDefaultProcess().deleteEvent("Event_1");
+        assertEquals(List.of("namteam"), index.complete("", 10));
+        assertTrue(index.findUsages("comment").isEmpty());
+        assertEquals("[Event_2:keyaddwritefields]", index.findUsages("namteam").toString());
+    }
+
+    private BPMNModel readModel() throws Exception {
+        return BPMNModelFactory.read(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+    }
+}
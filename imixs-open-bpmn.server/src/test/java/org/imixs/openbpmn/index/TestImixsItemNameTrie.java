@@ -0,0 +1,81 @@
+package org.imixs.openbpmn.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the ImixsItemNameTrie and the item name extraction of the
+ * ImixsItemNameIndex
+ * 
+ */
+public class TestImixsItemNameTrie {
+
+    /**
+     * Completes names in lexicographical order and counts usages
+     */
+    @Test
+    public void testComplete() {
+        ImixsItemNameTrie trie = new ImixsItemNameTrie();
+        trie.add("txtname");
+        trie.add("txtsubject");
+        trie.add("namowner");
+        trie.add("txt");
+        trie.add("txtname");
+        assertEquals(4, trie.size());
+        assertEquals(2, trie.count("txtname"));
+        assertEquals(List.of("txt", "txtname", "txtsubject"), trie.complete("txt", 10));
+        assertEquals(List.of("txt", "txtname"), trie.complete("txt", 2));
+        assertEquals(List.of("namowner"), trie.complete("n", 10));
+        assertTrue(trie.complete("x", 10).isEmpty());
+
+        trie.remove("txtname");
+        assertEquals(1, trie.count("txtname"));
+        trie.remove("txtname");
+        trie.remove("txt");
+        assertEquals(List.of("txtsubject"), trie.complete("txt", 10));
+        assertEquals(2, trie.size());
+        // nodes are reused
+        trie.add("txtname");
+        assertEquals(List.of("txtname", "txtsubject"), trie.complete("t", 10));
+    }
+
+    /**
+     * A completion on thousands of names is answered in less than a millisecond
+     */
+    @Test
+    public void testCompletionTime() {
+        ImixsItemNameTrie trie = new ImixsItemNameTrie();
+        for (int i = 0; i < 10000; i++) {
+            trie.add("item." + Integer.toString(i * 7919, 36));
+        }
+        for (int i = 0; i < 1000; i++) {
+            trie.complete("item." + (i % 36), 20);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(20, trie.complete("item.", 20).size());
+        }
+        assertTrue((System.nanoTime() - start) / 1000 < 1_000_000);
+    }
+
+    /**
+     * Item names are extracted from references, mappings, results, rules and
+     * placeholders
+     */
+    @Test
+    public void testExtractItemNames() {
+        assertEquals(Set.of("namowner"), ImixsItemNameIndex.extractItemNames("keyownershipfields", List.of("namowner")));
+        assertEquals(Set.of("$creator"), ImixsItemNameIndex.extractItemNames("txtfieldmapping", List.of("Creator|$creator")));
+        assertEquals(Set.of("comment", "txtname"), ImixsItemNameIndex.extractItemNames("txtactivityresult",
+                List.of("<item name=\"comment\">by <itemvalue>txtname</itemvalue></item>")));
+        assertEquals(Set.of("_amount", "txtname", "user.name", "namowner"), ImixsItemNameIndex.extractItemNames("txtbusinessrule",
+                List.of("var a = workitem._amount[0]; workitem['user.name']; workitem.getItemValueString('txtname'); workitem.hasItem('namowner')")));
+        assertEquals(Set.of("txtsubject"), ImixsItemNameIndex.extractFormItems(
+                "<imixs-form><imixs-form-section><imixs-form-item name=\"txtsubject\" type=\"text\"/></imixs-form-section></imixs-form>"));
+    }
+}
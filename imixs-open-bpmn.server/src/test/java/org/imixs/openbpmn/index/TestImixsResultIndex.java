@@ -0,0 +1,71 @@
+package org.imixs.openbpmn.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the tolerant parser of the ImixsResultIndex
+ * 
+ */
+public class TestImixsResultIndex {
+
+    /**
+     * Parses valid item definitions. Placeholders and other tags are ignored.
+     */
+    @Test
+    public void testParse() {
+        ImixsResultIndex.ResultDefinition result = ImixsResultIndex.parse(
+                "<item name=\"comment\">Hello <itemvalue>$creator</itemvalue></item>\n"
+                        + "<validation name=\"x\">ignored</validation>\n"
+                        + "<item name='counter' type=\"integer\">5</item>\n"
+                        + "<item name=\"empty\" />\n<item ignore=\"true\" name=\"action\">home</item>");
+        assertTrue(result.getProblems().isEmpty());
+        assertEquals(4, result.getItems().size());
+        assertEquals("Hello <itemvalue>$creator</itemvalue>", result.getItems().get(0).getValue());
+        assertEquals("integer", result.getItems().get(1).getType());
+        assertEquals("", result.getItems().get(2).getValue());
+        assertTrue(result.getItems().get(3).isIgnore());
+    }
+
+    /**
+     * Malformed fragments are reported and the parser continues
+     */
+    @Test
+    public void testMalformed() {
+        ImixsResultIndex.ResultDefinition result = ImixsResultIndex.parse(
+                "<item name=\"a\">1\n<item type=\"string\">x</item>\n<item name=b>2</item>\n"
+                        + "<item name=\"c\" type=\"integer\">abc</item>\n<item name=\"d\" type=\"decimal\">1</item>\n"
+                        + "<item name=\"e\">last");
+        assertEquals(5, result.getItems().size());
+        assertEquals(6, result.getProblems().size());
+        // missing </item> of 'a'
+        assertEquals(1, result.getProblems().get(0).getLine());
+        assertTrue(result.getProblems().get(0).isError());
+        // missing name
+        assertEquals(2, result.getProblems().get(1).getLine());
+        // invalid integer and unknown type are warnings
+        assertFalse(result.getProblems().get(3).isError());
+        assertFalse(result.getProblems().get(4).isError());
+        assertEquals("last", result.getItems().get(4).getValue());
+    }
+
+    /**
+     * Whitespace around the '=' of an attribute is valid XML
+     */
+    @Test
+    public void testWhitespaceAroundEquals() {
+        ImixsResultIndex.ResultDefinition result = ImixsResultIndex.parse(
+                "<item name = \"comment\" type =\"string\">a</item>\n<item name=\n'counter'>1</item>\n"
+                        + "<item name>x</item>");
+        assertEquals(2, result.getItems().size());
+        assertEquals("comment", result.getItems().get(0).getName());
+        assertEquals("string", result.getItems().get(0).getType());
+        assertEquals("counter", result.getItems().get(1).getName());
+        // an attribute without a value is still reported
+        assertEquals(2, result.getProblems().size());
+        assertEquals(4, result.getProblems().get(0).getLine());
+    }
+}
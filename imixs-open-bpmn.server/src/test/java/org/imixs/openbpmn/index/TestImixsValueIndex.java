@@ -0,0 +1,119 @@
+package org.imixs.openbpmn.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Test the ImixsValueIndex
+ *
+ */
+public class TestImixsValueIndex {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"100\" name=\"Task 1\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"txtworkflowsummary\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[Ticket of <itemvalue>namcreator</itemvalue>]]></imixs:value>\n"
+            + "        </imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:task>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyownershipfields\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[namTeam]]></imixs:value><imixs:value>namManager</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"txtmailsubject\" type=\"xs:string\">"
+            + "<imixs:value><![CDATA[New ticket for info@imixs.com.]]></imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * Values are split into lower case tokens. Item names, class names and mail
+     * addresses are kept as one token.
+     */
+    @Test
+    public void testTokenize() {
+        assertEquals(List.of("mail", "to", "info@imixs.com"),
+                ImixsValueIndex.tokenize("Mail to info@imixs.com.", false));
+        assertEquals(List.of("org.imixs.workflow.engine.plugins.mailplugin", "$creator"),
+                ImixsValueIndex.tokenize("org.imixs.workflow.engine.plugins.MailPlugin, $creator", false));
+        // the wildcard is kept in a query only
+        assertEquals(List.of("nam*"), ImixsValueIndex.tokenize("nam*", true));
+        assertEquals(List.of("nam"), ImixsValueIndex.tokenize("nam*", false));
+    }
+
+    /**
+     * A search returns the elements containing all tokens with the matching items
+     */
+    @Test
+    public void testSearch() throws Exception {
+        BPMNModel model = readModel();
+        ImixsValueIndex index = ImixsValueIndex.getInstance(model);
+        assertEquals(Map.of("Event_1", Set.of("keyownershipfields")), index.search("NAMTEAM"));
+        // CDATA values and plain text values
+        assertEquals(Map.of("Event_1", Set.of("keyownershipfields")), index.search("nammanager"));
+        assertEquals(Map.of("Task_1", Set.of("txtworkflowsummary")), index.search("namcreator"));
+        // all tokens must match
+        assertEquals(Set.of("Task_1", "Event_1"), index.search("ticket").keySet());
+        assertEquals(Map.of("Event_1", Set.of("txtmailsubject")), index.search("ticket info@imixs.com"));
+        // prefix search
+        assertEquals(Map.of("Event_1", Set.of("keyownershipfields")), index.search("namm*"));
+        assertEquals(Set.of("Task_1", "Event_1"), index.search("nam*").keySet());
+        // attributes
+        assertEquals(Map.of("Task_1", Set.of(ImixsValueIndex.ATTRIBUTE_PREFIX + "processid")),
+                index.search("100"));
+        assertTrue(index.search("unknown").isEmpty());
+    }
+
+    /**
+     * The index is updated by the item change listener
+     */
+    @Test
+    public void testUpdate() throws Exception {
+        BPMNModel model = readModel();
+        ImixsValueIndex index = ImixsValueIndex.getInstance(model);
+        assertEquals(1, index.search("namteam").size());
+        ImixsExtensionUtil.setItemValueList(model, model.findElementNodeById("Event_1").getElementNode(),
+                "keyownershipfields", "xs:string", List.of("namOwner"), null);
+        assertTrue(index.search("namteam").isEmpty());
+        assertEquals(Map.of("Event_1", Set.of("keyownershipfields")), index.search("namowner"));
+        // attribute changes
+        ImixsExtensionUtil.setExtensionAttribute(model.findElementNodeById("Task_1"), "processid", "200");
+        assertTrue(index.search("100").isEmpty());
+        assertEquals(Set.of("Task_1"), index.search("200").keySet());
+    }
+
+    /**
+     * The postings of a deleted element are removed
+     */
+    @Test
+    public void testDeletedElement() throws Exception {
+        BPMNModel model = readModel();
+        ImixsValueIndex index = ImixsValueIndex.getInstance(model);
+        int size = index.size();
+        assertEquals(Set.of("Task_1", "Event_1"), index.search("ticket").keySet());
+        model.openDefaultProcess().deleteEvent("Event_1");
+        assertEquals(Set.of("Task_1"), index.search("ticket").keySet());
+        assertTrue(index.search("namteam").isEmpty());
+        assertTrue(index.size() < size);
+    }
+
+    private BPMNModel readModel() throws Exception {
+        return BPMNModelFactory.read(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,57 @@
+package org.imixs.openbpmn.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the LatencyHistogram and the Prometheus output of the ImixsMetrics
+ * registry
+ * 
+ */
+public class TestImixsMetrics {
+
+    /**
+     * Each bucket index must map back to a value range containing the value
+     */
+    @Test
+    public void testBucketIndex() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestEquivalentValue(index - 1) < value);
+            }
+        }
+    }
+
+    /**
+     * The quantiles must be within the precision of 12.5%
+     */
+    @Test
+    public void testQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+        long[] quantiles = histogram.getQuantiles(0.5, 0.99, 1.0);
+        assertEquals(10000, histogram.getCount());
+        assertEquals(5_000_000, quantiles[0], 5_000_000 * 0.125);
+        assertEquals(9_900_000, quantiles[1], 9_900_000 * 0.125);
+        assertEquals(10_000_000, quantiles[2]);
+    }
+
+    @Test
+    public void testScrape() {
+        ImixsMetrics metrics = new ImixsMetrics();
+        metrics.record("ImixsBPMNTaskExtension", "buildPropertiesForm", 2_000_000);
+        metrics.recordError("ImixsBPMNTaskExtension", "buildPropertiesForm");
+        String result = metrics.scrape();
+        assertTrue(result.contains("# TYPE imixs_operation_duration_seconds summary"));
+        assertTrue(result.contains(
+                "imixs_operation_duration_seconds_count{component=\"ImixsBPMNTaskExtension\",operation=\"buildPropertiesForm\"} 1"));
+        assertTrue(result.contains(
+                "imixs_operation_errors_total{component=\"ImixsBPMNTaskExtension\",operation=\"buildPropertiesForm\"} 1"));
+    }
+}
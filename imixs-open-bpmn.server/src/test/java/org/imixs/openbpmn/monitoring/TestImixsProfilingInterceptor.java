@@ -0,0 +1,66 @@
+package org.imixs.openbpmn.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+import org.openbpmn.extensions.BPMNElementExtension;
+import org.openbpmn.extensions.BPMNExtension;
+import org.openbpmn.extensions.BPMNModelExtension;
+
+/**
+ * Test the ImixsProfilingInterceptor and the method matcher of the
+ * ImixsMonitoringModule
+ *
+ */
+public class TestImixsProfilingInterceptor {
+
+    /**
+     * The allocation is sampled for every n-th call
+     */
+    @Test
+    public void testSampleRate() {
+        ImixsProfilingInterceptor interceptor = new ImixsProfilingInterceptor(100, 3);
+        StringBuilder samples = new StringBuilder();
+        for (int i = 0; i < 9; i++) {
+            samples.append(interceptor.isSampled() ? 'x' : '-');
+        }
+        assertEquals("--x--x--x", samples.toString());
+        // a sampled call returns the allocated bytes of the thread
+        interceptor.isSampled();
+        interceptor.isSampled();
+        assertTrue(interceptor.begin() >= 0);
+        assertEquals(-1, interceptor.begin());
+
+        ImixsProfilingInterceptor disabled = new ImixsProfilingInterceptor(100, 0);
+        for (int i = 0; i < 9; i++) {
+            assertFalse(disabled.isSampled());
+        }
+    }
+
+    /**
+     * All methods declared by the extension interfaces are matched, other methods
+     * of an extension are not.
+     */
+    @Test
+    public void testExtensionInterfaceMatcher() throws Exception {
+        ImixsMonitoringModule.ExtensionInterfaceMatcher matcher = new ImixsMonitoringModule.ExtensionInterfaceMatcher();
+        for (Class<?> extensionInterface : new Class<?>[] { BPMNElementExtension.class,
+                BPMNModelExtension.class, BPMNExtension.class }) {
+            for (Method method : extensionInterface.getMethods()) {
+                assertTrue(matcher.matches(method), method.toString());
+            }
+        }
+        assertFalse(matcher.matches(TestImixsProfilingInterceptor.class.getMethod("onLoad", String.class)));
+        assertFalse(matcher.matches(Object.class.getMethod("toString")));
+    }
+
+    /**
+     * A helper method with the name of an extension method
+     */
+    public void onLoad(String path) {
+    }
+}
@@ -0,0 +1,186 @@
+package org.imixs.openbpmn.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.imixs.openbpmn.scheduler.ImixsSchedulerForecast.Histogram;
+import org.imixs.openbpmn.scheduler.ImixsSchedulerForecast.ScheduledEvent;
+import org.imixs.openbpmn.scheduler.ImixsSchedulerForecast.Workitem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test the ImixsSchedulerForecast
+ *
+ */
+public class TestImixsSchedulerForecast {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"100\" name=\"Open\"/>\n"
+            + "    <bpmn2:task id=\"Task_2\" imixs:processid=\"200\" name=\"Review\"/>\n"
+            + "    <bpmn2:exclusiveGateway id=\"Gateway_1\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\" name=\"remind\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyscheduledactivity\" type=\"xs:string\">"
+            + "<imixs:value>1</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"numactivitydelay\" type=\"xs:string\">"
+            + "<imixs:value>2</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyactivitydelayunit\" type=\"xs:string\">"
+            + "<imixs:value>2</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keyscheduledbaseobject\" type=\"xs:string\">"
+            + "<imixs:value>4</imixs:value></imixs:item>\n"
+            + "        <imixs:item name=\"keytimecomparefield\" type=\"xs:string\">"
+            + "<imixs:value>datdue</imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_2\" imixs:activityid=\"20\" name=\"submit\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_1\" sourceRef=\"Task_1\" targetRef=\"Gateway_1\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_2\" sourceRef=\"Task_2\" targetRef=\"Gateway_1\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_3\" sourceRef=\"Gateway_1\" targetRef=\"Event_1\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_4\" sourceRef=\"Task_1\" targetRef=\"Event_2\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 10, 19, 8, 0);
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Only scheduled events are read. The tasks are found across gateways.
+     */
+    @Test
+    public void testReadScheduledEvents() throws IOException {
+        ImixsSchedulerForecast forecast = ImixsSchedulerForecast.read(
+                new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)), new ImixsWorkdayCalendar());
+        assertEquals(1, forecast.getScheduledEvents().size());
+        ScheduledEvent event = forecast.getScheduledEvents().get(0);
+        assertEquals("Event_1", event.getElementId());
+        assertEquals("10", event.getActivityId());
+        assertEquals(2, event.getDelay());
+        assertEquals(ImixsWorkdayCalendar.UNIT_HOURS, event.getUnit());
+        assertEquals(ImixsSchedulerForecast.BASE_REFERENCE, event.getBaseObject());
+        assertEquals("datdue", event.getTimeCompareField());
+        assertEquals(Set.of("100", "200"), event.getTaskIds());
+    }
+
+    /**
+     * Due dates are counted per bucket. Due dates before the start fall into the
+     * first bucket, due dates after the end are counted as later.
+     */
+    @Test
+    public void testForecast() {
+        ImixsSchedulerForecast forecast = new ImixsSchedulerForecast(List.of(remindEvent()),
+                new ImixsWorkdayCalendar());
+        Stream<Workitem> population = Stream.of( //
+                workitem("100", FROM.minusMinutes(90)), // due 08:30
+                workitem("100", FROM.minusMinutes(50)), // due 09:10
+                workitem("100", FROM.minusHours(5)), // overdue
+                workitem("100", FROM.plusHours(12)), // after the last bucket
+                workitem("100", null), // no time base
+                workitem("300", FROM)); // no scheduled event
+        Histogram histogram = forecast.forecast(population, FROM.plusMinutes(15), ChronoUnit.HOURS, 4);
+        assertEquals(FROM, histogram.getBucketStart(0));
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(1, histogram.getCount(1));
+        assertEquals(0, histogram.getCount(2));
+        assertEquals(1, histogram.getLater());
+        assertEquals(1, histogram.getUnscheduled());
+        assertEquals(4, histogram.getEventCount(forecast.getScheduledEvents().get(0)));
+        assertEquals(0, histogram.getPeakBucket());
+    }
+
+    /**
+     * The parallel forecast of a synthetic population matches a sequential
+     * computation of the due dates
+     */
+    @Test
+    public void testParallelHistogram() {
+        // the reference dates spread the due dates around the start of the forecast
+        ScheduledEvent event = new ScheduledEvent("Event_1", "10", "remind", 2, ImixsWorkdayCalendar.UNIT_HOURS,
+                ImixsSchedulerForecast.BASE_REFERENCE, "datdue", Set.of("100"));
+        ImixsSchedulerForecast forecast = new ImixsSchedulerForecast(List.of(event), new ImixsWorkdayCalendar());
+        List<String> taskIds = List.of("100", "300");
+        Histogram histogram = forecast.forecast(
+                forecast.syntheticPopulation(20000, taskIds, FROM, Duration.ofDays(1), 42), FROM, ChronoUnit.HOURS,
+                24);
+
+        long[] expected = new long[24];
+        long later = 0;
+        for (Workitem workitem : forecast.syntheticPopulation(20000, taskIds, FROM, Duration.ofDays(1), 42)
+                .collect(Collectors.toList())) {
+            if (!"100".equals(workitem.getTaskId())) {
+                continue;
+            }
+            long bucket = Math.max(0, ChronoUnit.HOURS.between(FROM, forecast.getDueDate(event, workitem)));
+            if (bucket < expected.length) {
+                expected[(int) bucket]++;
+            } else {
+                later++;
+            }
+        }
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], histogram.getCount(i), "bucket " + i);
+        }
+        assertEquals(later, histogram.getLater());
+        assertTrue(histogram.getCount(12) > 0 && later > 0);
+    }
+
+    /**
+     * The population is read from a CSV file. Empty and invalid dates are
+     * ignored.
+     */
+    @Test
+    public void testReadPopulation() throws IOException {
+        Path csvFile = tempDir.resolve("population.csv");
+        Files.write(csvFile, List.of("datdue, $taskid", "2026-10-19T08:30,100", "", "invalid, 200", ",300"));
+        List<Workitem> workitems;
+        try (Stream<Workitem> population = ImixsSchedulerForecast.readPopulation(csvFile)) {
+            workitems = population.collect(Collectors.toList());
+        }
+        assertEquals(3, workitems.size());
+        assertEquals("100", workitems.get(0).getTaskId());
+        assertEquals(FROM.plusMinutes(30), workitems.get(0).getDate("datdue"));
+        assertEquals("200", workitems.get(1).getTaskId());
+        assertNull(workitems.get(1).getDate("datdue"));
+        assertEquals("300", workitems.get(2).getTaskId());
+
+        Path invalidFile = tempDir.resolve("invalid.csv");
+        Files.write(invalidFile, List.of("datdue", "2026-10-19T08:30"));
+        assertEquals("Missing column '$taskid' in " + invalidFile,
+                assertThrows(IOException.class, () -> ImixsSchedulerForecast.readPopulation(invalidFile))
+                        .getMessage());
+    }
+
+    /**
+     * A reminder 2 hours after the last event of task 100
+     */
+    private static ScheduledEvent remindEvent() {
+        return new ScheduledEvent("Event_1", "10", "remind", 2, ImixsWorkdayCalendar.UNIT_HOURS,
+                ImixsSchedulerForecast.BASE_LAST_EVENT, "", Set.of("100"));
+    }
+
+    private static Workitem workitem(String taskId, LocalDateTime lastEvent) {
+        return new Workitem(taskId, lastEvent == null ? Map.of()
+                : Map.of(ImixsSchedulerForecast.ITEM_LASTEVENTDATE, lastEvent));
+    }
+}
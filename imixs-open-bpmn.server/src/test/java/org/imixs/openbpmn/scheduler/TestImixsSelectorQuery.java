@@ -0,0 +1,75 @@
+package org.imixs.openbpmn.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the ImixsSelectorQuery parser
+ * 
+ */
+public class TestImixsSelectorQuery {
+
+    /**
+     * A selective query has no warnings and is cached by its text
+     */
+    @Test
+    public void testValidQuery() {
+        String text = "($taskid:1000 AND $modelversion:\"1.0.0\") AND datdue:[20260101 TO *] -type:archive";
+        ImixsSelectorQuery query = ImixsSelectorQuery.parse(text);
+        assertTrue(query.isValid());
+        assertTrue(query.getWarnings().isEmpty(), query.getWarnings().toString());
+        assertTrue(query.getRequiredFields().contains("$taskid"));
+        assertTrue(query.getFields().contains("type"));
+        assertFalse(query.getRequiredFields().contains("type"));
+        assertSame(query, ImixsSelectorQuery.parse(text));
+
+        assertTrue(ImixsSelectorQuery.parse("$taskid:(1000 OR 1100) AND $modelversion:my\\-model*^2").getWarnings()
+                .isEmpty());
+    }
+
+    /**
+     * Syntax errors are reported with their position
+     */
+    @Test
+    public void testSyntaxErrors() {
+        ImixsSelectorQuery query = ImixsSelectorQuery.parse("($taskid:1000 AND $modelversion:1.0");
+        assertFalse(query.isValid());
+        assertEquals(35, query.getErrorPosition());
+
+        assertFalse(ImixsSelectorQuery.parse("$taskid:\"1000").isValid());
+        assertFalse(ImixsSelectorQuery.parse("datdue:[2026 2027]").isValid());
+        assertFalse(ImixsSelectorQuery.parse("$taskid:1000 AND").isValid());
+        assertFalse(ImixsSelectorQuery.parse("$taskid:1000 OR OR type:x").isValid());
+        assertFalse(ImixsSelectorQuery.parse(":1000").isValid());
+        assertFalse(ImixsSelectorQuery.parse("$taskid:1000)").isValid());
+        assertFalse(ImixsSelectorQuery.parse("   ").isValid());
+    }
+
+    /**
+     * Expensive and unselective patterns are reported as warnings
+     */
+    @Test
+    public void testWarnings() {
+        // leading wildcard
+        ImixsSelectorQuery query = ImixsSelectorQuery.parse("$taskid:1000 AND $modelversion:1.0 AND txtname:*test");
+        assertTrue(query.isValid());
+        assertEquals(1, query.getWarnings().size());
+        assertTrue(query.getWarnings().get(0).contains("leading wildcard"));
+
+        // an alternative does not constrain the task id
+        query = ImixsSelectorQuery.parse("$taskid:1000 OR $modelversion:1.0");
+        assertEquals(2, query.getWarnings().size());
+
+        // only excludes
+        query = ImixsSelectorQuery.parse("NOT $taskid:1000");
+        assertEquals(3, query.getWarnings().size());
+
+        // match all
+        query = ImixsSelectorQuery.parse("*:*");
+        assertTrue(query.getWarnings().get(0).contains("matches all"));
+    }
+}
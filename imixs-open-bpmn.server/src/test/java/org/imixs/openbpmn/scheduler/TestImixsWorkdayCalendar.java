@@ -0,0 +1,160 @@
+package org.imixs.openbpmn.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test the ImixsWorkdayCalendar
+ * 
+ */
+public class TestImixsWorkdayCalendar {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Adds workdays across weekends, holidays and the turn of the year
+     */
+    @Test
+    public void testAddWorkdays() throws IOException {
+        Path holidayFile = tempDir.resolve("holidays.txt");
+        Files.write(holidayFile, List.of("# test holidays", "2026-12-24 Christmas Eve", "2026-12-25",
+                "2027-01-01 New Year", "invalid"));
+        ImixsWorkdayCalendar calendar = ImixsWorkdayCalendar.load(holidayFile);
+
+        // Monday + 4 = Friday
+        assertEquals(LocalDate.of(2026, 10, 23), calendar.addWorkdays(LocalDate.of(2026, 10, 19), 4));
+        // Friday + 1 = Monday
+        assertEquals(LocalDate.of(2026, 10, 26), calendar.addWorkdays(LocalDate.of(2026, 10, 23), 1));
+        // Saturday starts from Monday
+        assertEquals(LocalDate.of(2026, 10, 26), calendar.addWorkdays(LocalDate.of(2026, 10, 24), 0));
+        assertEquals(LocalDate.of(2026, 10, 27), calendar.addWorkdays(LocalDate.of(2026, 10, 24), 1));
+        // Wednesday 23.12. + 2 skips the holidays and the weekend
+        assertFalse(calendar.isWorkday(LocalDate.of(2026, 12, 25)));
+        assertEquals(LocalDate.of(2026, 12, 29), calendar.addWorkdays(LocalDate.of(2026, 12, 23), 2));
+        // across the turn of the year
+        assertEquals(LocalDate.of(2027, 1, 5), calendar.addWorkdays(LocalDate.of(2026, 12, 30), 3));
+        // subtract
+        assertEquals(LocalDate.of(2026, 12, 30), calendar.addWorkdays(LocalDate.of(2027, 1, 5), -3));
+        assertEquals(LocalDate.of(2026, 10, 22), calendar.addWorkdays(LocalDate.of(2026, 10, 25), -1));
+        // the time of day is kept
+        assertEquals(LocalDateTime.of(2026, 10, 26, 14, 30),
+                calendar.addWorkdays(LocalDateTime.of(2026, 10, 23, 14, 30), 1));
+        // 52 weeks plus the three holidays
+        assertEquals(LocalDate.of(2027, 10, 22), calendar.addWorkdays(LocalDate.of(2026, 10, 20), 260));
+    }
+
+    /**
+     * Compares the precomputed index against a day by day iteration
+     */
+    @Test
+    public void testCompareWithIteration() {
+        ImixsWorkdayCalendar calendar = new ImixsWorkdayCalendar(EnumSet.of(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY),
+                List.of(LocalDate.of(2026, 3, 3), LocalDate.of(2027, 5, 5)));
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            LocalDate start = LocalDate.of(2026, 1, 1).plusDays(random.nextInt(600));
+            int workdays = random.nextInt(400) - 200;
+            LocalDate expected = start;
+            int step = workdays >= 0 ? 1 : -1;
+            while (!calendar.isWorkday(expected)) {
+                expected = expected.plusDays(step);
+            }
+            for (int n = 0; n < Math.abs(workdays); n++) {
+                do {
+                    expected = expected.plusDays(step);
+                } while (!calendar.isWorkday(expected));
+            }
+            assertEquals(expected, calendar.addWorkdays(start, workdays), start + " + " + workdays);
+        }
+        assertEquals(5, calendar.countWorkdays(LocalDate.of(2026, 10, 18), LocalDate.of(2026, 10, 25)));
+        assertEquals(-5, calendar.countWorkdays(LocalDate.of(2026, 10, 25), LocalDate.of(2026, 10, 18)));
+    }
+
+    /**
+     * Tests the Imixs delay units
+     */
+    @Test
+    public void testDueDate() {
+        ImixsWorkdayCalendar calendar = new ImixsWorkdayCalendar();
+        LocalDateTime base = LocalDateTime.of(2026, 10, 23, 10, 0);
+        assertEquals(base.plusMinutes(90), calendar.getDueDate(base, 90, ImixsWorkdayCalendar.UNIT_MINUTES));
+        assertEquals(base.plusHours(5), calendar.getDueDate(base, 5, ImixsWorkdayCalendar.UNIT_HOURS));
+        assertEquals(base.plusDays(2), calendar.getDueDate(base, 2, ImixsWorkdayCalendar.UNIT_DAYS));
+        assertEquals(LocalDateTime.of(2026, 10, 27, 10, 0),
+                calendar.getDueDate(base, 2, ImixsWorkdayCalendar.UNIT_WORKDAYS));
+        assertTrue(calendar.isWorkday(LocalDate.of(2026, 10, 19)));
+    }
+
+    /**
+     * Large delays are computed without building all years crossed and compared
+     * against a day by day iteration
+     */
+    @Test
+    public void testLargeDelay() {
+        Set<LocalDate> holidays = Set.of(LocalDate.of(1500, 6, 1), LocalDate.of(2026, 12, 25),
+                LocalDate.of(2900, 1, 1));
+        ImixsWorkdayCalendar calendar = new ImixsWorkdayCalendar(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY),
+                holidays);
+        LocalDate start = LocalDate.of(2026, 10, 24);
+        for (long workdays : new long[] { 260, 100_000, 250_003, 1_000_000, -100_000, -250_003 }) {
+            LocalDate expected = start;
+            int step = workdays >= 0 ? 1 : -1;
+            while (!isWorkday(expected, holidays)) {
+                expected = expected.plusDays(step);
+            }
+            for (long n = 0; n < Math.abs(workdays); n++) {
+                do {
+                    expected = expected.plusDays(step);
+                } while (!isWorkday(expected, holidays));
+            }
+            assertEquals(expected, calendar.addWorkdays(start, workdays), start + " + " + workdays);
+        }
+        LocalDate monday = LocalDate.of(2026, 10, 26);
+        LocalDate date = calendar.addWorkdays(monday, 1_000_000);
+        assertEquals(monday, calendar.addWorkdays(date, -1_000_000));
+        assertEquals(1_000_000, calendar.countWorkdays(monday, date));
+    }
+
+    /**
+     * A due date beyond the supported date range throws a DateTimeException
+     * immediately
+     */
+    @Test
+    public void testDelayOutOfRange() {
+        ImixsWorkdayCalendar calendar = new ImixsWorkdayCalendar();
+        LocalDateTime base = LocalDateTime.of(2026, 10, 23, 10, 0);
+        long start = System.currentTimeMillis();
+        assertThrows(DateTimeException.class,
+                () -> calendar.getDueDate(base, 999_999_999_999L, ImixsWorkdayCalendar.UNIT_WORKDAYS));
+        assertThrows(DateTimeException.class,
+                () -> calendar.getDueDate(base, -999_999_999_999L, ImixsWorkdayCalendar.UNIT_WORKDAYS));
+        assertThrows(ArithmeticException.class,
+                () -> calendar.getDueDate(base, Long.MAX_VALUE, ImixsWorkdayCalendar.UNIT_WORKDAYS));
+        assertThrows(DateTimeException.class,
+                () -> calendar.getDueDate(base, 999_999_999_999L, ImixsWorkdayCalendar.UNIT_DAYS));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    private static boolean isWorkday(LocalDate date, Set<LocalDate> holidays) {
+        return date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY
+                && !holidays.contains(date);
+    }
+}
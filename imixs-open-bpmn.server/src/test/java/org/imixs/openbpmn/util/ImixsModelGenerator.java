@@ -0,0 +1,538 @@
+package org.imixs.openbpmn.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * The ImixsModelGenerator generates seeded Imixs BPMN models for load and scale
+ * tests.
+ * <p>
+ * The generator builds a model with a configurable number of processes, tasks,
+ * events per task, follow-up chains, link events, ACL items, actor field
+ * mappings and file-linked DataObjects. The model is streamed with a
+ * {@link XMLStreamWriter} element by element, so the generator never holds the
+ * model or large intermediate strings in memory. Models from 100 up to 50.000
+ * elements can be generated in the same way.
+ * <p>
+ * The structure of the model is computed from the element indexes, only the
+ * item values are chosen by the seeded random generator. So two generators with
+ * the same configuration and seed produce exactly the same model.
+ * <p>
+ * Example:
+ *
+ * <pre>{@code
+ * new ImixsModelGenerator(42).processes(4).tasksPerProcess(100).eventsPerTask(3)
+ *         .generate(Path.of("target/large.bpmn"));
+ * }</pre>
+ *
+ * @author rsoika
+ *
+ */
+public class ImixsModelGenerator {
+
+    public static final String BPMN2_NS = "http://www.omg.org/spec/BPMN/20100524/MODEL";
+    public static final String BPMNDI_NS = "http://www.omg.org/spec/BPMN/20100524/DI";
+    public static final String DC_NS = "http://www.omg.org/spec/DD/20100524/DC";
+    public static final String DI_NS = "http://www.omg.org/spec/DD/20100524/DI";
+    public static final String IMIXS_NS = "http://www.imixs.org/bpmn2";
+    public static final String OPEN_BPMN_NS = "http://open-bpmn.org/XMLSchema";
+
+    private static final int TASKS_PER_ROW = 10;
+    private static final int COLUMN_WIDTH = 400;
+    private static final int EVENT_SPACING = 60;
+
+    private final long seed;
+    private int processes = 1;
+    private int tasksPerProcess = 10;
+    private int eventsPerTask = 2;
+    private int followUpLength = 0;
+    private int linkEventInterval = 0;
+    private int scheduledEventInterval = 0;
+    private int aclItems = 1;
+    private int actors = 3;
+    private int timeFields = 2;
+    private int dataObjects = 0;
+
+    public ImixsModelGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Number of processes. The first process is the public default process, all
+     * other processes are added as pools of a collaboration.
+     */
+    public ImixsModelGenerator processes(int processes) {
+        this.processes = Math.max(1, processes);
+        return this;
+    }
+
+    public ImixsModelGenerator tasksPerProcess(int tasksPerProcess) {
+        this.tasksPerProcess = Math.max(1, tasksPerProcess);
+        return this;
+    }
+
+    public ImixsModelGenerator eventsPerTask(int eventsPerTask) {
+        this.eventsPerTask = Math.max(0, eventsPerTask);
+        return this;
+    }
+
+    /**
+     * Number of follow-up events appended to the first event of each task.
+     */
+    public ImixsModelGenerator followUpLength(int followUpLength) {
+        this.followUpLength = Math.max(0, followUpLength);
+        return this;
+    }
+
+    /**
+     * Every n-th event is connected with its target task by a pair of link
+     * events. 0 disables link events.
+     */
+    public ImixsModelGenerator linkEventInterval(int linkEventInterval) {
+        this.linkEventInterval = Math.max(0, linkEventInterval);
+        return this;
+    }
+
+    /**
+     * Every n-th event is a scheduled (timer) event. 0 disables scheduled events.
+     */
+    public ImixsModelGenerator scheduledEventInterval(int scheduledEventInterval) {
+        this.scheduledEventInterval = Math.max(0, scheduledEventInterval);
+        return this;
+    }
+
+    /**
+     * Number of actor values in each ACL and mail receiver item.
+     */
+    public ImixsModelGenerator aclItems(int aclItems) {
+        this.aclItems = Math.max(0, aclItems);
+        return this;
+    }
+
+    /**
+     * Number of actor field mappings defined in 'txtfieldmapping'.
+     */
+    public ImixsModelGenerator actors(int actors) {
+        this.actors = Math.max(1, actors);
+        return this;
+    }
+
+    /**
+     * Number of date field mappings defined in 'txttimefieldmapping'.
+     */
+    public ImixsModelGenerator timeFields(int timeFields) {
+        this.timeFields = Math.max(1, timeFields);
+        return this;
+    }
+
+    /**
+     * Number of DataObjects per process linked to an external form file.
+     */
+    public ImixsModelGenerator dataObjects(int dataObjects) {
+        this.dataObjects = Math.max(0, dataObjects);
+        return this;
+    }
+
+    /**
+     * Returns the number of BPMN elements (nodes and sequence flows) the
+     * generator will create. DataObjects and pools are not counted.
+     */
+    public long getElementCount() {
+        long eventNodes = (long) eventsPerTask + (eventsPerTask > 0 ? followUpLength : 0);
+        long linkPairs = 0;
+        if (linkEventInterval > 0) {
+            linkPairs = (eventsPerTask + linkEventInterval - 1) / linkEventInterval;
+        }
+        // task + events + link events, flows: one incoming per event/link + one outgoing
+        // per event chain
+        long nodesPerTask = 1 + eventNodes + 2 * linkPairs;
+        long flowsPerTask = eventNodes + eventsPerTask + linkPairs;
+        return processes * (2 + tasksPerProcess * (nodesPerTask + flowsPerTask) + 1);
+    }
+
+    /**
+     * Generates the model into the given file. Linked DataObject files are written
+     * into the same directory.
+     */
+    public void generate(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            generate(out);
+        }
+        for (int p = 0; p < processes; p++) {
+            for (int d = 0; d < dataObjects; d++) {
+                Path formFile = directory.resolve(getFormFileName(p, d));
+                Files.write(formFile, ("<imixs-form>\n  <imixs-form-section label=\"Form " + p + "." + d
+                        + "\">\n    <item name=\"subject\" type=\"text\" label=\"Subject\" />\n"
+                        + "  </imixs-form-section>\n</imixs-form>\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Streams the model into the given output stream. The stream is not closed.
+     */
+    public void generate(OutputStream out) throws IOException {
+        Random random = new Random(seed);
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("bpmn2", "definitions", BPMN2_NS);
+            writer.writeNamespace("bpmn2", BPMN2_NS);
+            writer.writeNamespace("bpmndi", BPMNDI_NS);
+            writer.writeNamespace("dc", DC_NS);
+            writer.writeNamespace("di", DI_NS);
+            writer.writeNamespace("imixs", IMIXS_NS);
+            writer.writeNamespace("open-bpmn", OPEN_BPMN_NS);
+            writer.writeAttribute("exporter", "ImixsModelGenerator");
+            writer.writeAttribute("id", "definitions_1");
+            writer.writeAttribute("targetNamespace", IMIXS_NS);
+
+            writeDefinitionItems(writer);
+            if (processes > 1) {
+                writeCollaboration(writer);
+            }
+            for (int p = 0; p < processes; p++) {
+                writeProcess(writer, random, p);
+            }
+            writeDiagram(writer);
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to generate model: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the actor item name for the given index
+     */
+    public static String getActorItem(int index) {
+        return "namactor" + index;
+    }
+
+    private void writeDefinitionItems(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement("bpmn2", "extensionElements", BPMN2_NS);
+        writeItem(writer, "txtworkflowmodelversion", "generated-" + seed + "-1.0");
+        writeItem(writer, "txtplugins", "org.imixs.workflow.engine.plugins.RulePlugin",
+                "org.imixs.workflow.engine.plugins.OwnerPlugin", "org.imixs.workflow.engine.plugins.HistoryPlugin",
+                "org.imixs.workflow.engine.plugins.MailPlugin", "org.imixs.workflow.engine.plugins.ResultPlugin");
+        String[] actorMappings = new String[actors];
+        for (int i = 0; i < actors; i++) {
+            actorMappings[i] = "Actor " + i + "|" + getActorItem(i);
+        }
+        writeItem(writer, "txtfieldmapping", actorMappings);
+        String[] timeMappings = new String[timeFields];
+        for (int i = 0; i < timeFields; i++) {
+            timeMappings[i] = "Date " + i + "|datdate" + i;
+        }
+        writeItem(writer, "txttimefieldmapping", timeMappings);
+        writer.writeEndElement();
+    }
+
+    private void writeCollaboration(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement("bpmn2", "collaboration", BPMN2_NS);
+        writer.writeAttribute("id", "collaboration_1");
+        for (int p = 0; p < processes; p++) {
+            writer.writeEmptyElement("bpmn2", "participant", BPMN2_NS);
+            writer.writeAttribute("id", "participant_" + p);
+            writer.writeAttribute("name", p == 0 ? "Default Process" : "Pool " + p);
+            writer.writeAttribute("processRef", "process_" + p);
+        }
+        writer.writeEndElement();
+    }
+
+    private void writeProcess(XMLStreamWriter writer, Random random, int p) throws XMLStreamException {
+        writer.writeStartElement("bpmn2", "process", BPMN2_NS);
+        writer.writeAttribute("id", "process_" + p);
+        writer.writeAttribute("name", p == 0 ? "Default Process" : "Pool " + p);
+        writer.writeAttribute("processType", p == 0 ? "Public" : "Private");
+        if (processes > 1 && p > 0) {
+            writer.writeAttribute("definitionalCollaborationRef", "collaboration_1");
+        }
+
+        writer.writeEmptyElement("bpmn2", "startEvent", BPMN2_NS);
+        writer.writeAttribute("id", "start_" + p);
+        writer.writeAttribute("name", "Start");
+        writeFlow(writer, "flow_start_" + p, "start_" + p, taskId(p, 0));
+        writer.writeEmptyElement("bpmn2", "endEvent", BPMN2_NS);
+        writer.writeAttribute("id", "end_" + p);
+        writer.writeAttribute("name", "End");
+        writeFlow(writer, "flow_end_" + p, taskId(p, tasksPerProcess - 1), "end_" + p);
+
+        int eventCounter = 0;
+        for (int t = 0; t < tasksPerProcess; t++) {
+            writeTask(writer, random, p, t);
+            for (int e = 0; e < eventsPerTask; e++) {
+                eventCounter++;
+                int activityId = 10 * (e + 1);
+                String eventId = eventId(p, t, e);
+                writeEvent(writer, random, p, eventId, activityId, eventCounter);
+                writeFlow(writer, "flow_" + eventId, taskId(p, t), eventId);
+
+                // follow-up chain
+                String lastId = eventId;
+                if (e == 0) {
+                    for (int f = 0; f < followUpLength; f++) {
+                        String followUpId = eventId + "_" + f;
+                        writeEvent(writer, random, p, followUpId, 10 * (eventsPerTask + f + 1), eventCounter);
+                        writeFlow(writer, "flow_" + followUpId, lastId, followUpId);
+                        lastId = followUpId;
+                    }
+                }
+
+                // link events or direct connection to the target task
+                String target = taskId(p, (t + 1 + e) % tasksPerProcess);
+                if (isLinkEvent(eventCounter)) {
+                    String linkName = "LINK_" + eventId;
+                    writeLinkEvent(writer, "intermediateThrowEvent", "throw_" + eventId, linkName);
+                    writeLinkEvent(writer, "intermediateCatchEvent", "catch_" + eventId, linkName);
+                    writeFlow(writer, "flow_throw_" + eventId, lastId, "throw_" + eventId);
+                    writeFlow(writer, "flow_catch_" + eventId, "catch_" + eventId, target);
+                } else {
+                    writeFlow(writer, "flow_target_" + eventId, lastId, target);
+                }
+            }
+        }
+
+        for (int d = 0; d < dataObjects; d++) {
+            writer.writeStartElement("bpmn2", "dataObject", BPMN2_NS);
+            writer.writeAttribute("id", "dataobject_" + p + "_" + d);
+            writer.writeAttribute("name", "Form " + d);
+            writer.writeStartElement("bpmn2", "documentation", BPMN2_NS);
+            writer.writeAttribute("id", "documentation_dataobject_" + p + "_" + d);
+            writer.writeAttribute("open-bpmn", OPEN_BPMN_NS, "file-link", "file://" + getFormFileName(p, d));
+            writer.writeCData("<imixs-form />");
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+
+        writer.writeEndElement();
+    }
+
+    private void writeTask(XMLStreamWriter writer, Random random, int p, int t) throws XMLStreamException {
+        writer.writeStartElement("bpmn2", "task", BPMN2_NS);
+        writer.writeAttribute("id", taskId(p, t));
+        writer.writeAttribute("imixs", IMIXS_NS, "processid", "" + taskIdValue(p, t));
+        writer.writeAttribute("name", "Task " + p + "." + t);
+        writer.writeStartElement("bpmn2", "extensionElements", BPMN2_NS);
+        writeItem(writer, "txttype", "workitem");
+        writeItem(writer, "txtworkflowsummary", "<itemvalue>subject</itemvalue> - Task " + t);
+        writeItem(writer, "txteditorid", "form_" + (t % 5));
+        writeACLItems(writer, random);
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private void writeEvent(XMLStreamWriter writer, Random random, int p, String id, int activityId,
+            int eventCounter) throws XMLStreamException {
+        writer.writeStartElement("bpmn2", "intermediateCatchEvent", BPMN2_NS);
+        writer.writeAttribute("id", id);
+        writer.writeAttribute("imixs", IMIXS_NS, "activityid", "" + activityId);
+        writer.writeAttribute("name", "Event " + activityId);
+        writer.writeStartElement("bpmn2", "extensionElements", BPMN2_NS);
+        writeItem(writer, "keypublicresult", random.nextInt(4) == 0 ? "0" : "1");
+        writeItem(writer, "txtactivityresult",
+                "<item name=\"event.id\">" + id + "</item>\n<item name=\"event.counter\" type=\"integer\">"
+                        + eventCounter + "</item>");
+        writeItem(writer, "rtfresultlog", "[<itemvalue>$lasteventdate</itemvalue>] Event " + activityId);
+        writeACLItems(writer, random);
+        writeItem(writer, "keymailreceiverfields", randomActors(random));
+        writeItem(writer, "txtmailsubject", "Event " + activityId + " processed");
+        if (scheduledEventInterval > 0 && eventCounter % scheduledEventInterval == 0) {
+            writeItem(writer, "keyscheduledactivity", "1");
+            writeItem(writer, "numactivitydelay", "" + (1 + random.nextInt(30)));
+            writeItem(writer, "keyactivitydelayunit", "" + (1 + random.nextInt(4)));
+            writeItem(writer, "keyscheduledbaseobject", "" + (1 + random.nextInt(3)));
+            writeItem(writer, "txtscheduledview", "($taskid:" + taskIdValue(p, random.nextInt(tasksPerProcess))
+                    + ") AND ($modelversion:\"generated-" + seed + "-1.0\")");
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private void writeACLItems(XMLStreamWriter writer, Random random) throws XMLStreamException {
+        if (aclItems == 0) {
+            return;
+        }
+        writeItem(writer, "keyupdateacl", "true");
+        writeItem(writer, "keyownershipfields", randomActors(random));
+        writeItem(writer, "keyaddreadfields", randomActors(random));
+        writeItem(writer, "keyaddwritefields", randomActors(random));
+    }
+
+    private void writeLinkEvent(XMLStreamWriter writer, String type, String id, String name)
+            throws XMLStreamException {
+        writer.writeStartElement("bpmn2", type, BPMN2_NS);
+        writer.writeAttribute("id", id);
+        writer.writeAttribute("name", name);
+        writer.writeEmptyElement("bpmn2", "linkEventDefinition", BPMN2_NS);
+        writer.writeAttribute("id", "linkdefinition_" + id);
+        writer.writeEndElement();
+    }
+
+    private void writeFlow(XMLStreamWriter writer, String id, String source, String target)
+            throws XMLStreamException {
+        writer.writeEmptyElement("bpmn2", "sequenceFlow", BPMN2_NS);
+        writer.writeAttribute("id", id);
+        writer.writeAttribute("sourceRef", source);
+        writer.writeAttribute("targetRef", target);
+    }
+
+    private void writeItem(XMLStreamWriter writer, String name, String... values) throws XMLStreamException {
+        writer.writeStartElement("imixs", "item", IMIXS_NS);
+        writer.writeAttribute("name", name);
+        writer.writeAttribute("type", "xs:string");
+        for (String value : values) {
+            writer.writeStartElement("imixs", "value", IMIXS_NS);
+            writer.writeCData(value);
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    /**
+     * Writes the diagram shapes and edges. The layout is computed again from the
+     * element indexes in the same order as the process elements were written.
+     */
+    private void writeDiagram(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement("bpmndi", "BPMNDiagram", BPMNDI_NS);
+        writer.writeAttribute("id", "BPMNDiagram_1");
+        writer.writeStartElement("bpmndi", "BPMNPlane", BPMNDI_NS);
+        writer.writeAttribute("id", "BPMNPlane_1");
+        writer.writeAttribute("bpmnElement", processes > 1 ? "collaboration_1" : "process_0");
+
+        int rows = (tasksPerProcess + TASKS_PER_ROW - 1) / TASKS_PER_ROW;
+        int rowHeight = Math.max(1, eventsPerTask + followUpLength) * EVENT_SPACING + 100;
+        int poolHeight = rows * rowHeight + 150;
+        int poolWidth = (Math.min(tasksPerProcess, TASKS_PER_ROW) + 1) * COLUMN_WIDTH;
+        for (int p = 0; p < processes; p++) {
+            int poolY = p * (poolHeight + 50);
+            if (processes > 1) {
+                writeShape(writer, "participant_" + p, 0, poolY, poolWidth, poolHeight);
+            }
+            writeShape(writer, "start_" + p, 40, poolY + 40, 36, 36);
+            writeShape(writer, "end_" + p, poolWidth - 80, poolY + 40, 36, 36);
+            writeEdge(writer, "flow_start_" + p, 58, poolY + 58, 100, poolY + 100);
+            writeEdge(writer, "flow_end_" + p, poolWidth - 120, poolY + 100, poolWidth - 62, poolY + 58);
+
+            int eventCounter = 0;
+            for (int t = 0; t < tasksPerProcess; t++) {
+                int taskX = 100 + (t % TASKS_PER_ROW) * COLUMN_WIDTH;
+                int taskY = poolY + 100 + (t / TASKS_PER_ROW) * rowHeight;
+                writeShape(writer, taskId(p, t), taskX, taskY, 110, 50);
+                int slot = 0;
+                for (int e = 0; e < eventsPerTask; e++) {
+                    eventCounter++;
+                    String eventId = eventId(p, t, e);
+                    int eventX = taskX + 150;
+                    writeShape(writer, eventId, eventX, taskY + slot * EVENT_SPACING, 36, 36);
+                    writeEdge(writer, "flow_" + eventId, taskX + 110, taskY + 25, eventX, taskY + slot * EVENT_SPACING
+                            + 18);
+                    String lastId = eventId;
+                    int lastX = eventX;
+                    int lastY = taskY + slot * EVENT_SPACING;
+                    slot++;
+                    if (e == 0) {
+                        for (int f = 0; f < followUpLength; f++) {
+                            String followUpId = eventId + "_" + f;
+                            writeShape(writer, followUpId, eventX, taskY + slot * EVENT_SPACING, 36, 36);
+                            writeEdge(writer, "flow_" + followUpId, lastX + 18, lastY + 36, eventX + 18, taskY + slot
+                                    * EVENT_SPACING);
+                            lastX = eventX;
+                            lastY = taskY + slot * EVENT_SPACING;
+                            slot++;
+                        }
+                    }
+                    int target = (t + 1 + e) % tasksPerProcess;
+                    int targetX = 100 + (target % TASKS_PER_ROW) * COLUMN_WIDTH;
+                    int targetY = poolY + 100 + (target / TASKS_PER_ROW) * rowHeight;
+                    if (isLinkEvent(eventCounter)) {
+                        writeShape(writer, "throw_" + eventId, lastX + 80, lastY, 36, 36);
+                        writeShape(writer, "catch_" + eventId, targetX - 60, targetY + 60, 36, 36);
+                        writeEdge(writer, "flow_throw_" + eventId, lastX + 36, lastY + 18, lastX + 80, lastY + 18);
+                        writeEdge(writer, "flow_catch_" + eventId, targetX - 24, targetY + 78, targetX, targetY + 25);
+                    } else {
+                        writeEdge(writer, "flow_target_" + eventId, lastX + 36, lastY + 18, targetX, targetY + 25);
+                    }
+                }
+            }
+            for (int d = 0; d < dataObjects; d++) {
+                writeShape(writer, "dataobject_" + p + "_" + d, 40 + d * 60, poolY + poolHeight - 60, 35, 50);
+            }
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private void writeShape(XMLStreamWriter writer, String elementId, int x, int y, int width, int height)
+            throws XMLStreamException {
+        writer.writeStartElement("bpmndi", "BPMNShape", BPMNDI_NS);
+        writer.writeAttribute("id", "BPMNShape_" + elementId);
+        writer.writeAttribute("bpmnElement", elementId);
+        writer.writeEmptyElement("dc", "Bounds", DC_NS);
+        writer.writeAttribute("x", "" + x);
+        writer.writeAttribute("y", "" + y);
+        writer.writeAttribute("width", "" + width);
+        writer.writeAttribute("height", "" + height);
+        writer.writeEndElement();
+    }
+
+    private void writeEdge(XMLStreamWriter writer, String elementId, int x1, int y1, int x2, int y2)
+            throws XMLStreamException {
+        writer.writeStartElement("bpmndi", "BPMNEdge", BPMNDI_NS);
+        writer.writeAttribute("id", "BPMNEdge_" + elementId);
+        writer.writeAttribute("bpmnElement", elementId);
+        writer.writeEmptyElement("di", "waypoint", DI_NS);
+        writer.writeAttribute("x", "" + x1);
+        writer.writeAttribute("y", "" + y1);
+        writer.writeEmptyElement("di", "waypoint", DI_NS);
+        writer.writeAttribute("x", "" + x2);
+        writer.writeAttribute("y", "" + y2);
+        writer.writeEndElement();
+    }
+
+    private String[] randomActors(Random random) {
+        String[] result = new String[Math.min(aclItems, actors)];
+        int offset = random.nextInt(actors);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getActorItem((offset + i) % actors);
+        }
+        return result;
+    }
+
+    private boolean isLinkEvent(int eventCounter) {
+        return linkEventInterval > 0 && eventCounter % linkEventInterval == 0;
+    }
+
+    private String getFormFileName(int p, int d) {
+        return "form_" + seed + "_" + p + "_" + d + ".xml";
+    }
+
+    /**
+     * Returns the Imixs task id. Task ids are unique across all processes of the
+     * model.
+     */
+    private int taskIdValue(int p, int t) {
+        return 1000 + 100 * (p * tasksPerProcess + t);
+    }
+
+    private static String taskId(int p, int t) {
+        return "task_" + p + "_" + t;
+    }
+
+    private static String eventId(int p, int t, int e) {
+        return "event_" + p + "_" + t + "_" + e;
+    }
+}
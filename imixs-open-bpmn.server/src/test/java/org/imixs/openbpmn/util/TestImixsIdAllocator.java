@@ -0,0 +1,138 @@
+package org.imixs.openbpmn.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.BPMNProcess;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Test the ImixsIdAllocator
+ *
+ */
+public class TestImixsIdAllocator {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"100\" name=\"Task 1\"/>\n"
+            + "    <bpmn2:task id=\"Task_2\" imixs:processid=\"200\" name=\"Task 2\"/>\n"
+            + "    <bpmn2:task id=\"Task_New\" name=\"New Task\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_2\" imixs:activityid=\"20\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_3\" imixs:activityid=\"10\"/>\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_New\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_1\" sourceRef=\"Task_1\" targetRef=\"Event_1\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_2\" sourceRef=\"Task_1\" targetRef=\"Event_2\"/>\n"
+            + "    <bpmn2:sequenceFlow id=\"Flow_3\" sourceRef=\"Task_2\" targetRef=\"Event_3\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * A new task gets the next free task id of its process
+     */
+    @Test
+    public void testNextTaskId() throws Exception {
+        BPMNModel model = readModel();
+        ImixsIdAllocator allocator = ImixsIdAllocator.getInstance(model);
+        assertEquals(300, allocator.nextTaskId(model.findElementNodeById("Task_New")));
+        // the id is added to the index
+        allocator.updateTaskId(model.findElementNodeById("Task_2"), "500");
+        assertEquals(600, allocator.nextTaskId(model.findElementNodeById("Task_New")));
+    }
+
+    /**
+     * The id of a deleted task is free again
+     */
+    @Test
+    public void testDeletedTask() throws Exception {
+        BPMNModel model = readModel();
+        ImixsIdAllocator allocator = ImixsIdAllocator.getInstance(model);
+        assertEquals(300, allocator.nextTaskId(model.findElementNodeById("Task_New")));
+        model.openDefaultProcess().deleteTask("Task_2");
+        // a reallocation releases the previous id of the task
+        assertEquals(200, allocator.nextTaskId(model.findElementNodeById("Task_New")));
+    }
+
+    /**
+     * A connected event gets the next free event id of its task
+     */
+    @Test
+    public void testNextEventId() throws Exception {
+        BPMNModel model = readModel();
+        model.openDefaultProcess().addSequenceFlow("Flow_New", "Task_1", "Event_New");
+        ImixsIdAllocator allocator = ImixsIdAllocator.getInstance(model);
+        assertEquals(30, allocator.nextEventId(model.findElementNodeById("Event_New")));
+        // the event ids of other tasks are not affected
+        model.openDefaultProcess().deleteSequenceFlow("Flow_New");
+        model.openDefaultProcess().addSequenceFlow("Flow_New", "Task_2", "Event_New");
+        assertEquals(20, allocator.nextEventId(model.findElementNodeById("Event_New")));
+    }
+
+    /**
+     * A new event is usually connected after it was created. The final id is
+     * allocated with the next property update of the connected event.
+     */
+    @Test
+    public void testUnconnectedEvent() throws Exception {
+        BPMNModel model = readModel();
+        ImixsIdAllocator allocator = ImixsIdAllocator.getInstance(model);
+        BPMNElementNode event = model.findElementNodeById("Event_New");
+        assertEquals(ImixsIdAllocator.DEFAULT_EVENT_ID, allocator.nextEventId(event));
+        event.setExtensionAttribute(ImixsExtensionUtil.getNamespace(), "activityid", "10");
+        // still not connected
+        assertNull(allocator.getProposedEventId(event));
+        assertNull(allocator.confirmEventId(event));
+
+        model.openDefaultProcess().addSequenceFlow("Flow_New", "Task_1", "Event_New");
+        // the proposal does not change the model
+        assertEquals(30, allocator.getProposedEventId(event));
+        assertEquals("10", event.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "activityid"));
+        assertEquals(30, allocator.confirmEventId(event));
+        assertEquals("30", event.getExtensionAttribute(ImixsExtensionUtil.getNamespace(), "activityid"));
+        // the id is confirmed only once
+        assertNull(allocator.getProposedEventId(event));
+        assertNull(allocator.confirmEventId(event));
+    }
+
+    /**
+     * An event id set by the user is never replaced
+     */
+    @Test
+    public void testUserEventId() throws Exception {
+        BPMNModel model = readModel();
+        ImixsIdAllocator allocator = ImixsIdAllocator.getInstance(model);
+        BPMNElementNode event = model.findElementNodeById("Event_New");
+        allocator.nextEventId(event);
+        allocator.updateEventId(event, "90");
+        model.openDefaultProcess().addSequenceFlow("Flow_New", "Task_1", "Event_New");
+        assertNull(allocator.confirmEventId(event));
+    }
+
+    /**
+     * The id of a deleted event is free again
+     */
+    @Test
+    public void testDeletedEvent() throws Exception {
+        BPMNModel model = readModel();
+        BPMNProcess process = model.openDefaultProcess();
+        ImixsIdAllocator allocator = ImixsIdAllocator.getInstance(model);
+        process.addSequenceFlow("Flow_New", "Task_1", "Event_New");
+        assertEquals(30, allocator.nextEventId(model.findElementNodeById("Event_New")));
+        process.deleteEvent("Event_2");
+        allocator.updateEventId(model.findElementNodeById("Event_New"), "");
+        assertEquals(20, allocator.nextEventId(model.findElementNodeById("Event_New")));
+    }
+
+    private BPMNModel readModel() throws Exception {
+        return BPMNModelFactory.read(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+    }
+}
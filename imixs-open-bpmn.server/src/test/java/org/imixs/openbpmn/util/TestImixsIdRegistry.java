@@ -0,0 +1,93 @@
+package org.imixs.openbpmn.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.BPMNProcess;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Test the ImixsIdRegistry
+ *
+ */
+public class TestImixsIdRegistry {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"100\" name=\"Task 1\"/>\n"
+            + "    <bpmn2:task id=\"Task_2\" imixs:processid=\"200\" name=\"Task 2\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "  <bpmn2:process id=\"process_2\">\n"
+            + "    <bpmn2:task id=\"Task_3\" imixs:processid=\"100\" name=\"Task 3\"/>\n"
+            + "    <bpmn2:task id=\"Task_4\" imixs:processid=\"300\" name=\"Task 4\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * A task id used in two processes is a collision
+     */
+    @Test
+    public void testCollision() throws Exception {
+        BPMNModel model = readModel();
+        ImixsIdRegistry registry = ImixsIdRegistry.getInstance(model);
+        assertEquals(Set.of("process_2"), registry.findOtherProcesses("100", "process_1"));
+        assertEquals(Set.of("process_1"), registry.findOtherProcesses("100", "process_2"));
+        assertTrue(registry.findOtherProcesses("200", "process_1").isEmpty());
+    }
+
+    /**
+     * The registry is updated by the item change listener without a reconcile
+     */
+    @Test
+    public void testTaskIdChanged() throws Exception {
+        BPMNModel model = readModel();
+        ImixsIdRegistry registry = ImixsIdRegistry.getInstance(model);
+        registry.reconcile();
+        ImixsExtensionUtil.setExtensionAttribute(model.findElementNodeById("Task_3"), "processid", "400");
+        assertTrue(registry.findOtherProcesses("100", "process_1").isEmpty());
+        ImixsExtensionUtil.setExtensionAttribute(model.findElementNodeById("Task_4"), "processid", "200");
+        assertEquals(Set.of("process_2"), registry.findOtherProcesses("200", "process_1"));
+    }
+
+    /**
+     * A deleted task is removed on the next collision check
+     */
+    @Test
+    public void testDeletedTask() throws Exception {
+        BPMNModel model = readModel();
+        ImixsIdRegistry registry = ImixsIdRegistry.getInstance(model);
+        registry.reconcile();
+        BPMNProcess process = model.getBpmnProcessList().get(1);
+        process.deleteTask("Task_3");
+        assertTrue(registry.findOtherProcesses("100", "process_1").isEmpty());
+    }
+
+    /**
+     * A task added by another operation (e.g. copy and paste) is registered by
+     * the validator or on the next reconcile
+     */
+    @Test
+    public void testAddedTask() throws Exception {
+        BPMNModel model = readModel();
+        ImixsIdRegistry registry = ImixsIdRegistry.getInstance(model);
+        registry.reconcile();
+        model.findElementNodeById("Task_4").setExtensionAttribute(ImixsExtensionUtil.getNamespace(), "processid",
+                "200");
+        assertTrue(registry.findOtherProcesses("200", "process_1").isEmpty());
+        registry.updateTaskId(model.findElementNodeById("Task_4"), "200");
+        assertEquals(Set.of("process_2"), registry.findOtherProcesses("200", "process_1"));
+    }
+
+    private BPMNModel readModel() throws Exception {
+        return BPMNModelFactory.read(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,88 @@
+package org.imixs.openbpmn.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.imixs.openbpmn.validators.ImixsBPMNValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.BPMNProcess;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+import org.openbpmn.bpmn.validation.BPMNValidationMarker;
+
+/**
+ * Test the ImixsModelGenerator
+ * 
+ */
+public class TestImixsModelGenerator {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * The same seed must produce the same model
+     */
+    @Test
+    public void testDeterministic() throws IOException {
+        ImixsModelGenerator generator = new ImixsModelGenerator(7).processes(2).tasksPerProcess(20)
+                .eventsPerTask(3).followUpLength(2).linkEventInterval(4);
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        generator.generate(first);
+        generator.generate(second);
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+    }
+
+    /**
+     * Generates a model with two pools and verifies the element counts and that
+     * the Imixs validator does not report any duplicate IDs.
+     */
+    @Test
+    public void testGenerateModel() throws IOException, BPMNModelException {
+        ImixsModelGenerator generator = new ImixsModelGenerator(42).processes(2).tasksPerProcess(15)
+                .eventsPerTask(2).followUpLength(1).linkEventInterval(5).scheduledEventInterval(3).dataObjects(2);
+        Path file = tempDir.resolve("generated.bpmn");
+        generator.generate(file);
+        assertTrue(Files.exists(tempDir.resolve("form_42_1_1.xml")));
+
+        BPMNModel model = BPMNModelFactory.read(Files.newInputStream(file));
+        assertEquals(2, model.getBpmnProcessList().size());
+        assertEquals(30, model.findAllActivities().size());
+        // 2 events + 1 follow-up per task
+        long imixsEvents = model.findAllEvents().stream().filter(e -> e.hasAttribute("imixs:activityid"))
+                .count();
+        assertEquals(90, imixsEvents);
+
+        ImixsBPMNValidator validator = new ImixsBPMNValidator();
+        for (BPMNProcess process : model.getBpmnProcessList()) {
+            List<BPMNValidationMarker> markers = validator.validateProcess(process);
+            assertTrue(markers.isEmpty(), "Unexpected markers: "
+                    + markers.stream().map(BPMNValidationMarker::getDescription).collect(Collectors.joining(", ")));
+        }
+    }
+
+    /**
+     * A large model must be readable by the model factory
+     */
+    @Test
+    public void testLargeModel() throws IOException, BPMNModelException {
+        ImixsModelGenerator generator = new ImixsModelGenerator(1).processes(10).tasksPerProcess(500)
+                .eventsPerTask(4);
+        assertTrue(generator.getElementCount() >= 50000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.generate(out);
+        BPMNModel model = BPMNModelFactory.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(5000, model.findAllActivities().size());
+    }
+}
@@ -0,0 +1,94 @@
+package org.imixs.openbpmn.validators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.glsp.server.actions.Action;
+import org.eclipse.glsp.server.actions.EndProgressAction;
+import org.eclipse.glsp.server.features.validation.SetMarkersAction;
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+import org.openbpmn.bpmn.validation.BPMNValidationMarker;
+
+/**
+ * Test the ImixsBPMNValidator
+ *
+ */
+public class TestImixsBPMNValidator {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"100\" name=\"Open\"/>\n"
+            + "    <bpmn2:task id=\"Task_2\" imixs:processid=\"100\" name=\"Review\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "  <bpmn2:process id=\"process_2\">\n"
+            + "    <bpmn2:task id=\"Task_3\" imixs:processid=\"200\" name=\"Closed\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    /**
+     * The checks run on the snapshot of a process
+     */
+    @Test
+    public void testValidateSnapshot() throws Exception {
+        ImixsValidationSnapshot snapshot = ImixsValidationSnapshot.read(readModel());
+        ImixsBPMNValidator validator = new ImixsBPMNValidator();
+        List<BPMNValidationMarker> markers = validator
+                .validateProcess(snapshot.getProcesses().get("process_1"));
+        assertEquals(List.of("Task_2"),
+                markers.stream().map(BPMNValidationMarker::getElementId).collect(Collectors.toList()));
+        assertTrue(validator.validateProcess(snapshot.getProcesses().get("process_2")).isEmpty());
+    }
+
+    /**
+     * A burst of batch requests within the debounce window results in only one
+     * validation pass of the latest snapshot
+     */
+    @Test
+    public void testCoalescedRequests() throws Exception {
+        BPMNModel model = readModel();
+        List<String> validated = new CopyOnWriteArrayList<>();
+        List<Action> actions = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        ImixsBPMNValidator validator = new ImixsBPMNValidator() {
+            @Override
+            protected List<BPMNValidationMarker> validateProcess(ImixsValidationSnapshot.ProcessData process) {
+                validated.add(process.getId());
+                return super.validateProcess(process);
+            }
+
+            @Override
+            protected void dispatch(Action action) {
+                actions.add(action);
+                if (action instanceof EndProgressAction) {
+                    finished.countDown();
+                }
+            }
+        };
+        for (int i = 0; i < 5; i++) {
+            validator.requestBatchValidation(ImixsValidationSnapshot.read(model), Collections.emptyList());
+        }
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        // wait longer than the debounce window - no further run is started
+        Thread.sleep(2 * ImixsValidationScheduler.DEFAULT_DEBOUNCE);
+        assertEquals(List.of("process_1", "process_2"), validated);
+        assertEquals(1, actions.stream().filter(EndProgressAction.class::isInstance).count());
+        assertEquals(1, actions.stream().filter(SetMarkersAction.class::isInstance).count());
+    }
+
+    private BPMNModel readModel() throws Exception {
+        return BPMNModelFactory.read(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+    }
+}
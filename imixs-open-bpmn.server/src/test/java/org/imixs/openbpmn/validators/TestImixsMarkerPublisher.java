@@ -0,0 +1,194 @@
+package org.imixs.openbpmn.validators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.glsp.server.actions.Action;
+import org.eclipse.glsp.server.actions.EndProgressAction;
+import org.eclipse.glsp.server.actions.StartProgressAction;
+import org.eclipse.glsp.server.actions.UpdateProgressAction;
+import org.eclipse.glsp.server.features.validation.Marker;
+import org.eclipse.glsp.server.features.validation.MarkerKind;
+import org.eclipse.glsp.server.features.validation.SetMarkersAction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the ImixsMarkerPublisher
+ * 
+ */
+public class TestImixsMarkerPublisher {
+
+    /**
+     * Publishes two runs and verifies the progress actions and that only changed
+     * processes are sent
+     */
+    @Test
+    public void testPublish() {
+        List<Action> actions = new ArrayList<>();
+        ImixsMarkerPublisher publisher = new ImixsMarkerPublisher(actions::add, true);
+
+        Map<String, List<Marker>> markers = new LinkedHashMap<>();
+        markers.put("process_1", List.of(marker("Task_1")));
+        markers.put("process_2", Collections.emptyList());
+        assertTrue(publish(publisher, publisher.nextRun(), markers, Collections.emptyList()));
+
+        assertTrue(actions.get(0) instanceof StartProgressAction);
+        assertTrue(actions.get(actions.size() - 1) instanceof EndProgressAction);
+        assertEquals("finished", ((EndProgressAction) actions.get(actions.size() - 1)).getMessage());
+        List<SetMarkersAction> sent = filter(actions, SetMarkersAction.class);
+        assertEquals(1, sent.size());
+        assertEquals("batch:process_1", sent.get(0).getReason());
+        List<UpdateProgressAction> progress = filter(actions, UpdateProgressAction.class);
+        assertEquals(2, progress.size());
+        assertEquals(100, progress.get(1).getPercentage());
+
+        // second run: process_1 fixed, process_2 broken
+        actions.clear();
+        markers.put("process_1", Collections.emptyList());
+        markers.put("process_2", List.of(marker("Task_2")));
+        assertTrue(publish(publisher, publisher.nextRun(), markers, Collections.emptyList()));
+        sent = filter(actions, SetMarkersAction.class);
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(0).getMarkers().isEmpty());
+        assertEquals("batch:process_2", sent.get(1).getReason());
+        assertEquals(1, publisher.getMarkers().size());
+
+        // a deleted process is cleared
+        actions.clear();
+        markers.remove("process_2");
+        assertTrue(publish(publisher, publisher.nextRun(), markers, Collections.emptyList()));
+        sent = filter(actions, SetMarkersAction.class);
+        assertEquals(1, sent.size());
+        assertEquals("batch:process_2", sent.get(0).getReason());
+        assertTrue(sent.get(0).getMarkers().isEmpty());
+        assertTrue(publisher.getMarkers().isEmpty());
+    }
+
+    /**
+     * In full mode the complete marker list is sent once at the end of a run
+     */
+    @Test
+    public void testFullMode() {
+        List<Action> actions = new ArrayList<>();
+        ImixsMarkerPublisher publisher = new ImixsMarkerPublisher(actions::add, false);
+        Marker defaultMarker = new Marker("Flow", "Missing target", "Flow_1", MarkerKind.WARNING);
+
+        Map<String, List<Marker>> markers = new LinkedHashMap<>();
+        markers.put("process_1", List.of(marker("Task_1")));
+        markers.put("process_2", List.of(marker("Task_2")));
+        markers.put("process_3", Collections.emptyList());
+        assertTrue(publish(publisher, publisher.nextRun(), markers, List.of(defaultMarker)));
+        List<SetMarkersAction> sent = filter(actions, SetMarkersAction.class);
+        assertEquals(1, sent.size());
+        assertEquals("batch", sent.get(0).getReason());
+        assertEquals(3, sent.get(0).getMarkers().size());
+        assertEquals("Flow_1", sent.get(0).getMarkers().get(0).getElementId());
+        // the list is sent after the last process
+        assertTrue(actions.get(actions.size() - 2) instanceof SetMarkersAction);
+
+        // the complete list is sent with each run
+        actions.clear();
+        assertTrue(publish(publisher, publisher.nextRun(), markers, List.of(defaultMarker)));
+        assertEquals(1, filter(actions, SetMarkersAction.class).size());
+
+        // one change results in one complete list
+        actions.clear();
+        markers.put("process_2", Collections.emptyList());
+        assertTrue(publish(publisher, publisher.nextRun(), markers, List.of(defaultMarker)));
+        sent = filter(actions, SetMarkersAction.class);
+        assertEquals(1, sent.size());
+        assertEquals(2, sent.get(0).getMarkers().size());
+    }
+
+    /**
+     * A run is cancelled by a newer run before the next process is validated
+     */
+    @Test
+    public void testCancel() {
+        List<Action> actions = new ArrayList<>();
+        ImixsMarkerPublisher[] publisher = new ImixsMarkerPublisher[1];
+        publisher[0] = new ImixsMarkerPublisher(action -> {
+            actions.add(action);
+            if (action instanceof SetMarkersAction) {
+                // a new request arrives during the run
+                publisher[0].nextRun();
+            }
+        }, true);
+        Map<String, List<Marker>> markers = new LinkedHashMap<>();
+        markers.put("process_1", List.of(marker("Task_1")));
+        markers.put("process_2", List.of(marker("Task_2")));
+        List<String> validated = new ArrayList<>();
+        long runId = publisher[0].nextRun();
+        assertFalse(publisher[0].publish(runId, new ArrayList<>(markers.keySet()), processId -> {
+            validated.add(processId);
+            return markers.get(processId);
+        }, Collections.emptyList()));
+        // the second process is not validated
+        assertEquals(List.of("process_1"), validated);
+        assertEquals(1, filter(actions, SetMarkersAction.class).size());
+        assertEquals("cancelled", ((EndProgressAction) actions.get(actions.size() - 1)).getMessage());
+
+        // an outdated run publishes nothing
+        actions.clear();
+        assertFalse(publish(publisher[0], runId, markers, Collections.emptyList()));
+        assertTrue(actions.isEmpty());
+    }
+
+    /**
+     * Publishes through the ImixsValidationScheduler - a burst of runs results in
+     * one publication of the latest markers
+     */
+    @Test
+    public void testAsync() throws InterruptedException {
+        List<Action> actions = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        ImixsMarkerPublisher publisher = new ImixsMarkerPublisher(action -> {
+            actions.add(action);
+            if (action instanceof EndProgressAction) {
+                finished.countDown();
+            }
+        }, true);
+        ImixsValidationScheduler scheduler = new ImixsValidationScheduler(50);
+        for (int i = 1; i <= 5; i++) {
+            Map<String, List<Marker>> markers = new LinkedHashMap<>();
+            markers.put("process_1", List.of(marker("Task_" + i)));
+            long runId = publisher.nextRun();
+            scheduler.schedule(() -> publish(publisher, runId, markers, Collections.emptyList()));
+        }
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        List<SetMarkersAction> sent = filter(actions, SetMarkersAction.class);
+        assertEquals(1, sent.size());
+        assertEquals("Task_5", sent.get(0).getMarkers().get(0).getElementId());
+        assertEquals(4, scheduler.getCoalescedCount());
+    }
+
+    private static boolean publish(ImixsMarkerPublisher publisher, long runId, Map<String, List<Marker>> markers,
+            List<Marker> defaultMarkers) {
+        return publisher.publish(runId, new ArrayList<>(markers.keySet()), markers::get, defaultMarkers);
+    }
+
+    private static Marker marker(String elementId) {
+        return new Marker("Task", "The Task ID 1000 is already used within this process.", elementId,
+                MarkerKind.ERROR);
+    }
+
+    private static <T> List<T> filter(List<Action> actions, Class<T> type) {
+        List<T> result = new ArrayList<>();
+        for (Action action : actions) {
+            if (type.isInstance(action)) {
+                result.add(type.cast(action));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package org.imixs.openbpmn.validators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the ImixsValidationScheduler
+ *
+ */
+public class TestImixsValidationScheduler {
+
+    /**
+     * A burst of requests results in only one execution of the latest request
+     */
+    @Test
+    public void testDebounce() throws InterruptedException {
+        ImixsValidationScheduler scheduler = new ImixsValidationScheduler(50);
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 1; i <= 5; i++) {
+            int request = i;
+            scheduler.schedule(() -> {
+                executed.add(request);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(150);
+        assertEquals(List.of(5), executed);
+        assertEquals(4, scheduler.getCoalescedCount());
+    }
+
+    /**
+     * A request arriving during a running task is executed after the running
+     * task has finished. Tasks never run in parallel.
+     */
+    @Test
+    public void testRunningTask() throws InterruptedException {
+        ImixsValidationScheduler scheduler = new ImixsValidationScheduler(10);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.schedule(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executed.add("first");
+            running.decrementAndGet();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scheduler.schedule(() -> executed.add("replaced"));
+        scheduler.schedule(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            executed.add("latest");
+            running.decrementAndGet();
+            done.countDown();
+        });
+        // wait longer than the window - the latest request must not start yet
+        Thread.sleep(100);
+        assertTrue(executed.isEmpty());
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "latest"), executed);
+        assertEquals(1, maxRunning.get());
+    }
+
+    /**
+     * A cancelled request is not executed
+     */
+    @Test
+    public void testCancel() throws InterruptedException {
+        ImixsValidationScheduler scheduler = new ImixsValidationScheduler(50);
+        AtomicInteger executed = new AtomicInteger();
+        scheduler.schedule(executed::incrementAndGet);
+        scheduler.cancel();
+        Thread.sleep(200);
+        assertEquals(0, executed.get());
+    }
+}
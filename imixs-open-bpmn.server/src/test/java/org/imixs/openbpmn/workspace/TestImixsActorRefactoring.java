@@ -0,0 +1,103 @@
+package org.imixs.openbpmn.workspace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test the ImixsActorRefactoring
+ *
+ */
+public class TestImixsActorRefactoring {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:extensionElements>\n"
+            + "    <imixs:item name=\"txtfieldmapping\" type=\"xs:string\">\n"
+            + "      <imixs:value><![CDATA[Team|namteam]]></imixs:value>\n"
+            + "      <imixs:value><![CDATA[Manager|nammanager]]></imixs:value>\n"
+            + "    </imixs:item>\n"
+            + "  </bpmn2:extensionElements>\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:intermediateCatchEvent id=\"Event_1\" imixs:activityid=\"10\">\n"
+            + "      <bpmn2:extensionElements>\n"
+            + "        <imixs:item name=\"keyownershipfields\" type=\"xs:string\">\n"
+            + "          <imixs:value>nammanager</imixs:value>\n"
+            + "          <imixs:value><![CDATA[namteam]]></imixs:value>\n"
+            + "          <imixs:value>namcreator</imixs:value>\n"
+            + "          <imixs:value>namteam</imixs:value>\n"
+            + "        </imixs:item>\n"
+            + "        <imixs:item name=\"txtmailsubject\" type=\"xs:string\">"
+            + "<imixs:value>namteam</imixs:value></imixs:item>\n"
+            + "      </bpmn2:extensionElements>\n"
+            + "    </bpmn2:intermediateCatchEvent>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * A rename replaces all matching values in place. The order and
+     * multiplicity of the values and the rest of the file are kept.
+     */
+    @Test
+    public void testRename() throws IOException {
+        Path file = write("a.bpmn", MODEL);
+        ImixsActorRefactoring.Result result = new ImixsActorRefactoring("namteam", "namprojectteam")
+                .refactor(tempDir);
+        assertEquals(List.of(file), result.getFilesUpdated());
+        assertEquals(2, result.getElementsUpdated());
+        String expected = MODEL.replace("Team|namteam", "Team|namprojectteam")
+                .replace("<![CDATA[namteam]]>", "<![CDATA[namprojectteam]]>")
+                .replace("<imixs:value>namteam</imixs:value>\n", "<imixs:value>namprojectteam</imixs:value>\n");
+        assertEquals(expected, Files.readString(file, StandardCharsets.UTF_8));
+        // other items are not changed
+        assertTrue(Files.readString(file, StandardCharsets.UTF_8)
+                .contains("<imixs:value>namteam</imixs:value></imixs:item>"));
+    }
+
+    /**
+     * A remove deletes the lines of all matching values
+     */
+    @Test
+    public void testRemove() throws IOException {
+        Path file = write("a.bpmn", MODEL);
+        ImixsActorRefactoring.Result result = new ImixsActorRefactoring("namteam", null).refactor(tempDir);
+        assertEquals(2, result.getElementsUpdated());
+        String expected = MODEL.replace("      <imixs:value><![CDATA[Team|namteam]]></imixs:value>\n", "")
+                .replace("          <imixs:value><![CDATA[namteam]]></imixs:value>\n", "")
+                .replace("          <imixs:value>namteam</imixs:value>\n", "");
+        assertEquals(expected, Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A file not using the value is not written
+     */
+    @Test
+    public void testNoMatch() throws IOException {
+        Path file = write("a.bpmn", MODEL);
+        FileTime modified = FileTime.fromMillis(1000000);
+        Files.setLastModifiedTime(file, modified);
+        ImixsActorRefactoring.Result result = new ImixsActorRefactoring("namassist", "namassistant")
+                .refactor(tempDir);
+        assertEquals(1, result.getFilesScanned());
+        assertTrue(result.getFilesUpdated().isEmpty());
+        assertEquals(modified, Files.getLastModifiedTime(file));
+        assertEquals(MODEL, Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,182 @@
+package org.imixs.openbpmn.workspace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import org.imixs.openbpmn.extensions.ImixsExtensionUtil;
+import org.imixs.openbpmn.util.ImixsIdRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Test the ImixsChangeJournal
+ * 
+ */
+public class TestImixsChangeJournal {
+
+    private static final String MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn2:definitions xmlns:bpmn2=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:imixs=\"http://www.imixs.org/bpmn2\" id=\"definitions_1\">\n"
+            + "  <bpmn2:process id=\"process_1\">\n"
+            + "    <bpmn2:task id=\"Task_1\" imixs:processid=\"1000\" name=\"Task 1\"/>\n"
+            + "  </bpmn2:process>\n"
+            + "</bpmn2:definitions>\n";
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Changes of a crashed session are restored on request only
+     */
+    @Test
+    public void testRecovery() throws Exception {
+        Path modelFile = writeModel(MODEL);
+        BPMNModel model = BPMNModelFactory.read(Files.newInputStream(modelFile));
+        ImixsChangeJournal journal = ImixsChangeJournal.open(model, modelFile);
+        assertEquals(0, journal.getRecoverableChanges());
+        // no journal file without changes
+        assertFalse(Files.exists(journal.getFile()));
+
+        Element task = findElement(model, "Task_1");
+        ImixsExtensionUtil.setItemValue(model, task, "txtname", "xs:string", "a");
+        ImixsExtensionUtil.setItemValue(model, task, "txtname", "xs:string", "b");
+        ImixsExtensionUtil.setItemValueList(model, task, "keyacl", "xs:string", List.of("x", "y"), null);
+        // the session ends without a save, like a crash
+        journal.close();
+        assertTrue(Files.exists(journal.getFile()));
+        // a torn record at the end
+        Files.write(journal.getFile(), new byte[] { 0, 0, 1, 0, 1, 2 }, StandardOpenOption.APPEND);
+
+        BPMNModel reopened = BPMNModelFactory.read(Files.newInputStream(modelFile));
+        journal = ImixsChangeJournal.open(reopened, modelFile);
+        assertEquals(2, journal.getRecoverableChanges());
+        Element reopenedTask = findElement(reopened, "Task_1");
+        // nothing is applied without a request
+        assertTrue(ImixsExtensionUtil.getItemValueString(reopened, reopenedTask, "txtname").isEmpty());
+
+        assertEquals(2, journal.restore(reopened));
+        assertEquals("b", ImixsExtensionUtil.getItemValueString(reopened, reopenedTask, "txtname"));
+        assertEquals(List.of("x", "y"), ImixsExtensionUtil.getItemValueList(reopened, reopenedTask, "keyacl"));
+        assertEquals(0, journal.getRecoverableChanges());
+        journal.close();
+
+        // the restored changes are part of the new journal
+        journal = ImixsChangeJournal.open(BPMNModelFactory.read(Files.newInputStream(modelFile)), modelFile);
+        assertEquals(2, journal.getRecoverableChanges());
+        journal.discard();
+        journal.close();
+        journal = ImixsChangeJournal.open(BPMNModelFactory.read(Files.newInputStream(modelFile)), modelFile);
+        assertEquals(0, journal.getRecoverableChanges());
+        journal.close();
+    }
+
+    /**
+     * A restored task id is registered in the id registry
+     */
+    @Test
+    public void testRestoreTaskId() throws Exception {
+        Path modelFile = writeModel(MODEL.replace("  </bpmn2:process>\n", "  </bpmn2:process>\n"
+                + "  <bpmn2:process id=\"process_2\">\n"
+                + "    <bpmn2:task id=\"Task_2\" imixs:processid=\"2000\" name=\"Task 2\"/>\n"
+                + "  </bpmn2:process>\n"));
+        BPMNModel model = BPMNModelFactory.read(Files.newInputStream(modelFile));
+        ImixsChangeJournal journal = ImixsChangeJournal.open(model, modelFile);
+        ImixsExtensionUtil.setExtensionAttribute(model.findElementNodeById("Task_2"), "processid", "1000");
+        journal.close();
+
+        BPMNModel reopened = BPMNModelFactory.read(Files.newInputStream(modelFile));
+        journal = ImixsChangeJournal.open(reopened, modelFile);
+        ImixsIdRegistry registry = ImixsIdRegistry.getInstance(reopened);
+        assertTrue(registry.findOtherProcesses("1000", "process_1").isEmpty());
+        assertEquals(1, journal.restore(reopened));
+        assertEquals(Set.of("process_2"), registry.findOtherProcesses("1000", "process_1"));
+        journal.discard();
+        journal.close();
+    }
+
+    /**
+     * A journal is not restored if the model file was changed by another editor
+     */
+    @Test
+    public void testStaleJournal() throws Exception {
+        Path modelFile = writeModel(MODEL);
+        BPMNModel model = BPMNModelFactory.read(Files.newInputStream(modelFile));
+        ImixsChangeJournal journal = ImixsChangeJournal.open(model, modelFile);
+        ImixsExtensionUtil.setItemValue(model, findElement(model, "Task_1"), "txtname", "xs:string", "a");
+        journal.close();
+        assertTrue(Files.exists(journal.getFile()));
+
+        // external update of the model file
+        writeModel(MODEL.replace("Task 1", "Task One"));
+        journal = ImixsChangeJournal.open(BPMNModelFactory.read(Files.newInputStream(modelFile)), modelFile);
+        assertEquals(0, journal.getRecoverableChanges());
+        assertFalse(Files.exists(journal.getFile()));
+        journal.close();
+    }
+
+    /**
+     * A save starts a new journal. If the model file was not written the
+     * previous journal is continued.
+     */
+    @Test
+    public void testCheckpoint() throws Exception {
+        Path modelFile = writeModel(MODEL);
+        BPMNModel model = BPMNModelFactory.read(Files.newInputStream(modelFile));
+        Element task = findElement(model, "Task_1");
+        ImixsChangeJournal journal = ImixsChangeJournal.open(model, modelFile);
+        ImixsExtensionUtil.setItemValue(model, task, "txtname", "xs:string", "a");
+
+        // successful save
+        journal.checkpoint();
+        writeModel(MODEL.replace("Task 1", "Task A"));
+        ImixsExtensionUtil.setItemValue(model, task, "txtsubject", "xs:string", "b");
+        journal.close();
+        journal = ImixsChangeJournal.open(BPMNModelFactory.read(Files.newInputStream(modelFile)), modelFile);
+        // only the change after the save is recoverable
+        assertEquals(1, journal.getRecoverableChanges());
+        journal.discard();
+        journal.close();
+
+        // failed save - the model file is not written
+        model = BPMNModelFactory.read(Files.newInputStream(modelFile));
+        task = findElement(model, "Task_1");
+        journal = ImixsChangeJournal.open(model, modelFile);
+        ImixsExtensionUtil.setItemValue(model, task, "txtname", "xs:string", "c");
+        journal.checkpoint();
+        ImixsExtensionUtil.setItemValue(model, task, "txtsubject", "xs:string", "d");
+        journal.close();
+        journal = ImixsChangeJournal.open(BPMNModelFactory.read(Files.newInputStream(modelFile)), modelFile);
+        assertEquals(2, journal.getRecoverableChanges());
+        journal.close();
+    }
+
+    private Path writeModel(String xml) throws IOException {
+        Path modelFile = tempDir.resolve("model.bpmn");
+        Files.write(modelFile, xml.getBytes(StandardCharsets.UTF_8));
+        return modelFile;
+    }
+
+    private static Element findElement(BPMNModel model, String id) {
+        NodeList nodes = model.getDoc().getElementsByTagNameNS("*", "*");
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Element element = (Element) nodes.item(i);
+            if (id.equals(element.getAttribute("id"))) {
+                return element;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,91 @@
+package org.imixs.openbpmn.workspace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.imixs.openbpmn.util.ImixsModelGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test the ImixsModelCatalog with generated models
+ * 
+ */
+public class TestImixsModelCatalog {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Scans a directory with three models and verifies the catalog queries
+     */
+    @Test
+    public void testQueries() throws IOException {
+        generate("a.bpmn", 1, 1);
+        generate("sub/b.bpmn", 2, 2);
+        generate("sub/c.bpmn", 3, 1);
+
+        ImixsModelCatalog catalog = new ImixsModelCatalog(tempDir);
+        assertEquals(3, catalog.refresh());
+        assertEquals(3, catalog.getModels().size());
+
+        ImixsModelInfo info = catalog.getModel("sub/b.bpmn");
+        assertEquals("generated-2-1.0", info.getModelVersion());
+        assertEquals(2 * 5, info.getTasks().size());
+        assertEquals(5, info.getDefinitionItem("txtplugins").size());
+        assertEquals(3, info.getDefinitionItem("txtfieldmapping").size());
+
+        assertEquals(3, catalog.findByPlugin("org.imixs.workflow.engine.plugins.MailPlugin").size());
+        assertEquals(0, catalog.findByPlugin("org.imixs.workflow.engine.plugins.UnknownPlugin").size());
+        List<ImixsModelInfo> result = catalog.findByModelVersion("generated-3-1.0");
+        assertEquals(1, result.size());
+        assertEquals("sub/c.bpmn", result.get(0).getPath());
+        // task 1000 exists in all models, task 1500 only in the model with 2 processes
+        assertEquals(3, catalog.findByTaskId("1000").size());
+        assertEquals(1, catalog.findByTaskId("1500").size());
+    }
+
+    /**
+     * Verifies that only changed files are read and that the index is reloaded
+     */
+    @Test
+    public void testIncrementalRefresh() throws IOException {
+        generate("a.bpmn", 1, 1);
+        generate("b.bpmn", 2, 1);
+        ImixsModelCatalog catalog = new ImixsModelCatalog(tempDir);
+        assertEquals(2, catalog.refresh());
+        assertEquals(0, catalog.refresh());
+        assertTrue(Files.exists(tempDir.resolve(ImixsModelCatalog.DEFAULT_INDEX_FILE)));
+
+        // change one file
+        generate("a.bpmn", 4, 1);
+        Files.setLastModifiedTime(tempDir.resolve("a.bpmn"), FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        assertEquals(1, catalog.refresh());
+        assertEquals("generated-4-1.0", catalog.getModel("a.bpmn").getModelVersion());
+
+        // delete one file
+        Files.delete(tempDir.resolve("b.bpmn"));
+        assertEquals(0, catalog.refresh());
+        assertEquals(1, catalog.getModels().size());
+
+        // a new catalog instance loads the index file
+        ImixsModelCatalog reloaded = new ImixsModelCatalog(tempDir);
+        assertEquals(1, reloaded.getModels().size());
+        assertEquals(0, reloaded.refresh());
+        assertEquals(5, reloaded.getModel("a.bpmn").getTasks().size());
+        assertEquals("generated-4-1.0", reloaded.getModel("a.bpmn").getModelVersion());
+    }
+
+    private void generate(String path, long seed, int processes) throws IOException {
+        Path file = tempDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        new ImixsModelGenerator(seed).processes(processes).tasksPerProcess(5).eventsPerTask(2).actors(3)
+                .generate(file);
+    }
+}